@@ -0,0 +1,80 @@
+package benchmark;
+
+import cart.CartItem;
+import cart.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pricing.BulkPricer;
+import pricing.CartDescription;
+import pricing.PricingRules;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to price a batch of carts with BulkPricer, run with "-p parallelism=1,2,4..." to see how it scales with cores.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkPricerBenchmark {
+
+    @Param({"100000"})
+    private int numberOfCarts;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    @Param({"100"})
+    private int numberOfCampaigns;
+
+    private List<CartDescription> carts;
+    private ForkJoinPool forkJoinPool;
+    private BulkPricer bulkPricer;
+
+    @Setup
+    public void setUp() {
+        CartFixture cartFixture = new CartFixture(1000, 1, 3, numberOfCampaigns);
+        Random random = new Random(42);
+
+        carts = new ArrayList<>(numberOfCarts);
+        for (int cartId = 0; cartId < numberOfCarts; cartId++) {
+            List<CartItem> items = new ArrayList<>();
+            for (int line = 1 + random.nextInt(20); line > 0; line--) {
+                Product product = cartFixture.products[random.nextInt(cartFixture.products.length)];
+                items.add(new CartItem(product, 1 + random.nextInt(5)));
+            }
+            carts.add(new CartDescription(cartId, items));
+        }
+
+        forkJoinPool = new ForkJoinPool(parallelism);
+        bulkPricer = new BulkPricer(PricingRules.of(cartFixture.campaigns), forkJoinPool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        forkJoinPool.shutdown();
+    }
+
+    @Benchmark
+    public void priceAll(Blackhole blackhole) {
+        bulkPricer.priceAll(carts.stream(), blackhole::consume);
+    }
+}
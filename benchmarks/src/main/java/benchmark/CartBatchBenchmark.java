@@ -0,0 +1,83 @@
+package benchmark;
+
+import cart.CartItem;
+import cart.Product;
+import cart.ShoppingCart;
+import discount.campaign.CampaignIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pricing.CartBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maximum campaign discount of many carts, evaluated column by column with CartBatch
+ * and cart by cart with ShoppingCart.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CartBatchBenchmark {
+
+    @Param({"10000"})
+    private int numberOfCarts;
+
+    @Param({"10", "100"})
+    private int numberOfCampaigns;
+
+    private CartFixture cartFixture;
+    private CampaignIndex campaignIndex;
+    private CartBatch cartBatch;
+    private ShoppingCart[] shoppingCarts;
+
+    @Setup
+    public void setUp() {
+        cartFixture = new CartFixture(1000, 1, 3, numberOfCampaigns);
+        campaignIndex = CampaignIndex.of(cartFixture.campaigns);
+        Random random = new Random(42);
+
+        CartBatch.Builder builder = new CartBatch.Builder();
+        shoppingCarts = new ShoppingCart[numberOfCarts];
+        for (int cart = 0; cart < numberOfCarts; cart++) {
+            List<CartItem> items = new ArrayList<>();
+            for (int line = 1 + random.nextInt(20); line > 0; line--) {
+                Product product = cartFixture.products[random.nextInt(cartFixture.products.length)];
+                items.add(new CartItem(product, 1 + random.nextInt(5)));
+            }
+            builder.addCart(cart, items);
+            shoppingCarts[cart] = new ShoppingCart();
+            shoppingCarts[cart].addItems(items);
+        }
+        cartBatch = builder.build();
+    }
+
+    @Benchmark
+    public long[] cartBatch() {
+        return cartBatch.getMaximumDiscounts(cartFixture.campaigns);
+    }
+
+    @Benchmark
+    public long shoppingCarts() {
+        long totalDiscount = 0;
+        for (ShoppingCart shoppingCart : shoppingCarts) {
+            shoppingCart.applyCampaigns(campaignIndex);
+            totalDiscount += shoppingCart.getCampaignDiscountInMinorUnits();
+        }
+        return totalDiscount;
+    }
+}
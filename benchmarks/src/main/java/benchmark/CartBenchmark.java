@@ -0,0 +1,134 @@
+package benchmark;
+
+import cart.CartRenderer;
+import cart.ShoppingCart;
+import discount.campaign.CampaignIndex;
+import discount.coupon.ICoupon;
+import discount.coupon.RateCoupon;
+import money.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the cart hot paths, run with "-prof gc" to get allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CartBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int cartSize;
+
+    @Param({"1", "100"})
+    private int quantityPerLine;
+
+    @Param({"1", "5"})
+    private int categoryDepth;
+
+    @Param({"1", "100", "5000"})
+    private int numberOfCampaigns;
+
+    private CartFixture fixture;
+    private ShoppingCart shoppingCart;
+    private CampaignIndex campaignIndex;
+    private ICoupon coupon;
+    private PrintStream standardOut;
+    private CartRenderer textRenderer;
+    private CartRenderer jsonRenderer;
+    private ByteBuffer buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new CartFixture(cartSize, quantityPerLine, categoryDepth, numberOfCampaigns);
+        shoppingCart = fixture.newCart();
+        campaignIndex = CampaignIndex.of(fixture.campaigns);
+        coupon = new RateCoupon(1, 10);
+        textRenderer = new CartRenderer(CartRenderer.Format.TEXT);
+        jsonRenderer = new CartRenderer(CartRenderer.Format.JSON);
+        buffer = ByteBuffer.allocateDirect(1 << 20);
+
+        standardOut = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(standardOut);
+    }
+
+    @Benchmark
+    public ShoppingCart addItem() {
+        return fixture.newCart();
+    }
+
+    @Benchmark
+    public double applyDiscounts() {
+        shoppingCart.applyDiscounts(fixture.campaigns);
+        return shoppingCart.getTotalAmountAfterDiscounts();
+    }
+
+    @Benchmark
+    public double applyCampaigns() {
+        shoppingCart.applyCampaigns(campaignIndex);
+        return shoppingCart.getTotalAmountAfterDiscounts();
+    }
+
+    @Benchmark
+    public double applyCoupon() {
+        shoppingCart.setTotalAmountAfterDiscounts(Money.toMajorUnits(shoppingCart.getTotalPriceInMinorUnits()));
+        shoppingCart.applyCoupon(coupon);
+        return shoppingCart.getTotalAmountAfterDiscounts();
+    }
+
+    @Benchmark
+    public double getDeliveryCost() {
+        return shoppingCart.getDeliveryCost();
+    }
+
+    @Benchmark
+    public void print() {
+        shoppingCart.print();
+    }
+
+    @Benchmark
+    public int renderText() {
+        buffer.clear();
+        shoppingCart.render(textRenderer, buffer);
+        return buffer.position();
+    }
+
+    @Benchmark
+    public int renderJson() {
+        buffer.clear();
+        shoppingCart.render(jsonRenderer, buffer);
+        return buffer.position();
+    }
+}
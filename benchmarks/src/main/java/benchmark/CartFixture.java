@@ -0,0 +1,71 @@
+package benchmark;
+
+import cart.Category;
+import cart.Product;
+import cart.ShoppingCart;
+import discount.campaign.AmountCampaign;
+import discount.campaign.ICampaign;
+import discount.campaign.RateCampaign;
+
+import java.util.Random;
+
+/**
+ * Builds categories, products and campaigns for benchmarks with a fixed seed,
+ * so every run measures the same data.
+ */
+final class CartFixture {
+
+    private static final int NUMBER_OF_ROOT_CATEGORIES = 10;
+    private static final long SEED = 42;
+
+    final Category[][] categories;
+    final Product[] products;
+    final ICampaign[] campaigns;
+    final int quantityPerLine;
+
+    /**
+     * @param cartSize          number of different products
+     * @param quantityPerLine   quantity of each product
+     * @param categoryDepth     number of levels of categories, products are in the deepest level
+     * @param numberOfCampaigns number of campaigns targeting random categories
+     */
+    CartFixture(int cartSize, int quantityPerLine, int categoryDepth, int numberOfCampaigns) {
+        Random random = new Random(SEED);
+        this.quantityPerLine = quantityPerLine;
+
+        //categories[root][level], level 0 is the root category
+        categories = new Category[NUMBER_OF_ROOT_CATEGORIES][categoryDepth];
+        for (int root = 0; root < NUMBER_OF_ROOT_CATEGORIES; root++) {
+            Category parentCategory = null;
+            for (int level = 0; level < categoryDepth; level++) {
+                parentCategory = new Category
+                        .Builder()
+                        .title("category-" + root + "-" + level)
+                        .parentCategory(parentCategory)
+                        .build();
+                categories[root][level] = parentCategory;
+            }
+        }
+
+        products = new Product[cartSize];
+        for (int i = 0; i < cartSize; i++) {
+            Category category = categories[i % NUMBER_OF_ROOT_CATEGORIES][categoryDepth - 1];
+            products[i] = new Product(i, "product-" + i, 1 + random.nextInt(10_000) / 100.0, category);
+        }
+
+        campaigns = new ICampaign[numberOfCampaigns];
+        for (int i = 0; i < numberOfCampaigns; i++) {
+            Category category = categories[random.nextInt(NUMBER_OF_ROOT_CATEGORIES)][random.nextInt(categoryDepth)];
+            int minQuantityOfProduct = random.nextInt(Math.max(1, cartSize * quantityPerLine / NUMBER_OF_ROOT_CATEGORIES));
+            campaigns[i] = i % 2 == 0
+                    ? new RateCampaign(category, 1 + random.nextInt(50), minQuantityOfProduct)
+                    : new AmountCampaign(category, 1 + random.nextInt(100), minQuantityOfProduct);
+        }
+    }
+
+    ShoppingCart newCart() {
+        ShoppingCart shoppingCart = new ShoppingCart();
+        for (Product product : products) shoppingCart.addItem(product, quantityPerLine);
+        return shoppingCart;
+    }
+}
@@ -0,0 +1,82 @@
+package benchmark;
+
+import cart.CartStore;
+import cart.CartStoreView;
+import cart.Product;
+import cart.ShoppingCart;
+import discount.campaign.CampaignIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Campaign discount of many carts kept off heap in a CartStore, priced through one view,
+ * and kept on heap as ShoppingCart objects.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CartStoreBenchmark {
+
+    @Param({"100000"})
+    private int numberOfCarts;
+
+    private CampaignIndex campaignIndex;
+    private CartStoreView view;
+    private ShoppingCart[] shoppingCarts;
+
+    @Setup
+    public void setUp() {
+        CartFixture cartFixture = new CartFixture(1000, 1, 3, 10);
+        campaignIndex = CampaignIndex.of(cartFixture.campaigns);
+        Random random = new Random(42);
+
+        CartStore cartStore = new CartStore();
+        view = cartStore.view();
+        shoppingCarts = new ShoppingCart[numberOfCarts];
+        for (int cart = 0; cart < numberOfCarts; cart++) {
+            view.moveTo(cart);
+            shoppingCarts[cart] = new ShoppingCart();
+            for (int line = 1 + random.nextInt(20); line > 0; line--) {
+                Product product = cartFixture.products[random.nextInt(cartFixture.products.length)];
+                int quantity = 1 + random.nextInt(5);
+                view.addItem(product, quantity);
+                shoppingCarts[cart].addItem(product, quantity);
+            }
+        }
+    }
+
+    @Benchmark
+    public long cartStore() {
+        long totalDiscount = 0;
+        for (int cart = 0; cart < numberOfCarts; cart++) {
+            view.moveTo(cart).applyCampaigns(campaignIndex);
+            totalDiscount += view.getCampaignDiscountInMinorUnits();
+        }
+        return totalDiscount;
+    }
+
+    @Benchmark
+    public long shoppingCarts() {
+        long totalDiscount = 0;
+        for (ShoppingCart shoppingCart : shoppingCarts) {
+            shoppingCart.applyCampaigns(campaignIndex);
+            totalDiscount += shoppingCart.getCampaignDiscountInMinorUnits();
+        }
+        return totalDiscount;
+    }
+}
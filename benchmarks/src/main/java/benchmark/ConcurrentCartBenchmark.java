@@ -0,0 +1,96 @@
+package benchmark;
+
+import cart.CartTotals;
+import cart.ConcurrentShoppingCart;
+import cart.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of one ConcurrentShoppingCart shared by all benchmark threads,
+ * run with "-t 1", "-t 2", "-t 4"... to see how it scales with cores.
+ * addItemFromThreads splits a fixed number of changes between numberOfThreads threads of its own,
+ * so one run compares the thread counts side by side.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentCartBenchmark {
+
+    private static final int CHANGES_PER_INVOCATION = 100_000;
+
+    @Param({"1000"})
+    private int cartSize;
+
+    @Param({"1", "2", "4", "8"})
+    private int numberOfThreads;
+
+    private Product[] products;
+    private ConcurrentShoppingCart shoppingCart;
+    private ExecutorService executorService;
+
+    @Setup(Level.Trial)
+    public void startThreads() {
+        executorService = Executors.newFixedThreadPool(numberOfThreads);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopThreads() {
+        executorService.shutdown();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        products = new CartFixture(cartSize, 1, 3, 0).products;
+        shoppingCart = new ConcurrentShoppingCart();
+        for (Product product : products) shoppingCart.addItem(product, 1);
+    }
+
+    @Benchmark
+    public void addItem() {
+        shoppingCart.addItem(products[ThreadLocalRandom.current().nextInt(products.length)], 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHANGES_PER_INVOCATION)
+    public void addItemFromThreads() throws Exception {
+        List<Future<?>> threads = new ArrayList<>(numberOfThreads);
+        for (int thread = 0; thread < numberOfThreads; thread++) {
+            threads.add(executorService.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = CHANGES_PER_INVOCATION / numberOfThreads; i > 0; i--) {
+                    shoppingCart.addItem(products[random.nextInt(products.length)], 1);
+                }
+            }));
+        }
+        for (Future<?> thread : threads) thread.get();
+    }
+
+    @Benchmark
+    public CartTotals getCartTotals() {
+        return shoppingCart.getCartTotals();
+    }
+}
@@ -1,5 +1,6 @@
 import cart.Category;
 import cart.Product;
+import cart.ProductCatalog;
 import cart.ShoppingCart;
 import discount.campaign.AmountCampaign;
 import discount.campaign.ICampaign;
@@ -7,6 +8,7 @@ import discount.campaign.RateCampaign;
 import discount.coupon.AmountCoupon;
 import discount.coupon.ICoupon;
 import discount.coupon.RateCoupon;
+import money.Money;
 
 public class MainApplication {
 
@@ -34,15 +36,20 @@ public class MainApplication {
                 .title("Fruit")
                 .build();
 
-        Product apple = new Product("Apple", 10.0, fruitCategory);
-        Product banana = new Product("Banana", 15.0, fruitCategory);
-        Product macBook = new Product("MacBook", 12_500.0, laptopCategory);
+        ProductCatalog productCatalog = new ProductCatalog
+                .Builder()
+                .addProduct(new Product(1, "Apple", 10.0, fruitCategory))
+                .addProduct(new Product(2, "Banana", 15.0, fruitCategory))
+                .addProduct(new Product(3, "MacBook", 12_500.0, laptopCategory))
+                .build();
 
+        //Lines are priced with current prices of the catalog, also after a price update
+        ShoppingCart shoppingCart = new ShoppingCart(productCatalog);
+        shoppingCart.addItem(productCatalog.getProduct(1), 15);
+        shoppingCart.addItem(productCatalog.getProduct(2), 10);
+        shoppingCart.addItem(productCatalog.getProduct(3), 1);
 
-        ShoppingCart shoppingCart = new ShoppingCart();
-        shoppingCart.addItem(apple, 15);
-        shoppingCart.addItem(banana, 10);
-        shoppingCart.addItem(macBook, 1);
+        productCatalog.updatePrice(2, Money.of(12.5));
 
         ICampaign campaign1 = new RateCampaign(technologyCategory, 20.0, 3);
         ICampaign campaign2 = new RateCampaign(fruitCategory, 50.0, 5);
@@ -0,0 +1,79 @@
+package cart;
+
+/**
+ * Running totals of a cart, updated on every change of a cart line.
+ * Category totals include parent categories, so each change costs O(depth of the category)
+ * and every read is a single lookup.
+ */
+class CartAggregates {
+
+    /**
+     * total price in minor units
+     */
+    private long totalPrice;
+    private int totalQuantity;
+    private int numberOfProducts;
+
+    /**
+     * quantity and price per category id including parent categories
+     */
+    private final CategoryTotals categoryTotals = new CategoryTotals();
+
+    /**
+     * use to add quantity of a line, priced with the price kept by the line
+     *
+     * @param lines    lines of the cart
+     * @param line     changed line
+     * @param quantity added quantity of the product
+     * @param newLine  true if the product was not in the cart before
+     */
+    void add(CartLines lines, int line, int quantity, boolean newLine) {
+        add(lines, line, quantity, newLine ? 1 : 0);
+    }
+
+    /**
+     * use to change quantity of a line, priced with the price kept by the line,
+     * so totals always match the lines whichever product object of the same id is passed to the cart
+     *
+     * @param lines     lines of the cart
+     * @param line      changed line, it must still be in lines when it is removed
+     * @param quantity  added quantity of the product, negative if quantity is decreased
+     * @param lineDelta 1 if the product is added to cart, -1 if it is removed from cart, otherwise 0
+     */
+    void add(CartLines lines, int line, int quantity, int lineDelta) {
+        long price = Math.multiplyExact(lines.getPrice(line), (long) quantity);
+
+        totalPrice += price;
+        totalQuantity += quantity;
+        numberOfProducts += lineDelta;
+
+        categoryTotals.add(lines.getProduct(line).getCategory(), quantity, price, lineDelta);
+    }
+
+    void clear() {
+        totalPrice = 0;
+        totalQuantity = 0;
+        numberOfProducts = 0;
+        categoryTotals.clear();
+    }
+
+    long getTotalPrice() {
+        return totalPrice;
+    }
+
+    int getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    int getNumberOfProducts() {
+        return numberOfProducts;
+    }
+
+    int getNumberOfCategories() {
+        return categoryTotals.getNumberOfCategories();
+    }
+
+    ICategoryTotals getCategoryTotals() {
+        return categoryTotals;
+    }
+}
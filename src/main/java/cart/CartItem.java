@@ -0,0 +1,32 @@
+package cart;
+
+/**
+ * Product and its quantity, used to change many items of a cart at once
+ */
+public final class CartItem {
+
+    private final Product product;
+    private final int quantity;
+
+    /**
+     * @param product  product of the item
+     * @param quantity amount of the product
+     */
+    public CartItem(Product product, int quantity) {
+        this.product = product;
+        this.quantity = quantity;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public String toString() {
+        return quantity + " x " + (product == null ? null : product.getTitle());
+    }
+}
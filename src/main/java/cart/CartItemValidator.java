@@ -0,0 +1,73 @@
+package cart;
+
+import exception.NullDataException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Validation of items added to carts
+ */
+public final class CartItemValidator {
+
+    static final String PRODUCT_IS_NULL = "Product is NULL!";
+    static final String CATEGORY_IS_NULL = "Category is NULL!";
+    static final String PRODUCT_TITLE_IS_NULL = "Product title is NULL!";
+    static final String PRODUCT_PRICE_IS_INVALID = "Product price is invalid!";
+    static final String QUANTITY_IS_LESS_THAN_ONE = "Quantity of product is less than 1!";
+    static final String ITEMS_IS_NULL = "Items are NULL!";
+    static final String ITEM_IS_NULL = "Item is NULL!";
+
+    private CartItemValidator() {
+    }
+
+    /**
+     * use to validate item before adding to cart
+     *
+     * @param product  added product
+     * @param quantity amount of the product
+     */
+    static void validate(Product product, int quantity) {
+        ValidationReport.Problem problem = getProblem(product, quantity);
+        if (problem != null) throw problem.toException();
+    }
+
+    /**
+     * use to validate item without throwing, so a whole batch can be reported at once
+     *
+     * @param product  added product
+     * @param quantity amount of the product
+     * @return ValidationReport.Problem first problem of the item, null if the item is valid
+     */
+    public static ValidationReport.Problem getProblem(Product product, int quantity) {
+        if (product == null) return ValidationReport.Problem.PRODUCT_IS_NULL;
+        if (product.getCategory() == null) return ValidationReport.Problem.CATEGORY_IS_NULL;
+        if (product.getTitle() == null) return ValidationReport.Problem.PRODUCT_TITLE_IS_NULL;
+        if (product.getPriceInMinorUnits() <= 0) return ValidationReport.Problem.PRODUCT_PRICE_IS_INVALID;
+        if (quantity < 1) return ValidationReport.Problem.QUANTITY_IS_LESS_THAN_ONE;
+        return null;
+    }
+
+    /**
+     * use to validate a batch of items before adding to cart
+     *
+     * @param items added items
+     * @return ValidationReport problems of all items
+     */
+    public static ValidationReport validate(Collection<CartItem> items) {
+        Optional.ofNullable(items).orElseThrow(() -> new NullDataException(ITEMS_IS_NULL));
+
+        List<ValidationReport.ItemError> errors = new ArrayList<>();
+        int position = 0;
+        for (CartItem item : items) {
+            ValidationReport.Problem problem = item == null
+                    ? ValidationReport.Problem.ITEM_IS_NULL
+                    : getProblem(item.getProduct(), item.getQuantity());
+            if (problem != null) errors.add(new ValidationReport.ItemError(position, item, problem));
+            position++;
+        }
+        return errors.isEmpty() ? ValidationReport.VALID : new ValidationReport(errors);
+    }
+}
@@ -0,0 +1,382 @@
+package cart;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Lines of a cart stored in primitive arrays.
+ * Lines are kept densely in insertion order and found by product id through an open addressing index,
+ * so an update is a single probe and a scan over lines does not allocate.
+ */
+class CartLines implements ICartLines {
+
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private Product[] products;
+    private long[] productIds;
+    private int[] quantities;
+    private long[] prices;
+    private int size;
+
+    /**
+     * long sum of fingerprints of lines, independent of order of lines
+     */
+    private long fingerprint;
+
+    /**
+     * int[] open addressing index from product id to line
+     */
+    private int[] index;
+
+    /**
+     * lines changed and products removed since last clearChanges, only if changes are tracked
+     */
+    private final boolean trackChanges;
+    private int[] changedLines;
+    private boolean[] changed;
+    private int numberOfChangedLines;
+    private final List<Product> removedProducts = new ArrayList<>();
+
+    private Map<Product, Integer> mapView;
+
+    CartLines() {
+        this(false);
+    }
+
+    /**
+     * @param trackChanges true to keep changed lines and removed products until clearChanges
+     */
+    CartLines(boolean trackChanges) {
+        this.trackChanges = trackChanges;
+        products = new Product[INITIAL_CAPACITY];
+        productIds = new long[INITIAL_CAPACITY];
+        quantities = new int[INITIAL_CAPACITY];
+        prices = new long[INITIAL_CAPACITY];
+        changedLines = new int[INITIAL_CAPACITY];
+        changed = new boolean[INITIAL_CAPACITY];
+        index = new int[INITIAL_CAPACITY * 2];
+        Arrays.fill(index, EMPTY);
+    }
+
+    /**
+     * use to add product or update quantity of product
+     *
+     * @param product  added product
+     * @param quantity added quantity of the product
+     * @return boolean true if the product was not in lines before
+     */
+    boolean add(Product product, int quantity) {
+        int line = lineOf(product);
+        if (line == EMPTY) {
+            insert(product, quantity);
+            return true;
+        }
+        fingerprint -= fingerprintOf(line);
+        quantities[line] += quantity;
+        fingerprint += fingerprintOf(line);
+        markChanged(line);
+        return false;
+    }
+
+    /**
+     * use to set quantity of product, product is added if it is not in lines
+     *
+     * @param product  product of the line
+     * @param quantity new quantity of the product
+     * @return int previous quantity of the product, 0 if the product was not in lines
+     */
+    int set(Product product, int quantity) {
+        int line = lineOf(product);
+        if (line == EMPTY) {
+            insert(product, quantity);
+            return 0;
+        }
+        int previousQuantity = quantities[line];
+        fingerprint -= fingerprintOf(line);
+        quantities[line] = quantity;
+        fingerprint += fingerprintOf(line);
+        markChanged(line);
+        return previousQuantity;
+    }
+
+    /**
+     * use to price a line with another product of the same id, for example the product with a new price of a catalog
+     *
+     * @param line    repriced line
+     * @param product product of the same id with its new price
+     */
+    void reprice(int line, Product product) {
+        fingerprint -= fingerprintOf(line);
+        products[line] = product;
+        prices[line] = product.getPriceInMinorUnits();
+        fingerprint += fingerprintOf(line);
+        markChanged(line);
+    }
+
+    /**
+     * use to remove line of product, last line is moved to its place
+     *
+     * @param product removed product
+     * @return int removed quantity of the product, 0 if the product was not in lines
+     */
+    int remove(Product product) {
+        int slot = slotOf(product);
+        if (index[slot] == EMPTY) return 0;
+        int line = index[slot];
+        int removedQuantity = quantities[line];
+        fingerprint -= fingerprintOf(line);
+        if (trackChanges) removedProducts.add(products[line]);
+
+        removeSlot(slot);
+        int last = size - 1;
+        if (line != last) {
+            index[slotOf(products[last])] = line;
+            products[line] = products[last];
+            productIds[line] = productIds[last];
+            quantities[line] = quantities[last];
+            prices[line] = prices[last];
+            markChanged(line);
+        }
+        products[last] = null;
+        size--;
+        return removedQuantity;
+    }
+
+    /**
+     * use to remove all lines, capacity is kept so lines can be reused for another cart
+     */
+    void clear() {
+        if (size < index.length >>> 3) clearSlotsOfLines();
+        else Arrays.fill(index, EMPTY);
+        Arrays.fill(products, 0, size, null);
+        size = 0;
+        fingerprint = 0;
+        clearChanges();
+    }
+
+    /**
+     * Clearing only used slots keeps clear proportional to size after a large cart has grown the index
+     */
+    private void clearSlotsOfLines() {
+        int mask = index.length - 1;
+        for (int line = 0; line < size; line++) {
+            int slot = products[line].hashCode() & mask;
+            while (index[slot] != line) slot = (slot + 1) & mask;
+            index[slot] = EMPTY;
+        }
+    }
+
+    private void insert(Product product, int quantity) {
+        if (size == products.length) grow();
+        index[slotOf(product)] = size;
+        products[size] = product;
+        productIds[size] = product.getId();
+        quantities[size] = quantity;
+        prices[size] = product.getPriceInMinorUnits();
+        fingerprint += fingerprintOf(size);
+        markChanged(size);
+        size++;
+    }
+
+    /**
+     * @return int slot of the product in index, or the empty slot where it would be inserted
+     */
+    private int slotOf(Product product) {
+        int mask = index.length - 1;
+        long productId = product.getId();
+        int slot = product.hashCode() & mask;
+        while (index[slot] != EMPTY && productIds[index[slot]] != productId) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Linear probing needs the following lines of the cluster to be placed again
+     */
+    private void removeSlot(int slot) {
+        int mask = index.length - 1;
+        index[slot] = EMPTY;
+        for (int next = (slot + 1) & mask; index[next] != EMPTY; next = (next + 1) & mask) {
+            int line = index[next];
+            index[next] = EMPTY;
+            index[slotOf(products[line])] = line;
+        }
+    }
+
+    private void markChanged(int line) {
+        if (!trackChanges || changed[line]) return;
+        changed[line] = true;
+        changedLines[numberOfChangedLines++] = line;
+    }
+
+    /**
+     * use to mark all lines as changed, for example when a version of lines is created again from all of them
+     */
+    void markAllChanged() {
+        for (int line = 0; line < size; line++) markChanged(line);
+    }
+
+    /**
+     * @return int number of lines changed since last clearChanges, some of them may be removed already
+     */
+    int getNumberOfChangedLines() {
+        return numberOfChangedLines;
+    }
+
+    int getChangedLine(int change) {
+        return changedLines[change];
+    }
+
+    /**
+     * @return List<Product> products removed since last clearChanges
+     */
+    List<Product> getRemovedProducts() {
+        return removedProducts;
+    }
+
+    void clearChanges() {
+        for (int change = 0; change < numberOfChangedLines; change++) changed[changedLines[change]] = false;
+        numberOfChangedLines = 0;
+        removedProducts.clear();
+    }
+
+    /**
+     * @return long fingerprint of product ids, unit prices and quantities of lines, same for same content in any order
+     */
+    long getFingerprint() {
+        return fingerprint;
+    }
+
+    private long fingerprintOf(int line) {
+        return fingerprintOf(productIds[line], prices[line], quantities[line]);
+    }
+
+    /**
+     * Murmur3 finalizer of product id, unit price and quantity, so fingerprints of different lines rarely cancel out in the sum.
+     * The price is part of the fingerprint, so a product of the same id with another price is another content.
+     */
+    static long fingerprintOf(long productId, long price, int quantity) {
+        long hash = (productId * 0x9E3779B97F4A7C15L + price) * 0xC2B2AE3D27D4EB4FL + quantity;
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * @return int number of lines
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Product getProduct(int line) {
+        return products[line];
+    }
+
+    @Override
+    public int getQuantity(int line) {
+        return quantities[line];
+    }
+
+    /**
+     * @param line line of the product
+     * @return long unit price in minor units
+     */
+    long getPrice(int line) {
+        return prices[line];
+    }
+
+    /**
+     * @param product product of the line
+     * @return int line of the product, -1 if the product is not in lines
+     */
+    int lineOf(Product product) {
+        return index[slotOf(product)];
+    }
+
+    /**
+     * @return Map<Product, Integer> read-only view of lines, created on first use
+     */
+    Map<Product, Integer> asMap() {
+        if (mapView == null) mapView = new MapView();
+        return mapView;
+    }
+
+    private void grow() {
+        int capacity = products.length * 2;
+        products = Arrays.copyOf(products, capacity);
+        productIds = Arrays.copyOf(productIds, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        changedLines = Arrays.copyOf(changedLines, capacity);
+        changed = Arrays.copyOf(changed, capacity);
+
+        index = new int[capacity * 2];
+        Arrays.fill(index, EMPTY);
+        int mask = index.length - 1;
+        for (int line = 0; line < size; line++) {
+            int slot = products[line].hashCode() & mask;
+            while (index[slot] != EMPTY) slot = (slot + 1) & mask;
+            index[slot] = line;
+        }
+    }
+
+    private class MapView extends AbstractMap<Product, Integer> {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Product && lineOf((Product) key) != EMPTY;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            if (!(key instanceof Product)) return null;
+            int line = lineOf((Product) key);
+            return line == EMPTY ? null : quantities[line];
+        }
+
+        @Override
+        public Set<Entry<Product, Integer>> entrySet() {
+            return new AbstractSet<Entry<Product, Integer>>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public Iterator<Entry<Product, Integer>> iterator() {
+                    return new Iterator<Entry<Product, Integer>>() {
+                        private int line;
+
+                        @Override
+                        public boolean hasNext() {
+                            return line < size;
+                        }
+
+                        @Override
+                        public Entry<Product, Integer> next() {
+                            if (line >= size) throw new NoSuchElementException();
+                            Entry<Product, Integer> entry = new SimpleImmutableEntry<>(products[line], quantities[line]);
+                            line++;
+                            return entry;
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
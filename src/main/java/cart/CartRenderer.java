@@ -0,0 +1,347 @@
+package cart;
+
+import exception.NullDataException;
+import money.Money;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Rendering of cart summaries as text or JSON to an Appendable (StringBuilder, Writer...) or a ByteBuffer.
+ * Fixed parts of the output are encoded once, numbers and money are written digit by digit without boxing
+ * and lines are grouped by category with a primitive sort instead of maps, so rendering a cart does not allocate.
+ * A renderer keeps reusable buffers, so it is not thread safe, use a renderer per thread.
+ */
+public final class CartRenderer {
+
+    static final String FORMAT_IS_NULL = "Format is NULL!";
+    static final String OUTPUT_IS_NULL = "Output is NULL!";
+
+    public enum Format {
+        TEXT, JSON
+    }
+
+    private static final Template TEXT_CATEGORY = new Template("-> Category Name: ");
+    private static final Template TEXT_CATEGORY_END = new Template(" \n\n");
+    private static final Template TEXT_PRODUCT = new Template("\t -> Product Name: ");
+    private static final Template TEXT_QUANTITY = new Template(" \n\t -> Quantity: ");
+    private static final Template TEXT_UNIT_PRICE = new Template(" \n\t -> Unit Price: ");
+    private static final Template TEXT_PRODUCT_END = new Template(" \n\n");
+    private static final Template TEXT_TOTAL_PRICE = new Template("----> Total Price: ");
+    private static final Template TEXT_TOTAL_DISCOUNT = new Template(" \n----> Total Discount: ");
+    private static final Template TEXT_TOTAL_AMOUNT = new Template(" \n----> Total Amount: ");
+    private static final Template TEXT_DELIVERY_AMOUNT = new Template(" \n----> Delivery Amount: ");
+    private static final Template TEXT_END = new Template(" \n");
+
+    private static final Template JSON_CATEGORIES = new Template("{\"categories\":[");
+    private static final Template JSON_CATEGORY = new Template("{\"id\":");
+    private static final Template JSON_CATEGORY_TITLE = new Template(",\"title\":");
+    private static final Template JSON_PRODUCTS = new Template(",\"products\":[");
+    private static final Template JSON_PRODUCT = new Template("{\"id\":");
+    private static final Template JSON_PRODUCT_TITLE = new Template(",\"title\":");
+    private static final Template JSON_QUANTITY = new Template(",\"quantity\":");
+    private static final Template JSON_UNIT_PRICE = new Template(",\"unitPrice\":");
+    private static final Template JSON_CATEGORY_END = new Template("]}");
+    private static final Template JSON_TOTAL_PRICE = new Template("],\"totalPrice\":");
+    private static final Template JSON_TOTAL_DISCOUNT = new Template(",\"totalDiscount\":");
+    private static final Template JSON_TOTAL_AMOUNT = new Template(",\"totalAmount\":");
+    private static final Template JSON_DELIVERY_AMOUNT = new Template(",\"deliveryAmount\":");
+    private static final Template JSON_END = new Template("}");
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Format format;
+
+    /**
+     * long[] category id and line of each line, sorted to group lines by category
+     */
+    private long[] sortedLines = new long[16];
+    private final char[] digits = new char[20];
+
+    private final AppendableOutput appendableOutput = new AppendableOutput();
+    private final ByteBufferOutput byteBufferOutput = new ByteBufferOutput();
+
+    public CartRenderer(Format format) {
+        this.format = Optional.ofNullable(format).orElseThrow(() -> new NullDataException(FORMAT_IS_NULL));
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * use to render a cart to an Appendable
+     *
+     * @param out                       StringBuilder, Writer or another Appendable
+     * @param lines                     lines of the cart
+     * @param totalPrice                total price in minor units
+     * @param totalDiscount             total discount in minor units
+     * @param totalAmountAfterDiscounts total amount after discounts in minor units
+     * @param deliveryCost              delivery cost in minor units
+     * @throws IOException if out throws
+     */
+    void render(Appendable out, ICartLines lines, long totalPrice, long totalDiscount, long totalAmountAfterDiscounts,
+                long deliveryCost) throws IOException {
+        appendableOutput.out = Optional.ofNullable(out).orElseThrow(() -> new NullDataException(OUTPUT_IS_NULL));
+        try {
+            render(appendableOutput, lines, totalPrice, totalDiscount, totalAmountAfterDiscounts, deliveryCost);
+        } finally {
+            appendableOutput.out = null;
+        }
+    }
+
+    /**
+     * use to render a cart to a ByteBuffer in UTF-8
+     *
+     * @param out                       buffer of the output, its position is moved after the rendered cart
+     * @param lines                     lines of the cart
+     * @param totalPrice                total price in minor units
+     * @param totalDiscount             total discount in minor units
+     * @param totalAmountAfterDiscounts total amount after discounts in minor units
+     * @param deliveryCost              delivery cost in minor units
+     * @throws java.nio.BufferOverflowException if there is not enough space in out
+     */
+    void render(ByteBuffer out, ICartLines lines, long totalPrice, long totalDiscount, long totalAmountAfterDiscounts,
+                long deliveryCost) {
+        byteBufferOutput.out = Optional.ofNullable(out).orElseThrow(() -> new NullDataException(OUTPUT_IS_NULL));
+        try {
+            render(byteBufferOutput, lines, totalPrice, totalDiscount, totalAmountAfterDiscounts, deliveryCost);
+        } catch (IOException e) {
+            //ByteBufferOutput does not throw IOException
+            throw new UncheckedIOException(e);
+        } finally {
+            byteBufferOutput.out = null;
+        }
+    }
+
+    private void render(Output out, ICartLines lines, long totalPrice, long totalDiscount, long totalAmountAfterDiscounts,
+                        long deliveryCost) throws IOException {
+        int size = sortLinesByCategory(lines);
+        if (format == Format.TEXT) {
+            renderText(out, lines, size);
+            out.append(TEXT_TOTAL_PRICE);
+            appendMoney(out, totalPrice);
+            out.append(TEXT_TOTAL_DISCOUNT);
+            appendMoney(out, totalDiscount);
+            out.append(TEXT_TOTAL_AMOUNT);
+            appendMoney(out, totalAmountAfterDiscounts);
+            out.append(TEXT_DELIVERY_AMOUNT);
+            appendMoney(out, deliveryCost);
+            out.append(TEXT_END);
+        } else {
+            renderJson(out, lines, size);
+            out.append(JSON_TOTAL_PRICE);
+            appendMoney(out, totalPrice);
+            out.append(JSON_TOTAL_DISCOUNT);
+            appendMoney(out, totalDiscount);
+            out.append(JSON_TOTAL_AMOUNT);
+            appendMoney(out, totalAmountAfterDiscounts);
+            out.append(JSON_DELIVERY_AMOUNT);
+            appendMoney(out, deliveryCost);
+            out.append(JSON_END);
+        }
+    }
+
+    private void renderText(Output out, ICartLines lines, int size) throws IOException {
+        Category lastCategory = null;
+        for (int i = 0; i < size; i++) {
+            Product product = lines.getProduct((int) sortedLines[i]);
+            if (product.getCategory() != lastCategory) {
+                lastCategory = product.getCategory();
+                out.append(TEXT_CATEGORY);
+                out.append(lastCategory.getTitle());
+                out.append(TEXT_CATEGORY_END);
+            }
+            out.append(TEXT_PRODUCT);
+            out.append(product.getTitle());
+            out.append(TEXT_QUANTITY);
+            appendLong(out, lines.getQuantity((int) sortedLines[i]));
+            out.append(TEXT_UNIT_PRICE);
+            appendMoney(out, product.getPriceInMinorUnits());
+            out.append(TEXT_PRODUCT_END);
+        }
+    }
+
+    private void renderJson(Output out, ICartLines lines, int size) throws IOException {
+        out.append(JSON_CATEGORIES);
+        Category lastCategory = null;
+        for (int i = 0; i < size; i++) {
+            Product product = lines.getProduct((int) sortedLines[i]);
+            if (product.getCategory() != lastCategory) {
+                if (lastCategory != null) {
+                    out.append(JSON_CATEGORY_END);
+                    out.append(',');
+                }
+                lastCategory = product.getCategory();
+                out.append(JSON_CATEGORY);
+                appendLong(out, lastCategory.getId());
+                out.append(JSON_CATEGORY_TITLE);
+                appendJsonString(out, lastCategory.getTitle());
+                out.append(JSON_PRODUCTS);
+            } else {
+                out.append(',');
+            }
+            out.append(JSON_PRODUCT);
+            appendLong(out, product.getId());
+            out.append(JSON_PRODUCT_TITLE);
+            appendJsonString(out, product.getTitle());
+            out.append(JSON_QUANTITY);
+            appendLong(out, lines.getQuantity((int) sortedLines[i]));
+            out.append(JSON_UNIT_PRICE);
+            appendMoney(out, product.getPriceInMinorUnits());
+            out.append('}');
+        }
+        if (lastCategory != null) out.append(JSON_CATEGORY_END);
+    }
+
+    /**
+     * Lines are sorted by category id and then by line, so products of a category keep their order in the cart
+     *
+     * @return int number of lines
+     */
+    private int sortLinesByCategory(ICartLines lines) {
+        int size = lines.size();
+        if (sortedLines.length < size) sortedLines = new long[Math.max(size, sortedLines.length * 2)];
+        for (int line = 0; line < size; line++) {
+            sortedLines[line] = (long) lines.getProduct(line).getCategory().getId() << 32 | line;
+        }
+        Arrays.sort(sortedLines, 0, size);
+        return size;
+    }
+
+    private void appendMoney(Output out, long minorUnits) throws IOException {
+        //Digits are written from the negative amount, so Long.MIN_VALUE has no overflow
+        long negative = minorUnits < 0 ? minorUnits : -minorUnits;
+        if (minorUnits < 0) out.append('-');
+        appendNegative(out, negative / Money.MINOR_UNITS_PER_MAJOR_UNIT);
+        out.append('.');
+        int fraction = (int) -(negative % Money.MINOR_UNITS_PER_MAJOR_UNIT);
+        out.append((char) ('0' + fraction / 10));
+        out.append((char) ('0' + fraction % 10));
+    }
+
+    private void appendLong(Output out, long value) throws IOException {
+        if (value < 0) {
+            out.append('-');
+            appendNegative(out, value);
+        } else {
+            appendNegative(out, -value);
+        }
+    }
+
+    /**
+     * @param negative a number which is not positive, its digits are written without its sign
+     */
+    private void appendNegative(Output out, long negative) throws IOException {
+        int position = digits.length;
+        do {
+            digits[--position] = (char) ('0' - negative % 10);
+            negative /= 10;
+        } while (negative != 0);
+        while (position < digits.length) out.append(digits[position++]);
+    }
+
+    private static void appendJsonString(Output out, String value) throws IOException {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\');
+                out.append(c);
+            } else if (c < 0x20) {
+                out.append('\\');
+                out.append('u');
+                out.append('0');
+                out.append('0');
+                out.append(HEX_DIGITS[c >> 4]);
+                out.append(HEX_DIGITS[c & 0xF]);
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Fixed part of the output with its UTF-8 bytes
+     */
+    private static final class Template {
+        private final String text;
+        private final byte[] bytes;
+
+        private Template(String text) {
+            this.text = text;
+            this.bytes = text.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private abstract static class Output {
+
+        abstract void append(char c) throws IOException;
+
+        abstract void append(Template template) throws IOException;
+
+        void append(String text) throws IOException {
+            for (int i = 0; i < text.length(); i++) append(text.charAt(i));
+        }
+    }
+
+    private static final class AppendableOutput extends Output {
+        private Appendable out;
+
+        @Override
+        void append(char c) throws IOException {
+            out.append(c);
+        }
+
+        @Override
+        void append(Template template) throws IOException {
+            out.append(template.text);
+        }
+
+        @Override
+        void append(String text) throws IOException {
+            out.append(text);
+        }
+    }
+
+    private static final class ByteBufferOutput extends Output {
+        private ByteBuffer out;
+        private char highSurrogate;
+
+        @Override
+        void append(char c) {
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | c >> 6));
+                out.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c) && highSurrogate != 0) {
+                int codePoint = Character.toCodePoint(highSurrogate, c);
+                highSurrogate = 0;
+                out.put((byte) (0xF0 | codePoint >> 18));
+                out.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                out.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                out.put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                highSurrogate = 0;
+                out.put((byte) '?');
+            } else {
+                out.put((byte) (0xE0 | c >> 12));
+                out.put((byte) (0x80 | c >> 6 & 0x3F));
+                out.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+
+        @Override
+        void append(Template template) {
+            out.put(template.bytes);
+        }
+    }
+}
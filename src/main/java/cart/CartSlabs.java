@@ -0,0 +1,172 @@
+package cart;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Slots of carts in direct buffers, outside of the Java heap.
+ * A slot is a header followed by room for lines, all slots of a size class have the same capacity
+ * and are cut from chunks of that class. Released slots are kept in a free list per size class,
+ * linked through the first bytes of each free slot, so allocation and release are O(1) and create no objects.
+ * <p>
+ * A slot is addressed by a handle, size class in high bits and position of the slot in its class in low bits.
+ */
+final class CartSlabs {
+
+    static final int HEADER_SIZE = 64;
+    static final int CART_ID = 0;
+    static final int NUMBER_OF_LINES = 8;
+    static final int TOTAL_QUANTITY = 12;
+    static final int TOTAL_PRICE = 16;
+    static final int CAMPAIGN_DISCOUNT = 24;
+    static final int COUPON_DISCOUNT = 32;
+    static final int TOTAL_AMOUNT_AFTER_DISCOUNTS = 40;
+
+    /**
+     * version of prices of the product catalog of the lines, 0 if the lines have not been priced by a catalog
+     */
+    static final int PRICE_VERSION = 48;
+
+    /**
+     * stamp of the last change of the cart, unique in its store, so a view knows whether what it has computed
+     * from the cart is stale without being affected by changes of other carts. It is the last field of the header.
+     */
+    static final int MODIFICATION_STAMP = 56;
+
+    static final int LINE_SIZE = 24;
+    static final int LINE_PRODUCT_ID = 0;
+    static final int LINE_PRICE = 8;
+    static final int LINE_QUANTITY = 16;
+
+    /**
+     * position of the product of the line in the product dictionary or the product catalog of the store
+     */
+    static final int LINE_PRODUCT = 20;
+
+    static final int MIN_CAPACITY = 4;
+
+    /**
+     * capacity of the largest size class is MIN_CAPACITY << (NUMBER_OF_SIZE_CLASSES - 1) lines
+     */
+    static final int NUMBER_OF_SIZE_CLASSES = 20;
+
+    private static final int SIZE_CLASS_SHIFT = 40;
+    private static final long SLOT_MASK = (1L << SIZE_CLASS_SHIFT) - 1;
+    private static final long NO_SLOT = -1;
+
+    private final int chunkSize;
+    private final ByteBuffer[][] chunks = new ByteBuffer[NUMBER_OF_SIZE_CLASSES][];
+    private final int[] numberOfChunks = new int[NUMBER_OF_SIZE_CLASSES];
+
+    /**
+     * long[] number of slots cut from chunks of each size class, including released ones
+     */
+    private final long[] numberOfSlots = new long[NUMBER_OF_SIZE_CLASSES];
+
+    /**
+     * long[] first released slot of each size class, NO_SLOT if there is no released slot
+     */
+    private final long[] freeSlots = new long[NUMBER_OF_SIZE_CLASSES];
+
+    private long allocatedBytes;
+
+    /**
+     * @param chunkSize size of direct buffers in bytes, a chunk of a large size class holds at least one slot
+     */
+    CartSlabs(int chunkSize) {
+        this.chunkSize = chunkSize;
+        for (int sizeClass = 0; sizeClass < NUMBER_OF_SIZE_CLASSES; sizeClass++) chunks[sizeClass] = new ByteBuffer[4];
+        Arrays.fill(freeSlots, NO_SLOT);
+    }
+
+    /**
+     * @param numberOfLines number of lines a slot has to hold
+     * @return int smallest size class which holds this number of lines
+     * @throws IllegalStateException if the number of lines is more than capacity of the largest size class
+     */
+    static int sizeClassFor(int numberOfLines) {
+        int sizeClass = 0;
+        while (capacityOf(sizeClass) < numberOfLines) {
+            if (++sizeClass == NUMBER_OF_SIZE_CLASSES)
+                throw new IllegalStateException("Cart has more than " + capacityOf(NUMBER_OF_SIZE_CLASSES - 1) + " lines");
+        }
+        return sizeClass;
+    }
+
+    static int capacityOf(int sizeClass) {
+        return MIN_CAPACITY << sizeClass;
+    }
+
+    static int sizeClassOf(long handle) {
+        return (int) (handle >>> SIZE_CLASS_SHIFT);
+    }
+
+    private static int slotSizeOf(int sizeClass) {
+        return HEADER_SIZE + capacityOf(sizeClass) * LINE_SIZE;
+    }
+
+    private int slotsPerChunk(int sizeClass) {
+        return Math.max(1, chunkSize / slotSizeOf(sizeClass));
+    }
+
+    /**
+     * use to take a slot of a size class, a released slot is reused before a new one is cut.
+     * Contents of the slot are not cleared.
+     *
+     * @param sizeClass size class of the slot
+     * @return long handle of the slot
+     */
+    long allocate(int sizeClass) {
+        long slot = freeSlots[sizeClass];
+        if (slot != NO_SLOT) {
+            long handle = (long) sizeClass << SIZE_CLASS_SHIFT | slot;
+            freeSlots[sizeClass] = bufferOf(handle).getLong(offsetOf(handle));
+            return handle;
+        }
+
+        slot = numberOfSlots[sizeClass];
+        if (slot == (long) numberOfChunks[sizeClass] * slotsPerChunk(sizeClass)) addChunk(sizeClass);
+        numberOfSlots[sizeClass]++;
+        return (long) sizeClass << SIZE_CLASS_SHIFT | slot;
+    }
+
+    /**
+     * use to release a slot, it is reused by a later allocation of its size class
+     *
+     * @param handle handle of the slot
+     */
+    void release(long handle) {
+        int sizeClass = sizeClassOf(handle);
+        bufferOf(handle).putLong(offsetOf(handle), freeSlots[sizeClass]);
+        freeSlots[sizeClass] = handle & SLOT_MASK;
+    }
+
+    private void addChunk(int sizeClass) {
+        int chunk = numberOfChunks[sizeClass];
+        if (chunk == chunks[sizeClass].length) chunks[sizeClass] = Arrays.copyOf(chunks[sizeClass], chunk * 2);
+        int size = slotsPerChunk(sizeClass) * slotSizeOf(sizeClass);
+        chunks[sizeClass][chunk] = ByteBuffer.allocateDirect(size);
+        numberOfChunks[sizeClass]++;
+        allocatedBytes += size;
+    }
+
+    ByteBuffer bufferOf(long handle) {
+        int sizeClass = sizeClassOf(handle);
+        return chunks[sizeClass][(int) ((handle & SLOT_MASK) / slotsPerChunk(sizeClass))];
+    }
+
+    /**
+     * @return int offset of the slot in its buffer
+     */
+    int offsetOf(long handle) {
+        int sizeClass = sizeClassOf(handle);
+        return (int) ((handle & SLOT_MASK) % slotsPerChunk(sizeClass)) * slotSizeOf(sizeClass);
+    }
+
+    /**
+     * @return long bytes of direct buffers of slots
+     */
+    long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+}
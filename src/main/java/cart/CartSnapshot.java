@@ -0,0 +1,295 @@
+package cart;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Immutable version of cart items with their totals.
+ * Items and category totals are kept in persistent maps, so a new version is created in O(log n)
+ * sharing everything else with the previous one, and older versions stay valid.
+ * Pricing, delivery cost and printing can use a version without locks while the cart is being changed.
+ */
+public final class CartSnapshot implements ICartStatistics {
+
+    public static final CartSnapshot EMPTY = new CartSnapshot(PersistentLongMap.empty(), PersistentLongMap.empty(),
+            0, 0, 0);
+
+    /**
+     * lines keyed by product id
+     */
+    private final PersistentLongMap<Line> lines;
+
+    /**
+     * category totals keyed by category id, including parent categories
+     */
+    private final PersistentLongMap<CategoryTotal> categoryTotals;
+
+    private final long totalPrice;
+    private final int totalQuantity;
+    private final int numberOfCategories;
+
+    private volatile ICategoryTotals flatCategoryTotals;
+    private volatile Map<Product, Integer> mapView;
+
+    private CartSnapshot(PersistentLongMap<Line> lines, PersistentLongMap<CategoryTotal> categoryTotals,
+                         long totalPrice, int totalQuantity, int numberOfCategories) {
+        this.lines = lines;
+        this.categoryTotals = categoryTotals;
+        this.totalPrice = totalPrice;
+        this.totalQuantity = totalQuantity;
+        this.numberOfCategories = numberOfCategories;
+    }
+
+    /**
+     * use to create a new version with added item
+     *
+     * @param product  added product
+     * @param quantity amount of the product
+     * @return CartSnapshot new version
+     */
+    public CartSnapshot withItem(Product product, int quantity) {
+        CartItemValidator.validate(product, quantity);
+        return withQuantity(product, getQuantity(product) + quantity);
+    }
+
+    /**
+     * use to create a new version with new quantity of a product
+     *
+     * @param product  product of the item
+     * @param quantity new quantity of the product, 0 to remove the product
+     * @return CartSnapshot new version
+     */
+    CartSnapshot withQuantity(Product product, int quantity) {
+        Line line = lines.get(product.getId());
+        int oldQuantity = line == null ? 0 : line.quantity;
+        if (oldQuantity == quantity) return this;
+
+        //Like a line of a cart, a line keeps the first added product of its id and is priced with it
+        if (line != null) product = line.product;
+
+        int addedQuantity = quantity - oldQuantity;
+        long addedPrice = Math.multiplyExact(product.getPriceInMinorUnits(), (long) addedQuantity);
+        int addedProducts = (line == null ? 1 : 0) - (quantity == 0 ? 1 : 0);
+
+        PersistentLongMap<Line> newLines = quantity == 0
+                ? lines.remove(product.getId())
+                : lines.put(product.getId(), new Line(product, quantity));
+
+        PersistentLongMap<CategoryTotal> newCategoryTotals = categoryTotals;
+        int newNumberOfCategories = numberOfCategories;
+        int[] path = product.getCategory().getPath();
+        //Path is walked from the category of the product, so each depth has its category
+        Category category = product.getCategory();
+        for (int depth = path.length - 1; depth >= 0; depth--, category = category.getParentCategory()) {
+            CategoryTotal categoryTotal = newCategoryTotals.get(path[depth]);
+            if (categoryTotal == null) categoryTotal = CategoryTotal.NONE;
+            int products = categoryTotal.products;
+            if (depth == path.length - 1) {
+                products += addedProducts;
+                if (categoryTotal.products == 0 && products > 0) newNumberOfCategories++;
+                if (categoryTotal.products > 0 && products == 0) newNumberOfCategories--;
+            }
+            long newQuantity = categoryTotal.quantity + addedQuantity;
+            newCategoryTotals = newQuantity == 0 && products == 0
+                    ? newCategoryTotals.remove(path[depth])
+                    : newCategoryTotals.put(path[depth], new CategoryTotal(category, newQuantity, categoryTotal.price + addedPrice, products));
+        }
+
+        return new CartSnapshot(newLines, newCategoryTotals, totalPrice + addedPrice,
+                totalQuantity + addedQuantity, newNumberOfCategories);
+    }
+
+    /**
+     * @param product product of the item
+     * @return int quantity of the product, 0 if the product is not in this version
+     */
+    public int getQuantity(Product product) {
+        Line line = lines.get(product.getId());
+        return line == null ? 0 : line.quantity;
+    }
+
+    /**
+     * @param productId id of a product
+     * @return Product product which prices the line of this id, null if there is no line
+     */
+    Product getLineProduct(long productId) {
+        Line line = lines.get(productId);
+        return line == null ? null : line.product;
+    }
+
+    /**
+     * use to visit all items without boxing quantities, order is not defined
+     *
+     * @param consumer consumer of product and quantity
+     */
+    public void forEachItem(ObjIntConsumer<Product> consumer) {
+        lines.forEach(line -> consumer.accept(line.product, line.quantity));
+    }
+
+    /**
+     * @return long total price of items in minor units
+     */
+    @Override
+    public long getTotalPriceInMinorUnits() {
+        return totalPrice;
+    }
+
+    @Override
+    public int getTotalQuantityOfProduct() {
+        return totalQuantity;
+    }
+
+    @Override
+    public int getNumberOfProducts() {
+        return lines.size();
+    }
+
+    @Override
+    public int getNumberOfCategories() {
+        return numberOfCategories;
+    }
+
+    /**
+     * @return ICategoryTotals quantity and price per category, created on first use
+     */
+    @Override
+    public ICategoryTotals getCategoryTotals() {
+        ICategoryTotals totals = flatCategoryTotals;
+        if (totals == null) flatCategoryTotals = totals = new FlatCategoryTotals();
+        return totals;
+    }
+
+    /**
+     * @return Map<Product, Integer> read-only view of items
+     */
+    public Map<Product, Integer> getShoppingCartItems() {
+        Map<Product, Integer> map = mapView;
+        if (map == null) mapView = map = new MapView();
+        return map;
+    }
+
+    private static final class Line {
+        private final Product product;
+        private final int quantity;
+
+        private Line(Product product, int quantity) {
+            this.product = product;
+            this.quantity = quantity;
+        }
+    }
+
+    private static final class CategoryTotal {
+        private static final CategoryTotal NONE = new CategoryTotal(null, 0, 0, 0);
+
+        private final Category category;
+        private final long quantity;
+        private final long price;
+
+        /**
+         * number of different products whose own category is this category
+         */
+        private final int products;
+
+        private CategoryTotal(Category category, long quantity, long price, int products) {
+            this.category = category;
+            this.quantity = quantity;
+            this.price = price;
+            this.products = products;
+        }
+    }
+
+    private final class FlatCategoryTotals implements ICategoryTotals {
+        private final CategoryTotal[] entries;
+
+        private FlatCategoryTotals() {
+            List<CategoryTotal> totals = new ArrayList<>(categoryTotals.size());
+            categoryTotals.forEach(totals::add);
+            entries = totals.toArray(new CategoryTotal[0]);
+        }
+
+        @Override
+        public int size() {
+            return entries.length;
+        }
+
+        @Override
+        public int getCategoryIdAt(int entry) {
+            return entries[entry].category.getId();
+        }
+
+        @Override
+        public Category getCategoryAt(int entry) {
+            return entries[entry].category;
+        }
+
+        @Override
+        public long getQuantityAt(int entry) {
+            return entries[entry].quantity;
+        }
+
+        @Override
+        public long getPriceAt(int entry) {
+            return entries[entry].price;
+        }
+
+        @Override
+        public int getNumberOfProductsAt(int entry) {
+            return entries[entry].products;
+        }
+
+        @Override
+        public long getQuantityOfCategory(int categoryId) {
+            CategoryTotal categoryTotal = categoryTotals.get(categoryId);
+            return categoryTotal == null ? 0 : categoryTotal.quantity;
+        }
+
+        @Override
+        public long getPriceOfCategory(int categoryId) {
+            CategoryTotal categoryTotal = categoryTotals.get(categoryId);
+            return categoryTotal == null ? 0 : categoryTotal.price;
+        }
+    }
+
+    private final class MapView extends AbstractMap<Product, Integer> {
+
+        @Override
+        public int size() {
+            return lines.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Product && lines.get(((Product) key).getId()) != null;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            if (!(key instanceof Product)) return null;
+            Line line = lines.get(((Product) key).getId());
+            return line == null ? null : line.quantity;
+        }
+
+        @Override
+        public Set<Entry<Product, Integer>> entrySet() {
+            return new AbstractSet<Entry<Product, Integer>>() {
+                @Override
+                public int size() {
+                    return lines.size();
+                }
+
+                @Override
+                public Iterator<Entry<Product, Integer>> iterator() {
+                    List<Entry<Product, Integer>> entries = new ArrayList<>(lines.size());
+                    lines.forEach(line -> entries.add(new SimpleImmutableEntry<>(line.product, line.quantity)));
+                    return entries.iterator();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package cart;
+
+import delivery.DeliveryCostCalculator;
+import delivery.IDeliveryCostCalculator;
+import exception.NullDataException;
+import exception.UnknownProductException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Store of many carts whose lines, totals and index by cart id are kept in direct buffers outside of the Java heap.
+ * Each cart has its own slot, which is moved to a slot of the next size class when it is full,
+ * and released slots are reused, so heap usage does not grow with the number of carts.
+ * Carts are read and changed through CartStoreView, a reusable view over the slot of a cart.
+ * <p>
+ * Products are kept on heap once per store in a dictionary, which grows only with the number of different products,
+ * a product is kept once for each of its prices and categories, so each cart keeps the price and category it was added with.
+ * A store built on a ProductCatalog uses the catalog instead and prices lines with its current prices,
+ * a cart is repriced when it is read after a price update.
+ * A store is not thread safe like ShoppingCart, shard carts by id across stores to use it from many threads.
+ * Direct buffers are limited by -XX:MaxDirectMemorySize.
+ */
+public final class CartStore {
+
+    static final String DELIVERY_COST_CALCULATOR_IS_NULL = "Delivery cost calculator is NULL!";
+    static final String PRODUCT_CATALOG_IS_NULL = "Product catalog is NULL!";
+
+    /**
+     * default size of direct buffers of slots in bytes
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 22;
+
+    private final CartSlabs slabs;
+
+    /**
+     * cart id -> handle of the slot of the cart
+     */
+    private final DirectLongMap handles = new DirectLongMap();
+
+    /**
+     * products of lines by their position in the dictionary
+     */
+    private Product[] products = new Product[64];
+    private int numberOfProducts;
+    private final Map<ProductKey, Integer> positionsOfProducts = new HashMap<>();
+
+    /**
+     * catalog of products of lines, null if products are kept in the dictionary
+     */
+    private final ProductCatalog productCatalog;
+
+    /**
+     * calculator of delivery cost, shared by carts
+     */
+    private final IDeliveryCostCalculator deliveryCostCalculator;
+
+    /**
+     * long last modification stamp given to a slot, stamps are never reused so a removed and created again cart
+     * has a new stamp
+     */
+    private long lastModificationStamp;
+
+    public CartStore() {
+        this(DeliveryCostCalculator.DEFAULT);
+    }
+
+    /**
+     * @param deliveryCostCalculator calculator of delivery cost of carts
+     */
+    public CartStore(IDeliveryCostCalculator deliveryCostCalculator) {
+        this(DEFAULT_CHUNK_SIZE, deliveryCostCalculator);
+    }
+
+    /**
+     * @param chunkSize              size of direct buffers of slots in bytes
+     * @param deliveryCostCalculator calculator of delivery cost of carts
+     */
+    public CartStore(int chunkSize, IDeliveryCostCalculator deliveryCostCalculator) {
+        this(chunkSize, null, deliveryCostCalculator);
+    }
+
+    /**
+     * @param productCatalog         catalog of products of carts, carts can have only its products
+     * @param deliveryCostCalculator calculator of delivery cost of carts
+     */
+    public CartStore(ProductCatalog productCatalog, IDeliveryCostCalculator deliveryCostCalculator) {
+        this(DEFAULT_CHUNK_SIZE, Optional.ofNullable(productCatalog)
+                .orElseThrow(() -> new NullDataException(PRODUCT_CATALOG_IS_NULL)), deliveryCostCalculator);
+    }
+
+    private CartStore(int chunkSize, ProductCatalog productCatalog, IDeliveryCostCalculator deliveryCostCalculator) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("Chunk size is not positive");
+        this.productCatalog = productCatalog;
+        this.deliveryCostCalculator = Optional.ofNullable(deliveryCostCalculator)
+                .orElseThrow(() -> new NullDataException(DELIVERY_COST_CALCULATOR_IS_NULL));
+        slabs = new CartSlabs(chunkSize);
+    }
+
+    /**
+     * use to create a view, move it to a cart with moveTo and reuse it for other carts
+     *
+     * @return CartStoreView new view of this store
+     */
+    public CartStoreView view() {
+        return new CartStoreView(this);
+    }
+
+    /**
+     * @param cartId id of the cart
+     * @return CartStoreView new view of the cart
+     */
+    public CartStoreView view(long cartId) {
+        return view().moveTo(cartId);
+    }
+
+    public boolean contains(long cartId) {
+        return handles.get(cartId) != DirectLongMap.NO_VALUE;
+    }
+
+    /**
+     * use to remove a cart, its slot is reused by another cart
+     *
+     * @param cartId id of the cart
+     * @return boolean true if the cart was in the store
+     */
+    public boolean removeCart(long cartId) {
+        long handle = handles.remove(cartId);
+        if (handle == DirectLongMap.NO_VALUE) return false;
+        slabs.release(handle);
+        return true;
+    }
+
+    public int getNumberOfCarts() {
+        return handles.size();
+    }
+
+    /**
+     * @return int number of different products in the dictionary or the product catalog of the store
+     */
+    public int getNumberOfProducts() {
+        return productCatalog == null ? numberOfProducts : productCatalog.size();
+    }
+
+    /**
+     * @return ProductCatalog catalog of products of carts, null if products are kept in the dictionary of the store
+     */
+    public ProductCatalog getProductCatalog() {
+        return productCatalog;
+    }
+
+    /**
+     * @return long bytes of direct buffers of the store
+     */
+    public long getOffHeapBytes() {
+        return slabs.getAllocatedBytes() + handles.getAllocatedBytes();
+    }
+
+    public IDeliveryCostCalculator getDeliveryCostCalculator() {
+        return deliveryCostCalculator;
+    }
+
+    /**
+     * @return long handle of the slot of the cart, DirectLongMap.NO_VALUE if there is no cart with this id
+     */
+    long handleOf(long cartId) {
+        return handles.get(cartId);
+    }
+
+    /**
+     * @return long handle of the slot of the cart, an empty cart is created if there is no cart with this id
+     */
+    long handleForUpdate(long cartId) {
+        long handle = handles.get(cartId);
+        if (handle == DirectLongMap.NO_VALUE) {
+            handle = slabs.allocate(0);
+            ByteBuffer buffer = slabs.bufferOf(handle);
+            int offset = slabs.offsetOf(handle);
+            for (int field = 0; field < CartSlabs.HEADER_SIZE; field += 8) buffer.putLong(offset + field, 0);
+            buffer.putLong(offset + CartSlabs.CART_ID, cartId);
+            handles.put(cartId, handle);
+        }
+        modified(slabs.bufferOf(handle), slabs.offsetOf(handle));
+        return handle;
+    }
+
+    /**
+     * use to move a cart to a slot which holds the number of lines, if its slot is smaller
+     *
+     * @param cartId        id of the cart
+     * @param handle        handle of the slot of the cart
+     * @param numberOfLines number of lines the slot has to hold
+     * @return long handle of the slot of the cart
+     */
+    long ensureCapacity(long cartId, long handle, int numberOfLines) {
+        if (numberOfLines <= CartSlabs.capacityOf(CartSlabs.sizeClassOf(handle))) return handle;
+
+        long newHandle = slabs.allocate(CartSlabs.sizeClassFor(numberOfLines));
+        ByteBuffer buffer = slabs.bufferOf(handle);
+        int offset = slabs.offsetOf(handle);
+        ByteBuffer newBuffer = slabs.bufferOf(newHandle);
+        int newOffset = slabs.offsetOf(newHandle);
+        int size = CartSlabs.HEADER_SIZE + buffer.getInt(offset + CartSlabs.NUMBER_OF_LINES) * CartSlabs.LINE_SIZE;
+        for (int i = 0; i < size; i += 8) newBuffer.putLong(newOffset + i, buffer.getLong(offset + i));
+
+        slabs.release(handle);
+        handles.put(cartId, newHandle);
+        return newHandle;
+    }
+
+    ByteBuffer bufferOf(long handle) {
+        return slabs.bufferOf(handle);
+    }
+
+    int offsetOf(long handle) {
+        return slabs.offsetOf(handle);
+    }
+
+    /**
+     * @return int position of the product with its price and category in the dictionary, it is added if it is not there
+     * @throws UnknownProductException if the store has a product catalog and the product is not in it
+     */
+    int positionOf(Product product) {
+        if (productCatalog != null) {
+            int position = productCatalog.positionOf(product.getId());
+            if (position < 0) throw new UnknownProductException("Product " + product.getId() + " is not in the catalog");
+            return position;
+        }
+
+        ProductKey key = new ProductKey(product);
+        Integer position = positionsOfProducts.get(key);
+        if (position != null) return position;
+
+        if (numberOfProducts == products.length) products = Arrays.copyOf(products, numberOfProducts * 2);
+        products[numberOfProducts] = product;
+        positionsOfProducts.put(key, numberOfProducts);
+        return numberOfProducts++;
+    }
+
+    Product productAt(int position) {
+        return products[position];
+    }
+
+    /**
+     * use to tell views that a cart is changed, only the stamp of its slot is changed
+     *
+     * @param buffer buffer of the slot of the cart
+     * @param offset offset of the slot of the cart
+     */
+    void modified(ByteBuffer buffer, int offset) {
+        buffer.putLong(offset + CartSlabs.MODIFICATION_STAMP, ++lastModificationStamp);
+    }
+
+    /**
+     * Key of a product in the dictionary, Product.equals compares only ids
+     * but products of the same id can have other prices and categories in different carts.
+     */
+    private static final class ProductKey {
+        private final long id;
+        private final long price;
+        private final Category category;
+
+        private ProductKey(Product product) {
+            this.id = product.getId();
+            this.price = product.getPriceInMinorUnits();
+            this.category = product.getCategory();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ProductKey that = (ProductKey) o;
+            return id == that.id && price == that.price && category == that.category;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id) * 31 + Long.hashCode(price);
+        }
+    }
+}
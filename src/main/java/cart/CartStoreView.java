@@ -0,0 +1,595 @@
+package cart;
+
+import discount.campaign.CampaignIndex;
+import discount.campaign.DiscountSolution;
+import discount.campaign.DiscountSolver;
+import discount.campaign.ICampaign;
+import discount.coupon.ICoupon;
+import exception.NullDataException;
+import exception.UnknownProductException;
+import money.Money;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Reusable view over the slot of a cart in a CartStore, it behaves like a ShoppingCart of that cart.
+ * Lines and totals are read from and written to the slot directly, nothing is copied to the heap,
+ * so one view can price millions of carts by moving it from cart to cart.
+ * A product is found by a scan of the lines of the cart, which are few and next to each other.
+ * <p>
+ * A cart is created by its first change, reading a cart which is not in the store sees an empty cart.
+ * If the store has a product catalog, lines are priced with prices of the catalog instead of prices of added products,
+ * and a cart whose prices are older than the catalog is repriced when it is loaded.
+ */
+public final class CartStoreView implements IShoppingCart, ICartStatistics {
+
+    /**
+     * stamps of category totals which are not computed yet and of a cart which is not in the store,
+     * stamps of carts in the store start from 1
+     */
+    private static final long NO_STAMP = -1;
+    private static final long NO_CART_STAMP = 0;
+
+    private final CartStore store;
+    private long cartId;
+
+    /**
+     * buffer and offset of the slot of the cart, set by load or loadForUpdate
+     */
+    private ByteBuffer buffer;
+    private int offset;
+
+    /**
+     * quantity and price per category of the cart, built from its lines when it is needed,
+     * kept while the cart has the same modification stamp
+     */
+    private final CategoryTotals categoryTotals = new CategoryTotals();
+    private long categoryTotalsCartId;
+    private long categoryTotalsStamp = NO_STAMP;
+
+    private final ICartLines lines = new Lines();
+
+    /**
+     * prices of the product catalog of the store used by the loaded cart, null if the store has no catalog
+     */
+    private ProductCatalog.PriceList priceList;
+
+    CartStoreView(CartStore store) {
+        this.store = store;
+    }
+
+    /**
+     * use to move this view to another cart
+     *
+     * @param cartId id of the cart
+     * @return CartStoreView this view
+     */
+    public CartStoreView moveTo(long cartId) {
+        this.cartId = cartId;
+        return this;
+    }
+
+    public long getCartId() {
+        return cartId;
+    }
+
+    /**
+     * @return boolean true if the cart is in the store
+     */
+    public boolean exists() {
+        return store.contains(cartId);
+    }
+
+    /**
+     * @return boolean true if the cart is in the store, buffer and offset are set to its slot
+     */
+    private boolean load() {
+        long handle = store.handleOf(cartId);
+        if (handle == DirectLongMap.NO_VALUE) return false;
+        buffer = store.bufferOf(handle);
+        offset = store.offsetOf(handle);
+        refreshPrices();
+        return true;
+    }
+
+    /**
+     * use to set buffer and offset to a slot which holds the number of lines, the cart is created if it is not in the store
+     */
+    private void loadForUpdate(int numberOfLines) {
+        long handle = store.handleForUpdate(cartId);
+        handle = store.ensureCapacity(cartId, handle, numberOfLines);
+        buffer = store.bufferOf(handle);
+        offset = store.offsetOf(handle);
+        refreshPrices();
+    }
+
+    /**
+     * use to reprice lines of the loaded cart with current prices of the product catalog, if they are older.
+     * Like a change of items, total amount after discounts is reset to the new total price if it changes.
+     */
+    private void refreshPrices() {
+        ProductCatalog productCatalog = store.getProductCatalog();
+        if (productCatalog == null) return;
+        priceList = productCatalog.getPriceList();
+        if (buffer.getLong(offset + CartSlabs.PRICE_VERSION) == priceList.version) return;
+
+        long totalPrice = 0;
+        int size = size();
+        for (int line = 0; line < size; line++) {
+            int lineOffset = lineOffset(line);
+            long price = priceList.prices[buffer.getInt(lineOffset + CartSlabs.LINE_PRODUCT)];
+            buffer.putLong(lineOffset + CartSlabs.LINE_PRICE, price);
+            totalPrice += Math.multiplyExact(price, (long) buffer.getInt(lineOffset + CartSlabs.LINE_QUANTITY));
+        }
+        if (totalPrice != buffer.getLong(offset + CartSlabs.TOTAL_PRICE)) {
+            buffer.putLong(offset + CartSlabs.TOTAL_PRICE, totalPrice);
+            resetTotalAmountAfterDiscounts();
+        }
+        buffer.putLong(offset + CartSlabs.PRICE_VERSION, priceList.version);
+        store.modified(buffer, offset);
+    }
+
+    private Product productAt(int position) {
+        return priceList == null ? store.productAt(position) : priceList.products[position];
+    }
+
+    private int size() {
+        return buffer.getInt(offset + CartSlabs.NUMBER_OF_LINES);
+    }
+
+    private int lineOffset(int line) {
+        return offset + CartSlabs.HEADER_SIZE + line * CartSlabs.LINE_SIZE;
+    }
+
+    /**
+     * @return int line of the product in the loaded slot, -1 if the product is not in the cart
+     */
+    private int lineOf(long productId) {
+        int size = size();
+        for (int line = 0; line < size; line++) {
+            if (buffer.getLong(lineOffset(line) + CartSlabs.LINE_PRODUCT_ID) == productId) return line;
+        }
+        return -1;
+    }
+
+    private long getHeaderLong(int field) {
+        return load() ? buffer.getLong(offset + field) : 0;
+    }
+
+    /**
+     * use to add item to cart
+     *
+     * @param product  added product
+     * @param quantity amount of the product
+     */
+    @Override
+    public void addItem(Product product, int quantity) {
+        CartItemValidator.validate(product, quantity);
+
+        add(product, quantity);
+        resetTotalAmountAfterDiscounts();
+    }
+
+    /**
+     * use to add a product of the product catalog of the store by its id
+     *
+     * @param productId id of the product
+     * @param quantity  amount of the product
+     * @throws UnknownProductException if the product is not in the catalog
+     */
+    public void addItem(long productId, int quantity) {
+        addItem(catalogProductOf(productId), quantity);
+    }
+
+    /**
+     * use to add many items to cart at once
+     * Items are added only if all of them are valid.
+     *
+     * @param items added items
+     * @return ValidationReport problems of items, nothing is added if it is not valid
+     * @throws UnknownProductException if the store has a product catalog and a product is not in it, nothing is added
+     * @throws ArithmeticException      if totals of the cart overflow with the items, nothing is added
+     */
+    @Override
+    public ValidationReport addItems(Collection<CartItem> items) {
+        ValidationReport report = CartItemValidator.validate(items);
+        if (!report.isValid()) return report;
+
+        //Products and totals are checked before the first item is added
+        boolean exists = load();
+        long totalPrice = exists ? buffer.getLong(offset + CartSlabs.TOTAL_PRICE) : 0;
+        int totalQuantity = exists ? buffer.getInt(offset + CartSlabs.TOTAL_QUANTITY) : 0;
+        for (CartItem item : items) {
+            Product product = item.getProduct();
+            int line = exists ? lineOf(product.getId()) : -1;
+            long price;
+            if (line >= 0) price = buffer.getLong(lineOffset(line) + CartSlabs.LINE_PRICE);
+            else if (store.getProductCatalog() != null)
+                price = store.getProductCatalog().getPriceList().prices[store.positionOf(product)];
+            else price = product.getPriceInMinorUnits();
+            totalPrice = Math.addExact(totalPrice, Math.multiplyExact(price, (long) item.getQuantity()));
+            totalQuantity = Math.addExact(totalQuantity, item.getQuantity());
+        }
+
+        for (CartItem item : items) add(item.getProduct(), item.getQuantity());
+        resetTotalAmountAfterDiscounts();
+        return report;
+    }
+
+    /**
+     * use to add quantity of a product to its line, the line is appended if the product is not in cart
+     */
+    private void add(Product product, int quantity) {
+        loadForUpdate(0);
+        int line = lineOf(product.getId());
+        if (line < 0) {
+            int position = store.positionOf(product);
+            line = size();
+            loadForUpdate(line + 1);
+            int lineOffset = lineOffset(line);
+            buffer.putLong(lineOffset + CartSlabs.LINE_PRODUCT_ID, product.getId());
+            buffer.putLong(lineOffset + CartSlabs.LINE_PRICE,
+                    priceList == null ? product.getPriceInMinorUnits() : priceList.prices[position]);
+            buffer.putInt(lineOffset + CartSlabs.LINE_QUANTITY, 0);
+            buffer.putInt(lineOffset + CartSlabs.LINE_PRODUCT, position);
+            buffer.putInt(offset + CartSlabs.NUMBER_OF_LINES, line + 1);
+        }
+        changeQuantity(line, quantity);
+    }
+
+    /**
+     * use to add quantity to a line of the loaded slot and to totals of the cart
+     *
+     * @param quantity added quantity, negative if quantity is decreased
+     */
+    private void changeQuantity(int line, int quantity) {
+        int lineOffset = lineOffset(line);
+        long price = Math.multiplyExact(buffer.getLong(lineOffset + CartSlabs.LINE_PRICE), (long) quantity);
+        buffer.putInt(lineOffset + CartSlabs.LINE_QUANTITY, buffer.getInt(lineOffset + CartSlabs.LINE_QUANTITY) + quantity);
+        buffer.putInt(offset + CartSlabs.TOTAL_QUANTITY, buffer.getInt(offset + CartSlabs.TOTAL_QUANTITY) + quantity);
+        buffer.putLong(offset + CartSlabs.TOTAL_PRICE, buffer.getLong(offset + CartSlabs.TOTAL_PRICE) + price);
+    }
+
+    /**
+     * use to remove product from cart with all of its quantity
+     *
+     * @param product removed product
+     * @return boolean true if the product was in cart
+     */
+    @Override
+    public boolean removeItem(Product product) {
+        Optional.ofNullable(product).orElseThrow(() -> new NullDataException(CartItemValidator.PRODUCT_IS_NULL));
+
+        if (!load()) return false;
+        int line = lineOf(product.getId());
+        if (line < 0) return false;
+
+        loadForUpdate(0);
+        changeQuantity(line, -buffer.getInt(lineOffset(line) + CartSlabs.LINE_QUANTITY));
+
+        //Last line is moved to the removed line, so lines stay next to each other
+        int lastLine = size() - 1;
+        for (int i = 0; i < CartSlabs.LINE_SIZE; i += 8) {
+            buffer.putLong(lineOffset(line) + i, buffer.getLong(lineOffset(lastLine) + i));
+        }
+        buffer.putInt(offset + CartSlabs.NUMBER_OF_LINES, lastLine);
+
+        resetTotalAmountAfterDiscounts();
+        return true;
+    }
+
+    /**
+     * use to remove a product of the product catalog of the store by its id
+     *
+     * @param productId id of the product
+     * @return boolean true if the product was in cart
+     * @throws UnknownProductException if the product is not in the catalog
+     */
+    public boolean removeItem(long productId) {
+        return removeItem(catalogProductOf(productId));
+    }
+
+    /**
+     * use to set quantity of product, product is added if it is not in cart
+     *
+     * @param product  changed product
+     * @param quantity new amount of the product
+     */
+    @Override
+    public void updateQuantity(Product product, int quantity) {
+        CartItemValidator.validate(product, quantity);
+
+        loadForUpdate(0);
+        int line = lineOf(product.getId());
+        if (line < 0) {
+            add(product, quantity);
+        } else {
+            changeQuantity(line, quantity - buffer.getInt(lineOffset(line) + CartSlabs.LINE_QUANTITY));
+        }
+        resetTotalAmountAfterDiscounts();
+    }
+
+    /**
+     * use to set quantity of a product of the product catalog of the store by its id
+     *
+     * @param productId id of the product
+     * @param quantity  new amount of the product
+     * @throws UnknownProductException if the product is not in the catalog
+     */
+    public void updateQuantity(long productId, int quantity) {
+        updateQuantity(catalogProductOf(productId), quantity);
+    }
+
+    /**
+     * @return Product product of the product catalog of the store with this id
+     * @throws UnknownProductException if the product is not in the catalog
+     */
+    private Product catalogProductOf(long productId) {
+        ProductCatalog productCatalog = Optional.ofNullable(store.getProductCatalog())
+                .orElseThrow(() -> new IllegalStateException("Store has no product catalog"));
+        return Optional.ofNullable(productCatalog.getProduct(productId))
+                .orElseThrow(() -> new UnknownProductException("Product " + productId + " is not in the catalog"));
+    }
+
+    /**
+     * use to remove all items and discounts of cart, its slot is kept for new items
+     */
+    @Override
+    public void clear() {
+        if (!load()) return;
+        loadForUpdate(0);
+        for (int field = CartSlabs.NUMBER_OF_LINES; field < CartSlabs.MODIFICATION_STAMP; field += 8) {
+            buffer.putLong(offset + field, 0);
+        }
+    }
+
+    /**
+     * Like ShoppingCart, total amount after discounts is total price after items are changed
+     */
+    private void resetTotalAmountAfterDiscounts() {
+        buffer.putLong(offset + CartSlabs.TOTAL_AMOUNT_AFTER_DISCOUNTS, buffer.getLong(offset + CartSlabs.TOTAL_PRICE));
+    }
+
+    /**
+     * use to apply campaign
+     *
+     * @param campaigns a lot of campaigns but applied one of them
+     */
+    @Override
+    public void applyDiscounts(ICampaign... campaigns) {
+        Optional.ofNullable(campaigns).orElseThrow(() -> new NullDataException(ShoppingCart.CAMPAIGNS_IS_NULL));
+        applyCampaigns(CampaignIndex.of(campaigns));
+    }
+
+    /**
+     * use to apply campaign of compiled campaigns
+     *
+     * @param campaignIndex compiled campaigns but applied one of them
+     */
+    @Override
+    public void applyCampaigns(CampaignIndex campaignIndex) {
+        Optional.ofNullable(campaignIndex).orElseThrow(() -> new NullDataException(ShoppingCart.CAMPAIGNS_IS_NULL));
+        setCampaignDiscountInMinorUnits(campaignIndex.getMaximumDiscount(getCategoryTotals()));
+    }
+
+    /**
+     * use to apply campaigns chosen by a stacking policy
+     *
+     * @param discountSolver compiled campaigns and how they are combined
+     * @return DiscountSolution applied campaigns with their discounts
+     */
+    @Override
+    public DiscountSolution applyCampaigns(DiscountSolver discountSolver) {
+        Optional.ofNullable(discountSolver).orElseThrow(() -> new NullDataException(ShoppingCart.CAMPAIGNS_IS_NULL));
+        DiscountSolution discountSolution = discountSolver.solve(getCategoryTotals());
+        setCampaignDiscountInMinorUnits(discountSolution.getTotalDiscountInMinorUnits());
+        return discountSolution;
+    }
+
+    /**
+     * Campaign discount replaces the previous one, applied coupons stay applied
+     */
+    private void setCampaignDiscountInMinorUnits(long campaignDiscount) {
+        loadForUpdate(0);
+        buffer.putLong(offset + CartSlabs.CAMPAIGN_DISCOUNT, campaignDiscount);
+        buffer.putLong(offset + CartSlabs.TOTAL_AMOUNT_AFTER_DISCOUNTS, buffer.getLong(offset + CartSlabs.TOTAL_PRICE)
+                - campaignDiscount - buffer.getLong(offset + CartSlabs.COUPON_DISCOUNT));
+    }
+
+    /**
+     * use to apply coupon
+     *
+     * @param coupon planning to apply coupon
+     */
+    @Override
+    public void applyCoupon(ICoupon coupon) {
+        long totalAmountAfterDiscounts = getTotalAmountAfterDiscountsInMinorUnits();
+        if (coupon != null && coupon.isApplicable(totalAmountAfterDiscounts)) {
+            long discount = coupon.getDiscountInMinorUnits(totalAmountAfterDiscounts);
+            loadForUpdate(0);
+            buffer.putLong(offset + CartSlabs.COUPON_DISCOUNT, buffer.getLong(offset + CartSlabs.COUPON_DISCOUNT) + discount);
+            buffer.putLong(offset + CartSlabs.TOTAL_AMOUNT_AFTER_DISCOUNTS, totalAmountAfterDiscounts - discount);
+        }
+    }
+
+    /**
+     * @return ICategoryTotals quantity and price per category of products in cart including parent categories,
+     * valid until the cart or the view is changed
+     */
+    @Override
+    public ICategoryTotals getCategoryTotals() {
+        boolean exists = load();
+        long stamp = exists ? buffer.getLong(offset + CartSlabs.MODIFICATION_STAMP) : NO_CART_STAMP;
+        if (categoryTotalsStamp == stamp && categoryTotalsCartId == cartId) return categoryTotals;
+
+        categoryTotals.clear();
+        if (exists) {
+            int size = size();
+            for (int line = 0; line < size; line++) {
+                int lineOffset = lineOffset(line);
+                long quantity = buffer.getInt(lineOffset + CartSlabs.LINE_QUANTITY);
+                Product product = productAt(buffer.getInt(lineOffset + CartSlabs.LINE_PRODUCT));
+                categoryTotals.add(product.getCategory(), quantity,
+                        buffer.getLong(lineOffset + CartSlabs.LINE_PRICE) * quantity, 1);
+            }
+        }
+        categoryTotalsCartId = cartId;
+        categoryTotalsStamp = stamp;
+        return categoryTotals;
+    }
+
+    /**
+     * @return int number of different categories of products in cart
+     */
+    @Override
+    public int getNumberOfCategories() {
+        getCategoryTotals();
+        return categoryTotals.getNumberOfCategories();
+    }
+
+    /**
+     * @return int number of different products in cart
+     */
+    @Override
+    public int getNumberOfProducts() {
+        return load() ? size() : 0;
+    }
+
+    @Override
+    public int getTotalQuantityOfProduct() {
+        return load() ? buffer.getInt(offset + CartSlabs.TOTAL_QUANTITY) : 0;
+    }
+
+    /**
+     * @return long total price of shopping cart items in minor units
+     */
+    @Override
+    public long getTotalPriceInMinorUnits() {
+        return getHeaderLong(CartSlabs.TOTAL_PRICE);
+    }
+
+    public double getTotalAmountAfterDiscounts() {
+        return Money.toMajorUnits(getTotalAmountAfterDiscountsInMinorUnits());
+    }
+
+    public long getTotalAmountAfterDiscountsInMinorUnits() {
+        return getHeaderLong(CartSlabs.TOTAL_AMOUNT_AFTER_DISCOUNTS);
+    }
+
+    public double getCampaignDiscount() {
+        return Money.toMajorUnits(getCampaignDiscountInMinorUnits());
+    }
+
+    public long getCampaignDiscountInMinorUnits() {
+        return getHeaderLong(CartSlabs.CAMPAIGN_DISCOUNT);
+    }
+
+    public double getCouponDiscount() {
+        return Money.toMajorUnits(getCouponDiscountInMinorUnits());
+    }
+
+    public long getCouponDiscountInMinorUnits() {
+        return getHeaderLong(CartSlabs.COUPON_DISCOUNT);
+    }
+
+    /**
+     * @param product product of a line
+     * @return int quantity of the product in cart, 0 if it is not in cart
+     */
+    public int getQuantity(Product product) {
+        Optional.ofNullable(product).orElseThrow(() -> new NullDataException(CartItemValidator.PRODUCT_IS_NULL));
+        if (!load()) return 0;
+        int line = lineOf(product.getId());
+        return line < 0 ? 0 : buffer.getInt(lineOffset(line) + CartSlabs.LINE_QUANTITY);
+    }
+
+    /**
+     * use to get delivery cost for this cart
+     *
+     * @return double delivery cost
+     */
+    @Override
+    public double getDeliveryCost() {
+        return Money.toMajorUnits(getDeliveryCostInMinorUnits());
+    }
+
+    /**
+     * use to get delivery cost for this cart
+     *
+     * @return long delivery cost in minor units
+     */
+    public long getDeliveryCostInMinorUnits() {
+        if (getNumberOfProducts() == 0) return 0;
+        return store.getDeliveryCostCalculator().calculateInMinorUnitsFor(this);
+    }
+
+    /**
+     * use to print cart
+     */
+    @Override
+    public void print() {
+        StringBuilder out = new StringBuilder();
+        try {
+            render(new CartRenderer(CartRenderer.Format.TEXT), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.print(out);
+    }
+
+    /**
+     * use to render cart to an Appendable, for example a StringBuilder or a Writer
+     *
+     * @param renderer renderer of the format
+     * @param out      output of the rendered cart
+     * @throws IOException if out throws
+     */
+    @Override
+    public void render(CartRenderer renderer, Appendable out) throws IOException {
+        Optional.ofNullable(renderer).orElseThrow(() -> new NullDataException(ShoppingCart.RENDERER_IS_NULL));
+        long deliveryCost = getDeliveryCostInMinorUnits();
+        renderer.render(out, lines, getTotalPriceInMinorUnits(), getCampaignDiscountInMinorUnits() + getCouponDiscountInMinorUnits(),
+                getTotalAmountAfterDiscountsInMinorUnits(), deliveryCost);
+    }
+
+    /**
+     * use to render cart to a ByteBuffer in UTF-8
+     *
+     * @param renderer renderer of the format
+     * @param out      output of the rendered cart
+     */
+    @Override
+    public void render(CartRenderer renderer, ByteBuffer out) {
+        Optional.ofNullable(renderer).orElseThrow(() -> new NullDataException(ShoppingCart.RENDERER_IS_NULL));
+        long deliveryCost = getDeliveryCostInMinorUnits();
+        renderer.render(out, lines, getTotalPriceInMinorUnits(), getCampaignDiscountInMinorUnits() + getCouponDiscountInMinorUnits(),
+                getTotalAmountAfterDiscountsInMinorUnits(), deliveryCost);
+    }
+
+    /**
+     * Lines of the cart for CartRenderer, each read loads the slot of the cart again
+     */
+    private final class Lines implements ICartLines {
+
+        @Override
+        public int size() {
+            return getNumberOfProducts();
+        }
+
+        @Override
+        public Product getProduct(int line) {
+            load();
+            return productAt(buffer.getInt(lineOffset(line) + CartSlabs.LINE_PRODUCT));
+        }
+
+        @Override
+        public int getQuantity(int line) {
+            load();
+            return buffer.getInt(lineOffset(line) + CartSlabs.LINE_QUANTITY);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package cart;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Immutable version of the lines of one stripe of a ConcurrentShoppingCart.
+ * A new version is created for each change in O(log n), sharing everything else with the previous one,
+ * and each version of a stripe has a bigger version number than the previous one, so discounts can tell
+ * which items they were calculated for.
+ */
+final class CartStripe {
+
+    private final CartSnapshot snapshot;
+
+    /**
+     * PersistentLongMap<Long> order in which products were added by product id, numbered by a counter of the whole cart
+     */
+    private final PersistentLongMap<Long> sequences;
+
+    private final long fingerprint;
+    private final long version;
+
+    private CartStripe(CartSnapshot snapshot, PersistentLongMap<Long> sequences, long fingerprint, long version) {
+        this.snapshot = snapshot;
+        this.sequences = sequences;
+        this.fingerprint = fingerprint;
+        this.version = version;
+    }
+
+    /**
+     * use to create the first version of an empty stripe
+     *
+     * @return CartStripe empty stripe
+     */
+    static CartStripe empty() {
+        return new CartStripe(CartSnapshot.EMPTY, PersistentLongMap.empty(), 0, 0);
+    }
+
+    /**
+     * use to create an empty version of this stripe
+     *
+     * @return CartStripe new version without items
+     */
+    CartStripe cleared() {
+        return new CartStripe(CartSnapshot.EMPTY, PersistentLongMap.empty(), 0, version + 1);
+    }
+
+    /**
+     * use to create a new version with added item
+     *
+     * @param product      added product
+     * @param quantity     amount of the product
+     * @param nextSequence order of a new line among lines of all stripes
+     * @return CartStripe new version
+     */
+    CartStripe withItem(Product product, int quantity, LongSupplier nextSequence) {
+        return withQuantity(product, Math.addExact(snapshot.getQuantity(product), quantity), nextSequence);
+    }
+
+    /**
+     * use to create a new version with new quantity of a product
+     *
+     * @param product      product of the item
+     * @param quantity     new quantity of the product, 0 to remove the product
+     * @param nextSequence order of a new line among lines of all stripes
+     * @return CartStripe new version, this version if quantity is not changed
+     */
+    CartStripe withQuantity(Product product, int quantity, LongSupplier nextSequence) {
+        Product lineProduct = snapshot.getLineProduct(product.getId());
+        int oldQuantity = lineProduct == null ? 0 : snapshot.getQuantity(product);
+        if (oldQuantity == quantity) return this;
+
+        //Like a line of a cart, a line is priced with the first added product of its id
+        Product pricedProduct = lineProduct == null ? product : lineProduct;
+        long newFingerprint = fingerprint;
+        if (oldQuantity > 0) newFingerprint -= CartLines.fingerprintOf(product.getId(), pricedProduct.getPriceInMinorUnits(), oldQuantity);
+        if (quantity > 0) newFingerprint += CartLines.fingerprintOf(product.getId(), pricedProduct.getPriceInMinorUnits(), quantity);
+
+        PersistentLongMap<Long> newSequences = sequences;
+        if (quantity == 0) newSequences = sequences.remove(product.getId());
+        else if (oldQuantity == 0) newSequences = sequences.put(product.getId(), nextSequence.getAsLong());
+
+        return new CartStripe(snapshot.withQuantity(product, quantity), newSequences, newFingerprint, version + 1);
+    }
+
+    CartSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    long getSequence(Product product) {
+        return sequences.get(product.getId());
+    }
+
+    long getFingerprint() {
+        return fingerprint;
+    }
+
+    long getVersion() {
+        return version;
+    }
+}
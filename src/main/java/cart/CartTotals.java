@@ -0,0 +1,241 @@
+package cart;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable version of lines, totals and discounts of a ConcurrentShoppingCart.
+ * It is made of one immutable version of each stripe of the cart, taken at the same moment,
+ * and of the discounts applied to exactly these versions, so totals and discounts always belong together.
+ * Merged items and ordered lines are created on first use.
+ */
+public final class CartTotals implements ICartStatistics {
+
+    private final CartStripe[] stripes;
+
+    /**
+     * Discounts last applied discounts of the cart, they may be calculated for other versions of stripes
+     */
+    private final Discounts appliedDiscounts;
+    private final Discounts discounts;
+
+    private final long totalPrice;
+    private final int totalQuantity;
+    private final int numberOfProducts;
+    private final long fingerprint;
+
+    private volatile CartSnapshot snapshot;
+    private volatile ICartLines lines;
+
+    CartTotals(CartStripe[] stripes, Discounts appliedDiscounts) {
+        this.stripes = stripes;
+        this.appliedDiscounts = appliedDiscounts;
+        //Discounts calculated for other versions of items are reset by the change of items
+        this.discounts = appliedDiscounts.isFor(stripes) ? appliedDiscounts : Discounts.none(stripes);
+
+        long price = 0;
+        int quantity = 0;
+        int products = 0;
+        long sum = 0;
+        for (CartStripe stripe : stripes) {
+            CartSnapshot stripeSnapshot = stripe.getSnapshot();
+            price = Math.addExact(price, stripeSnapshot.getTotalPriceInMinorUnits());
+            quantity = Math.addExact(quantity, stripeSnapshot.getTotalQuantityOfProduct());
+            products += stripeSnapshot.getNumberOfProducts();
+            sum += stripe.getFingerprint();
+        }
+        totalPrice = price;
+        totalQuantity = quantity;
+        numberOfProducts = products;
+        fingerprint = sum;
+    }
+
+    /**
+     * use to check if this version is made of given versions of stripes and discounts
+     *
+     * @param stripes          versions of stripes
+     * @param appliedDiscounts last applied discounts
+     * @return boolean true if nothing is changed since this version
+     */
+    boolean isOf(CartStripe[] stripes, Discounts appliedDiscounts) {
+        return this.appliedDiscounts == appliedDiscounts && Arrays.equals(this.stripes, stripes);
+    }
+
+    /**
+     * @return Discounts last applied discounts of the cart when this version was taken
+     */
+    Discounts getAppliedDiscounts() {
+        return appliedDiscounts;
+    }
+
+    /**
+     * @return CartSnapshot merged items of all stripes, created on first use
+     */
+    public CartSnapshot getSnapshot() {
+        CartSnapshot current = snapshot;
+        if (current == null) snapshot = current = mergeStripes();
+        return current;
+    }
+
+    private CartSnapshot mergeStripes() {
+        CartSnapshot[] merged = {CartSnapshot.EMPTY};
+        for (CartStripe stripe : stripes) {
+            CartSnapshot stripeSnapshot = stripe.getSnapshot();
+            if (stripeSnapshot.getNumberOfProducts() == 0) continue;
+            if (stripeSnapshot.getNumberOfProducts() == numberOfProducts) return stripeSnapshot;
+            stripeSnapshot.forEachItem((product, quantity) -> merged[0] = merged[0].withQuantity(product, quantity));
+        }
+        return merged[0];
+    }
+
+    /**
+     * @return ICartLines lines in order of addition, created on first use
+     */
+    ICartLines getLines() {
+        ICartLines current = lines;
+        if (current == null) lines = current = new OrderedLines();
+        return current;
+    }
+
+    /**
+     * @return Map<Product, Integer> read-only view of items
+     */
+    public Map<Product, Integer> getShoppingCartItems() {
+        return getSnapshot().getShoppingCartItems();
+    }
+
+    /**
+     * @return long fingerprint of products, their prices and quantities, same as fingerprint of a ShoppingCart with same items
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @return long total price of items in minor units
+     */
+    @Override
+    public long getTotalPriceInMinorUnits() {
+        return totalPrice;
+    }
+
+    @Override
+    public int getTotalQuantityOfProduct() {
+        return totalQuantity;
+    }
+
+    @Override
+    public int getNumberOfProducts() {
+        return numberOfProducts;
+    }
+
+    @Override
+    public int getNumberOfCategories() {
+        return getSnapshot().getNumberOfCategories();
+    }
+
+    @Override
+    public ICategoryTotals getCategoryTotals() {
+        return getSnapshot().getCategoryTotals();
+    }
+
+    public long getCampaignDiscountInMinorUnits() {
+        return discounts.campaignDiscount;
+    }
+
+    public long getCouponDiscountInMinorUnits() {
+        return discounts.couponDiscount;
+    }
+
+    public long getTotalAmountAfterDiscountsInMinorUnits() {
+        return totalPrice - discounts.campaignDiscount - discounts.couponDiscount;
+    }
+
+    /**
+     * Discounts in minor units with the versions of stripes they were calculated for.
+     */
+    static final class Discounts {
+        static final Discounts NONE = new Discounts(new long[0], 0, 0);
+
+        private final long[] versions;
+        private final long campaignDiscount;
+        private final long couponDiscount;
+
+        private Discounts(long[] versions, long campaignDiscount, long couponDiscount) {
+            this.versions = versions;
+            this.campaignDiscount = campaignDiscount;
+            this.couponDiscount = couponDiscount;
+        }
+
+        /**
+         * use to create discounts of the items of a version
+         *
+         * @param totals           version of items the discounts are calculated for
+         * @param campaignDiscount campaign discount in minor units
+         * @param couponDiscount   coupon discount in minor units
+         * @return Discounts discounts of the version
+         */
+        static Discounts of(CartTotals totals, long campaignDiscount, long couponDiscount) {
+            return new Discounts(totals.discounts.versions, campaignDiscount, couponDiscount);
+        }
+
+        private static Discounts none(CartStripe[] stripes) {
+            long[] versions = new long[stripes.length];
+            for (int i = 0; i < stripes.length; i++) versions[i] = stripes[i].getVersion();
+            return new Discounts(versions, 0, 0);
+        }
+
+        private boolean isFor(CartStripe[] stripes) {
+            if (versions.length != stripes.length) return false;
+            for (int i = 0; i < stripes.length; i++) {
+                if (versions[i] != stripes[i].getVersion()) return false;
+            }
+            return true;
+        }
+    }
+
+    private final class OrderedLines implements ICartLines {
+        private final Product[] products;
+        private final int[] quantities;
+
+        private OrderedLines() {
+            int size = numberOfProducts;
+            Integer[] order = new Integer[size];
+            Product[] unorderedProducts = new Product[size];
+            int[] unorderedQuantities = new int[size];
+            long[] unorderedSequences = new long[size];
+            int[] line = new int[1];
+            for (CartStripe stripe : stripes) {
+                stripe.getSnapshot().forEachItem((product, quantity) -> {
+                    order[line[0]] = line[0];
+                    unorderedProducts[line[0]] = product;
+                    unorderedQuantities[line[0]] = quantity;
+                    unorderedSequences[line[0]++] = stripe.getSequence(product);
+                });
+            }
+            Arrays.sort(order, (first, second) -> Long.compare(unorderedSequences[first], unorderedSequences[second]));
+
+            products = new Product[size];
+            quantities = new int[size];
+            for (int i = 0; i < size; i++) {
+                products[i] = unorderedProducts[order[i]];
+                quantities[i] = unorderedQuantities[order[i]];
+            }
+        }
+
+        @Override
+        public int size() {
+            return products.length;
+        }
+
+        @Override
+        public Product getProduct(int line) {
+            return products[line];
+        }
+
+        @Override
+        public int getQuantity(int line) {
+            return quantities[line];
+        }
+    }
+}
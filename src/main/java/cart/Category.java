@@ -2,12 +2,33 @@ package cart;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class Category {
 
     private String title;
     private Category parentCategory;
 
+    /**
+     * id given by CategoryTree
+     */
+    private int id;
+
+    /**
+     * ids of root category to this category, last one is id of this category
+     */
+    private int[] path;
+
+    /**
+     * List<Category> categories whose parent category is this category, null until the first one is registered
+     */
+    private List<Category> subcategories;
+
+    /**
+     * true once a product has been created with this category or one of its subcategories
+     */
+    private volatile boolean inUse;
+
     /**
      * Constructor is private because of builder pattern
      */
@@ -26,10 +47,77 @@ public class Category {
         return parentCategory;
     }
 
+    /**
+     * @param parentCategory new parent category
+     * @throws IllegalStateException if a product has been created with this category or one of its subcategories
+     */
     public void setParentCategory(Category parentCategory) {
+        CategoryTree.getInstance().reparent(this, parentCategory);
+    }
+
+    void updateParentCategory(Category parentCategory) {
         this.parentCategory = parentCategory;
     }
 
+    public int getId() {
+        return id;
+    }
+
+    void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * @return int number of parent categories, 0 for root categories
+     */
+    public int getDepth() {
+        return path.length - 1;
+    }
+
+    int[] getPath() {
+        return path;
+    }
+
+    void setPath(int[] path) {
+        this.path = path;
+    }
+
+    void addSubcategory(Category subcategory) {
+        if (subcategories == null) subcategories = new ArrayList<>(2);
+        subcategories.add(subcategory);
+    }
+
+    void removeSubcategory(Category subcategory) {
+        subcategories.remove(subcategory);
+    }
+
+    void forEachSubcategory(Consumer<Category> consumer) {
+        if (subcategories != null) subcategories.forEach(consumer);
+    }
+
+    /**
+     * @return boolean true if a product has been created with this category or one of its subcategories,
+     * its parent category can not be changed any more
+     */
+    public boolean isInUse() {
+        return inUse;
+    }
+
+    void setInUse() {
+        inUse = true;
+    }
+
+    /**
+     * use to check category is this category or one of its parent categories
+     *
+     * @param category checked category
+     * @return boolean true if category is this category or one of its parents
+     */
+    public boolean isSubcategoryOf(Category category) {
+        int depth = category.getDepth();
+        return depth < path.length && path[depth] == category.getId();
+    }
+
     /**
      * use to get title and parents title
      *
@@ -65,7 +153,8 @@ public class Category {
         public Category build() {
             Category category = new Category();
             category.setTitle(this.title);
-            category.setParentCategory(this.parentCategory);
+            category.updateParentCategory(this.parentCategory);
+            CategoryTree.getInstance().register(category);
             return category;
         }
     }
@@ -0,0 +1,177 @@
+package cart;
+
+import java.util.Arrays;
+
+/**
+ * Quantity and price per category id including parent categories.
+ * Entries are kept densely in primitive arrays and found through an open addressing index,
+ * so updates and lookups do not box or allocate.
+ */
+class CategoryTotals implements ICategoryTotals {
+
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] categoryIds;
+    private Category[] categories;
+    private long[] quantities;
+    private long[] prices;
+
+    /**
+     * int[] number of different products whose own category is this category
+     */
+    private int[] products;
+
+    private int size;
+    private int numberOfCategories;
+
+    /**
+     * int[] open addressing index from category id to entry
+     */
+    private int[] index;
+
+    CategoryTotals() {
+        categoryIds = new int[INITIAL_CAPACITY];
+        categories = new Category[INITIAL_CAPACITY];
+        quantities = new long[INITIAL_CAPACITY];
+        prices = new long[INITIAL_CAPACITY];
+        products = new int[INITIAL_CAPACITY];
+        index = new int[INITIAL_CAPACITY * 2];
+        Arrays.fill(index, EMPTY);
+    }
+
+    /**
+     * use to add quantity and price to a category and its parent categories
+     *
+     * @param category    category of the product
+     * @param quantity    added quantity
+     * @param price       added price in minor units
+     * @param newProducts number of different products added to category of the product
+     */
+    void add(Category category, long quantity, long price, int newProducts) {
+        int numberOfEntries = size;
+        int entry = EMPTY;
+        for (int categoryId : category.getPath()) {
+            entry = insert(categoryId);
+            quantities[entry] += quantity;
+            prices[entry] += price;
+        }
+        //Categories of new entries are set once, walking parents like the path
+        if (size != numberOfEntries) {
+            for (Category parent = category; parent != null; parent = parent.getParentCategory()) {
+                categories[entryOf(parent.getId())] = parent;
+            }
+        }
+        if (newProducts != 0) {
+            if (products[entry] == 0) numberOfCategories++;
+            products[entry] += newProducts;
+            if (products[entry] == 0) numberOfCategories--;
+        }
+    }
+
+    void clear() {
+        Arrays.fill(index, EMPTY);
+        Arrays.fill(categories, 0, size, null);
+        size = 0;
+        numberOfCategories = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getCategoryIdAt(int entry) {
+        return categoryIds[entry];
+    }
+
+    @Override
+    public Category getCategoryAt(int entry) {
+        return categories[entry];
+    }
+
+    @Override
+    public long getQuantityAt(int entry) {
+        return quantities[entry];
+    }
+
+    @Override
+    public long getPriceAt(int entry) {
+        return prices[entry];
+    }
+
+    @Override
+    public int getNumberOfProductsAt(int entry) {
+        return products[entry];
+    }
+
+    @Override
+    public long getQuantityOfCategory(int categoryId) {
+        int entry = entryOf(categoryId);
+        return entry == EMPTY ? 0 : quantities[entry];
+    }
+
+    @Override
+    public long getPriceOfCategory(int categoryId) {
+        int entry = entryOf(categoryId);
+        return entry == EMPTY ? 0 : prices[entry];
+    }
+
+    /**
+     * @return int number of different categories which have products directly
+     */
+    int getNumberOfCategories() {
+        return numberOfCategories;
+    }
+
+    private int entryOf(int categoryId) {
+        int mask = index.length - 1;
+        for (int slot = mix(categoryId) & mask; index[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (categoryIds[index[slot]] == categoryId) return index[slot];
+        }
+        return EMPTY;
+    }
+
+    private int insert(int categoryId) {
+        int mask = index.length - 1;
+        int slot = mix(categoryId) & mask;
+        for (; index[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (categoryIds[index[slot]] == categoryId) return index[slot];
+        }
+
+        if (size == categoryIds.length) {
+            grow();
+            return insert(categoryId);
+        }
+        index[slot] = size;
+        categoryIds[size] = categoryId;
+        quantities[size] = 0;
+        prices[size] = 0;
+        products[size] = 0;
+        return size++;
+    }
+
+    private void grow() {
+        int capacity = categoryIds.length * 2;
+        categoryIds = Arrays.copyOf(categoryIds, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        products = Arrays.copyOf(products, capacity);
+
+        index = new int[capacity * 2];
+        Arrays.fill(index, EMPTY);
+        int mask = index.length - 1;
+        for (int entry = 0; entry < size; entry++) {
+            int slot = mix(categoryIds[entry]) & mask;
+            while (index[slot] != EMPTY) slot = (slot + 1) & mask;
+            index[slot] = entry;
+        }
+    }
+
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,97 @@
+package cart;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Gives each category a unique int id and keeps the ids of its parent categories in an array,
+ * so "is subcategory of" checks compare ints instead of walking parents and titles.
+ * <p>
+ * Categories are not kept here, a category which is not used any more is garbage collected like any object.
+ * Ids are unique in the process, so categories of different trees can be in the same cart.
+ * A parent category is changed in time linear in the size of the subtree of the category,
+ * and only while no product has been created with the category or one of its subcategories,
+ * since carts and campaigns keep paths of categories of their products.
+ */
+public final class CategoryTree {
+
+    static final String CATEGORY_IS_IN_USE = "Category is in use by products, its parent category can not be changed!";
+
+    private static final CategoryTree INSTANCE = new CategoryTree();
+
+    private static final int[] EMPTY_PATH = new int[0];
+
+    /**
+     * int id of the next registered category
+     */
+    private int nextId;
+
+    private CategoryTree() {
+    }
+
+    public static CategoryTree getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * use to register a new category, its parent category has to be registered before
+     *
+     * @param category new category
+     * @throws IllegalStateException if all ids have been given
+     */
+    synchronized void register(Category category) {
+        if (nextId == Integer.MAX_VALUE) throw new IllegalStateException("Ids of categories are exhausted");
+        category.setId(nextId++);
+        category.setPath(pathOf(category));
+        if (category.getParentCategory() != null) category.getParentCategory().addSubcategory(category);
+    }
+
+    /**
+     * use to update paths after parent category of a category has been changed
+     *
+     * @param category       category whose parent category will be changed
+     * @param parentCategory new parent category
+     * @throws IllegalStateException if a product has been created with the category or one of its subcategories
+     */
+    synchronized void reparent(Category category, Category parentCategory) {
+        if (category.isInUse()) throw new IllegalStateException(CATEGORY_IS_IN_USE);
+        if (parentCategory != null && parentCategory.isSubcategoryOf(category))
+            throw new IllegalArgumentException("Category can not be parent of its parent category!");
+
+        if (category.getParentCategory() != null) category.getParentCategory().removeSubcategory(category);
+        category.updateParentCategory(parentCategory);
+        if (parentCategory != null) parentCategory.addSubcategory(category);
+
+        //Parents get their new paths before their subcategories
+        Deque<Category> categories = new ArrayDeque<>();
+        categories.add(category);
+        while (!categories.isEmpty()) {
+            Category changed = categories.poll();
+            changed.setPath(pathOf(changed));
+            changed.forEachSubcategory(categories::add);
+        }
+    }
+
+    /**
+     * use to mark a category and its parent categories as used by a product, their parent categories are not changed any more
+     *
+     * @param category category of a product
+     */
+    void markInUse(Category category) {
+        if (category.isInUse()) return;
+        synchronized (this) {
+            for (Category parent = category; parent != null && !parent.isInUse(); parent = parent.getParentCategory()) {
+                parent.setInUse();
+            }
+        }
+    }
+
+    private int[] pathOf(Category category) {
+        Category parentCategory = category.getParentCategory();
+        int[] parentPath = parentCategory == null ? EMPTY_PATH : parentCategory.getPath();
+        int[] path = Arrays.copyOf(parentPath, parentPath.length + 1);
+        path[parentPath.length] = category.getId();
+        return path;
+    }
+}
@@ -0,0 +1,382 @@
+package cart;
+
+import delivery.DeliveryCostCalculator;
+import delivery.IDeliveryCostCalculator;
+import discount.campaign.CampaignIndex;
+import discount.campaign.DiscountSolution;
+import discount.campaign.DiscountSolver;
+import discount.campaign.ICampaign;
+import discount.coupon.ICoupon;
+import exception.NullDataException;
+import money.Money;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Shopping cart which can be used by many threads at the same time.
+ * Lines are divided into stripes by product, each stripe is an immutable CartStripe guarded by its own lock,
+ * so writers of different products do not wait for each other and a change creates a new version of one stripe in O(log n).
+ * Readers never lock: they read the versions of all stripes twice until nothing is changed in between
+ * and get one immutable CartTotals of them with the discounts applied to them.
+ * Changes of many stripes, addItems and clear, are marked with an odd number of a change counter while they are published,
+ * so readers see either none or all of their items.
+ * <p>
+ * Discounts are applied to one CartTotals and belong to its items, any later change of items resets them,
+ * so total amount after discounts is always calculated from the items the discounts were calculated for.
+ */
+public class ConcurrentShoppingCart implements IShoppingCart {
+
+    /**
+     * int power of two, about four stripes per core so writers of different products rarely share a lock
+     */
+    private static final int NUMBER_OF_STRIPES =
+            Math.min(64, Integer.highestOneBit(Math.max(4, Runtime.getRuntime().availableProcessors() * 4) * 2 - 1));
+
+    private final AtomicReferenceArray<CartStripe> stripes = new AtomicReferenceArray<>(NUMBER_OF_STRIPES);
+    private final ReentrantLock[] locks = new ReentrantLock[NUMBER_OF_STRIPES];
+
+    /**
+     * AtomicLong odd while a change of many stripes is being published
+     */
+    private final AtomicLong multiStripeChanges = new AtomicLong();
+
+    /**
+     * AtomicLong order of new lines among all stripes
+     */
+    private final AtomicLong lineSequence = new AtomicLong();
+    private final LongSupplier nextSequence = lineSequence::getAndIncrement;
+
+    private final AtomicReference<CartTotals.Discounts> discounts = new AtomicReference<>(CartTotals.Discounts.NONE);
+
+    private volatile CartTotals cartTotals;
+
+    private volatile IDeliveryCostCalculator deliveryCostCalculator;
+
+    public ConcurrentShoppingCart() {
+        this(DeliveryCostCalculator.DEFAULT);
+    }
+
+    /**
+     * @param deliveryCostCalculator calculator of delivery cost of this cart
+     */
+    public ConcurrentShoppingCart(IDeliveryCostCalculator deliveryCostCalculator) {
+        setDeliveryCostCalculator(deliveryCostCalculator);
+        for (int i = 0; i < NUMBER_OF_STRIPES; i++) {
+            stripes.set(i, CartStripe.empty());
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * use to add item to cart
+     *
+     * @param product  added product
+     * @param quantity amount of the product
+     */
+    @Override
+    public void addItem(Product product, int quantity) {
+        CartItemValidator.validate(product, quantity);
+        int stripe = stripeOf(product);
+        locks[stripe].lock();
+        try {
+            stripes.set(stripe, stripes.get(stripe).withItem(product, quantity, nextSequence));
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * use to add many items to cart at once, they are published together so readers see either none or all of them
+     *
+     * @param items added items
+     * @return ValidationReport problems of items, nothing is added if it is not valid
+     */
+    @Override
+    public ValidationReport addItems(Collection<CartItem> items) {
+        ValidationReport report = CartItemValidator.validate(items);
+        if (!report.isValid()) return report;
+
+        boolean[] changed = new boolean[NUMBER_OF_STRIPES];
+        for (CartItem item : items) changed[stripeOf(item.getProduct())] = true;
+        //Locks are taken in order of stripes, so two changes of many stripes can not wait for each other
+        for (int i = 0; i < NUMBER_OF_STRIPES; i++) {
+            if (changed[i]) locks[i].lock();
+        }
+        try {
+            CartStripe[] updated = new CartStripe[NUMBER_OF_STRIPES];
+            for (int i = 0; i < NUMBER_OF_STRIPES; i++) updated[i] = stripes.get(i);
+            for (CartItem item : items) {
+                int stripe = stripeOf(item.getProduct());
+                updated[stripe] = updated[stripe].withItem(item.getProduct(), item.getQuantity(), nextSequence);
+            }
+            publish(changed, updated);
+        } finally {
+            for (int i = NUMBER_OF_STRIPES - 1; i >= 0; i--) {
+                if (changed[i]) locks[i].unlock();
+            }
+        }
+        return report;
+    }
+
+    /**
+     * use to remove product from cart with all of its quantity
+     *
+     * @param product removed product
+     * @return boolean true if the product was in cart
+     */
+    @Override
+    public boolean removeItem(Product product) {
+        Optional.ofNullable(product).orElseThrow(() -> new NullDataException(CartItemValidator.PRODUCT_IS_NULL));
+        int stripe = stripeOf(product);
+        locks[stripe].lock();
+        try {
+            CartStripe current = stripes.get(stripe);
+            CartStripe updated = current.withQuantity(product, 0, nextSequence);
+            if (updated == current) return false;
+            stripes.set(stripe, updated);
+            return true;
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * use to set quantity of product, product is added if it is not in cart
+     *
+     * @param product  changed product
+     * @param quantity new amount of the product
+     */
+    @Override
+    public void updateQuantity(Product product, int quantity) {
+        CartItemValidator.validate(product, quantity);
+        int stripe = stripeOf(product);
+        locks[stripe].lock();
+        try {
+            stripes.set(stripe, stripes.get(stripe).withQuantity(product, quantity, nextSequence));
+        } finally {
+            locks[stripe].unlock();
+        }
+    }
+
+    /**
+     * use to remove all items and discounts of cart
+     */
+    @Override
+    public void clear() {
+        boolean[] changed = new boolean[NUMBER_OF_STRIPES];
+        Arrays.fill(changed, true);
+        for (ReentrantLock lock : locks) lock.lock();
+        try {
+            CartStripe[] updated = new CartStripe[NUMBER_OF_STRIPES];
+            for (int i = 0; i < NUMBER_OF_STRIPES; i++) updated[i] = stripes.get(i).cleared();
+            publish(changed, updated);
+        } finally {
+            for (int i = NUMBER_OF_STRIPES - 1; i >= 0; i--) locks[i].unlock();
+        }
+    }
+
+    private void publish(boolean[] changed, CartStripe[] updated) {
+        multiStripeChanges.incrementAndGet();
+        try {
+            for (int i = 0; i < NUMBER_OF_STRIPES; i++) {
+                if (changed[i]) stripes.set(i, updated[i]);
+            }
+        } finally {
+            multiStripeChanges.incrementAndGet();
+        }
+    }
+
+    private static int stripeOf(Product product) {
+        long id = product.getId();
+        int hash = (int) (id ^ (id >>> 32));
+        return (hash ^ (hash >>> 16)) & (NUMBER_OF_STRIPES - 1);
+    }
+
+    /**
+     * use to get consistent totals and discounts of all items, the version of the last change
+     *
+     * @return CartTotals immutable totals and discounts of items, same instance until the next change
+     */
+    public CartTotals getCartTotals() {
+        CartStripe[] collected = new CartStripe[NUMBER_OF_STRIPES];
+        CartStripe[] recollected = new CartStripe[NUMBER_OF_STRIPES];
+        while (true) {
+            long changes = multiStripeChanges.get();
+            if ((changes & 1) != 0) {
+                Thread.yield();
+                continue;
+            }
+            for (int i = 0; i < NUMBER_OF_STRIPES; i++) collected[i] = stripes.get(i);
+            CartTotals.Discounts appliedDiscounts = discounts.get();
+            for (int i = 0; i < NUMBER_OF_STRIPES; i++) recollected[i] = stripes.get(i);
+            if (!Arrays.equals(collected, recollected) || multiStripeChanges.get() != changes) continue;
+
+            CartTotals current = cartTotals;
+            if (current != null && current.isOf(collected, appliedDiscounts)) return current;
+            return cartTotals = new CartTotals(collected, appliedDiscounts);
+        }
+    }
+
+    /**
+     * use to apply campaign
+     *
+     * @param campaigns a lot of campaigns but applied one of them
+     */
+    @Override
+    public void applyDiscounts(ICampaign... campaigns) {
+        Optional.ofNullable(campaigns).orElseThrow(() -> new NullDataException(ShoppingCart.CAMPAIGNS_IS_NULL));
+        applyCampaigns(CampaignIndex.of(campaigns));
+    }
+
+    /**
+     * use to apply campaign of compiled campaigns
+     *
+     * @param campaignIndex compiled campaigns but applied one of them
+     */
+    @Override
+    public void applyCampaigns(CampaignIndex campaignIndex) {
+        Optional.ofNullable(campaignIndex).orElseThrow(() -> new NullDataException(ShoppingCart.CAMPAIGNS_IS_NULL));
+        updateDiscounts(totals -> CartTotals.Discounts.of(totals,
+                campaignIndex.getMaximumDiscount(totals.getCategoryTotals()), totals.getCouponDiscountInMinorUnits()));
+    }
+
+    /**
+     * use to apply campaigns chosen by a stacking policy
+     *
+     * @param discountSolver compiled campaigns and how they are combined
+     * @return DiscountSolution applied campaigns with their discounts
+     */
+    @Override
+    public DiscountSolution applyCampaigns(DiscountSolver discountSolver) {
+        Optional.ofNullable(discountSolver).orElseThrow(() -> new NullDataException(ShoppingCart.CAMPAIGNS_IS_NULL));
+        DiscountSolution[] discountSolution = new DiscountSolution[1];
+        updateDiscounts(totals -> {
+            discountSolution[0] = discountSolver.solve(totals.getCategoryTotals());
+            return CartTotals.Discounts.of(totals,
+                    discountSolution[0].getTotalDiscountInMinorUnits(), totals.getCouponDiscountInMinorUnits());
+        });
+        return discountSolution[0];
+    }
+
+    /**
+     * use to apply coupon
+     *
+     * @param coupon planning to apply coupon
+     */
+    @Override
+    public void applyCoupon(ICoupon coupon) {
+        if (coupon == null) return;
+        updateDiscounts(totals -> {
+            long totalAmountAfterDiscounts = totals.getTotalAmountAfterDiscountsInMinorUnits();
+            if (!coupon.isApplicable(totalAmountAfterDiscounts)) return null;
+            return CartTotals.Discounts.of(totals, totals.getCampaignDiscountInMinorUnits(),
+                    totals.getCouponDiscountInMinorUnits() + coupon.getDiscountInMinorUnits(totalAmountAfterDiscounts));
+        });
+    }
+
+    /**
+     * use to replace discounts with discounts calculated from one consistent version,
+     * it is calculated again if discounts are applied by another thread in the meantime
+     *
+     * @param calculation new discounts of a version, null to keep discounts
+     */
+    private void updateDiscounts(Function<CartTotals, CartTotals.Discounts> calculation) {
+        while (true) {
+            CartTotals totals = getCartTotals();
+            CartTotals.Discounts updated = calculation.apply(totals);
+            if (updated == null || discounts.compareAndSet(totals.getAppliedDiscounts(), updated)) return;
+        }
+    }
+
+    public long getCampaignDiscountInMinorUnits() {
+        return getCartTotals().getCampaignDiscountInMinorUnits();
+    }
+
+    public long getCouponDiscountInMinorUnits() {
+        return getCartTotals().getCouponDiscountInMinorUnits();
+    }
+
+    public long getTotalAmountAfterDiscountsInMinorUnits() {
+        return getCartTotals().getTotalAmountAfterDiscountsInMinorUnits();
+    }
+
+    /**
+     * use to get delivery cost for this cart
+     *
+     * @return double delivery cost
+     */
+    @Override
+    public double getDeliveryCost() {
+        return Money.toMajorUnits(getDeliveryCostInMinorUnits(getCartTotals()));
+    }
+
+    private long getDeliveryCostInMinorUnits(CartTotals totals) {
+        if (totals.getNumberOfProducts() == 0) return 0;
+        return deliveryCostCalculator.calculateInMinorUnitsFor(totals);
+    }
+
+    public IDeliveryCostCalculator getDeliveryCostCalculator() {
+        return deliveryCostCalculator;
+    }
+
+    public void setDeliveryCostCalculator(IDeliveryCostCalculator deliveryCostCalculator) {
+        this.deliveryCostCalculator = Optional.ofNullable(deliveryCostCalculator)
+                .orElseThrow(() -> new NullDataException(ShoppingCart.DELIVERY_COST_CALCULATOR_IS_NULL));
+    }
+
+    /**
+     * use to print cart
+     */
+    @Override
+    public void print() {
+        StringBuilder out = new StringBuilder();
+        try {
+            render(new CartRenderer(CartRenderer.Format.TEXT), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.print(out);
+    }
+
+    /**
+     * use to render a consistent copy of cart to an Appendable, for example a StringBuilder or a Writer
+     *
+     * @param renderer renderer of the format
+     * @param out      output of the rendered cart
+     * @throws IOException if out throws
+     */
+    @Override
+    public void render(CartRenderer renderer, Appendable out) throws IOException {
+        Optional.ofNullable(renderer).orElseThrow(() -> new NullDataException(ShoppingCart.RENDERER_IS_NULL));
+        CartTotals totals = getCartTotals();
+        renderer.render(out, totals.getLines(), totals.getTotalPriceInMinorUnits(),
+                totals.getCampaignDiscountInMinorUnits() + totals.getCouponDiscountInMinorUnits(),
+                totals.getTotalAmountAfterDiscountsInMinorUnits(), getDeliveryCostInMinorUnits(totals));
+    }
+
+    /**
+     * use to render a consistent copy of cart to a ByteBuffer in UTF-8
+     *
+     * @param renderer renderer of the format
+     * @param out      output of the rendered cart
+     */
+    @Override
+    public void render(CartRenderer renderer, ByteBuffer out) {
+        Optional.ofNullable(renderer).orElseThrow(() -> new NullDataException(ShoppingCart.RENDERER_IS_NULL));
+        CartTotals totals = getCartTotals();
+        renderer.render(out, totals.getLines(), totals.getTotalPriceInMinorUnits(),
+                totals.getCampaignDiscountInMinorUnits() + totals.getCouponDiscountInMinorUnits(),
+                totals.getTotalAmountAfterDiscountsInMinorUnits(), getDeliveryCostInMinorUnits(totals));
+    }
+}
@@ -0,0 +1,125 @@
+package cart;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Open addressing map from long keys to non-negative long values in a direct buffer, outside of the Java heap.
+ * An entry is a key and its value plus one, 0 marks an empty entry, and removal shifts following entries back,
+ * so there are no tombstones and lookups stay short.
+ */
+final class DirectLongMap {
+
+    static final long NO_VALUE = -1;
+
+    private static final int ENTRY_SIZE = 16;
+    private static final int KEY = 0;
+    private static final int VALUE = 8;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * capacity of the largest table which fits in a direct buffer
+     */
+    private static final int MAX_CAPACITY = 1 << 26;
+
+    private ByteBuffer table;
+    private int mask;
+    private int size;
+
+    DirectLongMap() {
+        table = ByteBuffer.allocateDirect(INITIAL_CAPACITY * ENTRY_SIZE);
+        mask = INITIAL_CAPACITY - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return long value of the key, NO_VALUE if there is no value
+     */
+    long get(long key) {
+        for (int slot = slotOf(key); ; slot = (slot + 1) & mask) {
+            long value = table.getLong(slot * ENTRY_SIZE + VALUE);
+            if (value == 0) return NO_VALUE;
+            if (table.getLong(slot * ENTRY_SIZE + KEY) == key) return value - 1;
+        }
+    }
+
+    /**
+     * @param key   key of the value
+     * @param value value which is not negative
+     */
+    void put(long key, long value) {
+        int slot = slotOf(key);
+        for (; table.getLong(slot * ENTRY_SIZE + VALUE) != 0; slot = (slot + 1) & mask) {
+            if (table.getLong(slot * ENTRY_SIZE + KEY) == key) {
+                table.putLong(slot * ENTRY_SIZE + VALUE, value + 1);
+                return;
+            }
+        }
+        if ((size + 1) * 4L > (mask + 1) * 3L) {
+            grow();
+            put(key, value);
+            return;
+        }
+        table.putLong(slot * ENTRY_SIZE + KEY, key);
+        table.putLong(slot * ENTRY_SIZE + VALUE, value + 1);
+        size++;
+    }
+
+    /**
+     * @return long removed value of the key, NO_VALUE if there is no value
+     */
+    long remove(long key) {
+        int slot = slotOf(key);
+        for (; ; slot = (slot + 1) & mask) {
+            long value = table.getLong(slot * ENTRY_SIZE + VALUE);
+            if (value == 0) return NO_VALUE;
+            if (table.getLong(slot * ENTRY_SIZE + KEY) == key) break;
+        }
+        long removed = table.getLong(slot * ENTRY_SIZE + VALUE) - 1;
+
+        //Entries after the removed one are moved back, unless they are already at or after their own slot
+        int hole = slot;
+        for (int next = (slot + 1) & mask; table.getLong(next * ENTRY_SIZE + VALUE) != 0; next = (next + 1) & mask) {
+            int home = slotOf(table.getLong(next * ENTRY_SIZE + KEY));
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table.putLong(hole * ENTRY_SIZE + KEY, table.getLong(next * ENTRY_SIZE + KEY));
+                table.putLong(hole * ENTRY_SIZE + VALUE, table.getLong(next * ENTRY_SIZE + VALUE));
+                hole = next;
+            }
+        }
+        table.putLong(hole * ENTRY_SIZE + VALUE, 0);
+        size--;
+        return removed;
+    }
+
+    private void grow() {
+        int capacity = mask + 1;
+        if (capacity == MAX_CAPACITY) throw new IllegalStateException("Map has more than " + size + " entries");
+        ByteBuffer oldTable = table;
+        table = ByteBuffer.allocateDirect(capacity * 2 * ENTRY_SIZE);
+        mask = capacity * 2 - 1;
+        for (int slot = 0; slot < capacity; slot++) {
+            long value = oldTable.getLong(slot * ENTRY_SIZE + VALUE);
+            if (value == 0) continue;
+            long key = oldTable.getLong(slot * ENTRY_SIZE + KEY);
+            int newSlot = slotOf(key);
+            while (table.getLong(newSlot * ENTRY_SIZE + VALUE) != 0) newSlot = (newSlot + 1) & mask;
+            table.putLong(newSlot * ENTRY_SIZE + KEY, key);
+            table.putLong(newSlot * ENTRY_SIZE + VALUE, value);
+        }
+    }
+
+    /**
+     * @return long bytes of the direct buffer of the table
+     */
+    long getAllocatedBytes() {
+        return table.capacity();
+    }
+
+    private int slotOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,17 @@
+package cart;
+
+/**
+ * Lines of a cart by position, from 0 to size() - 1, read by CartRenderer
+ */
+interface ICartLines {
+
+    /**
+     * @return int number of lines
+     */
+    int size();
+
+    Product getProduct(int line);
+
+    int getQuantity(int line);
+
+}
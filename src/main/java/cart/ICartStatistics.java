@@ -0,0 +1,33 @@
+package cart;
+
+/**
+ * Counts of a cart kept up to date by the cart, so reading them costs no work and no allocation
+ */
+public interface ICartStatistics {
+
+    /**
+     * @return int number of different categories of products
+     */
+    int getNumberOfCategories();
+
+    /**
+     * @return int number of different products
+     */
+    int getNumberOfProducts();
+
+    /**
+     * @return int total quantity of products
+     */
+    int getTotalQuantityOfProduct();
+
+    /**
+     * @return long total price of products in minor units
+     */
+    long getTotalPriceInMinorUnits();
+
+    /**
+     * @return ICategoryTotals quantity and price per category including parent categories
+     */
+    ICategoryTotals getCategoryTotals();
+
+}
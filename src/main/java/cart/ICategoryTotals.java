@@ -0,0 +1,48 @@
+package cart;
+
+/**
+ * Read-only view of quantity and price per category including parent categories.
+ * Entries can be scanned by position without allocation, positions are from 0 to size() - 1.
+ */
+public interface ICategoryTotals {
+
+    /**
+     * @return int number of entries, a category with no products left may still have an entry
+     */
+    int size();
+
+    int getCategoryIdAt(int entry);
+
+    /**
+     * @param entry position of the entry
+     * @return Category category of the entry, its parent categories are in entries too
+     */
+    Category getCategoryAt(int entry);
+
+    long getQuantityAt(int entry);
+
+    /**
+     * @param entry position of the entry
+     * @return long total price in minor units
+     */
+    long getPriceAt(int entry);
+
+    /**
+     * @param entry position of the entry
+     * @return int number of different products whose own category is this category, 0 for parent categories only
+     */
+    int getNumberOfProductsAt(int entry);
+
+    /**
+     * @param categoryId id of the category
+     * @return long quantity of products in this category, 0 if there is no product
+     */
+    long getQuantityOfCategory(int categoryId);
+
+    /**
+     * @param categoryId id of the category
+     * @return long total price of products in this category in minor units, 0 if there is no product
+     */
+    long getPriceOfCategory(int categoryId);
+
+}
@@ -1,18 +1,41 @@
 package cart;
 
+import discount.campaign.CampaignIndex;
+import discount.campaign.DiscountSolution;
+import discount.campaign.DiscountSolver;
 import discount.campaign.ICampaign;
 import discount.coupon.ICoupon;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
 public interface IShoppingCart {
 
     void applyDiscounts(ICampaign... campaigns);
 
+    void applyCampaigns(CampaignIndex campaignIndex);
+
+    DiscountSolution applyCampaigns(DiscountSolver discountSolver);
+
     void applyCoupon(ICoupon coupon);
 
     void print();
 
+    void render(CartRenderer renderer, Appendable out) throws IOException;
+
+    void render(CartRenderer renderer, ByteBuffer out);
+
     double getDeliveryCost();
 
     void addItem(Product product, int quantity);
 
+    ValidationReport addItems(Collection<CartItem> items);
+
+    boolean removeItem(Product product);
+
+    void updateQuantity(Product product, int quantity);
+
+    void clear();
+
 }
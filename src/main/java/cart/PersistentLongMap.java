@@ -0,0 +1,215 @@
+package cart;
+
+import java.util.function.Consumer;
+
+/**
+ * Immutable hash array mapped trie from long keys to values.
+ * put and remove return a new map sharing all untouched nodes with this map in O(log n),
+ * so older versions stay valid without copying.
+ *
+ * @param <V> type of values
+ */
+final class PersistentLongMap<V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentLongMap EMPTY = new PersistentLongMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentLongMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> PersistentLongMap<V> empty() {
+        return (PersistentLongMap<V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param key key of the value
+     * @return V value of the key, null if there is no value
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        long hash = mix(key);
+        Node node = root;
+        for (int shift = 0; node != null; shift += BITS) {
+            int bit = 1 << (int) ((hash >>> shift) & MASK);
+            if ((node.bitmap & bit) == 0) return null;
+            Object child = node.children[Integer.bitCount(node.bitmap & (bit - 1))];
+            if (child instanceof Leaf) {
+                Leaf leaf = (Leaf) child;
+                return leaf.key == key ? (V) leaf.value : null;
+            }
+            node = (Node) child;
+        }
+        return null;
+    }
+
+    /**
+     * @param key   key of the value
+     * @param value new value, not null
+     * @return PersistentLongMap<V> new map with this value
+     */
+    PersistentLongMap<V> put(long key, V value) {
+        long hash = mix(key);
+        if (root == null) return new PersistentLongMap<>(new Node(bitOf(hash, 0), new Object[]{new Leaf(key, hash, value)}), 1);
+
+        boolean[] added = new boolean[1];
+        Node newRoot = put(root, 0, key, hash, value, added);
+        return newRoot == root ? this : new PersistentLongMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * @param key key of the value
+     * @return PersistentLongMap<V> new map without value of this key
+     */
+    PersistentLongMap<V> remove(long key) {
+        if (root == null) return this;
+        Object newRoot = remove(root, 0, key, mix(key));
+        if (newRoot == root) return this;
+        if (newRoot instanceof Leaf) {
+            Leaf leaf = (Leaf) newRoot;
+            newRoot = new Node(bitOf(leaf.hash, 0), new Object[]{leaf});
+        }
+        return new PersistentLongMap<>((Node) newRoot, size - 1);
+    }
+
+    /**
+     * use to visit all values, order is not defined
+     *
+     * @param consumer consumer of values
+     */
+    @SuppressWarnings("unchecked")
+    void forEach(Consumer<? super V> consumer) {
+        if (root != null) forEach(root, (Consumer<Object>) consumer);
+    }
+
+    private static void forEach(Node node, Consumer<Object> consumer) {
+        for (Object child : node.children) {
+            if (child instanceof Leaf) consumer.accept(((Leaf) child).value);
+            else forEach((Node) child, consumer);
+        }
+    }
+
+    private static Node put(Node node, int shift, long key, long hash, Object value, boolean[] added) {
+        int bit = bitOf(hash, shift);
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+
+        if ((node.bitmap & bit) == 0) {
+            added[0] = true;
+            Object[] children = new Object[node.children.length + 1];
+            System.arraycopy(node.children, 0, children, 0, index);
+            children[index] = new Leaf(key, hash, value);
+            System.arraycopy(node.children, index, children, index + 1, node.children.length - index);
+            return new Node(node.bitmap | bit, children);
+        }
+
+        Object child = node.children[index];
+        Object newChild;
+        if (child instanceof Leaf) {
+            Leaf leaf = (Leaf) child;
+            if (leaf.key == key) {
+                if (leaf.value == value) return node;
+                newChild = new Leaf(key, hash, value);
+            } else {
+                added[0] = true;
+                newChild = merge(leaf, new Leaf(key, hash, value), shift + BITS);
+            }
+        } else {
+            newChild = put((Node) child, shift + BITS, key, hash, value, added);
+            if (newChild == child) return node;
+        }
+
+        Object[] children = node.children.clone();
+        children[index] = newChild;
+        return new Node(node.bitmap, children);
+    }
+
+    /**
+     * @return Object same node if key is not found, a leaf if only one leaf is left, otherwise a new node
+     */
+    private static Object remove(Node node, int shift, long key, long hash) {
+        int bit = bitOf(hash, shift);
+        if ((node.bitmap & bit) == 0) return node;
+        int index = Integer.bitCount(node.bitmap & (bit - 1));
+
+        Object child = node.children[index];
+        Object newChild;
+        if (child instanceof Leaf) {
+            if (((Leaf) child).key != key) return node;
+            newChild = null;
+        } else {
+            newChild = remove((Node) child, shift + BITS, key, hash);
+            if (newChild == child) return node;
+        }
+
+        if (newChild == null) {
+            if (node.children.length == 1) return null;
+            if (node.children.length == 2 && node.children[1 - index] instanceof Leaf) return node.children[1 - index];
+            Object[] children = new Object[node.children.length - 1];
+            System.arraycopy(node.children, 0, children, 0, index);
+            System.arraycopy(node.children, index + 1, children, index, children.length - index);
+            return new Node(node.bitmap & ~bit, children);
+        }
+        if (newChild instanceof Leaf && node.children.length == 1) return newChild;
+
+        Object[] children = node.children.clone();
+        children[index] = newChild;
+        return new Node(node.bitmap, children);
+    }
+
+    private static Node merge(Leaf first, Leaf second, int shift) {
+        int firstBit = bitOf(first.hash, shift);
+        int secondBit = bitOf(second.hash, shift);
+        if (firstBit == secondBit) return new Node(firstBit, new Object[]{merge(first, second, shift + BITS)});
+        return Integer.compareUnsigned(firstBit, secondBit) < 0
+                ? new Node(firstBit | secondBit, new Object[]{first, second})
+                : new Node(firstBit | secondBit, new Object[]{second, first});
+    }
+
+    private static int bitOf(long hash, int shift) {
+        return 1 << (int) ((hash >>> shift) & MASK);
+    }
+
+    /**
+     * Bijective mix of the key, so different keys never have the same hash
+     */
+    private static long mix(long key) {
+        long hash = key;
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    private static final class Node {
+        private final int bitmap;
+        private final Object[] children;
+
+        private Node(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+    }
+
+    private static final class Leaf {
+        private final long key;
+        private final long hash;
+        private final Object value;
+
+        private Leaf(long key, long hash, Object value) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+}
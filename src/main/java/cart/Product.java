@@ -1,47 +1,135 @@
 package cart;
 
-import java.util.Objects;
+import money.Money;
 
-public class Product {
-    private String title;
-    private Double price;
-    private Category category;
+/**
+ * Immutable product identified by its id, so it is safe to use as a key of cart items.
+ * <p>
+ * A product created without an id gets a negative id generated from its title, price and category.
+ * Ids of categories are only valid in this process, so a generated id is not persisted:
+ * files keep it only as a key within the file and readers generate it again from the restored product.
+ */
+public final class Product {
 
+    static final String PRODUCT_ID_IS_NEGATIVE = "Product id is negative!";
+
+    private final long id;
+    private final String title;
+    private final long priceInMinorUnits;
+    private final Category category;
+    private final int hash;
+
+    /**
+     * @param id       stock keeping unit id of the product, not negative
+     * @param title    title of the product
+     * @param price    unit price of the product
+     * @param category category of the product
+     */
+    public Product(long id, String title, Money price, Category category) {
+        this(checkId(id), title, price.getMinorUnits(), category);
+    }
+
+    /**
+     * @param id       stock keeping unit id of the product, not negative
+     * @param title    title of the product
+     * @param price    unit price of the product, rounded to minor units
+     * @param category category of the product
+     */
+    public Product(long id, String title, double price, Category category) {
+        this(checkId(id), title, Money.toMinorUnits(price), category);
+    }
+
+    /**
+     * Products with same title, price and category get same negative id
+     */
     public Product(String title, Double price, Category category) {
+        this(title, price == null ? 0 : Money.toMinorUnits(price), category);
+    }
+
+    private Product(String title, long priceInMinorUnits, Category category) {
+        this(generatedIdOf(title, priceInMinorUnits, category), title, priceInMinorUnits, category);
+    }
+
+    private Product(long id, String title, long priceInMinorUnits, Category category) {
+        //Carts keep paths of categories of their products, so they are not changed any more
+        if (category != null) CategoryTree.getInstance().markInUse(category);
+        this.id = id;
         this.title = title;
-        this.price = price;
+        this.priceInMinorUnits = priceInMinorUnits;
         this.category = category;
+        this.hash = Long.hashCode(id * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * use to create a product without an id, for example a product read from a file which was written with a generated id
+     *
+     * @param title             title of the product
+     * @param priceInMinorUnits unit price of the product in minor units
+     * @param category          category of the product
+     * @return Product product with an id generated from its title, price and category
+     */
+    public static Product withGeneratedId(String title, long priceInMinorUnits, Category category) {
+        return new Product(title, priceInMinorUnits, category);
+    }
+
+    private static long checkId(long id) {
+        if (id < 0) throw new IllegalArgumentException(PRODUCT_ID_IS_NEGATIVE);
+        return id;
+    }
+
+    /**
+     * 64 bit hash of title, price and category, so nothing is kept for generated ids.
+     * Different products with the same generated id are possible but extremely unlikely.
+     */
+    private static long generatedIdOf(String title, long priceInMinorUnits, Category category) {
+        long hash = priceInMinorUnits * 0x9E3779B97F4A7C15L + (category == null ? 0 : category.getId());
+        if (title != null) {
+            for (int i = 0; i < title.length(); i++) hash = (hash + title.charAt(i)) * 0xC2B2AE3D27D4EB4FL;
+        } else {
+            hash = ~hash;
+        }
+        hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+        hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return (hash ^ (hash >>> 33)) | Long.MIN_VALUE;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return boolean true if the product was created without an id, its id is only valid in this process
+     */
+    public boolean hasGeneratedId() {
+        return id < 0;
     }
 
     public String getTitle() {
         return title;
     }
 
-    public void setTitle(String title) {
-        this.title = title;
+    public double getPrice() {
+        return Money.toMajorUnits(priceInMinorUnits);
     }
 
-    public Double getPrice() {
-        return price;
+    public long getPriceInMinorUnits() {
+        return priceInMinorUnits;
     }
 
-    public void setPrice(Double price) {
-        this.price = price;
+    public Money getUnitPrice() {
+        return Money.ofMinorUnits(priceInMinorUnits);
     }
 
     public Category getCategory() {
         return category;
     }
 
-    public void setCategory(Category category) {
-        this.category = category;
-    }
-
     @Override
     public String toString() {
         return "Product {" +
-                "title='" + title + '\'' +
-                ", price=" + price +
+                "id=" + id +
+                ", title='" + title + '\'' +
+                ", price=" + getUnitPrice() +
                 ", category=" + category.getTitle() +
                 '}';
     }
@@ -50,14 +138,11 @@ public class Product {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
-        Product product = (Product) o;
-        return Objects.equals(title, product.title) &&
-                Objects.equals(price, product.price) &&
-                Objects.equals(category, product.category);
+        return id == ((Product) o).id;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(title, price, category);
+        return hash;
     }
 }
@@ -0,0 +1,288 @@
+package cart;
+
+import exception.InvalidPriceException;
+import exception.NullDataException;
+import exception.UnknownProductException;
+import money.Money;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Canonical products of a shop, found by their ids.
+ * Ids and category ids are kept in primitive arrays behind an open addressing index, which do not change after
+ * the catalog is built. Prices are kept in a price list which is replaced as a whole, copy on write,
+ * so reads take no lock and always see one consistent version of prices. Writers publish under a lock,
+ * and single price updates waiting for it are published together with one copy.
+ * <p>
+ * Carts of a CartStore and ShoppingCarts built on a catalog are repriced with the current price list
+ * when they are used next, so a price change does not touch every cart.
+ */
+public final class ProductCatalog {
+
+    static final String IDS_IS_NULL = "Ids are NULL!";
+    static final String PRICES_IS_NULL = "Prices are NULL!";
+
+    private static final int EMPTY = -1;
+    private static final int[] NO_POSITIONS = new int[0];
+    private static final long[] NO_PRICES = new long[0];
+
+    private final long[] ids;
+    private final int[] categoryIds;
+
+    /**
+     * int[] open addressing index from product id to position of the product
+     */
+    private final int[] index;
+
+    private final AtomicReference<PriceList> priceList;
+
+    /**
+     * single price updates waiting to be published by the next holder of updateLock
+     */
+    private final Queue<PendingPrice> pendingPrices = new ConcurrentLinkedQueue<>();
+    private final Object updateLock = new Object();
+
+    private ProductCatalog(long[] ids, Product[] products) {
+        this.ids = ids;
+        categoryIds = new int[ids.length];
+        long[] prices = new long[ids.length];
+        index = new int[Math.max(2, Integer.highestOneBit(Math.max(1, ids.length)) * 4)];
+        Arrays.fill(index, EMPTY);
+        for (int position = 0; position < ids.length; position++) {
+            categoryIds[position] = products[position].getCategory().getId();
+            prices[position] = products[position].getPriceInMinorUnits();
+            int mask = index.length - 1;
+            int slot = slotOf(ids[position]);
+            while (index[slot] != EMPTY) slot = (slot + 1) & mask;
+            index[slot] = position;
+        }
+        priceList = new AtomicReference<>(new PriceList(1, prices, products));
+    }
+
+    /**
+     * @return int number of products
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean contains(long id) {
+        return positionOf(id) != EMPTY;
+    }
+
+    /**
+     * @param id id of the product
+     * @return Product product with its current price, null if there is no product with this id
+     */
+    public Product getProduct(long id) {
+        int position = positionOf(id);
+        return position == EMPTY ? null : priceList.get().products[position];
+    }
+
+    /**
+     * @param id id of the product
+     * @return long current price in minor units, -1 if there is no product with this id
+     */
+    public long getPriceInMinorUnits(long id) {
+        int position = positionOf(id);
+        return position == EMPTY ? -1 : priceList.get().prices[position];
+    }
+
+    /**
+     * @param id id of the product
+     * @return int id of category of the product, -1 if there is no product with this id
+     */
+    public int getCategoryId(long id) {
+        int position = positionOf(id);
+        return position == EMPTY ? -1 : categoryIds[position];
+    }
+
+    /**
+     * @return long version of prices, increased by every published batch of price updates
+     */
+    public long getVersion() {
+        return priceList.get().version;
+    }
+
+    /**
+     * use to change price of a product. Concurrent single price updates are published together,
+     * so a burst of updates copies the price list once instead of once per update.
+     *
+     * @param id    id of the product
+     * @param price new unit price
+     * @return long version of prices with the new price
+     * @throws UnknownProductException if there is no product with this id
+     */
+    public long updatePrice(long id, Money price) {
+        Optional.ofNullable(price).orElseThrow(() -> new NullDataException(PRICES_IS_NULL));
+        int position = checkedPositionOf(id, price.getMinorUnits());
+
+        PendingPrice pendingPrice = new PendingPrice(position, price.getMinorUnits());
+        pendingPrices.add(pendingPrice);
+        synchronized (updateLock) {
+            //Published with the batch of another thread while waiting for the lock
+            if (pendingPrice.version == 0) publish(NO_POSITIONS, NO_PRICES);
+            return pendingPrice.version;
+        }
+    }
+
+    /**
+     * use to change prices of many products at once, readers see either all or none of the new prices.
+     * Updates are published one batch at a time, so none of them is lost.
+     *
+     * @param ids                ids of products
+     * @param pricesInMinorUnits new unit prices in minor units, in order of ids
+     * @return long version of prices with the new prices
+     * @throws UnknownProductException if there is no product with one of ids
+     */
+    public long updatePrices(long[] ids, long[] pricesInMinorUnits) {
+        Optional.ofNullable(ids).orElseThrow(() -> new NullDataException(IDS_IS_NULL));
+        Optional.ofNullable(pricesInMinorUnits).orElseThrow(() -> new NullDataException(PRICES_IS_NULL));
+        if (ids.length != pricesInMinorUnits.length) throw new IllegalArgumentException("Ids and prices have different lengths");
+
+        int[] positions = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) positions[i] = checkedPositionOf(ids[i], pricesInMinorUnits[i]);
+
+        synchronized (updateLock) {
+            return publish(positions, pricesInMinorUnits);
+        }
+    }
+
+    private int checkedPositionOf(long id, long priceInMinorUnits) {
+        int position = positionOf(id);
+        if (position == EMPTY) throw new UnknownProductException("Product " + id + " is not in the catalog");
+        if (priceInMinorUnits <= 0) throw new InvalidPriceException(CartItemValidator.PRODUCT_PRICE_IS_INVALID);
+        return position;
+    }
+
+    /**
+     * Copies the price list once for pending single price updates and the given prices, which are applied last.
+     * Only called with updateLock, so the price list is never copied again for a lost race.
+     *
+     * @return long version of the published prices
+     */
+    private long publish(int[] positions, long[] pricesInMinorUnits) {
+        PriceList current = priceList.get();
+        long[] prices = current.prices.clone();
+        Product[] products = current.products.clone();
+        long version = current.version + 1;
+
+        List<PendingPrice> published = new ArrayList<>();
+        for (PendingPrice pendingPrice = pendingPrices.poll(); pendingPrice != null; pendingPrice = pendingPrices.poll()) {
+            setPrice(prices, products, pendingPrice.position, pendingPrice.priceInMinorUnits);
+            published.add(pendingPrice);
+        }
+        for (int i = 0; i < positions.length; i++) setPrice(prices, products, positions[i], pricesInMinorUnits[i]);
+
+        priceList.set(new PriceList(version, prices, products));
+        for (PendingPrice pendingPrice : published) pendingPrice.version = version;
+        return version;
+    }
+
+    private static void setPrice(long[] prices, Product[] products, int position, long priceInMinorUnits) {
+        if (prices[position] == priceInMinorUnits) return;
+        prices[position] = priceInMinorUnits;
+        Product product = products[position];
+        products[position] = new Product(product.getId(), product.getTitle(),
+                Money.ofMinorUnits(priceInMinorUnits), product.getCategory());
+    }
+
+    /**
+     * @return int position of the product in arrays of the catalog, -1 if there is no product with this id
+     */
+    int positionOf(long id) {
+        int mask = index.length - 1;
+        for (int slot = slotOf(id); index[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (ids[index[slot]] == id) return index[slot];
+        }
+        return EMPTY;
+    }
+
+    /**
+     * @return PriceList current prices, they do not change while they are read
+     */
+    PriceList getPriceList() {
+        return priceList.get();
+    }
+
+    private int slotOf(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (index.length - 1);
+    }
+
+    /**
+     * Immutable version of prices, prices and products are in positions of the catalog
+     */
+    static final class PriceList {
+
+        final long version;
+        final long[] prices;
+        final Product[] products;
+
+        private PriceList(long version, long[] prices, Product[] products) {
+            this.version = version;
+            this.prices = prices;
+            this.products = products;
+        }
+    }
+
+    /**
+     * Single price update, version is set under updateLock when it is published
+     */
+    private static final class PendingPrice {
+
+        private final int position;
+        private final long priceInMinorUnits;
+        private long version;
+
+        private PendingPrice(int position, long priceInMinorUnits) {
+            this.position = position;
+            this.priceInMinorUnits = priceInMinorUnits;
+        }
+    }
+
+    /**
+     * Builder Pattern
+     */
+    public static class Builder {
+
+        private long[] ids = new long[16];
+        private Product[] products = new Product[16];
+        private int size;
+
+        /**
+         * @param product product of the catalog, each product of a catalog has a different id
+         * @return Builder this builder
+         */
+        public Builder addProduct(Product product) {
+            CartItemValidator.validate(product, 1);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                products = Arrays.copyOf(products, size * 2);
+            }
+            ids[size] = product.getId();
+            products[size] = product;
+            size++;
+            return this;
+        }
+
+        /**
+         * @throws IllegalStateException if two products have same id
+         */
+        public ProductCatalog build() {
+            long[] sortedIds = Arrays.copyOf(ids, size);
+            Arrays.sort(sortedIds);
+            for (int i = 1; i < size; i++) {
+                if (sortedIds[i] == sortedIds[i - 1])
+                    throw new IllegalStateException("Product " + sortedIds[i] + " is added twice!");
+            }
+            return new ProductCatalog(Arrays.copyOf(ids, size), Arrays.copyOf(products, size));
+        }
+    }
+}
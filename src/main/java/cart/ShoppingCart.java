@@ -1,68 +1,273 @@
 package cart;
 
 import delivery.DeliveryCostCalculator;
-import discount.campaign.AmountCampaign;
+import delivery.IDeliveryCostCalculator;
+import discount.campaign.CampaignIndex;
+import discount.campaign.DiscountSolution;
+import discount.campaign.DiscountSolver;
 import discount.campaign.ICampaign;
-import discount.campaign.RateCampaign;
-import discount.coupon.AmountCoupon;
 import discount.coupon.ICoupon;
-import discount.coupon.RateCoupon;
-import exception.InvalidPriceException;
-import exception.InvalidQuantityException;
 import exception.NullDataException;
+import money.Money;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 
-public class ShoppingCart implements IShoppingCart {
+public class ShoppingCart implements IShoppingCart, ICartStatistics {
 
-    private static final String PRODUCT_IS_NULL = "Product is NULL!";
-    private static final String CATEGORY_IS_NULL = "Category is NULL!";
-    private static final String PRODUCT_TITLE_IS_NULL = "Product title is NULL!";
-    private static final String PRODUCT_PRICE_IS_INVALID = "Product price is invalid!";
-    private static final String QUANTITY_IS_LESS_THAN_ONE = "Quantity of product is less than 1!";
-    private static final String CAMPAIGNS_IS_NULL = "There is a no campaigns!";
+    static final String CAMPAIGNS_IS_NULL = "There is a no campaigns!";
+    static final String DELIVERY_COST_CALCULATOR_IS_NULL = "Delivery cost calculator is NULL!";
+    static final String RENDERER_IS_NULL = "Renderer is NULL!";
+    static final String PRODUCT_CATALOG_IS_NULL = "Product catalog is NULL!";
+
+    private static final int EMPTY = -1;
 
     /**
-     * Map<Product, Integer> shopping cart items
+     * shopping cart items
      * Product -> added product to cart
-     * Integer -> quantity of this product
+     * int -> quantity of this product
+     */
+    private final CartLines shoppingCartItems = new CartLines(true);
+
+    /**
+     * running totals of shopping cart items, updated on every change of items
+     */
+    private final CartAggregates cartAggregates = new CartAggregates();
+
+    /**
+     * last created snapshot, changed lines of shoppingCartItems are applied to it on next getSnapshot
+     */
+    private CartSnapshot snapshot = CartSnapshot.EMPTY;
+
+    /**
+     * catalog whose current prices price lines of its products, null if lines keep prices of added products
      */
-    private Map<Product, Integer> shoppingCartItems = new HashMap<>();
+    private final ProductCatalog productCatalog;
 
-    private double totalAmountAfterDiscounts;
-    private double campaignDiscount;
-    private double couponDiscount;
+    /**
+     * version of prices of productCatalog which lines are priced with
+     */
+    private long priceVersion;
+
+    /**
+     * calculator of delivery cost, shared by carts
+     */
+    private IDeliveryCostCalculator deliveryCostCalculator;
+
+    /**
+     * amounts in minor units
+     */
+    private long totalAmountAfterDiscounts;
+    private long campaignDiscount;
+    private long couponDiscount;
+
+    public ShoppingCart() {
+        this(DeliveryCostCalculator.DEFAULT);
+    }
+
+    /**
+     * @param deliveryCostCalculator calculator of delivery cost of this cart
+     */
+    public ShoppingCart(IDeliveryCostCalculator deliveryCostCalculator) {
+        this.productCatalog = null;
+        setDeliveryCostCalculator(deliveryCostCalculator);
+    }
+
+    /**
+     * @param productCatalog catalog of products, lines of its products are priced with its current prices
+     */
+    public ShoppingCart(ProductCatalog productCatalog) {
+        this(productCatalog, DeliveryCostCalculator.DEFAULT);
+    }
+
+    /**
+     * Lines of products of the catalog are repriced when the cart is used after a price update of the catalog,
+     * products which are not in the catalog keep the price they are added with.
+     *
+     * @param productCatalog         catalog of products, lines of its products are priced with its current prices
+     * @param deliveryCostCalculator calculator of delivery cost of this cart
+     */
+    public ShoppingCart(ProductCatalog productCatalog, IDeliveryCostCalculator deliveryCostCalculator) {
+        this.productCatalog = Optional.ofNullable(productCatalog).orElseThrow(() -> new NullDataException(PRODUCT_CATALOG_IS_NULL));
+        setDeliveryCostCalculator(deliveryCostCalculator);
+    }
+
+    /**
+     * @return ProductCatalog catalog pricing lines of this cart, null if lines keep prices of added products
+     */
+    public ProductCatalog getProductCatalog() {
+        return productCatalog;
+    }
+
+    /**
+     * use to price lines with the current prices of the catalog, only if prices have changed since the last use.
+     * Like any change of items, total amount after discounts is reset to total price.
+     */
+    private void reprice() {
+        if (productCatalog == null) return;
+        ProductCatalog.PriceList priceList = productCatalog.getPriceList();
+        if (priceList.version == priceVersion) return;
+        priceVersion = priceList.version;
+
+        boolean repriced = false;
+        for (int line = 0; line < shoppingCartItems.size(); line++) {
+            int position = productCatalog.positionOf(shoppingCartItems.getProduct(line).getId());
+            if (position == EMPTY || priceList.prices[position] == shoppingCartItems.getPrice(line)) continue;
+            shoppingCartItems.reprice(line, priceList.products[position]);
+            repriced = true;
+        }
+        if (!repriced) return;
+
+        cartAggregates.clear();
+        for (int line = 0; line < shoppingCartItems.size(); line++) {
+            cartAggregates.add(shoppingCartItems, line, shoppingCartItems.getQuantity(line), true);
+        }
+        //Snapshot lines keep their first product, so the next snapshot is created again from lines
+        snapshot = CartSnapshot.EMPTY;
+        shoppingCartItems.clearChanges();
+        shoppingCartItems.markAllChanged();
+        totalAmountAfterDiscounts = getTotalPrice();
+    }
 
+    /**
+     * @return Product product of the catalog with its current price, the product itself if it is not in the catalog
+     */
+    private Product resolve(Product product) {
+        if (productCatalog == null) return product;
+        Product catalogProduct = productCatalog.getProduct(product.getId());
+        return catalogProduct == null ? product : catalogProduct;
+    }
+
+    /**
+     * @return Map<Product, Integer> read-only view of shopping cart items, use addItem to change items
+     */
     public Map<Product, Integer> getShoppingCartItems() {
-        return shoppingCartItems;
+        reprice();
+        return shoppingCartItems.asMap();
     }
 
     public void setShoppingCartItems(Map<Product, Integer> shoppingCartItems) {
-        this.shoppingCartItems = shoppingCartItems;
+        this.shoppingCartItems.clear();
+        cartAggregates.clear();
+        snapshot = CartSnapshot.EMPTY;
+        shoppingCartItems.forEach(this::add);
+        totalAmountAfterDiscounts = getTotalPrice();
+    }
+
+    /**
+     * use to get an immutable version of items, which stays the same while this cart is being changed
+     *
+     * @return CartSnapshot current version of items, created in O(log n) per changed item since last call
+     */
+    public CartSnapshot getSnapshot() {
+        reprice();
+        for (Product product : shoppingCartItems.getRemovedProducts()) snapshot = snapshot.withQuantity(product, 0);
+        for (int change = 0; change < shoppingCartItems.getNumberOfChangedLines(); change++) {
+            int line = shoppingCartItems.getChangedLine(change);
+            //Line has been removed after the change
+            if (line >= shoppingCartItems.size()) continue;
+            snapshot = snapshot.withQuantity(shoppingCartItems.getProduct(line), shoppingCartItems.getQuantity(line));
+        }
+        shoppingCartItems.clearChanges();
+        return snapshot;
+    }
+
+    /**
+     * use to detect changes of items, e.g. as a key of cached prices
+     *
+     * @return long fingerprint of products, their prices and quantities, updated on every change of items
+     */
+    public long getFingerprint() {
+        reprice();
+        return shoppingCartItems.getFingerprint();
+    }
+
+    /**
+     * @return ICategoryTotals quantity and price per category of products in cart including parent categories
+     */
+    @Override
+    public ICategoryTotals getCategoryTotals() {
+        reprice();
+        return cartAggregates.getCategoryTotals();
+    }
+
+    /**
+     * @return int number of different categories of products in cart
+     */
+    @Override
+    public int getNumberOfCategories() {
+        return cartAggregates.getNumberOfCategories();
+    }
+
+    /**
+     * @return int number of different products in cart
+     */
+    @Override
+    public int getNumberOfProducts() {
+        return cartAggregates.getNumberOfProducts();
     }
 
     public double getTotalAmountAfterDiscounts() {
+        reprice();
+        return Money.toMajorUnits(totalAmountAfterDiscounts);
+    }
+
+    public long getTotalAmountAfterDiscountsInMinorUnits() {
+        reprice();
         return totalAmountAfterDiscounts;
     }
 
     public void setTotalAmountAfterDiscounts(double totalAmountAfterDiscounts) {
-        this.totalAmountAfterDiscounts = totalAmountAfterDiscounts;
+        reprice();
+        this.totalAmountAfterDiscounts = Money.toMinorUnits(totalAmountAfterDiscounts);
     }
 
     public double getCampaignDiscount() {
+        return Money.toMajorUnits(campaignDiscount);
+    }
+
+    public long getCampaignDiscountInMinorUnits() {
         return campaignDiscount;
     }
 
     public double getCouponDiscount() {
+        return Money.toMajorUnits(couponDiscount);
+    }
+
+    public long getCouponDiscountInMinorUnits() {
         return couponDiscount;
     }
 
     public void setCampaignDiscount(double campaignDiscount) {
-        this.campaignDiscount = campaignDiscount;
+        reprice();
+        this.campaignDiscount = Money.toMinorUnits(campaignDiscount);
+    }
+
+    /**
+     * use to restore discounts of cart which were computed before, for example while replaying a log
+     *
+     * @param campaignDiscountInMinorUnits          campaign discount in minor units
+     * @param couponDiscountInMinorUnits            coupon discount in minor units
+     * @param totalAmountAfterDiscountsInMinorUnits total amount after discounts in minor units
+     */
+    public void restoreDiscounts(long campaignDiscountInMinorUnits, long couponDiscountInMinorUnits,
+                                 long totalAmountAfterDiscountsInMinorUnits) {
+        reprice();
+        this.campaignDiscount = campaignDiscountInMinorUnits;
+        this.couponDiscount = couponDiscountInMinorUnits;
+        this.totalAmountAfterDiscounts = totalAmountAfterDiscountsInMinorUnits;
+    }
+
+    /**
+     * @return long total price of shopping cart items in minor units
+     */
+    @Override
+    public long getTotalPriceInMinorUnits() {
+        reprice();
+        return cartAggregates.getTotalPrice();
     }
 
 
@@ -73,9 +278,27 @@ public class ShoppingCart implements IShoppingCart {
      */
     @Override
     public double getDeliveryCost() {
-        DeliveryCostCalculator deliveryCostCalculator = new DeliveryCostCalculator(1, 1);
-        if (shoppingCartItems.isEmpty()) return 0;
-        return deliveryCostCalculator.calculateFor(this);
+        return Money.toMajorUnits(getDeliveryCostInMinorUnits());
+    }
+
+    /**
+     * use to get delivery cost for this cart
+     *
+     * @return long delivery cost in minor units
+     */
+    public long getDeliveryCostInMinorUnits() {
+        reprice();
+        if (shoppingCartItems.size() == 0) return 0;
+        return deliveryCostCalculator.calculateInMinorUnitsFor(this);
+    }
+
+    public IDeliveryCostCalculator getDeliveryCostCalculator() {
+        return deliveryCostCalculator;
+    }
+
+    public void setDeliveryCostCalculator(IDeliveryCostCalculator deliveryCostCalculator) {
+        this.deliveryCostCalculator = Optional.ofNullable(deliveryCostCalculator)
+                .orElseThrow(() -> new NullDataException(DELIVERY_COST_CALCULATOR_IS_NULL));
     }
 
     /**
@@ -87,116 +310,161 @@ public class ShoppingCart implements IShoppingCart {
     @Override
     public void addItem(Product product, int quantity) {
 
-        //Check null product
-        Optional.ofNullable(product).orElseThrow(() -> new NullDataException(PRODUCT_IS_NULL));
+        CartItemValidator.validate(product, quantity);
+        reprice();
 
-        //Check null category
-        Optional.ofNullable(product.getCategory()).orElseThrow(() -> new NullDataException(CATEGORY_IS_NULL));
+        //Add product or update quantity of product
+        add(product, quantity);
 
-        //Check null product title
-        Optional.ofNullable(product.getTitle()).orElseThrow(() -> new NullDataException(PRODUCT_TITLE_IS_NULL));
+        totalAmountAfterDiscounts = getTotalPrice();
+    }
 
-        //Check product price
-        if (product.getPrice() <= 0) throw new InvalidPriceException(PRODUCT_PRICE_IS_INVALID);
+    /**
+     * use to add many items to cart at once
+     * Items are added only if all of them are valid, totals are updated once for the batch.
+     *
+     * @param items added items
+     * @return ValidationReport problems of items, nothing is added if it is not valid
+     * @throws ArithmeticException if totals of the cart overflow with the items, nothing is added
+     */
+    @Override
+    public ValidationReport addItems(Collection<CartItem> items) {
+        ValidationReport report = CartItemValidator.validate(items);
+        if (!report.isValid()) return report;
+        reprice();
+
+        //Totals of the batch are computed before the first item is added, so an overflow changes nothing
+        long totalPrice = getTotalPrice();
+        int totalQuantity = getTotalQuantityOfProduct();
+        for (CartItem item : items) {
+            int line = shoppingCartItems.lineOf(item.getProduct());
+            long price = line < 0 ? resolve(item.getProduct()).getPriceInMinorUnits() : shoppingCartItems.getPrice(line);
+            totalPrice = Math.addExact(totalPrice, Math.multiplyExact(price, (long) item.getQuantity()));
+            totalQuantity = Math.addExact(totalQuantity, item.getQuantity());
+        }
 
-        //Check quantity of product
-        if (quantity < 1) throw new InvalidQuantityException(QUANTITY_IS_LESS_THAN_ONE);
+        for (CartItem item : items) add(item.getProduct(), item.getQuantity());
 
-        //Add product or update quantity of product
-        if (!shoppingCartItems.containsKey(product)) shoppingCartItems.put(product, quantity);
-        else shoppingCartItems.replace(product, shoppingCartItems.get(product) + quantity);
+        totalAmountAfterDiscounts = getTotalPrice();
+        return report;
+    }
+
+    /**
+     * use to remove product from cart with all of its quantity
+     *
+     * @param product removed product
+     * @return boolean true if the product was in cart
+     */
+    @Override
+    public boolean removeItem(Product product) {
+        Optional.ofNullable(product).orElseThrow(() -> new NullDataException(CartItemValidator.PRODUCT_IS_NULL));
+
+        reprice();
+        int line = shoppingCartItems.lineOf(product);
+        if (line < 0) return false;
+
+        cartAggregates.add(shoppingCartItems, line, -shoppingCartItems.getQuantity(line), -1);
+        shoppingCartItems.remove(product);
 
         totalAmountAfterDiscounts = getTotalPrice();
+        return true;
     }
 
     /**
-     * use to apply campaign
+     * use to set quantity of product, product is added if it is not in cart
      *
-     * @param campaigns a lot of campaigns but applied one of them
+     * @param product  changed product
+     * @param quantity new amount of the product
      */
     @Override
-    public void applyDiscounts(ICampaign... campaigns) {
-        Optional.ofNullable(campaigns).orElseThrow(() -> new NullDataException(CAMPAIGNS_IS_NULL));
-        totalAmountAfterDiscounts = getTotalPrice() - getMaximumAmountOfDiscount(campaigns);
-    }
-
-    private double getMaximumAmountOfDiscount(ICampaign... campaigns) {
-        List<ICampaign> applicableCampaigns = getApplicableCampaigns(campaigns);
-        double newDiscount = 0;
-
-        for (ICampaign campaign : applicableCampaigns) {
-            if (campaign instanceof AmountCampaign) {
-                newDiscount = campaign.getDiscount(getPriceOfCategory(((AmountCampaign) campaign).getCategory().getTitle()));
-            } else if (campaign instanceof RateCampaign) {
-                newDiscount = campaign.getDiscount(getPriceOfCategory(((RateCampaign) campaign).getCategory().getTitle()));
-            }
-            if (campaignDiscount < newDiscount) {
-                campaignDiscount = newDiscount;
-            }
-        }
+    public void updateQuantity(Product product, int quantity) {
 
-        return campaignDiscount;
+        CartItemValidator.validate(product, quantity);
+        reprice();
+
+        int previousQuantity = shoppingCartItems.set(resolve(product), quantity);
+        cartAggregates.add(shoppingCartItems, shoppingCartItems.lineOf(product), quantity - previousQuantity,
+                previousQuantity == 0 ? 1 : 0);
+
+        totalAmountAfterDiscounts = getTotalPrice();
     }
 
-    private double getPriceOfCategory(String categoryTitle) {
-        return shoppingCartItems.keySet()
-                .stream()
-                .filter(product -> product.getCategory().getTitleAndParentsTitles().contains(categoryTitle))
-                .mapToDouble(product -> product.getPrice() * shoppingCartItems.get(product))
-                .sum();
-    }
-
-    private List<ICampaign> getApplicableCampaigns(ICampaign... campaigns) {
-        Map<String, Long> categoriesAndProductCount = getCategoriesAndProductCount();
-        Long quantityOfProduct;
-        List<ICampaign> applicableCampaigns = new ArrayList<>();
-
-        Optional.ofNullable(categoriesAndProductCount)
-                .orElseThrow(NullDataException::new);
-
-        for (ICampaign campaign : campaigns) {
-            if (campaign instanceof AmountCampaign) {
-                quantityOfProduct = categoriesAndProductCount.get(((AmountCampaign) campaign).getCategory().getTitle());
-                if (quantityOfProduct != null && campaign.isApplicable(quantityOfProduct, ((AmountCampaign) campaign).getMinQuantityOfProduct()))
-                    applicableCampaigns.add(campaign);
-            } else if (campaign instanceof RateCampaign) {
-                quantityOfProduct = categoriesAndProductCount.get(((RateCampaign) campaign).getCategory().getTitle());
-                if (quantityOfProduct != null && campaign.isApplicable(quantityOfProduct, ((RateCampaign) campaign).getMinQuantityOfProduct()))
-                    applicableCampaigns.add(campaign);
-            }
-        }
-        return applicableCampaigns;
+    /**
+     * use to add quantity to the line of a product, a line keeps the price of the first added product of its id,
+     * or of the catalog for a product of the catalog, and totals are updated with the price of the line
+     */
+    private void add(Product product, int quantity) {
+        product = resolve(product);
+        boolean newLine = shoppingCartItems.add(product, quantity);
+        cartAggregates.add(shoppingCartItems, shoppingCartItems.lineOf(product), quantity, newLine);
     }
 
-    private Map<String, Long> getCategoriesAndProductCount() {
+    /**
+     * use to remove all items and discounts of cart
+     */
+    @Override
+    public void clear() {
+        shoppingCartItems.clear();
+        cartAggregates.clear();
+        snapshot = CartSnapshot.EMPTY;
+        totalAmountAfterDiscounts = 0;
+        campaignDiscount = 0;
+        couponDiscount = 0;
+    }
 
-        List<String> categoryTitles = new ArrayList<>();
+    /**
+     * use to apply campaign
+     *
+     * @param campaigns a lot of campaigns but applied one of them
+     */
+    @Override
+    public void applyDiscounts(ICampaign... campaigns) {
+        Optional.ofNullable(campaigns).orElseThrow(() -> new NullDataException(CAMPAIGNS_IS_NULL));
+        applyCampaigns(CampaignIndex.of(campaigns));
+    }
 
-        for (Product product : shoppingCartItems.keySet()) {
-            IntStream.range(0, shoppingCartItems.get(product))
-                    .forEach(i -> categoryTitles.addAll(product.getCategory().getTitleAndParentsTitles()));
-        }
+    /**
+     * use to apply campaign of compiled campaigns
+     *
+     * @param campaignIndex compiled campaigns but applied one of them
+     */
+    @Override
+    public void applyCampaigns(CampaignIndex campaignIndex) {
+        Optional.ofNullable(campaignIndex).orElseThrow(() -> new NullDataException(CAMPAIGNS_IS_NULL));
+        reprice();
+        setCampaignDiscountInMinorUnits(campaignIndex.getMaximumDiscount(cartAggregates.getCategoryTotals()));
+    }
 
-        return categoryTitles
-                .stream()
-                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    /**
+     * use to apply campaigns chosen by a stacking policy
+     *
+     * @param discountSolver compiled campaigns and how they are combined
+     * @return DiscountSolution applied campaigns with their discounts
+     */
+    @Override
+    public DiscountSolution applyCampaigns(DiscountSolver discountSolver) {
+        Optional.ofNullable(discountSolver).orElseThrow(() -> new NullDataException(CAMPAIGNS_IS_NULL));
+        reprice();
+        DiscountSolution discountSolution = discountSolver.solve(cartAggregates.getCategoryTotals());
+        setCampaignDiscountInMinorUnits(discountSolution.getTotalDiscountInMinorUnits());
+        return discountSolution;
     }
 
-    private double getTotalPrice() {
+    /**
+     * Campaign discount replaces the previous one, applied coupons stay applied
+     */
+    private void setCampaignDiscountInMinorUnits(long campaignDiscount) {
+        this.campaignDiscount = campaignDiscount;
+        totalAmountAfterDiscounts = getTotalPrice() - campaignDiscount - couponDiscount;
+    }
 
-        return shoppingCartItems.keySet()
-                .stream()
-                .mapToDouble(product -> product.getPrice() * shoppingCartItems.get(product))
-                .sum();
+    private long getTotalPrice() {
+        return cartAggregates.getTotalPrice();
     }
 
+    @Override
     public int getTotalQuantityOfProduct() {
-        return this
-                .getShoppingCartItems()
-                .values()
-                .stream()
-                .mapToInt(Integer::intValue)
-                .sum();
+        return cartAggregates.getTotalQuantity();
     }
 
     /**
@@ -207,49 +475,55 @@ public class ShoppingCart implements IShoppingCart {
     @Override
     public void applyCoupon(ICoupon coupon) {
 
-        if ((coupon instanceof AmountCoupon
-                && coupon.isApplicable(((AmountCoupon) coupon).getMinPurchaseAmount(), totalAmountAfterDiscounts)) ||
-                (coupon instanceof RateCoupon
-                        && coupon.isApplicable(((RateCoupon) coupon).getMinPurchaseAmount(), totalAmountAfterDiscounts))
-        ) {
-            couponDiscount += coupon.getDiscount(totalAmountAfterDiscounts);
-            totalAmountAfterDiscounts -= coupon.getDiscount(totalAmountAfterDiscounts);
+        reprice();
+        if (coupon != null && coupon.isApplicable(totalAmountAfterDiscounts)) {
+            long discount = coupon.getDiscountInMinorUnits(totalAmountAfterDiscounts);
+            couponDiscount += discount;
+            totalAmountAfterDiscounts -= discount;
         }
     }
 
-    private Map<Category, Map<Product, Long>> getCategoryBasedProduct() {
-
-        Map<Category, Map<Product, Long>> categoryBasedProduct = new HashMap<>();
-
-        for (Product product : shoppingCartItems.keySet()) {
-            if (categoryBasedProduct.get(product.getCategory()) != null)
-                categoryBasedProduct.get(product.getCategory()).put(product, Long.valueOf(shoppingCartItems.get(product)));
-            else categoryBasedProduct.put(product.getCategory(), new HashMap<Product, Long>() {{
-                put(product, Long.valueOf(shoppingCartItems.get(product)));
-            }});
+    /**
+     * use to print cart
+     */
+    @Override
+    public void print() {
+        StringBuilder out = new StringBuilder();
+        try {
+            render(new CartRenderer(CartRenderer.Format.TEXT), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        System.out.print(out);
+    }
 
-        return categoryBasedProduct;
+    /**
+     * use to render cart to an Appendable, for example a StringBuilder or a Writer
+     *
+     * @param renderer renderer of the format
+     * @param out      output of the rendered cart
+     * @throws IOException if out throws
+     */
+    @Override
+    public void render(CartRenderer renderer, Appendable out) throws IOException {
+        Optional.ofNullable(renderer).orElseThrow(() -> new NullDataException(RENDERER_IS_NULL));
+        reprice();
+        renderer.render(out, shoppingCartItems, getTotalPrice(), campaignDiscount + couponDiscount,
+                totalAmountAfterDiscounts, getDeliveryCostInMinorUnits());
     }
 
     /**
-     * use to print cart
+     * use to render cart to a ByteBuffer in UTF-8
+     *
+     * @param renderer renderer of the format
+     * @param out      output of the rendered cart
      */
     @Override
-    public void print() {
-        Map<Category, Map<Product, Long>> categoryBasedProduct = getCategoryBasedProduct();
-        categoryBasedProduct.forEach((key, value) -> {
-            System.out.printf("-> Category Name: %s \n\n", key.getTitle());
-            value.forEach((product, quantity) -> {
-                System.out.printf("\t -> Product Name: %s \n", product.getTitle());
-                System.out.printf("\t -> Quantity: %s \n", quantity);
-                System.out.printf("\t -> Unit Price: %s \n\n", product.getPrice());
-            });
-        });
-        System.out.printf("----> Total Price: %s \n", getTotalPrice());
-        System.out.printf("----> Total Discount: %s \n", (getCampaignDiscount() + getCouponDiscount()));
-        System.out.printf("----> Total Amount: %s \n", getTotalAmountAfterDiscounts());
-        System.out.printf("----> Delivery Amount: %s \n", getDeliveryCost());
+    public void render(CartRenderer renderer, ByteBuffer out) {
+        Optional.ofNullable(renderer).orElseThrow(() -> new NullDataException(RENDERER_IS_NULL));
+        reprice();
+        renderer.render(out, shoppingCartItems, getTotalPrice(), campaignDiscount + couponDiscount,
+                totalAmountAfterDiscounts, getDeliveryCostInMinorUnits());
     }
 
 }
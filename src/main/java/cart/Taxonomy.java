@@ -0,0 +1,337 @@
+package cart;
+
+import exception.InvalidTaxonomyException;
+import exception.NullDataException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Category tree loaded in bulk from a list of categories with ids of their parent categories, kept in flat arrays.
+ * A node is a category in order of the list, its parent, depth, pre-order and post-order index and the range of its
+ * children are found by position, so loading and walking a tree of hundreds of thousands of categories creates no
+ * objects but the categories themselves.
+ * <p>
+ * A node is in the subtree of another node if its pre-order index is not less and its post-order index is not more
+ * than the other one, which is O(1). Each node also has a jump pointer to one of its parent categories, chosen so that
+ * any parent category is reached in O(log n) jumps, which gives lowest common ancestors in O(log n) with O(n) memory.
+ * <p>
+ * Taxonomy files are text files with one category per line, lines starting with # are comments:
+ * <pre>
+ * 1,,Food               id, id of parent category, title, parent id is empty for root categories
+ * 2,1,Fruit             titles may contain commas
+ * </pre>
+ * Categories can be listed in any order. Categories are built with Category.Builder, parent categories first,
+ * and parent categories changed after loading need a new taxonomy.
+ */
+public final class Taxonomy {
+
+    static final String PATH_IS_NULL = "Path of taxonomy is NULL!";
+
+    /**
+     * parent of root nodes and result of lookups which find no node
+     */
+    public static final int NO_NODE = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final long[] ids;
+    private final int[] parents;
+    private final int[] depths;
+    private final int[] preOrders;
+    private final int[] postOrders;
+    private final int[] jumps;
+
+    /**
+     * children of node n are children[childOffsets[n]] to children[childOffsets[n + 1] - 1] in order of the list
+     */
+    private final int[] childOffsets;
+    private final int[] children;
+
+    private final Category[] categories;
+
+    /**
+     * int[] node of each category id from firstCategoryId, NO_NODE for categories of other taxonomies
+     */
+    private final int firstCategoryId;
+    private final int[] nodesByCategoryId;
+
+    /**
+     * int[] open addressing index from id of a node to the node
+     */
+    private final int[] index;
+
+    private Taxonomy(long[] ids, long[] parentIds, String[] titles, int size) {
+        this.ids = Arrays.copyOf(ids, size);
+        index = new int[Integer.highestOneBit(Math.max(1, size)) * 4];
+        Arrays.fill(index, NO_NODE);
+        for (int node = 0; node < size; node++) {
+            int mask = index.length - 1;
+            int slot = slotOf(ids[node]);
+            for (; index[slot] != NO_NODE; slot = (slot + 1) & mask) {
+                if (ids[index[slot]] == ids[node]) throw new InvalidTaxonomyException("Category " + ids[node] + " is repeated");
+            }
+            index[slot] = node;
+        }
+
+        parents = new int[size];
+        for (int node = 0; node < size; node++) {
+            if (parentIds[node] == NO_NODE) {
+                parents[node] = NO_NODE;
+                continue;
+            }
+            parents[node] = nodeOf(parentIds[node]);
+            if (parents[node] == NO_NODE)
+                throw new InvalidTaxonomyException("Parent " + parentIds[node] + " of category " + ids[node] + " is not in the taxonomy");
+        }
+
+        //Children are grouped by parent with a counting sort, so they keep their order in the list
+        childOffsets = new int[size + 1];
+        for (int node = 0; node < size; node++) if (parents[node] != NO_NODE) childOffsets[parents[node] + 1]++;
+        for (int node = 0; node < size; node++) childOffsets[node + 1] += childOffsets[node];
+        children = new int[childOffsets[size]];
+        int[] nextChildren = Arrays.copyOf(childOffsets, size);
+        for (int node = 0; node < size; node++) if (parents[node] != NO_NODE) children[nextChildren[parents[node]]++] = node;
+
+        depths = new int[size];
+        preOrders = new int[size];
+        postOrders = new int[size];
+        int[] nodesInPreOrder = traverse(Arrays.copyOf(childOffsets, size));
+
+        jumps = new int[size];
+        categories = new Category[size];
+        for (int node : nodesInPreOrder) {
+            int parent = parents[node];
+            if (parent == NO_NODE) {
+                jumps[node] = node;
+            } else {
+                int jump = jumps[parent];
+                jumps[node] = depths[parent] - depths[jump] == depths[jump] - depths[jumps[jump]] ? jumps[jump] : parent;
+            }
+            categories[node] = new Category
+                    .Builder()
+                    .title(titles[node])
+                    .parentCategory(parent == NO_NODE ? null : categories[parent])
+                    .build();
+        }
+
+        firstCategoryId = size == 0 ? 0 : categories[nodesInPreOrder[0]].getId();
+        int lastCategoryId = size == 0 ? -1 : categories[nodesInPreOrder[size - 1]].getId();
+        nodesByCategoryId = new int[lastCategoryId - firstCategoryId + 1];
+        Arrays.fill(nodesByCategoryId, NO_NODE);
+        for (int node = 0; node < size; node++) nodesByCategoryId[categories[node].getId() - firstCategoryId] = node;
+    }
+
+    /**
+     * use to number nodes in pre-order and post-order with a depth first traversal from root nodes, without recursion
+     *
+     * @param nextChildren next child of each node to visit, starting from its first child
+     * @return int[] nodes in pre-order
+     * @throws InvalidTaxonomyException if some nodes are not reached from root nodes, they are in a cycle
+     */
+    private int[] traverse(int[] nextChildren) {
+        int size = parents.length;
+        int[] nodesInPreOrder = new int[size];
+        int[] stack = new int[size];
+        int preOrder = 0;
+        int postOrder = 0;
+        for (int root = 0; root < size; root++) {
+            if (parents[root] != NO_NODE) continue;
+            int top = 0;
+            stack[top] = root;
+            nodesInPreOrder[preOrder] = root;
+            preOrders[root] = preOrder++;
+            while (top >= 0) {
+                int node = stack[top];
+                if (nextChildren[node] < childOffsets[node + 1]) {
+                    int child = children[nextChildren[node]++];
+                    depths[child] = depths[node] + 1;
+                    nodesInPreOrder[preOrder] = child;
+                    preOrders[child] = preOrder++;
+                    stack[++top] = child;
+                } else {
+                    postOrders[node] = postOrder++;
+                    top--;
+                }
+            }
+        }
+        if (preOrder < size) throw new InvalidTaxonomyException((size - preOrder) + " categories are in a cycle");
+        return nodesInPreOrder;
+    }
+
+    /**
+     * use to load a taxonomy from a file
+     *
+     * @param path path of the file in UTF-8
+     * @return Taxonomy loaded categories
+     * @throws IOException if the file can not be read
+     */
+    public static Taxonomy load(Path path) throws IOException {
+        Optional.ofNullable(path).orElseThrow(() -> new NullDataException(PATH_IS_NULL));
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * use to read a taxonomy, in time linear in the number of categories
+     *
+     * @param reader reader of the taxonomy
+     * @return Taxonomy loaded categories
+     * @throws IOException if the taxonomy can not be read
+     */
+    public static Taxonomy parse(Reader reader) throws IOException {
+        long[] ids = new long[INITIAL_CAPACITY];
+        long[] parentIds = new long[INITIAL_CAPACITY];
+        String[] titles = new String[INITIAL_CAPACITY];
+        int size = 0;
+
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        int lineNumber = 0;
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] fields = line.split(",", 3);
+            try {
+                if (fields.length != 3) throw new IllegalArgumentException("Unknown record " + line);
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                    parentIds = Arrays.copyOf(parentIds, size * 2);
+                    titles = Arrays.copyOf(titles, size * 2);
+                }
+                ids[size] = parseId(fields[0].trim());
+                parentIds[size] = fields[1].trim().isEmpty() ? NO_NODE : parseId(fields[1].trim());
+                titles[size] = fields[2].trim();
+                size++;
+            } catch (IllegalArgumentException e) {
+                throw new InvalidTaxonomyException("Invalid taxonomy at line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        return new Taxonomy(ids, parentIds, titles, size);
+    }
+
+    private static long parseId(String field) {
+        long id = Long.parseLong(field);
+        if (id < 0) throw new IllegalArgumentException("Id is negative");
+        return id;
+    }
+
+    /**
+     * @return int number of categories
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @param id id of a category in the taxonomy file
+     * @return int node of the category, NO_NODE if there is no category with this id
+     */
+    public int nodeOf(long id) {
+        int mask = index.length - 1;
+        for (int slot = slotOf(id); index[slot] != NO_NODE; slot = (slot + 1) & mask) {
+            if (ids[index[slot]] == id) return index[slot];
+        }
+        return NO_NODE;
+    }
+
+    /**
+     * @param category a category
+     * @return int node of the category, NO_NODE if the category is not loaded by this taxonomy
+     */
+    public int nodeOf(Category category) {
+        int position = category.getId() - firstCategoryId;
+        return position < 0 || position >= nodesByCategoryId.length ? NO_NODE : nodesByCategoryId[position];
+    }
+
+    /**
+     * @return long id of the category of the node in the taxonomy file
+     */
+    public long getId(int node) {
+        return ids[node];
+    }
+
+    public Category getCategory(int node) {
+        return categories[node];
+    }
+
+    /**
+     * @return int parent node, NO_NODE for root nodes
+     */
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    /**
+     * @return int number of parent nodes, 0 for root nodes
+     */
+    public int getDepth(int node) {
+        return depths[node];
+    }
+
+    public int getPreOrder(int node) {
+        return preOrders[node];
+    }
+
+    public int getPostOrder(int node) {
+        return postOrders[node];
+    }
+
+    public int getNumberOfChildren(int node) {
+        return childOffsets[node + 1] - childOffsets[node];
+    }
+
+    /**
+     * @param node     a node
+     * @param position position of the child, from 0 to getNumberOfChildren(node) - 1
+     * @return int child node at this position
+     */
+    public int getChild(int node, int position) {
+        if (position < 0 || position >= getNumberOfChildren(node)) throw new IndexOutOfBoundsException("Child " + position);
+        return children[childOffsets[node] + position];
+    }
+
+    /**
+     * use to check a node is in the subtree of another node in O(1)
+     *
+     * @param node     checked node
+     * @param ancestor root of the subtree
+     * @return boolean true if node is ancestor or one of its subcategories
+     */
+    public boolean isInSubtree(int node, int ancestor) {
+        return preOrders[ancestor] <= preOrders[node] && postOrders[node] <= postOrders[ancestor];
+    }
+
+    /**
+     * use to find the deepest node whose subtree has both nodes, in O(log n)
+     *
+     * @return int lowest common ancestor, NO_NODE if nodes are in trees of different root nodes
+     */
+    public int getLowestCommonAncestor(int node, int otherNode) {
+        if (isInSubtree(otherNode, node)) return node;
+
+        //node goes up while it is not an ancestor of otherNode, jumping when the jump does not reach an ancestor
+        while (true) {
+            int jump = jumps[node];
+            if (jump != node && !isInSubtree(otherNode, jump)) {
+                node = jump;
+                continue;
+            }
+            node = parents[node];
+            if (node == NO_NODE || isInSubtree(otherNode, node)) return node;
+        }
+    }
+
+    private int slotOf(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (index.length - 1);
+    }
+}
@@ -0,0 +1,113 @@
+package cart;
+
+import exception.InvalidPriceException;
+import exception.InvalidQuantityException;
+import exception.NullDataException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Result of validation of a batch of items, a batch is applied only if all of its items are valid
+ */
+public final class ValidationReport {
+
+    public static final ValidationReport VALID = new ValidationReport(Collections.emptyList());
+
+    private final List<ItemError> errors;
+
+    ValidationReport(List<ItemError> errors) {
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * @return boolean true if there is no problem in the batch and it has been applied
+     */
+    public boolean isValid() {
+        return errors.isEmpty();
+    }
+
+    /**
+     * @return List<ItemError> problems of items in order of items
+     */
+    public List<ItemError> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return isValid() ? "Valid" : errors.toString();
+    }
+
+    /**
+     * Kinds of problems of an item, each with its message and the exception thrown when a single item has it
+     */
+    public enum Problem {
+        PRODUCT_IS_NULL(CartItemValidator.PRODUCT_IS_NULL, NullDataException::new),
+        CATEGORY_IS_NULL(CartItemValidator.CATEGORY_IS_NULL, NullDataException::new),
+        PRODUCT_TITLE_IS_NULL(CartItemValidator.PRODUCT_TITLE_IS_NULL, NullDataException::new),
+        PRODUCT_PRICE_IS_INVALID(CartItemValidator.PRODUCT_PRICE_IS_INVALID, InvalidPriceException::new),
+        QUANTITY_IS_LESS_THAN_ONE(CartItemValidator.QUANTITY_IS_LESS_THAN_ONE, InvalidQuantityException::new),
+        ITEM_IS_NULL(CartItemValidator.ITEM_IS_NULL, NullDataException::new);
+
+        private final String message;
+        private final Function<String, RuntimeException> exception;
+
+        Problem(String message, Function<String, RuntimeException> exception) {
+            this.message = message;
+            this.exception = exception;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * @return RuntimeException exception of this problem with its message
+         */
+        RuntimeException toException() {
+            return exception.apply(message);
+        }
+    }
+
+    /**
+     * Problem of an item of the batch
+     */
+    public static final class ItemError {
+
+        private final int position;
+        private final CartItem item;
+        private final Problem problem;
+
+        ItemError(int position, CartItem item, Problem problem) {
+            this.position = position;
+            this.item = item;
+            this.problem = problem;
+        }
+
+        /**
+         * @return int position of the item in the batch
+         */
+        public int getPosition() {
+            return position;
+        }
+
+        public CartItem getItem() {
+            return item;
+        }
+
+        public Problem getProblem() {
+            return problem;
+        }
+
+        public String getMessage() {
+            return problem.getMessage();
+        }
+
+        @Override
+        public String toString() {
+            return position + ": " + getMessage();
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package codec;
+
+import cart.CartItem;
+import cart.Category;
+import cart.Product;
+import cart.Taxonomy;
+import discount.campaign.AmountCampaign;
+import discount.campaign.ICampaign;
+import discount.campaign.RateCampaign;
+import discount.coupon.AmountCoupon;
+import discount.coupon.ICoupon;
+import discount.coupon.RateCoupon;
+import exception.NullDataException;
+import money.Money;
+import pricing.CartDescription;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Streaming reader of records written by CartJsonWriter.
+ * Carts are returned one at a time while categories, products, campaigns and coupons met on the way are kept,
+ * so memory does not grow with the number of carts in the dump. Unknown records and fields are skipped.
+ * <p>
+ * A reader with a taxonomy returns the categories of the taxonomy for ids of the taxonomy file, as written by
+ * CartJsonWriter with the same taxonomy, so read carts match campaigns of these categories. Without a taxonomy
+ * each category of the dump is built again and only matches campaigns read from the same dump.
+ */
+public final class CartJsonReader implements Closeable {
+
+    static final String INPUT_STREAM_IS_NULL = "Input stream is NULL!";
+    static final String TAXONOMY_IS_NULL = "Taxonomy is NULL!";
+
+    private final JsonReader reader;
+
+    /**
+     * Taxonomy categories of the dump, null to build categories of the dump
+     */
+    private final Taxonomy taxonomy;
+
+    /**
+     * LongObjectMap<Category> categories read from the dump by their ids in the dump
+     */
+    private final LongObjectMap<Category> categories = new LongObjectMap<>();
+
+    /**
+     * LongObjectMap<Product> products read from the dump by their ids
+     */
+    private final LongObjectMap<Product> products = new LongObjectMap<>();
+
+    private final List<ICampaign> campaigns = new ArrayList<>();
+    private final List<ICoupon> coupons = new ArrayList<>();
+
+    public CartJsonReader(InputStream in) {
+        reader = new JsonReader(Optional.ofNullable(in).orElseThrow(() -> new NullDataException(INPUT_STREAM_IS_NULL)));
+        taxonomy = null;
+    }
+
+    /**
+     * @param in       stream of the dump
+     * @param taxonomy taxonomy of all categories of the dump, ids of categories are ids in the taxonomy file
+     */
+    public CartJsonReader(InputStream in, Taxonomy taxonomy) {
+        reader = new JsonReader(Optional.ofNullable(in).orElseThrow(() -> new NullDataException(INPUT_STREAM_IS_NULL)));
+        this.taxonomy = Optional.ofNullable(taxonomy).orElseThrow(() -> new NullDataException(TAXONOMY_IS_NULL));
+    }
+
+    /**
+     * use to read records until next cart
+     *
+     * @return CartDescription next cart, null at end of the dump
+     * @throws exception.InvalidJsonException if the dump is not valid
+     */
+    public CartDescription readCart() throws IOException {
+        while (reader.hasNextValue()) {
+            CartDescription cart = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                reader.nextName();
+                if (reader.isName(CartJsonWriter.CART)) cart = readCartRecord();
+                else if (reader.isName(CartJsonWriter.PRODUCT)) readProduct();
+                else if (reader.isName(CartJsonWriter.CATEGORY)) readCategory();
+                else if (reader.isName(CartJsonWriter.CAMPAIGN)) readCampaign();
+                else if (reader.isName(CartJsonWriter.COUPON)) readCoupon();
+                else reader.skipValue();
+            }
+            reader.endObject();
+            if (cart != null) return cart;
+        }
+        return null;
+    }
+
+    /**
+     * use to read all remaining records, for dumps of only categories, products, campaigns or coupons
+     *
+     * @return int number of skipped carts
+     */
+    public int readDefinitions() throws IOException {
+        int numberOfCarts = 0;
+        while (readCart() != null) numberOfCarts++;
+        return numberOfCarts;
+    }
+
+    /**
+     * @param id id of the category in the dump
+     * @return Category category read from the dump, null if it is not read yet
+     */
+    public Category getCategory(long id) {
+        return categories.get(id);
+    }
+
+    /**
+     * @param id id of the product
+     * @return Product product read from the dump, null if it is not read yet
+     */
+    public Product getProduct(long id) {
+        return products.get(id);
+    }
+
+    public int getNumberOfProducts() {
+        return products.size();
+    }
+
+    /**
+     * @return List<ICampaign> campaigns read so far, in order of the dump
+     */
+    public List<ICampaign> getCampaigns() {
+        return Collections.unmodifiableList(campaigns);
+    }
+
+    /**
+     * @return List<ICoupon> coupons read so far, in order of the dump
+     */
+    public List<ICoupon> getCoupons() {
+        return Collections.unmodifiableList(coupons);
+    }
+
+    private void readCategory() throws IOException {
+        long id = -1;
+        String title = null;
+        long parentId = -1;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            reader.nextName();
+            if (reader.isName("id")) id = reader.nextLong();
+            else if (reader.isName("title")) title = reader.nextString();
+            else if (reader.isName("parentId")) parentId = reader.nextNull() ? -1 : reader.nextLong();
+            else reader.skipValue();
+        }
+        reader.endObject();
+        if (id < 0) throw reader.error("Id of category is expected");
+
+        if (taxonomy != null) {
+            categories.put(id, taxonomyCategoryOf(id));
+            return;
+        }
+        Category category = new Category
+                .Builder()
+                .title(title)
+                .parentCategory(parentId < 0 ? null : categoryOf(parentId))
+                .build();
+        categories.put(id, category);
+    }
+
+    private void readProduct() throws IOException {
+        long id = 0;
+        boolean hasId = false;
+        String title = null;
+        long price = 0;
+        long categoryId = -1;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            reader.nextName();
+            if (reader.isName("id")) {
+                id = reader.nextLong();
+                hasId = true;
+            } else if (reader.isName("title")) {
+                title = reader.nextString();
+            } else if (reader.isName("price")) {
+                price = reader.nextMinorUnits();
+            } else if (reader.isName("categoryId")) {
+                categoryId = reader.nextLong();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (!hasId) throw reader.error("Id of product is expected");
+
+        //A negative id was generated by the writing process, it is generated again for this process
+        products.put(id, id < 0
+                ? Product.withGeneratedId(title, price, categoryOf(categoryId))
+                : new Product(id, title, Money.ofMinorUnits(price), categoryOf(categoryId)));
+    }
+
+    private void readCampaign() throws IOException {
+        String type = null;
+        long categoryId = -1;
+        long amount = 0;
+        long rate = 0;
+        int minQuantity = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            reader.nextName();
+            if (reader.isName("type")) type = reader.nextString();
+            else if (reader.isName("categoryId")) categoryId = reader.nextLong();
+            else if (reader.isName(CartJsonWriter.AMOUNT)) amount = reader.nextMinorUnits();
+            else if (reader.isName(CartJsonWriter.RATE)) rate = reader.nextBasisPoints();
+            else if (reader.isName("minQuantity")) minQuantity = reader.nextInt();
+            else reader.skipValue();
+        }
+        reader.endObject();
+
+        if (CartJsonWriter.AMOUNT.equals(type))
+            campaigns.add(new AmountCampaign(categoryOf(categoryId), Money.toMajorUnits(amount), minQuantity));
+        else if (CartJsonWriter.RATE.equals(type))
+            campaigns.add(new RateCampaign(categoryOf(categoryId), Money.toRate(rate), minQuantity));
+        else
+            throw reader.error("Unknown type of campaign " + type);
+    }
+
+    private void readCoupon() throws IOException {
+        String type = null;
+        int minPurchaseAmount = 0;
+        long amount = 0;
+        long rate = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            reader.nextName();
+            if (reader.isName("type")) type = reader.nextString();
+            else if (reader.isName("minPurchaseAmount")) minPurchaseAmount = reader.nextInt();
+            else if (reader.isName(CartJsonWriter.AMOUNT)) amount = reader.nextMinorUnits();
+            else if (reader.isName(CartJsonWriter.RATE)) rate = reader.nextBasisPoints();
+            else reader.skipValue();
+        }
+        reader.endObject();
+
+        if (CartJsonWriter.AMOUNT.equals(type))
+            coupons.add(new AmountCoupon(minPurchaseAmount, Money.toMajorUnits(amount)));
+        else if (CartJsonWriter.RATE.equals(type))
+            coupons.add(new RateCoupon(minPurchaseAmount, Money.toRate(rate)));
+        else
+            throw reader.error("Unknown type of coupon " + type);
+    }
+
+    private CartDescription readCartRecord() throws IOException {
+        long cartId = 0;
+        List<CartItem> items = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            reader.nextName();
+            if (reader.isName("id")) {
+                cartId = reader.nextLong();
+            } else if (reader.isName("items")) {
+                reader.beginArray();
+                while (reader.hasNext()) items.add(readItem());
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new CartDescription(cartId, items);
+    }
+
+    /**
+     * An item with its own price or category, for example of a cart written before a price change,
+     * gets a product of the same id built with them, items of older dumps without them get the product of the dump
+     */
+    private CartItem readItem() throws IOException {
+        Product product = null;
+        int quantity = 0;
+        long price = -1;
+        long categoryId = -1;
+        boolean hasCategoryId = false;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            reader.nextName();
+            if (reader.isName("productId")) {
+                long productId = reader.nextLong();
+                product = products.get(productId);
+                if (product == null) throw reader.error("Unknown product " + productId);
+            } else if (reader.isName("quantity")) {
+                quantity = reader.nextInt();
+            } else if (reader.isName("price")) {
+                price = reader.nextMinorUnits();
+            } else if (reader.isName("categoryId")) {
+                categoryId = reader.nextLong();
+                hasCategoryId = true;
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (product == null) throw reader.error("Product of item is expected");
+        return new CartItem(productOf(product, price < 0 ? product.getPriceInMinorUnits() : price,
+                hasCategoryId ? categoryOf(categoryId) : product.getCategory()), quantity);
+    }
+
+    private static Product productOf(Product product, long price, Category category) {
+        if (product.getPriceInMinorUnits() == price && product.getCategory() == category) return product;
+
+        return product.hasGeneratedId()
+                ? Product.withGeneratedId(product.getTitle(), price, category)
+                : new Product(product.getId(), product.getTitle(), Money.ofMinorUnits(price), category);
+    }
+
+    private Category categoryOf(long id) {
+        Category category = categories.get(id);
+        if (category != null) return category;
+        //Categories of a taxonomy are known without their records
+        if (taxonomy != null) return taxonomyCategoryOf(id);
+        throw reader.error("Unknown category " + id);
+    }
+
+    private Category taxonomyCategoryOf(long id) {
+        int node = taxonomy.nodeOf(id);
+        if (node == Taxonomy.NO_NODE) throw reader.error("Category " + id + " is not in the taxonomy");
+        return taxonomy.getCategory(node);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
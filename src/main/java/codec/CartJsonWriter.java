@@ -0,0 +1,291 @@
+package codec;
+
+import cart.CartItem;
+import cart.Category;
+import cart.Product;
+import cart.ShoppingCart;
+import cart.Taxonomy;
+import discount.campaign.AmountCampaign;
+import discount.campaign.ICampaign;
+import discount.campaign.RateCampaign;
+import discount.coupon.AmountCoupon;
+import discount.coupon.ICoupon;
+import discount.coupon.RateCoupon;
+import exception.NullDataException;
+import money.Money;
+import pricing.CartDescription;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Streaming writer of carts, products, categories, campaigns and coupons as JSON records, one record per line.
+ * Each category and product is written once, the first time it is needed, and later records refer to it by id.
+ * A category is written after its parent categories and a product after its category,
+ * so CartJsonReader can read a dump from start to end with memory only for categories and products.
+ * Items of carts are written with their own unit price and category id, like lines of a CartFile,
+ * so a product of the same id with another price or category in another cart is restored as it was.
+ * <p>
+ * Categories are written with their ids in the process, or with their ids in the taxonomy file if the writer has a
+ * taxonomy, so a reader with the same taxonomy restores the same categories and campaigns of other dumps still match.
+ */
+public final class CartJsonWriter implements Flushable, Closeable {
+
+    static final String OUTPUT_STREAM_IS_NULL = "Output stream is NULL!";
+    static final String CATEGORY_IS_NULL = "Category is NULL!";
+    static final String PRODUCT_IS_NULL = "Product is NULL!";
+    static final String CAMPAIGN_IS_NULL = "Campaign is NULL!";
+    static final String COUPON_IS_NULL = "Coupon is NULL!";
+    static final String ITEMS_IS_NULL = "Items are NULL!";
+    static final String SHOPPING_CART_IS_NULL = "Shopping cart is NULL!";
+    static final String TAXONOMY_IS_NULL = "Taxonomy is NULL!";
+    static final String CATEGORY_IS_NOT_IN_TAXONOMY = "Category is not in the taxonomy!";
+    static final String CAMPAIGN_IS_NOT_SUPPORTED = "Only amount and rate campaigns can be written!";
+    static final String COUPON_IS_NOT_SUPPORTED = "Only amount and rate coupons can be written!";
+
+    static final String CATEGORY = "category";
+    static final String PRODUCT = "product";
+    static final String CAMPAIGN = "campaign";
+    static final String COUPON = "coupon";
+    static final String CART = "cart";
+    static final String AMOUNT = "amount";
+    static final String RATE = "rate";
+
+    private static final byte[] CATEGORY_RECORD = JsonWriter.ascii("{\"category\":{\"id\":");
+    private static final byte[] PRODUCT_RECORD = JsonWriter.ascii("{\"product\":{\"id\":");
+    private static final byte[] AMOUNT_CAMPAIGN_RECORD = JsonWriter.ascii("{\"campaign\":{\"type\":\"amount\",\"categoryId\":");
+    private static final byte[] RATE_CAMPAIGN_RECORD = JsonWriter.ascii("{\"campaign\":{\"type\":\"rate\",\"categoryId\":");
+    private static final byte[] AMOUNT_COUPON_RECORD = JsonWriter.ascii("{\"coupon\":{\"type\":\"amount\",\"minPurchaseAmount\":");
+    private static final byte[] RATE_COUPON_RECORD = JsonWriter.ascii("{\"coupon\":{\"type\":\"rate\",\"minPurchaseAmount\":");
+    private static final byte[] CART_RECORD = JsonWriter.ascii("{\"cart\":{\"id\":");
+    private static final byte[] TITLE = JsonWriter.ascii(",\"title\":");
+    private static final byte[] PARENT_ID = JsonWriter.ascii(",\"parentId\":");
+    private static final byte[] PRICE = JsonWriter.ascii(",\"price\":");
+    private static final byte[] CATEGORY_ID = JsonWriter.ascii(",\"categoryId\":");
+    private static final byte[] AMOUNT_FIELD = JsonWriter.ascii(",\"amount\":");
+    private static final byte[] RATE_FIELD = JsonWriter.ascii(",\"rate\":");
+    private static final byte[] MIN_QUANTITY = JsonWriter.ascii(",\"minQuantity\":");
+    private static final byte[] ITEMS = JsonWriter.ascii(",\"items\":[");
+    private static final byte[] ITEM = JsonWriter.ascii("{\"productId\":");
+    private static final byte[] QUANTITY = JsonWriter.ascii(",\"quantity\":");
+    private static final byte[] ITEMS_END = JsonWriter.ascii("]}}\n");
+    private static final byte[] RECORD_END = JsonWriter.ascii("}}\n");
+
+    private final JsonWriter writer;
+
+    /**
+     * Taxonomy ids of written categories, null to write ids of categories in the process
+     */
+    private final Taxonomy taxonomy;
+
+    /**
+     * BitSet ids of written categories
+     */
+    private final BitSet writtenCategories = new BitSet();
+
+    /**
+     * LongObjectMap<Product> written products by their ids
+     */
+    private final LongObjectMap<Product> writtenProducts = new LongObjectMap<>();
+
+    public CartJsonWriter(OutputStream out) {
+        writer = new JsonWriter(Optional.ofNullable(out).orElseThrow(() -> new NullDataException(OUTPUT_STREAM_IS_NULL)));
+        taxonomy = null;
+    }
+
+    /**
+     * @param out      stream of the dump
+     * @param taxonomy taxonomy of all written categories, categories are written with their ids in the taxonomy file
+     */
+    public CartJsonWriter(OutputStream out, Taxonomy taxonomy) {
+        writer = new JsonWriter(Optional.ofNullable(out).orElseThrow(() -> new NullDataException(OUTPUT_STREAM_IS_NULL)));
+        this.taxonomy = Optional.ofNullable(taxonomy).orElseThrow(() -> new NullDataException(TAXONOMY_IS_NULL));
+    }
+
+    /**
+     * use to write a category, after its parent categories if they are not written yet
+     *
+     * @param category category to write
+     * @throws IllegalArgumentException if the writer has a taxonomy and the category is not loaded by it
+     */
+    public void writeCategory(Category category) throws IOException {
+        Optional.ofNullable(category).orElseThrow(() -> new NullDataException(CATEGORY_IS_NULL));
+        if (writtenCategories.get(category.getId())) return;
+
+        long id = idOf(category);
+        Category parentCategory = category.getParentCategory();
+        if (parentCategory != null) writeCategory(parentCategory);
+
+        writer.write(CATEGORY_RECORD);
+        writer.writeLong(id);
+        writer.write(TITLE);
+        writer.writeString(category.getTitle());
+        if (parentCategory != null) {
+            writer.write(PARENT_ID);
+            writer.writeLong(idOf(parentCategory));
+        }
+        writer.write(RECORD_END);
+        writtenCategories.set(category.getId());
+    }
+
+    /**
+     * use to write a product, after its category if it is not written yet
+     *
+     * @param product product to write
+     */
+    public void writeProduct(Product product) throws IOException {
+        Optional.ofNullable(product).orElseThrow(() -> new NullDataException(PRODUCT_IS_NULL));
+        if (writtenProducts.get(product.getId()) != null) return;
+
+        writeCategory(product.getCategory());
+        writer.write(PRODUCT_RECORD);
+        writer.writeLong(product.getId());
+        writer.write(TITLE);
+        writer.writeString(product.getTitle());
+        writer.write(PRICE);
+        writer.writeMinorUnits(product.getPriceInMinorUnits());
+        writer.write(CATEGORY_ID);
+        writer.writeLong(idOf(product.getCategory()));
+        writer.write(RECORD_END);
+        writtenProducts.put(product.getId(), product);
+    }
+
+    /**
+     * use to write an amount or rate campaign, after its category if it is not written yet
+     *
+     * @param campaign campaign to write
+     */
+    public void writeCampaign(ICampaign campaign) throws IOException {
+        Optional.ofNullable(campaign).orElseThrow(() -> new NullDataException(CAMPAIGN_IS_NULL));
+        if (!(campaign instanceof AmountCampaign) && !(campaign instanceof RateCampaign))
+            throw new IllegalArgumentException(CAMPAIGN_IS_NOT_SUPPORTED);
+
+        writeCategory(campaign.getCategory());
+        if (campaign instanceof AmountCampaign) {
+            AmountCampaign amountCampaign = (AmountCampaign) campaign;
+            writer.write(AMOUNT_CAMPAIGN_RECORD);
+            writer.writeLong(idOf(campaign.getCategory()));
+            writer.write(AMOUNT_FIELD);
+            writer.writeMinorUnits(amountCampaign.getAmountInMinorUnits());
+            writer.write(MIN_QUANTITY);
+            writer.writeLong(amountCampaign.getMinQuantityOfProduct());
+        } else {
+            RateCampaign rateCampaign = (RateCampaign) campaign;
+            writer.write(RATE_CAMPAIGN_RECORD);
+            writer.writeLong(idOf(campaign.getCategory()));
+            writer.write(RATE_FIELD);
+            writer.writeBasisPoints(rateCampaign.getRateInBasisPoints());
+            writer.write(MIN_QUANTITY);
+            writer.writeLong(rateCampaign.getMinQuantityOfProduct());
+        }
+        writer.write(RECORD_END);
+    }
+
+    /**
+     * use to write an amount or rate coupon
+     *
+     * @param coupon coupon to write
+     */
+    public void writeCoupon(ICoupon coupon) throws IOException {
+        Optional.ofNullable(coupon).orElseThrow(() -> new NullDataException(COUPON_IS_NULL));
+        if (coupon instanceof AmountCoupon) {
+            AmountCoupon amountCoupon = (AmountCoupon) coupon;
+            writer.write(AMOUNT_COUPON_RECORD);
+            writer.writeLong(amountCoupon.getMinPurchaseAmount());
+            writer.write(AMOUNT_FIELD);
+            writer.writeMinorUnits(Money.toMinorUnits(amountCoupon.getAmount()));
+        } else if (coupon instanceof RateCoupon) {
+            RateCoupon rateCoupon = (RateCoupon) coupon;
+            writer.write(RATE_COUPON_RECORD);
+            writer.writeLong(rateCoupon.getMinPurchaseAmount());
+            writer.write(RATE_FIELD);
+            writer.writeBasisPoints(Money.toBasisPoints(rateCoupon.getRate()));
+        } else {
+            throw new IllegalArgumentException(COUPON_IS_NOT_SUPPORTED);
+        }
+        writer.write(RECORD_END);
+    }
+
+    /**
+     * use to write items of a cart, after their products if they are not written yet
+     *
+     * @param cartId id of the cart
+     * @param items  items of the cart
+     */
+    public void writeCart(long cartId, Collection<CartItem> items) throws IOException {
+        Optional.ofNullable(items).orElseThrow(() -> new NullDataException(ITEMS_IS_NULL));
+        for (CartItem item : items) {
+            writeProduct(item.getProduct());
+            writeCategory(item.getProduct().getCategory());
+        }
+
+        writer.write(CART_RECORD);
+        writer.writeLong(cartId);
+        writer.write(ITEMS);
+        boolean first = true;
+        for (CartItem item : items) {
+            if (!first) writer.write((byte) ',');
+            first = false;
+            writeItem(item.getProduct(), item.getQuantity());
+        }
+        writer.write(ITEMS_END);
+    }
+
+    public void writeCart(CartDescription cart) throws IOException {
+        writeCart(cart.getCartId(), cart.getItems());
+    }
+
+    /**
+     * use to write items of a shopping cart, after their products if they are not written yet
+     *
+     * @param cartId       id of the cart
+     * @param shoppingCart cart to write
+     */
+    public void writeCart(long cartId, ShoppingCart shoppingCart) throws IOException {
+        Optional.ofNullable(shoppingCart).orElseThrow(() -> new NullDataException(SHOPPING_CART_IS_NULL));
+        Map<Product, Integer> shoppingCartItems = shoppingCart.getShoppingCartItems();
+        List<CartItem> items = new ArrayList<>(shoppingCartItems.size());
+        shoppingCartItems.forEach((product, quantity) -> items.add(new CartItem(product, quantity)));
+        writeCart(cartId, items);
+    }
+
+    private void writeItem(Product product, int quantity) throws IOException {
+        writer.write(ITEM);
+        writer.writeLong(product.getId());
+        writer.write(QUANTITY);
+        writer.writeLong(quantity);
+        writer.write(PRICE);
+        writer.writeMinorUnits(product.getPriceInMinorUnits());
+        writer.write(CATEGORY_ID);
+        writer.writeLong(idOf(product.getCategory()));
+        writer.write((byte) '}');
+    }
+
+    /**
+     * @return long id of the category in the dump
+     */
+    private long idOf(Category category) {
+        if (taxonomy == null) return category.getId();
+        int node = taxonomy.nodeOf(category);
+        if (node == Taxonomy.NO_NODE) throw new IllegalArgumentException(CATEGORY_IS_NOT_IN_TAXONOMY);
+        return taxonomy.getId(node);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
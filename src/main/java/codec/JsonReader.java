@@ -0,0 +1,362 @@
+package codec;
+
+import exception.InvalidJsonException;
+import money.Money;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Buffered pull parser of UTF-8 JSON values, one token at a time without building a tree.
+ * Names are read into a reusable buffer and compared in place, numbers are parsed without boxing.
+ */
+final class JsonReader implements Closeable {
+
+    private static final int END = -1;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    private int limit;
+
+    /**
+     * long offset of the buffer in the stream, for error messages
+     */
+    private long offset;
+
+    /**
+     * boolean[] for each open object or array, whether it has no value read yet
+     */
+    private boolean[] firsts = new boolean[16];
+    private int depth;
+
+    private final StringBuilder name = new StringBuilder();
+    private final StringBuilder text = new StringBuilder();
+
+    JsonReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * @return boolean whether there is another value at top level of the stream
+     */
+    boolean hasNextValue() throws IOException {
+        return peek() != END;
+    }
+
+    void beginObject() throws IOException {
+        expect('{');
+        push();
+    }
+
+    void endObject() throws IOException {
+        expect('}');
+        depth--;
+    }
+
+    void beginArray() throws IOException {
+        expect('[');
+        push();
+    }
+
+    void endArray() throws IOException {
+        expect(']');
+        depth--;
+    }
+
+    /**
+     * @return boolean whether current object or array has another value, consuming the comma before it
+     */
+    boolean hasNext() throws IOException {
+        int c = peek();
+        if (c == '}' || c == ']') return false;
+        if (firsts[depth - 1]) {
+            firsts[depth - 1] = false;
+        } else {
+            expect(',');
+        }
+        return true;
+    }
+
+    /**
+     * use to read name of next field of an object, compare it with isName
+     */
+    void nextName() throws IOException {
+        readString(name);
+        expect(':');
+    }
+
+    /**
+     * @param expected name of a field
+     * @return boolean whether last name read by nextName is expected one
+     */
+    boolean isName(String expected) {
+        return name.length() == expected.length() && expected.contentEquals(name);
+    }
+
+    /**
+     * @return String next string, null for a JSON null
+     */
+    String nextString() throws IOException {
+        if (nextNull()) return null;
+        readString(text);
+        return text.toString();
+    }
+
+    /**
+     * @return boolean whether next value is null, it is consumed if so
+     */
+    boolean nextNull() throws IOException {
+        if (peek() != 'n') return false;
+        expect('n');
+        expectLiteral("ull");
+        return true;
+    }
+
+    long nextLong() throws IOException {
+        boolean negative = peek() == '-';
+        if (negative) position++;
+        long value = readDigits();
+        if (peekByte() == '.' || peekByte() == 'e' || peekByte() == 'E') throw error("Integer is expected");
+        return negative ? -value : value;
+    }
+
+    int nextInt() throws IOException {
+        long value = nextLong();
+        if (value != (int) value) throw error("Integer is too large");
+        return (int) value;
+    }
+
+    /**
+     * use to read a decimal number as minor units exactly, it has at most two nonzero fraction digits
+     *
+     * @return long amount in minor units
+     */
+    long nextMinorUnits() throws IOException {
+        return nextFixedPoint(Money.MINOR_UNITS_PER_MAJOR_UNIT, "Amount");
+    }
+
+    /**
+     * use to read a percentage as basis points exactly, it has at most two nonzero fraction digits
+     *
+     * @return long rate in basis points, 1250 for 12.5
+     */
+    long nextBasisPoints() throws IOException {
+        return nextFixedPoint(Money.BASIS_POINTS_PER_PERCENT, "Rate");
+    }
+
+    /**
+     * @param unitsPerWhole number of units in a whole number, a power of ten
+     * @param what          name of the number in errors
+     * @return long decimal number in units
+     */
+    private long nextFixedPoint(long unitsPerWhole, String what) throws IOException {
+        boolean negative = peek() == '-';
+        if (negative) position++;
+        long units;
+        try {
+            units = Math.multiplyExact(readDigits(), unitsPerWhole);
+            if (peekByte() == '.') {
+                position++;
+                int fractionDigits = 0;
+                //Units of next fraction digit, 0 once the digits are finer than a unit
+                long unitsPerDigit = unitsPerWhole / 10;
+                for (int c = peekByte(); c >= '0' && c <= '9'; c = peekByte()) {
+                    position++;
+                    if (unitsPerDigit > 0) units = Math.addExact(units, (c - '0') * unitsPerDigit);
+                    else if (c != '0') throw error(what + " has too many fraction digits");
+                    unitsPerDigit /= 10;
+                    fractionDigits++;
+                }
+                if (fractionDigits == 0) throw error("Fraction digits are expected");
+            }
+        } catch (ArithmeticException e) {
+            throw error(what + " is too large");
+        }
+        if (peekByte() == 'e' || peekByte() == 'E') throw error("Exponent is not supported in " + what.toLowerCase() + "s");
+        return negative ? -units : units;
+    }
+
+    /**
+     * use to skip next value with all of its nested values
+     */
+    void skipValue() throws IOException {
+        int c = peek();
+        switch (c) {
+            case '{':
+                beginObject();
+                while (hasNext()) {
+                    nextName();
+                    skipValue();
+                }
+                endObject();
+                break;
+            case '[':
+                beginArray();
+                while (hasNext()) skipValue();
+                endArray();
+                break;
+            case '"':
+                readString(text);
+                break;
+            case 't':
+                expect('t');
+                expectLiteral("rue");
+                break;
+            case 'f':
+                expect('f');
+                expectLiteral("alse");
+                break;
+            case 'n':
+                nextNull();
+                break;
+            default:
+                if (c != '-' && (c < '0' || c > '9')) throw error("Value is expected");
+                position++;
+                for (c = peekByte(); c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9'); c = peekByte()) {
+                    position++;
+                }
+        }
+    }
+
+    InvalidJsonException error(String message) {
+        return new InvalidJsonException(message + " at byte " + (offset + position));
+    }
+
+    private void push() {
+        if (depth == firsts.length) firsts = Arrays.copyOf(firsts, depth * 2);
+        firsts[depth++] = true;
+    }
+
+    private long readDigits() throws IOException {
+        int c = peekByte();
+        if (c < '0' || c > '9') throw error("Digit is expected");
+        long value = 0;
+        try {
+            for (; c >= '0' && c <= '9'; c = peekByte()) {
+                position++;
+                value = Math.addExact(Math.multiplyExact(value, 10), c - '0');
+            }
+        } catch (ArithmeticException e) {
+            throw error("Number is too large");
+        }
+        return value;
+    }
+
+    private void readString(StringBuilder out) throws IOException {
+        expect('"');
+        out.setLength(0);
+        while (true) {
+            int c = nextByte();
+            if (c == '"') return;
+            if (c == END) throw error("String is not closed");
+            if (c == '\\') {
+                readEscape(out);
+            } else if (c < 0x80) {
+                out.append((char) c);
+            } else if (c < 0xE0) {
+                out.append((char) ((c & 0x1F) << 6 | continuation()));
+            } else if (c < 0xF0) {
+                out.append((char) ((c & 0x0F) << 12 | continuation() << 6 | continuation()));
+            } else {
+                int codePoint = (c & 0x07) << 18 | continuation() << 12 | continuation() << 6 | continuation();
+                out.append(Character.highSurrogate(codePoint)).append(Character.lowSurrogate(codePoint));
+            }
+        }
+    }
+
+    private void readEscape(StringBuilder out) throws IOException {
+        int c = nextByte();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                out.append((char) c);
+                break;
+            case 'b':
+                out.append('\b');
+                break;
+            case 'f':
+                out.append('\f');
+                break;
+            case 'n':
+                out.append('\n');
+                break;
+            case 'r':
+                out.append('\r');
+                break;
+            case 't':
+                out.append('\t');
+                break;
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) value = value << 4 | hexDigit(nextByte());
+                out.append((char) value);
+                break;
+            default:
+                throw error("Invalid escape");
+        }
+    }
+
+    private int hexDigit(int c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+        if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+        throw error("Hex digit is expected");
+    }
+
+    private int continuation() throws IOException {
+        int c = nextByte();
+        if ((c & 0xC0) != 0x80) throw error("Invalid UTF-8");
+        return c & 0x3F;
+    }
+
+    private void expect(char expected) throws IOException {
+        if (peek() != expected) throw error("'" + expected + "' is expected");
+        position++;
+    }
+
+    private void expectLiteral(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (nextByte() != rest.charAt(i)) throw error("Invalid literal");
+        }
+    }
+
+    /**
+     * @return int next byte after whitespace without consuming it, END at end of stream
+     */
+    private int peek() throws IOException {
+        while (true) {
+            int c = peekByte();
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return c;
+            position++;
+        }
+    }
+
+    private int peekByte() throws IOException {
+        if (position == limit && !fill()) return END;
+        return buffer[position] & 0xFF;
+    }
+
+    private int nextByte() throws IOException {
+        if (position == limit && !fill()) return END;
+        return buffer[position++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        position = 0;
+        limit = 0;
+        int read = in.read(buffer);
+        if (read <= 0) return false;
+        limit = read;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,168 @@
+package codec;
+
+import money.Money;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered UTF-8 JSON output, names are pre-encoded and numbers are written digit by digit without boxing
+ */
+final class JsonWriter implements Flushable, Closeable {
+
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] HEX_DIGITS = ascii("0123456789abcdef");
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    private final byte[] digits = new byte[20];
+
+    JsonWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * @return byte[] ASCII bytes of a name or another fixed part of the output
+     */
+    static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    void write(byte b) throws IOException {
+        if (position == buffer.length) flushBuffer();
+        buffer[position++] = b;
+    }
+
+    void write(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - position) {
+            flushBuffer();
+            if (bytes.length > buffer.length) {
+                out.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    void writeLong(long value) throws IOException {
+        if (value < 0) {
+            write((byte) '-');
+            writeNegative(value);
+        } else {
+            writeNegative(-value);
+        }
+    }
+
+    /**
+     * use to write an amount in minor units as a decimal number with two fraction digits
+     *
+     * @param minorUnits amount in minor units
+     */
+    void writeMinorUnits(long minorUnits) throws IOException {
+        writeFixedPoint(minorUnits, Money.MINOR_UNITS_PER_MAJOR_UNIT);
+    }
+
+    /**
+     * use to write a rate in basis points as a percentage with two fraction digits, 12.50 for 1250
+     *
+     * @param basisPoints rate in basis points
+     */
+    void writeBasisPoints(long basisPoints) throws IOException {
+        writeFixedPoint(basisPoints, Money.BASIS_POINTS_PER_PERCENT);
+    }
+
+    /**
+     * @param units         decimal number in units
+     * @param unitsPerWhole number of units in a whole number, a power of ten
+     */
+    private void writeFixedPoint(long units, long unitsPerWhole) throws IOException {
+        //Digits are written from the negative number, so Long.MIN_VALUE has no overflow
+        long negative = units < 0 ? units : -units;
+        if (units < 0) write((byte) '-');
+        writeNegative(negative / unitsPerWhole);
+        write((byte) '.');
+        long fraction = -(negative % unitsPerWhole);
+        for (long unitsPerDigit = unitsPerWhole / 10; unitsPerDigit > 0; unitsPerDigit /= 10) {
+            write((byte) ('0' + fraction / unitsPerDigit));
+            fraction %= unitsPerDigit;
+        }
+    }
+
+    /**
+     * @param negative a number which is not positive, its digits are written without its sign
+     */
+    private void writeNegative(long negative) throws IOException {
+        int start = digits.length;
+        do {
+            digits[--start] = (byte) ('0' - negative % 10);
+            negative /= 10;
+        } while (negative != 0);
+        for (int i = start; i < digits.length; i++) write(digits[i]);
+    }
+
+    void writeString(String value) throws IOException {
+        if (value == null) {
+            write(NULL);
+            return;
+        }
+        write((byte) '"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                write((byte) '\\');
+                write((byte) c);
+            } else if (c < 0x20) {
+                write((byte) '\\');
+                write((byte) 'u');
+                write((byte) '0');
+                write((byte) '0');
+                write(HEX_DIGITS[c >> 4]);
+                write(HEX_DIGITS[c & 0xF]);
+            } else if (c < 0x80) {
+                write((byte) c);
+            } else if (c < 0x800) {
+                write((byte) (0xC0 | c >> 6));
+                write((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                write((byte) (0xF0 | codePoint >> 18));
+                write((byte) (0x80 | codePoint >> 12 & 0x3F));
+                write((byte) (0x80 | codePoint >> 6 & 0x3F));
+                write((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                write((byte) '?');
+            } else {
+                write((byte) (0xE0 | c >> 12));
+                write((byte) (0x80 | c >> 6 & 0x3F));
+                write((byte) (0x80 | c & 0x3F));
+            }
+        }
+        write((byte) '"');
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+}
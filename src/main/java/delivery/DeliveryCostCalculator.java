@@ -1,60 +1,99 @@
 package delivery;
 
-import cart.Product;
-import cart.ShoppingCart;
-
-import java.util.stream.Collectors;
+import cart.ICartStatistics;
+import money.Money;
 
 public class DeliveryCostCalculator implements IDeliveryCostCalculator {
-    private double costPerDelivery;
-    private double costPerProduct;
-    private static final double FIXED_COST = 2.99;
+
+    /**
+     * calculator shared by carts without their own calculator, 1.0 per delivery and per product.
+     * It has no setters, so a cart can not change the delivery cost of other carts.
+     */
+    public static final IDeliveryCostCalculator DEFAULT = new FixedDeliveryCostCalculator(100, 100);
+
+    private long costPerDelivery;
+    private long costPerProduct;
+
+    /**
+     * fixed cost in minor units
+     */
+    private static final long FIXED_COST = 299;
 
     public DeliveryCostCalculator(double costPerDelivery, double costPerProduct) {
-        this.costPerDelivery = costPerDelivery;
-        this.costPerProduct = costPerProduct;
+        this.costPerDelivery = Money.toMinorUnits(costPerDelivery);
+        this.costPerProduct = Money.toMinorUnits(costPerProduct);
     }
 
     public double getCostPerDelivery() {
-        return costPerDelivery;
+        return Money.toMajorUnits(costPerDelivery);
     }
 
     public void setCostPerDelivery(double costPerDelivery) {
-        this.costPerDelivery = costPerDelivery;
+        this.costPerDelivery = Money.toMinorUnits(costPerDelivery);
     }
 
     public double getCostPerProduct() {
-        return costPerProduct;
+        return Money.toMajorUnits(costPerProduct);
     }
 
     public void setCostPerProduct(double costPerProduct) {
-        this.costPerProduct = costPerProduct;
+        this.costPerProduct = Money.toMinorUnits(costPerProduct);
     }
 
     /**
      * use to calculate delivery cost for this cart
      *
-     * @param cart shopping cart
+     * @param cart counts of a cart
+     * @return long delivery cost in minor units
      */
     @Override
-    public double calculateFor(ShoppingCart cart) {
-        return (costPerDelivery * getNumberOfDeliveries(cart))
-                + (costPerProduct * getNumberOfDifferentProduct(cart))
+    public long calculateInMinorUnitsFor(ICartStatistics cart) {
+        return calculateInMinorUnits(getNumberOfDeliveries(cart), getNumberOfDifferentProduct(cart));
+    }
+
+    /**
+     * use to calculate delivery cost for counts of a cart
+     *
+     * @param numberOfDeliveries       number of different categories
+     * @param numberOfDifferentProduct number of different products
+     * @return long delivery cost in minor units
+     */
+    public long calculateInMinorUnits(int numberOfDeliveries, int numberOfDifferentProduct) {
+        return calculateInMinorUnits(costPerDelivery, costPerProduct, numberOfDeliveries, numberOfDifferentProduct);
+    }
+
+    private static long calculateInMinorUnits(long costPerDelivery, long costPerProduct,
+                                              int numberOfDeliveries, int numberOfDifferentProduct) {
+        return (costPerDelivery * numberOfDeliveries)
+                + (costPerProduct * numberOfDifferentProduct)
                 + FIXED_COST;
     }
 
-    private int getNumberOfDeliveries(ShoppingCart cart) {
-        return cart.getShoppingCartItems()
-                .keySet()
-                .stream()
-                .map(Product::getCategory)
-                .collect(Collectors.toSet())
-                .size();
+    private static int getNumberOfDeliveries(ICartStatistics cart) {
+        return cart.getNumberOfCategories();
+    }
+
+    private static int getNumberOfDifferentProduct(ICartStatistics cart) {
+        return cart.getNumberOfProducts();
     }
 
-    private int getNumberOfDifferentProduct(ShoppingCart cart) {
-        return cart.getShoppingCartItems()
-                .keySet()
-                .size();
+    /**
+     * Immutable calculator with the same formula, costs are in minor units
+     */
+    private static final class FixedDeliveryCostCalculator implements IDeliveryCostCalculator {
+
+        private final long costPerDelivery;
+        private final long costPerProduct;
+
+        private FixedDeliveryCostCalculator(long costPerDelivery, long costPerProduct) {
+            this.costPerDelivery = costPerDelivery;
+            this.costPerProduct = costPerProduct;
+        }
+
+        @Override
+        public long calculateInMinorUnitsFor(ICartStatistics cart) {
+            return calculateInMinorUnits(costPerDelivery, costPerProduct,
+                    getNumberOfDeliveries(cart), getNumberOfDifferentProduct(cart));
+        }
     }
 }
@@ -1,9 +1,20 @@
 package delivery;
 
-import cart.ShoppingCart;
+import cart.ICartStatistics;
+import money.Money;
 
 public interface IDeliveryCostCalculator {
 
-    double calculateFor(ShoppingCart cart);
+    default double calculateFor(ICartStatistics cart) {
+        return Money.toMajorUnits(calculateInMinorUnitsFor(cart));
+    }
+
+    /**
+     * use to calculate delivery cost from counts of a cart, implementations are shared by carts and must not keep state of a cart
+     *
+     * @param cart counts of a cart
+     * @return long delivery cost in minor units
+     */
+    long calculateInMinorUnitsFor(ICartStatistics cart);
 
 }
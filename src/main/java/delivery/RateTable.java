@@ -0,0 +1,360 @@
+package delivery;
+
+import cart.Category;
+import cart.ICategoryTotals;
+import exception.InvalidRateTableException;
+import exception.NullDataException;
+import money.Money;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Delivery rates of categories compiled into flat arrays.
+ * <p>
+ * Rate tables are text files with one record per line and fields separated by commas, lines starting with # are comments:
+ * <pre>
+ * rate,Fruit,FastCargo,Istanbul,1,4.99    category, carrier, zone, minimum quantity, price of a delivery
+ * rate,*,StandardCargo,Istanbul,1,9.99    * is for categories without rates of their own
+ * fixed,Istanbul,2.99                     fixed cost of a cart delivered to the zone
+ * </pre>
+ * Products of each category of a cart are one delivery. A delivery uses rates of its category or of its nearest parent
+ * category having rates. For every carrier of these rates, the tier with the greatest minimum quantity not more than
+ * quantity of the category gives the price, and the cheapest carrier is chosen.
+ * Quantity of a category includes its subcategories. Groups are found by walking parent categories of a category,
+ * so categories created after compiling are found too.
+ */
+public final class RateTable {
+
+    /**
+     * cost of a cart which can not be delivered to a zone
+     */
+    public static final long NOT_AVAILABLE = -1;
+
+    static final String PATH_IS_NULL = "Path of rate table is NULL!";
+    static final String CATEGORY_RESOLVER_IS_NULL = "Category resolver is NULL!";
+    static final String ZONES_IS_NULL = "Zones are NULL!";
+
+    private static final String ANY_CATEGORY = "*";
+    private static final int ANY_CATEGORY_ID = -1;
+    private static final int NO_GROUP = -1;
+    private static final int EMPTY_SLOT = -2;
+
+    /**
+     * zone names and positions, arrays below are indexed by position of zone
+     */
+    private final String[] zones;
+    private final Map<String, Integer> zoneIndexes;
+
+    /**
+     * long[] fixed cost of each zone in minor units
+     */
+    private final long[] fixedCosts;
+
+    /**
+     * A group is the rates of a category, carriers of group g are from groupCarrierOffsets[g] to groupCarrierOffsets[g + 1]
+     */
+    private final Map<Integer, Integer> groupsByCategoryId;
+    private final int[] groupCarrierOffsets;
+
+    /**
+     * tiers of a carrier of a group in a zone are from tierOffsets[carrier * zones + zone] to the next offset,
+     * in ascending order of minimum quantity
+     */
+    private final int[] tierOffsets;
+    private final long[] tierMinQuantities;
+    private final long[] tierPrices;
+
+    /**
+     * open addressing index from id of a category with rates to its group, EMPTY_SLOT for empty slots,
+     * so finding the group of a category walks its parents with int lookups only
+     */
+    private final int[] ratedCategoryIds;
+    private final int[] ratedGroups;
+
+    /**
+     * group of rates of categories without rates of their own, NO_GROUP if there is no such rate
+     */
+    private final int anyCategoryGroup;
+
+    private RateTable(List<Rate> rates, Map<String, Long> fixedCostsByZone) {
+        Map<String, Integer> zonePositions = new LinkedHashMap<>();
+        for (String zone : fixedCostsByZone.keySet()) zonePositions.putIfAbsent(zone, zonePositions.size());
+        for (Rate rate : rates) zonePositions.putIfAbsent(rate.zone, zonePositions.size());
+        zones = zonePositions.keySet().toArray(new String[0]);
+        zoneIndexes = zonePositions;
+
+        fixedCosts = new long[zones.length];
+        fixedCostsByZone.forEach((zone, fixedCost) -> fixedCosts[zonePositions.get(zone)] = fixedCost);
+
+        //Category id -> carrier -> rates, in order of the file
+        Map<Integer, Map<String, List<Rate>>> ratesByCategory = new LinkedHashMap<>();
+        for (Rate rate : rates) {
+            ratesByCategory.computeIfAbsent(rate.categoryId, categoryId -> new LinkedHashMap<>())
+                    .computeIfAbsent(rate.carrier, carrier -> new ArrayList<>())
+                    .add(rate);
+        }
+
+        groupsByCategoryId = new HashMap<>();
+        groupCarrierOffsets = new int[ratesByCategory.size() + 1];
+        int numberOfCarriers = 0;
+        for (Map<String, List<Rate>> ratesByCarrier : ratesByCategory.values()) numberOfCarriers += ratesByCarrier.size();
+
+        tierOffsets = new int[numberOfCarriers * zones.length + 1];
+        tierMinQuantities = new long[rates.size()];
+        tierPrices = new long[rates.size()];
+
+        int group = 0;
+        int carrier = 0;
+        int tier = 0;
+        for (Map.Entry<Integer, Map<String, List<Rate>>> categoryRates : ratesByCategory.entrySet()) {
+            groupsByCategoryId.put(categoryRates.getKey(), group);
+            for (List<Rate> carrierRates : categoryRates.getValue().values()) {
+                carrierRates.sort(Comparator.comparingLong((Rate rate) -> rate.minQuantity));
+                for (int zone = 0; zone < zones.length; zone++) {
+                    tierOffsets[carrier * zones.length + zone] = tier;
+                    for (Rate rate : carrierRates) {
+                        if (!rate.zone.equals(zones[zone])) continue;
+                        tierMinQuantities[tier] = rate.minQuantity;
+                        tierPrices[tier] = rate.price;
+                        tier++;
+                    }
+                }
+                carrier++;
+            }
+            groupCarrierOffsets[++group] = carrier;
+        }
+        tierOffsets[numberOfCarriers * zones.length] = tier;
+
+        ratedCategoryIds = new int[Integer.highestOneBit(Math.max(1, groupsByCategoryId.size())) * 4];
+        ratedGroups = new int[ratedCategoryIds.length];
+        Arrays.fill(ratedCategoryIds, EMPTY_SLOT);
+        groupsByCategoryId.forEach((categoryId, categoryGroup) -> {
+            if (categoryId == ANY_CATEGORY_ID) return;
+            int slot = slotOf(categoryId);
+            while (ratedCategoryIds[slot] != EMPTY_SLOT) slot = (slot + 1) & (ratedCategoryIds.length - 1);
+            ratedCategoryIds[slot] = categoryId;
+            ratedGroups[slot] = categoryGroup;
+        });
+        anyCategoryGroup = groupsByCategoryId.getOrDefault(ANY_CATEGORY_ID, NO_GROUP);
+    }
+
+    /**
+     * use to load a rate table from a file
+     *
+     * @param path             path of the file in UTF-8
+     * @param categoryResolver finds a category by its name in the file, null if there is no such category
+     * @return RateTable compiled rates
+     * @throws IOException if the file can not be read
+     */
+    public static RateTable load(Path path, Function<String, Category> categoryResolver) throws IOException {
+        Optional.ofNullable(path).orElseThrow(() -> new NullDataException(PATH_IS_NULL));
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader, categoryResolver);
+        }
+    }
+
+    /**
+     * use to read a rate table
+     *
+     * @param reader           reader of the rate table
+     * @param categoryResolver finds a category by its name in the table, null if there is no such category
+     * @return RateTable compiled rates
+     * @throws IOException if the table can not be read
+     */
+    public static RateTable parse(Reader reader, Function<String, Category> categoryResolver) throws IOException {
+        Optional.ofNullable(categoryResolver).orElseThrow(() -> new NullDataException(CATEGORY_RESOLVER_IS_NULL));
+
+        List<Rate> rates = new ArrayList<>();
+        Map<String, Long> fixedCostsByZone = new LinkedHashMap<>();
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        int lineNumber = 0;
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] fields = line.split(",", -1);
+            for (int i = 0; i < fields.length; i++) fields[i] = fields[i].trim();
+            try {
+                if (fields[0].equals("rate") && fields.length == 6) {
+                    rates.add(new Rate(categoryIdOf(fields[1], categoryResolver), fields[2], fields[3],
+                            parseMinQuantity(fields[4]), parsePrice(fields[5])));
+                } else if (fields[0].equals("fixed") && fields.length == 3) {
+                    if (fixedCostsByZone.put(fields[1], parsePrice(fields[2])) != null) {
+                        throw new IllegalArgumentException("Fixed cost of zone " + fields[1] + " is repeated");
+                    }
+                } else {
+                    throw new IllegalArgumentException("Unknown record " + line);
+                }
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                throw new InvalidRateTableException("Invalid rate table at line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+        return new RateTable(rates, fixedCostsByZone);
+    }
+
+    private static int categoryIdOf(String name, Function<String, Category> categoryResolver) {
+        if (name.equals(ANY_CATEGORY)) return ANY_CATEGORY_ID;
+        Category category = categoryResolver.apply(name);
+        if (category == null) throw new IllegalArgumentException("Unknown category " + name);
+        return category.getId();
+    }
+
+    private static long parseMinQuantity(String field) {
+        long minQuantity = Long.parseLong(field);
+        if (minQuantity < 0) throw new IllegalArgumentException("Minimum quantity is negative");
+        return minQuantity;
+    }
+
+    private static long parsePrice(String field) {
+        Money price = Money.of(new BigDecimal(field), RoundingMode.HALF_UP);
+        if (price.getMinorUnits() < 0) throw new IllegalArgumentException("Price is negative");
+        return price.getMinorUnits();
+    }
+
+    /**
+     * @return String[] zones of this table
+     */
+    public String[] getZones() {
+        return zones.clone();
+    }
+
+    /**
+     * @param zone name of the zone
+     * @return int position of the zone, -1 if there is no rate for the zone
+     */
+    public int getZoneIndex(String zone) {
+        Integer zoneIndex = zoneIndexes.get(zone);
+        return zoneIndex == null ? -1 : zoneIndex;
+    }
+
+    /**
+     * use to calculate delivery cost of a cart to a zone without allocation
+     *
+     * @param categoryTotals quantity per category of a cart
+     * @param zone           position of the zone
+     * @return long delivery cost in minor units, NOT_AVAILABLE if a category of the cart has no rate for the zone
+     */
+    public long calculate(ICategoryTotals categoryTotals, int zone) {
+        long cost = fixedCosts[zone];
+        for (int entry = 0; entry < categoryTotals.size(); entry++) {
+            if (categoryTotals.getNumberOfProductsAt(entry) == 0) continue;
+
+            int group = findGroup(categoryTotals.getCategoryAt(entry));
+            if (group == NO_GROUP) return NOT_AVAILABLE;
+            long deliveryCost = getDeliveryCost(group, zone, categoryTotals.getQuantityAt(entry));
+            if (deliveryCost == NOT_AVAILABLE) return NOT_AVAILABLE;
+            cost += deliveryCost;
+        }
+        return cost;
+    }
+
+    /**
+     * use to calculate delivery costs of a cart to many zones in a single pass over categories of the cart
+     *
+     * @param categoryTotals quantity per category of a cart
+     * @param zones          names of zones
+     * @return long[] delivery cost of each zone in minor units, NOT_AVAILABLE if the cart can not be delivered to the zone
+     */
+    public long[] quote(ICategoryTotals categoryTotals, String... zones) {
+        Optional.ofNullable(zones).orElseThrow(() -> new NullDataException(ZONES_IS_NULL));
+
+        int[] zonePositions = new int[zones.length];
+        long[] costs = new long[zones.length];
+        for (int i = 0; i < zones.length; i++) {
+            zonePositions[i] = getZoneIndex(zones[i]);
+            costs[i] = zonePositions[i] < 0 ? NOT_AVAILABLE : fixedCosts[zonePositions[i]];
+        }
+
+        for (int entry = 0; entry < categoryTotals.size(); entry++) {
+            if (categoryTotals.getNumberOfProductsAt(entry) == 0) continue;
+
+            int group = findGroup(categoryTotals.getCategoryAt(entry));
+            long quantity = categoryTotals.getQuantityAt(entry);
+            for (int i = 0; i < zones.length; i++) {
+                if (costs[i] == NOT_AVAILABLE) continue;
+                long deliveryCost = group == NO_GROUP ? NOT_AVAILABLE : getDeliveryCost(group, zonePositions[i], quantity);
+                costs[i] = deliveryCost == NOT_AVAILABLE ? NOT_AVAILABLE : costs[i] + deliveryCost;
+            }
+        }
+        return costs;
+    }
+
+    private long getDeliveryCost(int group, int zone, long quantity) {
+        long cheapest = NOT_AVAILABLE;
+        for (int carrier = groupCarrierOffsets[group]; carrier < groupCarrierOffsets[group + 1]; carrier++) {
+            int first = tierOffsets[carrier * zones.length + zone];
+            int tier = tierOffsets[carrier * zones.length + zone + 1] - 1;
+
+            //Tiers are few, so a backward scan is cheaper than a binary search
+            while (tier >= first && tierMinQuantities[tier] > quantity) tier--;
+            if (tier < first) continue;
+            if (cheapest == NOT_AVAILABLE || tierPrices[tier] < cheapest) cheapest = tierPrices[tier];
+        }
+        return cheapest;
+    }
+
+    /**
+     * @return int group of rates of the category or of its nearest parent category having rates, in O(depth)
+     */
+    private int findGroup(Category category) {
+        int mask = ratedCategoryIds.length - 1;
+        for (Category parent = category; parent != null; parent = parent.getParentCategory()) {
+            int categoryId = parent.getId();
+            for (int slot = slotOf(categoryId); ratedCategoryIds[slot] != EMPTY_SLOT; slot = (slot + 1) & mask) {
+                if (ratedCategoryIds[slot] == categoryId) return ratedGroups[slot];
+            }
+        }
+        return anyCategoryGroup;
+    }
+
+    private int slotOf(int categoryId) {
+        int hash = categoryId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (ratedCategoryIds.length - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "RateTable{" +
+                "zones=" + Arrays.toString(zones) +
+                ", categories=" + groupsByCategoryId.size() +
+                ", tiers=" + tierPrices.length +
+                '}';
+    }
+
+    private static final class Rate {
+        private final int categoryId;
+        private final String carrier;
+        private final String zone;
+        private final long minQuantity;
+
+        /**
+         * price in minor units
+         */
+        private final long price;
+
+        private Rate(int categoryId, String carrier, String zone, long minQuantity, long price) {
+            this.categoryId = categoryId;
+            this.carrier = carrier;
+            this.zone = zone;
+            this.minQuantity = minQuantity;
+            this.price = price;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package delivery;
+
+import cart.ICartStatistics;
+import exception.NoDeliveryRateException;
+import exception.NullDataException;
+
+import java.util.Optional;
+
+/**
+ * Delivery cost of carts to a zone with rates of a rate table
+ */
+public class RateTableDeliveryCostCalculator implements IDeliveryCostCalculator {
+
+    static final String RATE_TABLE_IS_NULL = "Rate table is NULL!";
+    static final String NO_RATE_FOR_ZONE = "There is no delivery rate for the zone!";
+    static final String NO_RATE_FOR_CART = "There is no delivery rate for a category of the cart!";
+
+    private final RateTable rateTable;
+    private final int zone;
+
+    /**
+     * @param rateTable compiled rates
+     * @param zone      name of the zone carts are delivered to
+     */
+    public RateTableDeliveryCostCalculator(RateTable rateTable, String zone) {
+        this.rateTable = Optional.ofNullable(rateTable).orElseThrow(() -> new NullDataException(RATE_TABLE_IS_NULL));
+        this.zone = rateTable.getZoneIndex(zone);
+        if (this.zone < 0) throw new NoDeliveryRateException(NO_RATE_FOR_ZONE);
+    }
+
+    /**
+     * use to calculate delivery cost for this cart
+     *
+     * @param cart counts of a cart
+     * @return long delivery cost in minor units
+     */
+    @Override
+    public long calculateInMinorUnitsFor(ICartStatistics cart) {
+        long cost = rateTable.calculate(cart.getCategoryTotals(), zone);
+        if (cost == RateTable.NOT_AVAILABLE) throw new NoDeliveryRateException(NO_RATE_FOR_CART);
+        return cost;
+    }
+
+    public RateTable getRateTable() {
+        return rateTable;
+    }
+}
@@ -1,5 +1,7 @@
 package discount;
 
+import money.Money;
+
 /**
  * Strategy design pattern interface
  */
@@ -7,4 +9,14 @@ public interface IDiscount {
 
     double getDiscount(double totalPrice);
 
+    /**
+     * use to get discount with exact integer math
+     *
+     * @param totalPrice total price in minor units
+     * @return long discount in minor units
+     */
+    default long getDiscountInMinorUnits(long totalPrice) {
+        return Money.toMinorUnits(getDiscount(Money.toMajorUnits(totalPrice)));
+    }
+
 }
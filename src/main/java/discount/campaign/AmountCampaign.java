@@ -1,19 +1,22 @@
 package discount.campaign;
 
 import cart.Category;
+import money.Money;
 
-public class AmountCampaign extends CampaignApplicable implements ICampaign {
+public class AmountCampaign extends CampaignApplicable implements IAmountOrRateCampaign {
 
     private Category category;
     private double amount;
+    private long amountInMinorUnits;
     private int minQuantityOfProduct;
 
     public AmountCampaign(Category category, double amount, int minQuantityOfProduct) {
         this.category = category;
-        this.amount = amount;
+        setAmount(amount);
         this.minQuantityOfProduct = minQuantityOfProduct;
     }
 
+    @Override
     public Category getCategory() {
         return category;
     }
@@ -28,8 +31,10 @@ public class AmountCampaign extends CampaignApplicable implements ICampaign {
 
     public void setAmount(double amount) {
         this.amount = amount;
+        this.amountInMinorUnits = Money.toMinorUnits(amount);
     }
 
+    @Override
     public int getMinQuantityOfProduct() {
         return minQuantityOfProduct;
     }
@@ -43,6 +48,21 @@ public class AmountCampaign extends CampaignApplicable implements ICampaign {
         return amount;
     }
 
+    @Override
+    public long getDiscountInMinorUnits(long totalPriceOfThisCategory) {
+        return amountInMinorUnits;
+    }
+
+    @Override
+    public long getAmountInMinorUnits() {
+        return amountInMinorUnits;
+    }
+
+    @Override
+    public long getRateInBasisPoints() {
+        return 0;
+    }
+
     @Override
     public String toString() {
         return "AmountCampaign{" +
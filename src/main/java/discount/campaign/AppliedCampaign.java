@@ -0,0 +1,33 @@
+package discount.campaign;
+
+import money.Money;
+
+/**
+ * Campaign chosen by DiscountSolver with its discount
+ */
+public final class AppliedCampaign {
+
+    private final ICampaign campaign;
+    private final long discount;
+
+    AppliedCampaign(ICampaign campaign, long discount) {
+        this.campaign = campaign;
+        this.discount = discount;
+    }
+
+    public ICampaign getCampaign() {
+        return campaign;
+    }
+
+    /**
+     * @return long discount of the campaign in minor units
+     */
+    public long getDiscountInMinorUnits() {
+        return discount;
+    }
+
+    @Override
+    public String toString() {
+        return campaign + " -> " + Money.ofMinorUnits(discount);
+    }
+}
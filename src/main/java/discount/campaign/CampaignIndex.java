@@ -0,0 +1,322 @@
+package discount.campaign;
+
+import cart.Category;
+import cart.ICategoryTotals;
+import money.Money;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Campaigns compiled once per campaign set and grouped by category id.
+ * Campaigns of a category are sorted by minimum quantity. For amount or rate campaigns the maximum amount and rate
+ * of each prefix are kept, so they cost O(log n) per category in the cart, independent of the number of campaigns.
+ * Other campaigns are called only when their category is in the cart and their minimum quantity is reached.
+ * Changes of campaigns after compiling need a new index.
+ */
+public final class CampaignIndex {
+
+    private static final int EMPTY = -1;
+    private static final long[] NO_QUANTITIES = new long[0];
+    private static final ICampaign[] NO_CAMPAIGNS = new ICampaign[0];
+
+    private final int numberOfCampaigns;
+
+    /**
+     * int[] category ids of the entries
+     */
+    private final int[] categoryIds;
+
+    /**
+     * long[][] minimum quantities of amount or rate campaigns of each entry in ascending order
+     */
+    private final long[][] minQuantities;
+
+    /**
+     * long[][] maximum amount in minor units of amount or rate campaigns up to the same position of minQuantities
+     */
+    private final long[][] maxAmounts;
+
+    /**
+     * long[][] maximum rate in basis points of amount or rate campaigns up to the same position of minQuantities
+     */
+    private final long[][] maxRates;
+
+    /**
+     * amount or rate campaigns of each entry in the same order as minQuantities,
+     * with positions of the campaigns having maxAmounts and maxRates
+     */
+    private final IAmountOrRateCampaign[][] amountOrRateCampaigns;
+    private final int[][] maxAmountPositions;
+    private final int[][] maxRatePositions;
+
+    /**
+     * Category[] category of each entry
+     */
+    private final Category[] categories;
+
+    /**
+     * ICampaign[][] other campaigns of each entry in ascending order of minimum quantity
+     */
+    private final ICampaign[][] otherCampaigns;
+    private final long[][] otherMinQuantities;
+
+    /**
+     * int[] open addressing index from category id to entry
+     */
+    private final int[] index;
+
+    private CampaignIndex(int numberOfCampaigns, Map<Integer, List<ICampaign>> campaignsByCategory) {
+        this.numberOfCampaigns = numberOfCampaigns;
+
+        int size = campaignsByCategory.size();
+        categoryIds = new int[size];
+        minQuantities = new long[size][];
+        maxAmounts = new long[size][];
+        maxRates = new long[size][];
+        amountOrRateCampaigns = new IAmountOrRateCampaign[size][];
+        maxAmountPositions = new int[size][];
+        maxRatePositions = new int[size][];
+        categories = new Category[size];
+        otherCampaigns = new ICampaign[size][];
+        otherMinQuantities = new long[size][];
+        index = new int[Integer.highestOneBit(Math.max(1, size)) * 4];
+        Arrays.fill(index, EMPTY);
+
+        int entry = 0;
+        for (Map.Entry<Integer, List<ICampaign>> categoryCampaigns : campaignsByCategory.entrySet()) {
+            List<ICampaign> campaigns = categoryCampaigns.getValue();
+            campaigns.sort(Comparator.comparingInt(ICampaign::getMinQuantityOfProduct));
+
+            List<IAmountOrRateCampaign> amountOrRateCampaigns = new ArrayList<>();
+            List<ICampaign> others = new ArrayList<>();
+            for (ICampaign campaign : campaigns) {
+                if (campaign instanceof IAmountOrRateCampaign) amountOrRateCampaigns.add((IAmountOrRateCampaign) campaign);
+                else others.add(campaign);
+            }
+
+            categoryIds[entry] = categoryCampaigns.getKey();
+            categories[entry] = campaigns.get(0).getCategory();
+            compileAmountOrRateCampaigns(entry, amountOrRateCampaigns);
+            otherCampaigns[entry] = others.isEmpty() ? NO_CAMPAIGNS : others.toArray(NO_CAMPAIGNS);
+            otherMinQuantities[entry] = minQuantitiesOf(otherCampaigns[entry]);
+
+            int mask = index.length - 1;
+            int slot = mix(categoryIds[entry]) & mask;
+            while (index[slot] != EMPTY) slot = (slot + 1) & mask;
+            index[slot] = entry;
+            entry++;
+        }
+    }
+
+    private void compileAmountOrRateCampaigns(int entry, List<IAmountOrRateCampaign> campaigns) {
+        minQuantities[entry] = new long[campaigns.size()];
+        maxAmounts[entry] = new long[campaigns.size()];
+        maxRates[entry] = new long[campaigns.size()];
+        amountOrRateCampaigns[entry] = campaigns.toArray(new IAmountOrRateCampaign[0]);
+        maxAmountPositions[entry] = new int[campaigns.size()];
+        maxRatePositions[entry] = new int[campaigns.size()];
+
+        long maxAmount = 0;
+        long maxRate = 0;
+        int maxAmountPosition = 0;
+        int maxRatePosition = 0;
+        for (int i = 0; i < campaigns.size(); i++) {
+            IAmountOrRateCampaign campaign = campaigns.get(i);
+            if (campaign.getAmountInMinorUnits() > maxAmount) {
+                maxAmount = campaign.getAmountInMinorUnits();
+                maxAmountPosition = i;
+            }
+            if (campaign.getRateInBasisPoints() > maxRate) {
+                maxRate = campaign.getRateInBasisPoints();
+                maxRatePosition = i;
+            }
+            minQuantities[entry][i] = campaign.getMinQuantityOfProduct();
+            maxAmounts[entry][i] = maxAmount;
+            maxRates[entry][i] = maxRate;
+            maxAmountPositions[entry][i] = maxAmountPosition;
+            maxRatePositions[entry][i] = maxRatePosition;
+        }
+    }
+
+    private static long[] minQuantitiesOf(ICampaign[] campaigns) {
+        if (campaigns.length == 0) return NO_QUANTITIES;
+        long[] quantities = new long[campaigns.length];
+        for (int i = 0; i < campaigns.length; i++) quantities[i] = campaigns[i].getMinQuantityOfProduct();
+        return quantities;
+    }
+
+    /**
+     * use to compile campaigns, null campaigns are ignored
+     *
+     * @param campaigns campaigns of the set
+     * @return CampaignIndex compiled campaigns
+     */
+    public static CampaignIndex of(ICampaign... campaigns) {
+        Map<Integer, List<ICampaign>> campaignsByCategory = new HashMap<>();
+        int numberOfCampaigns = 0;
+        for (ICampaign campaign : campaigns) {
+            if (campaign == null) continue;
+            campaignsByCategory.computeIfAbsent(campaign.getCategory().getId(), id -> new ArrayList<>()).add(campaign);
+            numberOfCampaigns++;
+        }
+        return new CampaignIndex(numberOfCampaigns, campaignsByCategory);
+    }
+
+    /**
+     * @return int number of compiled campaigns
+     */
+    public int size() {
+        return numberOfCampaigns;
+    }
+
+    /**
+     * use to get maximum discount of applicable campaigns
+     *
+     * @param categoryTotals quantity and price per category of a cart
+     * @return long maximum discount in minor units, 0 if there is no applicable campaign
+     */
+    public long getMaximumDiscount(ICategoryTotals categoryTotals) {
+        long maximumDiscount = 0;
+
+        if (categoryIds.length <= categoryTotals.size()) {
+            for (int entry = 0; entry < categoryIds.length; entry++) {
+                int categoryId = categoryIds[entry];
+                maximumDiscount = Math.max(maximumDiscount, getMaximumDiscount(entry,
+                        categoryTotals.getQuantityOfCategory(categoryId), categoryTotals.getPriceOfCategory(categoryId)));
+            }
+        } else {
+            for (int categoryEntry = 0; categoryEntry < categoryTotals.size(); categoryEntry++) {
+                int entry = entryOf(categoryTotals.getCategoryIdAt(categoryEntry));
+                if (entry == EMPTY) continue;
+                maximumDiscount = Math.max(maximumDiscount, getMaximumDiscount(entry,
+                        categoryTotals.getQuantityAt(categoryEntry), categoryTotals.getPriceAt(categoryEntry)));
+            }
+        }
+
+        return maximumDiscount;
+    }
+
+    private long getMaximumDiscount(int entry, long quantity, long price) {
+        if (quantity <= 0) return 0;
+        long maximumDiscount = 0;
+
+        //Campaigns are applicable if quantity is more than their minimum quantity
+        int applicable = countLessThan(minQuantities[entry], quantity);
+        if (applicable > 0) {
+            maximumDiscount = Math.max(maxAmounts[entry][applicable - 1],
+                    Money.percentOf(price, maxRates[entry][applicable - 1], Money.DEFAULT_ROUNDING));
+        }
+
+        ICampaign[] campaigns = otherCampaigns[entry];
+        applicable = countLessThan(otherMinQuantities[entry], quantity);
+        for (int i = 0; i < applicable; i++) {
+            maximumDiscount = Math.max(maximumDiscount, campaigns[i].getDiscountInMinorUnits(quantity, price));
+        }
+
+        return maximumDiscount;
+    }
+
+    /**
+     * use to get the campaign giving maximum discount of an entry
+     *
+     * @param entry    entry of a category
+     * @param quantity quantity of products in the category
+     * @param price    total price of products in the category in minor units
+     * @return AppliedCampaign campaign with maximum discount, null if there is no discount
+     */
+    AppliedCampaign getBestCampaign(int entry, long quantity, long price) {
+        if (quantity <= 0) return null;
+        ICampaign bestCampaign = null;
+        long maximumDiscount = 0;
+
+        int applicable = countLessThan(minQuantities[entry], quantity);
+        if (applicable > 0) {
+            long rateDiscount = Money.percentOf(price, maxRates[entry][applicable - 1], Money.DEFAULT_ROUNDING);
+            boolean amountIsBetter = maxAmounts[entry][applicable - 1] >= rateDiscount;
+            maximumDiscount = amountIsBetter ? maxAmounts[entry][applicable - 1] : rateDiscount;
+            bestCampaign = amountOrRateCampaigns[entry][amountIsBetter
+                    ? maxAmountPositions[entry][applicable - 1] : maxRatePositions[entry][applicable - 1]];
+        }
+
+        ICampaign[] campaigns = otherCampaigns[entry];
+        applicable = countLessThan(otherMinQuantities[entry], quantity);
+        for (int i = 0; i < applicable; i++) {
+            long discount = campaigns[i].getDiscountInMinorUnits(quantity, price);
+            if (discount > maximumDiscount) {
+                maximumDiscount = discount;
+                bestCampaign = campaigns[i];
+            }
+        }
+
+        return maximumDiscount > 0 ? new AppliedCampaign(bestCampaign, maximumDiscount) : null;
+    }
+
+    /**
+     * use to get all applicable campaigns of an entry giving a discount
+     *
+     * @param entry            entry of a category
+     * @param quantity         quantity of products in the category
+     * @param price            total price of products in the category in minor units
+     * @param appliedCampaigns applicable campaigns are added to this list
+     */
+    void addApplicableCampaigns(int entry, long quantity, long price, List<AppliedCampaign> appliedCampaigns) {
+        if (quantity <= 0) return;
+
+        IAmountOrRateCampaign[] campaigns = amountOrRateCampaigns[entry];
+        int applicable = countLessThan(minQuantities[entry], quantity);
+        for (int i = 0; i < applicable; i++) addIfDiscounted(campaigns[i], quantity, price, appliedCampaigns);
+
+        ICampaign[] others = otherCampaigns[entry];
+        applicable = countLessThan(otherMinQuantities[entry], quantity);
+        for (int i = 0; i < applicable; i++) addIfDiscounted(others[i], quantity, price, appliedCampaigns);
+    }
+
+    private static void addIfDiscounted(ICampaign campaign, long quantity, long price, List<AppliedCampaign> appliedCampaigns) {
+        long discount = campaign.getDiscountInMinorUnits(quantity, price);
+        if (discount > 0) appliedCampaigns.add(new AppliedCampaign(campaign, discount));
+    }
+
+    /**
+     * @return int number of categories having campaigns
+     */
+    int getNumberOfEntries() {
+        return categoryIds.length;
+    }
+
+    int getCategoryIdAt(int entry) {
+        return categoryIds[entry];
+    }
+
+    Category getCategoryAt(int entry) {
+        return categories[entry];
+    }
+
+    private static int countLessThan(long[] sortedValues, long value) {
+        int low = 0;
+        int high = sortedValues.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedValues[middle] < value) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    int entryOf(int categoryId) {
+        int mask = index.length - 1;
+        for (int slot = mix(categoryId) & mask; index[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (categoryIds[index[slot]] == categoryId) return index[slot];
+        }
+        return EMPTY;
+    }
+
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,69 @@
+package discount.campaign;
+
+import money.Money;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Campaigns chosen by DiscountSolver for a cart, with the reason of the choice
+ */
+public final class DiscountSolution {
+
+    private final StackingPolicy stackingPolicy;
+    private final List<AppliedCampaign> appliedCampaigns;
+    private final long totalDiscount;
+
+    DiscountSolution(StackingPolicy stackingPolicy, List<AppliedCampaign> appliedCampaigns) {
+        this.stackingPolicy = stackingPolicy;
+        this.appliedCampaigns = Collections.unmodifiableList(appliedCampaigns);
+        long discount = 0;
+        for (AppliedCampaign appliedCampaign : appliedCampaigns) discount += appliedCampaign.getDiscountInMinorUnits();
+        this.totalDiscount = discount;
+    }
+
+    public StackingPolicy getStackingPolicy() {
+        return stackingPolicy;
+    }
+
+    /**
+     * @return List<AppliedCampaign> chosen campaigns, empty if there is no applicable campaign
+     */
+    public List<AppliedCampaign> getAppliedCampaigns() {
+        return appliedCampaigns;
+    }
+
+    /**
+     * @return long total discount of chosen campaigns in minor units
+     */
+    public long getTotalDiscountInMinorUnits() {
+        return totalDiscount;
+    }
+
+    /**
+     * @return String which campaigns are chosen and why
+     */
+    public String explain() {
+        StringBuilder explanation = new StringBuilder();
+        switch (stackingPolicy) {
+            case BEST_SINGLE:
+                explanation.append("Campaign with maximum discount is applied");
+                break;
+            case BEST_NON_OVERLAPPING:
+                explanation.append("Campaigns of different categories with maximum total discount are applied");
+                break;
+            default:
+                explanation.append("All applicable campaigns are applied");
+        }
+        explanation.append(", total discount: ").append(Money.ofMinorUnits(totalDiscount));
+        for (AppliedCampaign appliedCampaign : appliedCampaigns) {
+            explanation.append(System.lineSeparator()).append("  ").append(appliedCampaign);
+        }
+        return explanation.toString();
+    }
+
+    @Override
+    public String toString() {
+        return explain();
+    }
+}
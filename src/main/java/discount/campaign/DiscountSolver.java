@@ -0,0 +1,326 @@
+package discount.campaign;
+
+import cart.Category;
+import cart.ICategoryTotals;
+import cart.Taxonomy;
+import exception.NullDataException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * Chooses campaigns of a campaign set for a cart with a stacking policy.
+ * Categories of the cart are iterated once and campaigns are evaluated only for them, with scratch arrays sized
+ * to the cart instead of to the campaign set. Best non-overlapping campaigns are found with a single pass from
+ * subcategories to parent categories, and all stackable campaigns never discount a category below 0.
+ */
+public final class DiscountSolver {
+
+    static final String CAMPAIGNS_IS_NULL = "There is a no campaigns!";
+    static final String STACKING_POLICY_IS_NULL = "Stacking policy is NULL!";
+    static final String CATEGORY_TOTALS_IS_NULL = "Category totals are NULL!";
+
+    private static final int EMPTY = -1;
+
+    /**
+     * Scratch of each thread, shared by all solvers
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final CampaignIndex campaignIndex;
+    private final StackingPolicy stackingPolicy;
+
+    /**
+     * int[] entries of campaignIndex, subcategories before their parent categories
+     */
+    private final int[] entriesByDepth;
+
+    /**
+     * int[] position of each entry in entriesByDepth
+     */
+    private final int[] ranks;
+
+    /**
+     * int[] entry of the nearest parent category having campaigns, EMPTY if there is no such parent category
+     */
+    private final int[] parentEntries;
+
+    /**
+     * @param campaignIndex  compiled campaigns
+     * @param stackingPolicy how applicable campaigns are combined
+     */
+    public DiscountSolver(CampaignIndex campaignIndex, StackingPolicy stackingPolicy) {
+        this(campaignIndex, stackingPolicy, null);
+    }
+
+    /**
+     * @param campaignIndex  compiled campaigns
+     * @param stackingPolicy how applicable campaigns are combined
+     * @param taxonomy       taxonomy of categories of campaigns, so nearest parent categories having campaigns are found
+     *                       with subtree checks instead of walking parent categories, null to walk parent categories
+     */
+    public DiscountSolver(CampaignIndex campaignIndex, StackingPolicy stackingPolicy, Taxonomy taxonomy) {
+        this.campaignIndex = Optional.ofNullable(campaignIndex).orElseThrow(() -> new NullDataException(CAMPAIGNS_IS_NULL));
+        this.stackingPolicy = Optional.ofNullable(stackingPolicy).orElseThrow(() -> new NullDataException(STACKING_POLICY_IS_NULL));
+
+        int numberOfEntries = campaignIndex.getNumberOfEntries();
+        entriesByDepth = IntStream.range(0, numberOfEntries).boxed()
+                .sorted(Comparator.comparingInt((Integer entry) -> campaignIndex.getCategoryAt(entry).getDepth()).reversed())
+                .mapToInt(Integer::intValue)
+                .toArray();
+        ranks = new int[numberOfEntries];
+        for (int rank = 0; rank < numberOfEntries; rank++) ranks[entriesByDepth[rank]] = rank;
+
+        parentEntries = new int[numberOfEntries];
+        Arrays.fill(parentEntries, EMPTY);
+        boolean[] inTaxonomy = new boolean[numberOfEntries];
+        if (taxonomy != null) findParentEntries(taxonomy, inTaxonomy);
+        for (int entry = 0; entry < numberOfEntries; entry++) {
+            if (inTaxonomy[entry]) continue;
+            for (Category parent = campaignIndex.getCategoryAt(entry).getParentCategory(); parent != null; parent = parent.getParentCategory()) {
+                int parentEntry = campaignIndex.entryOf(parent.getId());
+                if (parentEntry != EMPTY) {
+                    parentEntries[entry] = parentEntry;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Entries of categories in the taxonomy are visited in pre-order with a stack of their parent categories having
+     * campaigns, so each entry costs O(1) subtree checks besides sorting, independent of depth of its category
+     *
+     * @param inTaxonomy set to true for entries whose category is in the taxonomy
+     */
+    private void findParentEntries(Taxonomy taxonomy, boolean[] inTaxonomy) {
+        int numberOfEntries = parentEntries.length;
+        long[] entriesInPreOrder = new long[numberOfEntries];
+        int size = 0;
+        for (int entry = 0; entry < numberOfEntries; entry++) {
+            int node = taxonomy.nodeOf(campaignIndex.getCategoryAt(entry));
+            if (node == Taxonomy.NO_NODE) continue;
+            inTaxonomy[entry] = true;
+            entriesInPreOrder[size++] = (long) taxonomy.getPreOrder(node) << 32 | entry;
+        }
+        Arrays.sort(entriesInPreOrder, 0, size);
+
+        int[] stack = new int[size];
+        int top = -1;
+        for (int i = 0; i < size; i++) {
+            int entry = (int) entriesInPreOrder[i];
+            int node = taxonomy.nodeOf(campaignIndex.getCategoryAt(entry));
+            while (top >= 0 && !taxonomy.isInSubtree(node, taxonomy.nodeOf(campaignIndex.getCategoryAt(stack[top])))) top--;
+            if (top >= 0) parentEntries[entry] = stack[top];
+            stack[++top] = entry;
+        }
+    }
+
+    /**
+     * use to compile campaigns for a stacking policy
+     *
+     * @param stackingPolicy how applicable campaigns are combined
+     * @param campaigns      campaigns of the set
+     * @return DiscountSolver solver of the campaigns
+     */
+    public static DiscountSolver of(StackingPolicy stackingPolicy, ICampaign... campaigns) {
+        Optional.ofNullable(campaigns).orElseThrow(() -> new NullDataException(CAMPAIGNS_IS_NULL));
+        return new DiscountSolver(CampaignIndex.of(campaigns), stackingPolicy);
+    }
+
+    public CampaignIndex getCampaignIndex() {
+        return campaignIndex;
+    }
+
+    public StackingPolicy getStackingPolicy() {
+        return stackingPolicy;
+    }
+
+    /**
+     * use to choose campaigns for a cart
+     *
+     * @param categoryTotals quantity and price per category of a cart
+     * @return DiscountSolution chosen campaigns with their discounts
+     */
+    public DiscountSolution solve(ICategoryTotals categoryTotals) {
+        Optional.ofNullable(categoryTotals).orElseThrow(() -> new NullDataException(CATEGORY_TOTALS_IS_NULL));
+
+        Scratch scratch = SCRATCH.get();
+        scratch.ensureCapacity(categoryTotals.size());
+        try {
+            int numberOfPresent = findPresent(categoryTotals, scratch);
+            List<AppliedCampaign> appliedCampaigns = new ArrayList<>();
+            switch (stackingPolicy) {
+                case BEST_SINGLE:
+                    addBestSingle(categoryTotals, scratch, numberOfPresent, appliedCampaigns);
+                    break;
+                case BEST_NON_OVERLAPPING:
+                    addBestNonOverlapping(categoryTotals, scratch, numberOfPresent, appliedCampaigns);
+                    break;
+                default:
+                    addAllStackable(categoryTotals, scratch, numberOfPresent, appliedCampaigns);
+            }
+            return new DiscountSolution(stackingPolicy, appliedCampaigns);
+        } finally {
+            scratch.clear(categoryTotals.size());
+        }
+    }
+
+    /**
+     * Entries of the cart whose category has campaigns, as rank of the campaign entry and position in the cart,
+     * sorted so subcategories are before their parent categories. Parent categories of a category in the cart
+     * are in the cart too.
+     *
+     * @return int number of present entries
+     */
+    private int findPresent(ICategoryTotals categoryTotals, Scratch scratch) {
+        int numberOfPresent = 0;
+        for (int categoryEntry = 0; categoryEntry < categoryTotals.size(); categoryEntry++) {
+            if (categoryTotals.getQuantityAt(categoryEntry) <= 0) continue;
+            int entry = campaignIndex.entryOf(categoryTotals.getCategoryIdAt(categoryEntry));
+            if (entry != EMPTY) scratch.present[numberOfPresent++] = (long) ranks[entry] << 32 | categoryEntry;
+        }
+        Arrays.sort(scratch.present, 0, numberOfPresent);
+        return numberOfPresent;
+    }
+
+    private int entryAt(Scratch scratch, int i) {
+        return entriesByDepth[(int) (scratch.present[i] >>> 32)];
+    }
+
+    private static int categoryEntryAt(Scratch scratch, int i) {
+        return (int) scratch.present[i];
+    }
+
+    /**
+     * @return int position of the nearest parent category having campaigns in present entries, EMPTY if it is not present
+     */
+    private int parentOf(Scratch scratch, int numberOfPresent, int i) {
+        int parentEntry = parentEntries[entryAt(scratch, i)];
+        if (parentEntry == EMPTY) return EMPTY;
+        long parentRank = ranks[parentEntry];
+        int low = i + 1;
+        int high = numberOfPresent;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (scratch.present[middle] >>> 32 < parentRank) low = middle + 1;
+            else high = middle;
+        }
+        return low < numberOfPresent && scratch.present[low] >>> 32 == parentRank ? low : EMPTY;
+    }
+
+    private void addBestSingle(ICategoryTotals categoryTotals, Scratch scratch, int numberOfPresent,
+                               List<AppliedCampaign> appliedCampaigns) {
+        AppliedCampaign bestCampaign = null;
+        for (int i = 0; i < numberOfPresent; i++) {
+            int categoryEntry = categoryEntryAt(scratch, i);
+            AppliedCampaign campaign = campaignIndex.getBestCampaign(entryAt(scratch, i),
+                    categoryTotals.getQuantityAt(categoryEntry), categoryTotals.getPriceAt(categoryEntry));
+            if (campaign == null) continue;
+            if (bestCampaign == null || campaign.getDiscountInMinorUnits() > bestCampaign.getDiscountInMinorUnits()) {
+                bestCampaign = campaign;
+            }
+        }
+        if (bestCampaign != null) appliedCampaigns.add(bestCampaign);
+    }
+
+    /**
+     * Subcategories are visited before their parent categories. Each category keeps the better of its own best
+     * campaign and the best combinations of its subcategories, then categories are chosen from parent categories down.
+     */
+    private void addBestNonOverlapping(ICategoryTotals categoryTotals, Scratch scratch, int numberOfPresent,
+                                       List<AppliedCampaign> appliedCampaigns) {
+        for (int i = 0; i < numberOfPresent; i++) {
+            int categoryEntry = categoryEntryAt(scratch, i);
+            AppliedCampaign ownCampaign = campaignIndex.getBestCampaign(entryAt(scratch, i),
+                    categoryTotals.getQuantityAt(categoryEntry), categoryTotals.getPriceAt(categoryEntry));
+            long ownDiscount = ownCampaign == null ? 0 : ownCampaign.getDiscountInMinorUnits();
+            scratch.ownCampaigns[i] = ownCampaign;
+
+            scratch.ownCampaignIsChosen[i] = ownCampaign != null && ownDiscount >= scratch.discountsOfSubcategories[i];
+            long discount = Math.max(ownDiscount, scratch.discountsOfSubcategories[i]);
+            int parent = parentOf(scratch, numberOfPresent, i);
+            if (parent != EMPTY) scratch.discountsOfSubcategories[parent] += discount;
+            scratch.parents[i] = parent;
+        }
+
+        for (int i = numberOfPresent - 1; i >= 0; i--) {
+            int parent = scratch.parents[i];
+            if (parent != EMPTY && !scratch.subcategoriesAreChosen[parent]) continue;
+
+            if (scratch.ownCampaignIsChosen[i]) appliedCampaigns.add(scratch.ownCampaigns[i]);
+            else scratch.subcategoriesAreChosen[i] = true;
+        }
+    }
+
+    /**
+     * Subcategories are visited before their parent categories. Campaigns of a category together with campaigns of
+     * its subcategories discount at most the total price of the category, so the cart is never discounted below 0.
+     */
+    private void addAllStackable(ICategoryTotals categoryTotals, Scratch scratch, int numberOfPresent,
+                                 List<AppliedCampaign> appliedCampaigns) {
+        for (int i = 0; i < numberOfPresent; i++) {
+            int categoryEntry = categoryEntryAt(scratch, i);
+            long price = categoryTotals.getPriceAt(categoryEntry);
+            int from = appliedCampaigns.size();
+            campaignIndex.addApplicableCampaigns(entryAt(scratch, i), categoryTotals.getQuantityAt(categoryEntry), price,
+                    appliedCampaigns);
+
+            long discount = scratch.discountsOfSubcategories[i];
+            for (int applied = from; applied < appliedCampaigns.size(); applied++) {
+                AppliedCampaign appliedCampaign = appliedCampaigns.get(applied);
+                long remaining = Math.max(0, price - discount);
+                if (appliedCampaign.getDiscountInMinorUnits() > remaining) {
+                    //Campaigns after the price of the category is reached give no discount
+                    if (remaining == 0) {
+                        appliedCampaigns.subList(applied, appliedCampaigns.size()).clear();
+                        break;
+                    }
+                    appliedCampaign = new AppliedCampaign(appliedCampaign.getCampaign(), remaining);
+                    appliedCampaigns.set(applied, appliedCampaign);
+                }
+                discount += appliedCampaign.getDiscountInMinorUnits();
+            }
+
+            int parent = parentOf(scratch, numberOfPresent, i);
+            if (parent != EMPTY) scratch.discountsOfSubcategories[parent] += discount;
+        }
+    }
+
+    /**
+     * Arrays of a solve sized to entries of the cart, grown to the largest cart of the thread and reused
+     */
+    private static final class Scratch {
+        private long[] present = new long[0];
+        private AppliedCampaign[] ownCampaigns = new AppliedCampaign[0];
+        private long[] discountsOfSubcategories = new long[0];
+        private boolean[] ownCampaignIsChosen = new boolean[0];
+        private boolean[] subcategoriesAreChosen = new boolean[0];
+        private int[] parents = new int[0];
+
+        private void ensureCapacity(int capacity) {
+            if (present.length >= capacity) return;
+            present = new long[capacity];
+            ownCampaigns = new AppliedCampaign[capacity];
+            discountsOfSubcategories = new long[capacity];
+            ownCampaignIsChosen = new boolean[capacity];
+            subcategoriesAreChosen = new boolean[capacity];
+            parents = new int[capacity];
+        }
+
+        /**
+         * use to reset used positions, so campaigns are not kept after a solve
+         */
+        private void clear(int size) {
+            int used = Math.min(size, present.length);
+            Arrays.fill(ownCampaigns, 0, used, null);
+            Arrays.fill(discountsOfSubcategories, 0, used, 0);
+            Arrays.fill(ownCampaignIsChosen, 0, used, false);
+            Arrays.fill(subcategoriesAreChosen, 0, used, false);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package discount.campaign;
+
+/**
+ * Campaign whose discount is the greater of a fixed amount and a rate of the category price.
+ * CampaignIndex keeps the maximum amount and rate of these campaigns per minimum quantity,
+ * so they are evaluated without calling the campaigns.
+ */
+public interface IAmountOrRateCampaign extends ICampaign {
+
+    /**
+     * @return long fixed discount in minor units, 0 if there is no fixed discount
+     */
+    long getAmountInMinorUnits();
+
+    /**
+     * @return long rate of category price in basis points, 0 if there is no rate
+     */
+    long getRateInBasisPoints();
+
+}
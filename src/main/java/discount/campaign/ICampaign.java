@@ -1,12 +1,44 @@
 package discount.campaign;
 
+import cart.Category;
 import discount.IDiscount;
 
 /**
  * To facilitate code readability
+ * <p>
+ * New kinds of campaigns (buy one get one, tiered, bundle...) implement this interface and override
+ * getDiscountInMinorUnits(long, long) when their discount depends on more than the category price.
+ * CampaignIndex groups them by category and evaluates them only when their category is in the cart
+ * with more than getMinQuantityOfProduct() products.
  */
 public interface ICampaign extends IDiscount {
 
+    /**
+     * @return Category campaign applies to products of this category and its subcategories
+     */
+    Category getCategory();
+
+    int getMinQuantityOfProduct();
+
     boolean isApplicable(Long quantityOfProduct, int minQuantityOfProduct);
 
-}
\ No newline at end of file
+    /**
+     * @param quantityOfCategory quantity of products in category of this campaign
+     * @return boolean true if this campaign is applicable to this quantity
+     */
+    default boolean isApplicable(long quantityOfCategory) {
+        return quantityOfCategory > getMinQuantityOfProduct();
+    }
+
+    /**
+     * use to get discount of this campaign for products of its category
+     *
+     * @param quantityOfCategory quantity of products in category of this campaign
+     * @param priceOfCategory    total price of products in category of this campaign in minor units
+     * @return long discount in minor units, 0 if this campaign is not applicable
+     */
+    default long getDiscountInMinorUnits(long quantityOfCategory, long priceOfCategory) {
+        return isApplicable(quantityOfCategory) ? getDiscountInMinorUnits(priceOfCategory) : 0;
+    }
+
+}
@@ -1,8 +1,9 @@
 package discount.campaign;
 
 import cart.Category;
+import money.Money;
 
-public class RateCampaign extends CampaignApplicable implements ICampaign {
+public class RateCampaign extends CampaignApplicable implements IAmountOrRateCampaign {
 
     private Category category;
     private double rate;
@@ -14,6 +15,7 @@ public class RateCampaign extends CampaignApplicable implements ICampaign {
         this.minQuantityOfProduct = minQuantityOfProduct;
     }
 
+    @Override
     public Category getCategory() {
         return category;
     }
@@ -30,6 +32,7 @@ public class RateCampaign extends CampaignApplicable implements ICampaign {
         this.rate = rate;
     }
 
+    @Override
     public int getMinQuantityOfProduct() {
         return minQuantityOfProduct;
     }
@@ -49,6 +52,27 @@ public class RateCampaign extends CampaignApplicable implements ICampaign {
         return rate * totalPriceOfThisCategory / 100;
     }
 
+    /**
+     * use to get discount for this category with exact integer math
+     *
+     * @param totalPriceOfThisCategory total price of this category in minor units
+     * @return long discount in minor units
+     */
+    @Override
+    public long getDiscountInMinorUnits(long totalPriceOfThisCategory) {
+        return Money.percentOf(totalPriceOfThisCategory, Money.toBasisPoints(rate), Money.DEFAULT_ROUNDING);
+    }
+
+    @Override
+    public long getAmountInMinorUnits() {
+        return 0;
+    }
+
+    @Override
+    public long getRateInBasisPoints() {
+        return Money.toBasisPoints(rate);
+    }
+
     @Override
     public String toString() {
         return "RateCampaign{" +
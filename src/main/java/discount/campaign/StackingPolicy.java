@@ -0,0 +1,23 @@
+package discount.campaign;
+
+/**
+ * How campaigns of a campaign set are combined for a cart
+ */
+public enum StackingPolicy {
+
+    /**
+     * only the campaign with maximum discount is applied
+     */
+    BEST_SINGLE,
+
+    /**
+     * at most one campaign is applied to a product, campaigns of a category and of its parent categories
+     * are not applied together, combination with maximum total discount is applied
+     */
+    BEST_NON_OVERLAPPING,
+
+    /**
+     * all applicable campaigns are applied together
+     */
+    ALL_STACKABLE
+}
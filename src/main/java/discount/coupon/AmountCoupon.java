@@ -1,15 +1,19 @@
 package discount.coupon;
 
+import money.Money;
+
 public class AmountCoupon extends CouponApplicable implements ICoupon {
 
     private int minPurchaseAmount;
     private double amount;
+    private long amountInMinorUnits;
 
     public AmountCoupon(int minPurchaseAmount, double amount) {
         this.minPurchaseAmount = minPurchaseAmount;
-        this.amount = amount;
+        setAmount(amount);
     }
 
+    @Override
     public int getMinPurchaseAmount() {
         return minPurchaseAmount;
     }
@@ -24,10 +28,16 @@ public class AmountCoupon extends CouponApplicable implements ICoupon {
 
     public void setAmount(double amount) {
         this.amount = amount;
+        this.amountInMinorUnits = Money.toMinorUnits(amount);
     }
 
     @Override
     public double getDiscount(double totalPrice) {
         return amount;
     }
+
+    @Override
+    public long getDiscountInMinorUnits(long totalPrice) {
+        return amountInMinorUnits;
+    }
 }
@@ -6,4 +6,8 @@ public abstract class CouponApplicable {
         return purchaseAmount > minPurchaseAmount;
     }
 
+    public boolean isApplicable(long minPurchaseAmountInMinorUnits, long purchaseAmountInMinorUnits) {
+        return purchaseAmountInMinorUnits > minPurchaseAmountInMinorUnits;
+    }
+
 }
@@ -1,6 +1,7 @@
 package discount.coupon;
 
 import discount.IDiscount;
+import money.Money;
 
 /**
  * To facilitate code readability
@@ -9,4 +10,16 @@ public interface ICoupon extends IDiscount {
 
     boolean isApplicable(double minPurchaseAmount, double purchaseAmount);
 
+    boolean isApplicable(long minPurchaseAmountInMinorUnits, long purchaseAmountInMinorUnits);
+
+    int getMinPurchaseAmount();
+
+    /**
+     * @param purchaseAmount purchase amount in minor units
+     * @return boolean true if this coupon is applicable to this purchase amount
+     */
+    default boolean isApplicable(long purchaseAmount) {
+        return isApplicable(getMinPurchaseAmount() * Money.MINOR_UNITS_PER_MAJOR_UNIT, purchaseAmount);
+    }
+
 }
@@ -1,5 +1,7 @@
 package discount.coupon;
 
+import money.Money;
+
 public class RateCoupon extends CouponApplicable implements ICoupon {
 
     private int minPurchaseAmount;
@@ -10,6 +12,7 @@ public class RateCoupon extends CouponApplicable implements ICoupon {
         this.rate = rate;
     }
 
+    @Override
     public int getMinPurchaseAmount() {
         return minPurchaseAmount;
     }
@@ -37,4 +40,15 @@ public class RateCoupon extends CouponApplicable implements ICoupon {
         return rate * totalPrice / 100;
     }
 
+    /**
+     * use to get discount for this cart with exact integer math
+     *
+     * @param totalPrice total price of cart in minor units
+     * @return long discount in minor units
+     */
+    @Override
+    public long getDiscountInMinorUnits(long totalPrice) {
+        return Money.percentOf(totalPrice, Money.toBasisPoints(rate), Money.DEFAULT_ROUNDING);
+    }
+
 }
@@ -0,0 +1,7 @@
+package exception;
+
+public class InvalidCartFileException extends RuntimeException {
+    public InvalidCartFileException(String message) {
+        super(message);
+    }
+}
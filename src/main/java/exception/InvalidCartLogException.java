@@ -0,0 +1,7 @@
+package exception;
+
+public class InvalidCartLogException extends RuntimeException {
+    public InvalidCartLogException(String message) {
+        super(message);
+    }
+}
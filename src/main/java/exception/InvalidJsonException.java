@@ -0,0 +1,7 @@
+package exception;
+
+public class InvalidJsonException extends RuntimeException {
+    public InvalidJsonException(String message) {
+        super(message);
+    }
+}
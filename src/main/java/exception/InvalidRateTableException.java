@@ -0,0 +1,7 @@
+package exception;
+
+public class InvalidRateTableException extends RuntimeException {
+    public InvalidRateTableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package exception;
+
+public class InvalidTaxonomyException extends RuntimeException {
+    public InvalidTaxonomyException(String message) {
+        super(message);
+    }
+}
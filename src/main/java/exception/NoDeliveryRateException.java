@@ -0,0 +1,7 @@
+package exception;
+
+public class NoDeliveryRateException extends RuntimeException {
+    public NoDeliveryRateException(String message) {
+        super(message);
+    }
+}
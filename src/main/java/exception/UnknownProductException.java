@@ -0,0 +1,7 @@
+package exception;
+
+public class UnknownProductException extends RuntimeException {
+    public UnknownProductException(String message) {
+        super(message);
+    }
+}
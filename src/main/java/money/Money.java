@@ -0,0 +1,193 @@
+package money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable amount of money as a count of minor units (1/100 of the currency unit).
+ * Static methods do the same math on primitive long minor units for hot paths, so totals and
+ * discounts are exact integer math without allocation and BigDecimal is only used to convert at the edges.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final int FRACTION_DIGITS = 2;
+    public static final long MINOR_UNITS_PER_MAJOR_UNIT = 100;
+    public static final long BASIS_POINTS_PER_UNIT = 10_000;
+    public static final long BASIS_POINTS_PER_PERCENT = 100;
+    public static final RoundingMode DEFAULT_ROUNDING = RoundingMode.HALF_UP;
+
+    public static final Money ZERO = new Money(0);
+
+    private final long minorUnits;
+
+    private Money(long minorUnits) {
+        this.minorUnits = minorUnits;
+    }
+
+    public static Money ofMinorUnits(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    public static Money of(double amount) {
+        return ofMinorUnits(toMinorUnits(amount));
+    }
+
+    public static Money of(double amount, RoundingMode roundingMode) {
+        return ofMinorUnits(toMinorUnits(amount, roundingMode));
+    }
+
+    public static Money of(BigDecimal amount, RoundingMode roundingMode) {
+        return ofMinorUnits(amount.setScale(FRACTION_DIGITS, roundingMode).unscaledValue().longValueExact());
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, FRACTION_DIGITS);
+    }
+
+    public double toDouble() {
+        return toMajorUnits(minorUnits);
+    }
+
+    public Money plus(Money money) {
+        return ofMinorUnits(Math.addExact(minorUnits, money.minorUnits));
+    }
+
+    public Money minus(Money money) {
+        return ofMinorUnits(Math.subtractExact(minorUnits, money.minorUnits));
+    }
+
+    public Money times(long multiplier) {
+        return ofMinorUnits(Math.multiplyExact(minorUnits, multiplier));
+    }
+
+    /**
+     * @param rate         percentage rate, 12.5 for %12.5
+     * @param roundingMode rounding of the result to minor units
+     * @return Money rate percent of this amount
+     */
+    public Money percentage(double rate, RoundingMode roundingMode) {
+        return ofMinorUnits(percentOf(minorUnits, toBasisPoints(rate), roundingMode));
+    }
+
+    /**
+     * use to convert an amount in currency units to minor units with DEFAULT_ROUNDING
+     *
+     * @param amount amount in currency units
+     * @return long amount in minor units
+     */
+    public static long toMinorUnits(double amount) {
+        return toMinorUnits(amount, DEFAULT_ROUNDING);
+    }
+
+    public static long toMinorUnits(double amount, RoundingMode roundingMode) {
+        return BigDecimal.valueOf(amount).setScale(FRACTION_DIGITS, roundingMode).unscaledValue().longValueExact();
+    }
+
+    public static double toMajorUnits(long minorUnits) {
+        return minorUnits / (double) MINOR_UNITS_PER_MAJOR_UNIT;
+    }
+
+    /**
+     * @param rate percentage rate, 12.5 for %12.5
+     * @return long rate in basis points (1/100 of a percent), 1250 for %12.5
+     */
+    public static long toBasisPoints(double rate) {
+        return Math.round(rate * BASIS_POINTS_PER_PERCENT);
+    }
+
+    /**
+     * @param basisPoints rate in basis points, 1250 for %12.5
+     * @return double percentage rate, 12.5 for %12.5
+     */
+    public static double toRate(long basisPoints) {
+        return basisPoints / (double) BASIS_POINTS_PER_PERCENT;
+    }
+
+    /**
+     * use to get a percentage of an amount without allocation
+     *
+     * @param minorUnits   amount in minor units
+     * @param basisPoints  rate in basis points
+     * @param roundingMode rounding of the result to minor units
+     * @return long percentage of the amount in minor units
+     */
+    public static long percentOf(long minorUnits, long basisPoints, RoundingMode roundingMode) {
+        long product;
+        try {
+            product = Math.multiplyExact(minorUnits, basisPoints);
+        } catch (ArithmeticException e) {
+            return BigDecimal.valueOf(minorUnits)
+                    .multiply(BigDecimal.valueOf(basisPoints))
+                    .divide(BigDecimal.valueOf(BASIS_POINTS_PER_UNIT), 0, roundingMode)
+                    .longValueExact();
+        }
+        return divide(product, BASIS_POINTS_PER_UNIT, roundingMode);
+    }
+
+    /**
+     * use to divide longs with a rounding mode instead of truncation
+     *
+     * @param dividend     dividend
+     * @param divisor      divisor, not zero
+     * @param roundingMode rounding of the quotient
+     * @return long rounded quotient
+     */
+    public static long divide(long dividend, long divisor, RoundingMode roundingMode) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) return quotient;
+
+        int signum = (dividend < 0) == (divisor < 0) ? 1 : -1;
+        boolean increment;
+        switch (roundingMode) {
+            case UNNECESSARY:
+                throw new ArithmeticException("Rounding necessary");
+            case DOWN:
+                increment = false;
+                break;
+            case UP:
+                increment = true;
+                break;
+            case FLOOR:
+                increment = signum < 0;
+                break;
+            case CEILING:
+                increment = signum > 0;
+                break;
+            default:
+                long absRemainder = Math.abs(remainder);
+                long restOfDivisor = Math.abs(divisor) - absRemainder;
+                if (absRemainder != restOfDivisor) increment = absRemainder > restOfDivisor;
+                else if (roundingMode == RoundingMode.HALF_UP) increment = true;
+                else if (roundingMode == RoundingMode.HALF_DOWN) increment = false;
+                else increment = (quotient & 1) != 0;
+        }
+        return increment ? quotient + signum : quotient;
+    }
+
+    @Override
+    public int compareTo(Money money) {
+        return Long.compare(minorUnits, money.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return minorUnits == ((Money) o).minorUnits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,202 @@
+package pricing;
+
+import cart.ProductCatalog;
+import cart.ShoppingCart;
+import cart.ValidationReport;
+import delivery.DeliveryCostCalculator;
+import delivery.IDeliveryCostCalculator;
+import exception.NullDataException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Prices many carts with the same pricing rules in parallel.
+ * The calling thread reads carts in chunks of CHUNK_SIZE into a bounded queue and one worker per parallelism of
+ * the pool prices them, so memory is bounded by the queue whatever the size of the stream and reading waits for
+ * slow workers. Each worker prices its carts one by one in its own ShoppingCart which is cleared and reused,
+ * so a cart costs no allocation of cart lines or totals once the worker's cart has grown to the size of the
+ * largest cart, and the cart is released when priceAll returns. With a catalog, products of the catalog are priced
+ * with its current prices instead of prices of the products in the carts.
+ */
+public class BulkPricer {
+
+    static final String CART_IS_NULL = "Cart is NULL!";
+    static final String CARTS_IS_NULL = "Carts are NULL!";
+    static final String PRICING_RULES_IS_NULL = "Pricing rules are NULL!";
+    static final String FORK_JOIN_POOL_IS_NULL = "Fork join pool is NULL!";
+    static final String RESULTS_IS_NULL = "Results are NULL!";
+    static final String DELIVERY_COST_CALCULATOR_IS_NULL = "Delivery cost calculator is NULL!";
+
+    /**
+     * number of carts given to a worker at once
+     */
+    static final int CHUNK_SIZE = 64;
+
+    /**
+     * marks the end of carts for a worker
+     */
+    private static final List<CartDescription> END = Collections.emptyList();
+
+    private final PricingRules pricingRules;
+    private final ForkJoinPool forkJoinPool;
+    private final IDeliveryCostCalculator deliveryCostCalculator;
+
+    /**
+     * catalog pricing products of carts, null if carts are priced with prices of their products
+     */
+    private final ProductCatalog productCatalog;
+
+    /**
+     * @param pricingRules compiled campaigns and coupons applied to every cart
+     */
+    public BulkPricer(PricingRules pricingRules) {
+        this(pricingRules, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pricingRules compiled campaigns and coupons applied to every cart
+     * @param forkJoinPool pool whose workers price carts, its parallelism is the number of carts priced at once
+     */
+    public BulkPricer(PricingRules pricingRules, ForkJoinPool forkJoinPool) {
+        this(pricingRules, forkJoinPool, DeliveryCostCalculator.DEFAULT);
+    }
+
+    /**
+     * @param pricingRules           compiled campaigns and coupons applied to every cart
+     * @param forkJoinPool           pool whose workers price carts, its parallelism is the number of carts priced at once
+     * @param deliveryCostCalculator calculator of delivery cost of every cart
+     */
+    public BulkPricer(PricingRules pricingRules, ForkJoinPool forkJoinPool, IDeliveryCostCalculator deliveryCostCalculator) {
+        this(pricingRules, forkJoinPool, deliveryCostCalculator, null);
+    }
+
+    /**
+     * @param pricingRules           compiled campaigns and coupons applied to every cart
+     * @param forkJoinPool           pool whose workers price carts, its parallelism is the number of carts priced at once
+     * @param deliveryCostCalculator calculator of delivery cost of every cart
+     * @param productCatalog         catalog of products, products of the catalog are priced with its current prices,
+     *                               null to price carts with prices of their products
+     */
+    public BulkPricer(PricingRules pricingRules, ForkJoinPool forkJoinPool, IDeliveryCostCalculator deliveryCostCalculator,
+                      ProductCatalog productCatalog) {
+        this.productCatalog = productCatalog;
+        this.pricingRules = Optional.ofNullable(pricingRules).orElseThrow(() -> new NullDataException(PRICING_RULES_IS_NULL));
+        this.forkJoinPool = Optional.ofNullable(forkJoinPool).orElseThrow(() -> new NullDataException(FORK_JOIN_POOL_IS_NULL));
+        this.deliveryCostCalculator = Optional.ofNullable(deliveryCostCalculator)
+                .orElseThrow(() -> new NullDataException(DELIVERY_COST_CALCULATOR_IS_NULL));
+    }
+
+    /**
+     * use to price carts in parallel, results are given to consumer as soon as each cart is priced.
+     * Carts are read on the calling thread, at most two chunks per worker are read ahead of the workers,
+     * so it must not be called from a worker of the pool.
+     *
+     * @param carts   priced carts, may be read lazily from any source
+     * @param results consumer of results, called from many threads in no particular order
+     */
+    public void priceAll(Stream<CartDescription> carts, Consumer<? super PricingResult> results) {
+        Optional.ofNullable(carts).orElseThrow(() -> new NullDataException(CARTS_IS_NULL));
+        Optional.ofNullable(results).orElseThrow(() -> new NullDataException(RESULTS_IS_NULL));
+
+        int numberOfWorkers = forkJoinPool.getParallelism();
+        BlockingQueue<List<CartDescription>> chunks = new ArrayBlockingQueue<>(numberOfWorkers * 2);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<ForkJoinTask<?>> workers = new ArrayList<>(numberOfWorkers);
+        for (int worker = 0; worker < numberOfWorkers; worker++) {
+            workers.add(forkJoinPool.submit(() -> priceChunks(chunks, results, failure)));
+        }
+
+        try {
+            Iterator<CartDescription> iterator = carts.iterator();
+            List<CartDescription> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (iterator.hasNext() && failure.get() == null) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE) {
+                    put(chunks, chunk);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) put(chunks, chunk);
+        } finally {
+            for (int worker = 0; worker < numberOfWorkers; worker++) put(chunks, END);
+            for (ForkJoinTask<?> worker : workers) worker.join();
+        }
+
+        Throwable throwable = failure.get();
+        if (throwable instanceof RuntimeException) throw (RuntimeException) throwable;
+        if (throwable instanceof Error) throw (Error) throwable;
+    }
+
+    /**
+     * Loop of a worker, after a failure chunks are only taken so the reading thread is not blocked
+     */
+    private Void priceChunks(BlockingQueue<List<CartDescription>> chunks, Consumer<? super PricingResult> results,
+                             AtomicReference<Throwable> failure) throws InterruptedException {
+        ShoppingCart shoppingCart = newShoppingCart();
+        for (List<CartDescription> chunk = chunks.take(); chunk != END; chunk = chunks.take()) {
+            if (failure.get() != null) continue;
+            try {
+                for (CartDescription cart : chunk) results.accept(price(cart, shoppingCart));
+            } catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * use to put a chunk even if the thread is interrupted, workers always take chunks until the end
+     */
+    private static void put(BlockingQueue<List<CartDescription>> chunks, List<CartDescription> chunk) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                chunks.put(chunk);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * use to price a cart on the current thread
+     *
+     * @param cart priced cart
+     * @return PricingResult prices of the cart, not priced if an item of the cart is invalid
+     */
+    public PricingResult price(CartDescription cart) {
+        return price(cart, newShoppingCart());
+    }
+
+    private ShoppingCart newShoppingCart() {
+        return productCatalog == null
+                ? new ShoppingCart(deliveryCostCalculator)
+                : new ShoppingCart(productCatalog, deliveryCostCalculator);
+    }
+
+    private PricingResult price(CartDescription cart, ShoppingCart shoppingCart) {
+        Optional.ofNullable(cart).orElseThrow(() -> new NullDataException(CART_IS_NULL));
+
+        try {
+            ValidationReport validationReport = shoppingCart.addItems(cart.getItems());
+            if (!validationReport.isValid()) return PricingResult.invalid(cart.getCartId(), validationReport);
+
+            return pricingRules.price(cart.getCartId(), shoppingCart);
+        } finally {
+            shoppingCart.clear();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package pricing;
+
+import cart.CartItem;
+import cart.CartItemValidator;
+import cart.Category;
+import cart.ValidationReport;
+import discount.campaign.IAmountOrRateCampaign;
+import discount.campaign.ICampaign;
+import exception.NullDataException;
+import money.Money;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Many carts stored column by column for bulk repricing.
+ * Lines of all carts are kept in contiguous primitive arrays, lines of a cart are between two offsets.
+ * Discounts are evaluated one campaign at a time over a tile of carts, so amount and rate campaigns are simple
+ * loops over primitive arrays which the JIT can unroll and vectorize, instead of a call per cart and campaign.
+ */
+public final class CartBatch {
+
+    static final String CAMPAIGNS_IS_NULL = "Campaigns are NULL!";
+
+    /**
+     * number of carts whose subtotals are computed at once
+     */
+    static final int TILE_SIZE = 256;
+
+    private final int numberOfCarts;
+    private final long[] cartIds;
+
+    /**
+     * int[] first line of each cart, lines of cart c are between lineOffsets[c] and lineOffsets[c + 1]
+     */
+    private final int[] lineOffsets;
+
+    /**
+     * columns of lines, unit prices in minor units
+     */
+    private final long[] unitPrices;
+    private final int[] quantities;
+
+    /**
+     * int[] category of each line as a position of categories
+     */
+    private final int[] lineCategories;
+
+    /**
+     * Category[] different categories of lines
+     */
+    private final Category[] categories;
+
+    private CartBatch(Builder builder) {
+        numberOfCarts = builder.numberOfCarts;
+        cartIds = Arrays.copyOf(builder.cartIds, numberOfCarts);
+        lineOffsets = Arrays.copyOf(builder.lineOffsets, numberOfCarts + 1);
+        int numberOfLines = lineOffsets[numberOfCarts];
+        unitPrices = Arrays.copyOf(builder.unitPrices, numberOfLines);
+        quantities = Arrays.copyOf(builder.quantities, numberOfLines);
+        lineCategories = Arrays.copyOf(builder.lineCategories, numberOfLines);
+        categories = builder.categories.toArray(new Category[0]);
+    }
+
+    /**
+     * @return int number of carts
+     */
+    public int size() {
+        return numberOfCarts;
+    }
+
+    public long getCartId(int cart) {
+        return cartIds[cart];
+    }
+
+    public int getNumberOfLines() {
+        return lineOffsets[numberOfCarts];
+    }
+
+    /**
+     * @return long[] total price of each cart in minor units
+     * @throws ArithmeticException if a price overflows a long
+     */
+    public long[] getTotalPrices() {
+        long[] totalPrices = new long[numberOfCarts];
+        for (int cart = 0; cart < numberOfCarts; cart++) {
+            long totalPrice = 0;
+            for (int line = lineOffsets[cart]; line < lineOffsets[cart + 1]; line++) {
+                totalPrice = Math.addExact(totalPrice, getLineTotal(line));
+            }
+            totalPrices[cart] = totalPrice;
+        }
+        return totalPrices;
+    }
+
+    /**
+     * use to get maximum discount of applicable campaigns for each cart, same as applyDiscounts of ShoppingCart.
+     * Carts are processed TILE_SIZE at a time, so subtotals of a tile stay in cache whatever the number of carts
+     * and only the returned array is sized to all carts.
+     *
+     * @param campaigns a lot of campaigns but applied one of them to each cart
+     * @return long[] maximum discount of each cart in minor units, 0 if there is no applicable campaign
+     * @throws ArithmeticException if a price overflows a long
+     */
+    public long[] getMaximumDiscounts(ICampaign... campaigns) {
+        Optional.ofNullable(campaigns).orElseThrow(() -> new NullDataException(CAMPAIGNS_IS_NULL));
+
+        //Each category targeted by a campaign is a column of subtotals for the carts of a tile
+        Map<Integer, Integer> columnsByCategoryId = new HashMap<>();
+        for (ICampaign campaign : campaigns) {
+            if (campaign != null) columnsByCategoryId.putIfAbsent(campaign.getCategory().getId(), columnsByCategoryId.size());
+        }
+        int numberOfColumns = columnsByCategoryId.size();
+        int[] campaignColumns = new int[campaigns.length];
+        for (int i = 0; i < campaigns.length; i++) {
+            if (campaigns[i] != null) campaignColumns[i] = columnsByCategoryId.get(campaigns[i].getCategory().getId());
+        }
+        ColumnPaths columnPaths = new ColumnPaths(columnsByCategoryId);
+
+        long[] columnQuantities = new long[numberOfColumns * TILE_SIZE];
+        long[] columnPrices = new long[numberOfColumns * TILE_SIZE];
+        long[] maxAmounts = new long[numberOfColumns * TILE_SIZE];
+        long[] maxRates = new long[numberOfColumns * TILE_SIZE];
+        long[] maximumDiscounts = new long[numberOfCarts];
+        for (int firstCart = 0; firstCart < numberOfCarts; firstCart += TILE_SIZE) {
+            int tileSize = Math.min(TILE_SIZE, numberOfCarts - firstCart);
+            Arrays.fill(columnQuantities, 0);
+            Arrays.fill(columnPrices, 0);
+            Arrays.fill(maxAmounts, 0);
+            Arrays.fill(maxRates, 0);
+            addToColumns(columnPaths, firstCart, tileSize, columnQuantities, columnPrices);
+
+            //Maximum amount and rate of applicable amount or rate campaigns of each column and cart
+            for (int i = 0; i < campaigns.length; i++) {
+                if (!(campaigns[i] instanceof IAmountOrRateCampaign)) continue;
+                IAmountOrRateCampaign campaign = (IAmountOrRateCampaign) campaigns[i];
+                addAmountOrRateCampaign(columnQuantities, maxAmounts, maxRates, campaignColumns[i] * TILE_SIZE, tileSize,
+                        campaign.getMinQuantityOfProduct(), campaign.getAmountInMinorUnits(), campaign.getRateInBasisPoints());
+            }
+
+            for (int column = 0; column < numberOfColumns; column++) {
+                int from = column * TILE_SIZE;
+                for (int cart = 0; cart < tileSize; cart++) {
+                    if (maxAmounts[from + cart] == 0 && maxRates[from + cart] == 0) continue;
+                    long discount = Math.max(maxAmounts[from + cart],
+                            Money.percentOf(columnPrices[from + cart], maxRates[from + cart], Money.DEFAULT_ROUNDING));
+                    maximumDiscounts[firstCart + cart] = Math.max(maximumDiscounts[firstCart + cart], discount);
+                }
+            }
+
+            //Other campaigns may depend on more than price, they are called for each cart having their category
+            for (int i = 0; i < campaigns.length; i++) {
+                if (campaigns[i] == null || campaigns[i] instanceof IAmountOrRateCampaign) continue;
+                int from = campaignColumns[i] * TILE_SIZE;
+                for (int cart = 0; cart < tileSize; cart++) {
+                    long quantity = columnQuantities[from + cart];
+                    if (quantity <= 0) continue;
+                    maximumDiscounts[firstCart + cart] = Math.max(maximumDiscounts[firstCart + cart],
+                            campaigns[i].getDiscountInMinorUnits(quantity, columnPrices[from + cart]));
+                }
+            }
+        }
+
+        return maximumDiscounts;
+    }
+
+    /**
+     * Branch-free loop over carts of a tile, applicability is a comparison and maximums are selects
+     */
+    private static void addAmountOrRateCampaign(long[] columnQuantities, long[] maxAmounts, long[] maxRates, int from,
+                                                int tileSize, long minQuantity, long amount, long rate) {
+        //Campaigns are applicable if quantity is more than their minimum quantity
+        long threshold = Math.max(0, minQuantity);
+        for (int i = from; i < from + tileSize; i++) {
+            boolean applicable = columnQuantities[i] > threshold;
+            maxAmounts[i] = applicable ? Math.max(maxAmounts[i], amount) : maxAmounts[i];
+            maxRates[i] = applicable ? Math.max(maxRates[i], rate) : maxRates[i];
+        }
+    }
+
+    /**
+     * Adds each line of the carts of a tile to the columns of its category path
+     */
+    private void addToColumns(ColumnPaths columnPaths, int firstCart, int tileSize,
+                              long[] columnQuantities, long[] columnPrices) {
+        for (int cart = 0; cart < tileSize; cart++) {
+            for (int line = lineOffsets[firstCart + cart]; line < lineOffsets[firstCart + cart + 1]; line++) {
+                int category = lineCategories[line];
+                int to = columnPaths.offsets[category + 1];
+                if (columnPaths.offsets[category] == to) continue;
+                long lineTotal = getLineTotal(line);
+                for (int path = columnPaths.offsets[category]; path < to; path++) {
+                    int i = columnPaths.columns[path] * TILE_SIZE + cart;
+                    columnQuantities[i] += quantities[line];
+                    columnPrices[i] = Math.addExact(columnPrices[i], lineTotal);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return long price of a line in minor units
+     */
+    private long getLineTotal(int line) {
+        return Math.multiplyExact(unitPrices[line], (long) quantities[line]);
+    }
+
+    /**
+     * Columns of the path of each category of lines, its own column and columns of its parent categories,
+     * computed once for all carts, columns of category c are between offsets[c] and offsets[c + 1]
+     */
+    private final class ColumnPaths {
+        private final int[] offsets = new int[categories.length + 1];
+        private final int[] columns;
+
+        private ColumnPaths(Map<Integer, Integer> columnsByCategoryId) {
+            List<Integer> path = new ArrayList<>();
+            for (int category = 0; category < categories.length; category++) {
+                for (Category parent = categories[category]; parent != null; parent = parent.getParentCategory()) {
+                    Integer column = columnsByCategoryId.get(parent.getId());
+                    if (column != null) path.add(column);
+                }
+                offsets[category + 1] = path.size();
+            }
+            columns = path.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public static class Builder {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private int numberOfCarts;
+        private long[] cartIds = new long[INITIAL_CAPACITY];
+        private int[] lineOffsets = new int[INITIAL_CAPACITY + 1];
+        private long[] unitPrices = new long[INITIAL_CAPACITY];
+        private int[] quantities = new int[INITIAL_CAPACITY];
+        private int[] lineCategories = new int[INITIAL_CAPACITY];
+
+        private final List<Category> categories = new ArrayList<>();
+        private final Map<Category, Integer> positionsOfCategories = new HashMap<>();
+
+        /**
+         * use to add a cart to the batch, the cart is added only if all of its items are valid
+         *
+         * @param cartId id of the cart
+         * @param items  items of the cart
+         * @return ValidationReport problems of items of the cart
+         */
+        public ValidationReport addCart(long cartId, Collection<CartItem> items) {
+            ValidationReport validationReport = CartItemValidator.validate(items);
+            if (!validationReport.isValid()) return validationReport;
+
+            if (numberOfCarts == cartIds.length) {
+                cartIds = Arrays.copyOf(cartIds, numberOfCarts * 2);
+                lineOffsets = Arrays.copyOf(lineOffsets, numberOfCarts * 2 + 1);
+            }
+            int line = lineOffsets[numberOfCarts];
+            for (CartItem item : items) {
+                if (line == unitPrices.length) growLines();
+                unitPrices[line] = item.getProduct().getPriceInMinorUnits();
+                quantities[line] = item.getQuantity();
+                lineCategories[line] = positionOf(item.getProduct().getCategory());
+                line++;
+            }
+            cartIds[numberOfCarts] = cartId;
+            lineOffsets[++numberOfCarts] = line;
+            return validationReport;
+        }
+
+        private int positionOf(Category category) {
+            Integer position = positionsOfCategories.get(category);
+            if (position != null) return position;
+            categories.add(category);
+            positionsOfCategories.put(category, categories.size() - 1);
+            return categories.size() - 1;
+        }
+
+        private void growLines() {
+            int capacity = unitPrices.length * 2;
+            unitPrices = Arrays.copyOf(unitPrices, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            lineCategories = Arrays.copyOf(lineCategories, capacity);
+        }
+
+        public CartBatch build() {
+            return new CartBatch(this);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package pricing;
+
+import cart.CartItem;
+
+import java.util.Collection;
+
+/**
+ * Items of a cart to be priced, without a ShoppingCart built for it
+ */
+public final class CartDescription {
+
+    private final long cartId;
+    private final Collection<CartItem> items;
+
+    /**
+     * @param cartId id of the cart, returned with its result
+     * @param items  items of the cart
+     */
+    public CartDescription(long cartId, Collection<CartItem> items) {
+        this.cartId = cartId;
+        this.items = items;
+    }
+
+    public long getCartId() {
+        return cartId;
+    }
+
+    public Collection<CartItem> getItems() {
+        return items;
+    }
+}
@@ -0,0 +1,141 @@
+package pricing;
+
+import cart.ShoppingCart;
+import exception.NullDataException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded cache of prices of carts.
+ * Prices are keyed by fingerprint of items of the cart and version of pricing rules, so pricing an unchanged cart
+ * with the same rules again is a hash lookup. Least recently used prices are evicted when the cache is full.
+ * Fingerprints are 64 bit hashes, different items with the same fingerprint are possible but extremely unlikely.
+ * <p>
+ * Delivery cost is not cached, it depends on the calculator of the cart, which may be another one or changed
+ * since the cart was priced, so it is calculated again for each cart, which costs O(1).
+ */
+public class PricingCache {
+
+    static final String CART_IS_NULL = "Cart is NULL!";
+    static final String PRICING_RULES_IS_NULL = "Pricing rules are NULL!";
+    static final String MAXIMUM_SIZE_IS_INVALID = "Maximum size of cache is less than 1!";
+
+    private final int maximumSize;
+    private final Map<Key, PricingResult> results;
+
+    /**
+     * statistics, only changed while holding the lock of this cache
+     */
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maximumSize maximum number of cached prices
+     */
+    public PricingCache(int maximumSize) {
+        if (maximumSize < 1) throw new IllegalArgumentException(MAXIMUM_SIZE_IS_INVALID);
+        this.maximumSize = maximumSize;
+        this.results = new LinkedHashMap<Key, PricingResult>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PricingResult> eldest) {
+                if (size() <= PricingCache.this.maximumSize) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * use to get prices of a cart, cart is priced only if it has been changed since it was priced with same rules
+     *
+     * @param cartId       id of the cart
+     * @param shoppingCart priced cart, discounts of the cart are not changed
+     * @param pricingRules campaigns and coupons applied to the cart
+     * @return PricingResult prices of the cart
+     */
+    public PricingResult price(long cartId, ShoppingCart shoppingCart, PricingRules pricingRules) {
+        Optional.ofNullable(shoppingCart).orElseThrow(() -> new NullDataException(CART_IS_NULL));
+        Optional.ofNullable(pricingRules).orElseThrow(() -> new NullDataException(PRICING_RULES_IS_NULL));
+
+        Key key = new Key(shoppingCart.getFingerprint(), shoppingCart.getNumberOfProducts(), pricingRules.getVersion());
+        PricingResult result;
+        synchronized (this) {
+            result = results.get(key);
+            if (result != null) hits++;
+            else misses++;
+        }
+        if (result != null) return result.withCartId(cartId, shoppingCart.getDeliveryCostInMinorUnits());
+
+        //Pricing is done without the lock, a cart priced by two threads at once is priced twice
+        result = pricingRules.price(cartId, shoppingCart);
+        synchronized (this) {
+            results.put(key, result);
+        }
+        return result;
+    }
+
+    public synchronized void clear() {
+        results.clear();
+    }
+
+    /**
+     * @return int number of cached prices
+     */
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return double ratio of prices found in cache, 0 if nothing has been priced
+     */
+    public synchronized double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : hits / (double) requests;
+    }
+
+    private static final class Key {
+        private final long fingerprint;
+        private final int numberOfProducts;
+        private final long pricingRulesVersion;
+
+        private Key(long fingerprint, int numberOfProducts, long pricingRulesVersion) {
+            this.fingerprint = fingerprint;
+            this.numberOfProducts = numberOfProducts;
+            this.pricingRulesVersion = pricingRulesVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return fingerprint == key.fingerprint
+                    && numberOfProducts == key.numberOfProducts
+                    && pricingRulesVersion == key.pricingRulesVersion;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(fingerprint * 31 + pricingRulesVersion);
+        }
+    }
+}
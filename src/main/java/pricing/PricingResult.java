@@ -0,0 +1,91 @@
+package pricing;
+
+import cart.ValidationReport;
+
+/**
+ * Prices of a cart priced by BulkPricer, amounts in minor units
+ */
+public final class PricingResult {
+
+    private final long cartId;
+    private final ValidationReport validationReport;
+    private final long totalPrice;
+    private final long campaignDiscount;
+    private final long couponDiscount;
+    private final long totalAmountAfterDiscounts;
+    private final long deliveryCost;
+
+    PricingResult(long cartId, ValidationReport validationReport, long totalPrice, long campaignDiscount,
+                  long couponDiscount, long totalAmountAfterDiscounts, long deliveryCost) {
+        this.cartId = cartId;
+        this.validationReport = validationReport;
+        this.totalPrice = totalPrice;
+        this.campaignDiscount = campaignDiscount;
+        this.couponDiscount = couponDiscount;
+        this.totalAmountAfterDiscounts = totalAmountAfterDiscounts;
+        this.deliveryCost = deliveryCost;
+    }
+
+    /**
+     * @param cartId           id of the cart
+     * @param validationReport problems of items of the cart
+     * @return PricingResult result of a cart which is not priced because of its invalid items
+     */
+    static PricingResult invalid(long cartId, ValidationReport validationReport) {
+        return new PricingResult(cartId, validationReport, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * @param cartId id of another cart with same items
+     * @return PricingResult same prices for the other cart
+     */
+    PricingResult withCartId(long cartId) {
+        return withCartId(cartId, deliveryCost);
+    }
+
+    /**
+     * @param cartId       id of another cart with same items
+     * @param deliveryCost delivery cost of the other cart in minor units
+     * @return PricingResult same prices and discounts for the other cart with its own delivery cost
+     */
+    PricingResult withCartId(long cartId, long deliveryCost) {
+        if (cartId == this.cartId && deliveryCost == this.deliveryCost) return this;
+        return new PricingResult(cartId, validationReport, totalPrice, campaignDiscount, couponDiscount,
+                totalAmountAfterDiscounts, deliveryCost);
+    }
+
+    public long getCartId() {
+        return cartId;
+    }
+
+    /**
+     * @return boolean true if all items of the cart are valid and the cart is priced
+     */
+    public boolean isValid() {
+        return validationReport.isValid();
+    }
+
+    public ValidationReport getValidationReport() {
+        return validationReport;
+    }
+
+    public long getTotalPriceInMinorUnits() {
+        return totalPrice;
+    }
+
+    public long getCampaignDiscountInMinorUnits() {
+        return campaignDiscount;
+    }
+
+    public long getCouponDiscountInMinorUnits() {
+        return couponDiscount;
+    }
+
+    public long getTotalAmountAfterDiscountsInMinorUnits() {
+        return totalAmountAfterDiscounts;
+    }
+
+    public long getDeliveryCostInMinorUnits() {
+        return deliveryCost;
+    }
+}
@@ -0,0 +1,99 @@
+package pricing;
+
+import cart.ShoppingCart;
+import cart.ValidationReport;
+import discount.campaign.CampaignIndex;
+import discount.campaign.ICampaign;
+import discount.coupon.ICoupon;
+import exception.NullDataException;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compiled campaigns and coupons, shared by all carts priced with them
+ */
+public final class PricingRules {
+
+    static final String CAMPAIGNS_IS_NULL = "Campaigns are NULL!";
+    static final String CAMPAIGN_INDEX_IS_NULL = "Campaign index is NULL!";
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    /**
+     * long version of these rules, different for every created rules
+     */
+    private final long version = VERSIONS.incrementAndGet();
+
+    private final CampaignIndex campaignIndex;
+
+    /**
+     * coupons applied in order
+     */
+    private final ICoupon[] coupons;
+
+    /**
+     * @param campaignIndex compiled campaigns, best of them is applied to each cart
+     * @param coupons       coupons applied in order after campaigns, null coupons are skipped
+     */
+    public PricingRules(CampaignIndex campaignIndex, ICoupon... coupons) {
+        this.campaignIndex = Optional.ofNullable(campaignIndex).orElseThrow(() -> new NullDataException(CAMPAIGN_INDEX_IS_NULL));
+        this.coupons = coupons == null ? new ICoupon[0] : Arrays.stream(coupons).filter(Objects::nonNull).toArray(ICoupon[]::new);
+    }
+
+    /**
+     * use to compile campaigns and coupons
+     *
+     * @param campaigns campaigns but applied one of them
+     * @param coupons   coupons applied in order after campaigns
+     * @return PricingRules compiled rules
+     */
+    public static PricingRules of(ICampaign[] campaigns, ICoupon... coupons) {
+        Optional.ofNullable(campaigns).orElseThrow(() -> new NullDataException(CAMPAIGNS_IS_NULL));
+        return new PricingRules(CampaignIndex.of(campaigns), coupons);
+    }
+
+    /**
+     * Campaigns and coupons changed after creating rules need new rules, so results of old rules are not reused
+     *
+     * @return long version of these rules, different for every created rules
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public CampaignIndex getCampaignIndex() {
+        return campaignIndex;
+    }
+
+    ICoupon[] getCoupons() {
+        return coupons;
+    }
+
+    /**
+     * use to price a cart without changing discounts of the cart,
+     * same as applying campaigns and then coupons in order to the cart
+     *
+     * @param cartId       id of the cart
+     * @param shoppingCart priced cart
+     * @return PricingResult prices of the cart
+     */
+    PricingResult price(long cartId, ShoppingCart shoppingCart) {
+        long totalPrice = shoppingCart.getTotalPriceInMinorUnits();
+        long campaignDiscount = campaignIndex.getMaximumDiscount(shoppingCart.getCategoryTotals());
+        long totalAmountAfterDiscounts = totalPrice - campaignDiscount;
+
+        long couponDiscount = 0;
+        for (ICoupon coupon : coupons) {
+            if (!coupon.isApplicable(totalAmountAfterDiscounts)) continue;
+            long discount = coupon.getDiscountInMinorUnits(totalAmountAfterDiscounts);
+            couponDiscount += discount;
+            totalAmountAfterDiscounts -= discount;
+        }
+
+        return new PricingResult(cartId, ValidationReport.VALID, totalPrice, campaignDiscount, couponDiscount,
+                totalAmountAfterDiscounts, shoppingCart.getDeliveryCostInMinorUnits());
+    }
+}
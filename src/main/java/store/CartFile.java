@@ -0,0 +1,345 @@
+package store;
+
+import cart.CartItem;
+import cart.Category;
+import cart.Product;
+import cart.Taxonomy;
+import exception.InvalidCartFileException;
+import exception.NullDataException;
+import money.Money;
+import pricing.CartDescription;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read only cart file written by CartFileWriter, read through memory mapping.
+ * Opening a file reads only its header, a cart is found by binary search on the sorted cart index
+ * and only its own lines are read, so large files are opened quickly and carts are not deserialized until needed.
+ * <p>
+ * Layout of the file, all numbers are big endian:
+ * <pre>
+ * header      magic, version, number of carts, lines, categories and products, offsets of sections, kind of category ids
+ * lines       product id, price in minor units, quantity, position of category of each line, lines of a cart are together
+ * cart index  cart id, first line, number of lines, campaign and coupon discount, total amount after discounts
+ *             of each cart, sorted by cart id
+ * categories  category id, position of parent category, title of each category, parents before subcategories
+ * products    product id, price in minor units, position of category, title of each product, sorted by product id
+ * titles      UTF-8 titles of categories and products
+ * </pre>
+ * Lines keep the price and category they were written with, the product dictionary has one version of each product.
+ * Category ids are ids of the writing process, or ids in a taxonomy file if the file is written with a taxonomy.
+ * A file opened with the same taxonomy returns the categories of the taxonomy, so its carts match campaigns of them;
+ * otherwise categories are built again for each opened file.
+ */
+public final class CartFile implements Closeable {
+
+    static final String PATH_IS_NULL = "Path is NULL!";
+    static final String TAXONOMY_IS_NULL = "Taxonomy is NULL!";
+
+    static final int MAGIC = 0x43415254;
+    static final int VERSION = 3;
+
+    static final int HEADER_SIZE = 72;
+    static final int NUMBER_OF_CARTS = 8;
+    static final int NUMBER_OF_LINES = 16;
+    static final int NUMBER_OF_CATEGORIES = 24;
+    static final int NUMBER_OF_PRODUCTS = 28;
+    static final int CART_INDEX_OFFSET = 32;
+    static final int CATEGORIES_OFFSET = 40;
+    static final int PRODUCTS_OFFSET = 48;
+    static final int TITLES_OFFSET = 56;
+    static final int CATEGORY_IDS = 64;
+
+    /**
+     * kinds of category ids in the header
+     */
+    static final int PROCESS_CATEGORY_IDS = 0;
+    static final int TAXONOMY_CATEGORY_IDS = 1;
+
+    static final int LINE_SIZE = 24;
+    static final int LINE_PRODUCT_ID = 0;
+    static final int LINE_PRICE = 8;
+    static final int LINE_QUANTITY = 16;
+    static final int LINE_CATEGORY = 20;
+
+    static final int CART_SIZE = 48;
+    static final int CART_ID = 0;
+    static final int CART_FIRST_LINE = 8;
+    static final int CART_NUMBER_OF_LINES = 16;
+    static final int CART_CAMPAIGN_DISCOUNT = 24;
+    static final int CART_COUPON_DISCOUNT = 32;
+    static final int CART_TOTAL_AMOUNT_AFTER_DISCOUNTS = 40;
+
+    static final int CATEGORY_SIZE = 24;
+    static final int CATEGORY_ID = 0;
+    static final int CATEGORY_PARENT = 8;
+    static final int CATEGORY_TITLE_OFFSET = 12;
+    static final int CATEGORY_TITLE_LENGTH = 16;
+
+    static final int PRODUCT_SIZE = 32;
+    static final int PRODUCT_ID = 0;
+    static final int PRODUCT_PRICE = 8;
+    static final int PRODUCT_CATEGORY = 16;
+    static final int PRODUCT_TITLE_OFFSET = 20;
+    static final int PRODUCT_TITLE_LENGTH = 24;
+
+    /**
+     * length of a null title
+     */
+    static final int NULL_TITLE = -1;
+
+    private final FileChannel channel;
+    private final MappedRecords lines;
+    private final MappedRecords carts;
+    private final MappedRecords categoryRecords;
+    private final MappedRecords productRecords;
+    private final ByteBuffer titles;
+
+    /**
+     * Taxonomy categories of the file, null to build categories of the file
+     */
+    private final Taxonomy taxonomy;
+
+    /**
+     * Category[] categories of the dictionary, created when they are needed first
+     */
+    private final Category[] categories;
+
+    /**
+     * Product[] products of the dictionary, created when they are needed first
+     */
+    private final Product[] products;
+
+    private CartFile(FileChannel channel, Taxonomy taxonomy) throws IOException {
+        this.channel = channel;
+        this.taxonomy = taxonomy;
+        long fileSize = channel.size();
+        if (fileSize < HEADER_SIZE) throw new InvalidCartFileException("File is too small to be a cart file");
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt(0) != MAGIC) throw new InvalidCartFileException("File is not a cart file");
+        if (header.getInt(4) != VERSION) throw new InvalidCartFileException("Version " + header.getInt(4) + " is not supported");
+
+        long numberOfCarts = header.getLong(NUMBER_OF_CARTS);
+        long numberOfLines = header.getLong(NUMBER_OF_LINES);
+        int numberOfCategories = header.getInt(NUMBER_OF_CATEGORIES);
+        int numberOfProducts = header.getInt(NUMBER_OF_PRODUCTS);
+        long cartIndexOffset = header.getLong(CART_INDEX_OFFSET);
+        long categoriesOffset = header.getLong(CATEGORIES_OFFSET);
+        long productsOffset = header.getLong(PRODUCTS_OFFSET);
+        long titlesOffset = header.getLong(TITLES_OFFSET);
+        if (numberOfCarts < 0 || numberOfLines < 0 || numberOfCategories < 0 || numberOfProducts < 0
+                || cartIndexOffset != HEADER_SIZE + numberOfLines * LINE_SIZE
+                || categoriesOffset != cartIndexOffset + numberOfCarts * CART_SIZE
+                || productsOffset != categoriesOffset + (long) numberOfCategories * CATEGORY_SIZE
+                || titlesOffset != productsOffset + (long) numberOfProducts * PRODUCT_SIZE
+                || titlesOffset > fileSize || fileSize - titlesOffset > Integer.MAX_VALUE)
+            throw new InvalidCartFileException("Sections of the cart file are corrupted");
+        if (taxonomy != null && numberOfCategories > 0 && header.getInt(CATEGORY_IDS) != TAXONOMY_CATEGORY_IDS)
+            throw new InvalidCartFileException("Categories of the cart file are not written with a taxonomy");
+
+        lines = MappedRecords.map(channel, HEADER_SIZE, numberOfLines, LINE_SIZE);
+        carts = MappedRecords.map(channel, cartIndexOffset, numberOfCarts, CART_SIZE);
+        categoryRecords = MappedRecords.map(channel, categoriesOffset, numberOfCategories, CATEGORY_SIZE);
+        productRecords = MappedRecords.map(channel, productsOffset, numberOfProducts, PRODUCT_SIZE);
+        titles = channel.map(FileChannel.MapMode.READ_ONLY, titlesOffset, fileSize - titlesOffset);
+        categories = new Category[numberOfCategories];
+        products = new Product[numberOfProducts];
+    }
+
+    /**
+     * use to open a cart file, only its header is read
+     *
+     * @param path path of the file
+     * @return CartFile opened file
+     * @throws InvalidCartFileException if the file is not a valid cart file
+     */
+    public static CartFile open(Path path) throws IOException {
+        return openFile(path, null);
+    }
+
+    /**
+     * use to open a cart file written with a taxonomy, its categories are categories of the taxonomy
+     *
+     * @param path     path of the file
+     * @param taxonomy taxonomy the file is written with
+     * @return CartFile opened file
+     * @throws InvalidCartFileException if the file is not a valid cart file or is not written with a taxonomy
+     */
+    public static CartFile open(Path path, Taxonomy taxonomy) throws IOException {
+        return openFile(path, Optional.ofNullable(taxonomy).orElseThrow(() -> new NullDataException(TAXONOMY_IS_NULL)));
+    }
+
+    private static CartFile openFile(Path path, Taxonomy taxonomy) throws IOException {
+        Optional.ofNullable(path).orElseThrow(() -> new NullDataException(PATH_IS_NULL));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new CartFile(channel, taxonomy);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long getNumberOfCarts() {
+        return carts.size();
+    }
+
+    public long getNumberOfLines() {
+        return lines.size();
+    }
+
+    /**
+     * @param position position of a cart in order of cart ids, from 0 to getNumberOfCarts() - 1
+     * @return long id of the cart at this position
+     */
+    public long getCartId(long position) {
+        return carts.getLong(position, CART_ID);
+    }
+
+    public boolean contains(long cartId) {
+        return carts.binarySearch(CART_ID, cartId) >= 0;
+    }
+
+    /**
+     * @param cartId id of the cart
+     * @return int number of lines of the cart, -1 if there is no cart with this id
+     */
+    public int getNumberOfLines(long cartId) {
+        long cart = carts.binarySearch(CART_ID, cartId);
+        return cart < 0 ? -1 : carts.getInt(cart, CART_NUMBER_OF_LINES);
+    }
+
+    /**
+     * use to get total price of a cart from its lines, without creating its products
+     *
+     * @param cartId id of the cart
+     * @return long total price in minor units, -1 if there is no cart with this id
+     */
+    public long getTotalPriceInMinorUnits(long cartId) {
+        long cart = carts.binarySearch(CART_ID, cartId);
+        if (cart < 0) return -1;
+
+        long firstLine = carts.getLong(cart, CART_FIRST_LINE);
+        long lastLine = firstLine + carts.getInt(cart, CART_NUMBER_OF_LINES);
+        long totalPrice = 0;
+        for (long line = firstLine; line < lastLine; line++) {
+            totalPrice = Math.addExact(totalPrice, Math.multiplyExact(lines.getLong(line, LINE_PRICE),
+                    (long) lines.getInt(line, LINE_QUANTITY)));
+        }
+        return totalPrice;
+    }
+
+    /**
+     * @param cartId id of the cart
+     * @return long[] campaign discount, coupon discount and total amount after discounts in minor units,
+     * null if there is no cart with this id
+     */
+    public long[] getDiscountsInMinorUnits(long cartId) {
+        long cart = carts.binarySearch(CART_ID, cartId);
+        return cart < 0 ? null : new long[]{carts.getLong(cart, CART_CAMPAIGN_DISCOUNT),
+                carts.getLong(cart, CART_COUPON_DISCOUNT), carts.getLong(cart, CART_TOTAL_AMOUNT_AFTER_DISCOUNTS)};
+    }
+
+    /**
+     * use to read items of a cart, products and categories are created once and shared by carts,
+     * a line with another price or category than the product in the dictionary has its own product
+     *
+     * @param cartId id of the cart
+     * @return CartDescription items of the cart, null if there is no cart with this id
+     */
+    public CartDescription readCart(long cartId) {
+        long cart = carts.binarySearch(CART_ID, cartId);
+        if (cart < 0) return null;
+
+        long firstLine = carts.getLong(cart, CART_FIRST_LINE);
+        int numberOfLines = carts.getInt(cart, CART_NUMBER_OF_LINES);
+        List<CartItem> items = new ArrayList<>(numberOfLines);
+        for (long line = firstLine; line < firstLine + numberOfLines; line++) {
+            items.add(new CartItem(productOf(line), lines.getInt(line, LINE_QUANTITY)));
+        }
+        return new CartDescription(cartId, items);
+    }
+
+    private Product productOf(long line) {
+        long position = productRecords.binarySearch(PRODUCT_ID, lines.getLong(line, LINE_PRODUCT_ID));
+        if (position < 0) throw new InvalidCartFileException("Product of line " + line + " is not in the dictionary");
+        Product product = productAt((int) position);
+        long price = lines.getLong(line, LINE_PRICE);
+        Category category = categoryAt(lines.getInt(line, LINE_CATEGORY));
+        if (product.getPriceInMinorUnits() == price && product.getCategory() == category) return product;
+
+        return product.hasGeneratedId()
+                ? Product.withGeneratedId(product.getTitle(), price, category)
+                : new Product(product.getId(), product.getTitle(), Money.ofMinorUnits(price), category);
+    }
+
+    /**
+     * @param id id of the product
+     * @return Product product in the dictionary, null if there is no product with this id
+     */
+    public Product getProduct(long id) {
+        long product = productRecords.binarySearch(PRODUCT_ID, id);
+        return product < 0 ? null : productAt((int) product);
+    }
+
+    private synchronized Product productAt(int position) {
+        Product product = products[position];
+        if (product == null) {
+            long id = productRecords.getLong(position, PRODUCT_ID);
+            String title = titleAt(productRecords.getInt(position, PRODUCT_TITLE_OFFSET), productRecords.getInt(position, PRODUCT_TITLE_LENGTH));
+            long price = productRecords.getLong(position, PRODUCT_PRICE);
+            Category category = categoryAt(productRecords.getInt(position, PRODUCT_CATEGORY));
+            //A negative id was generated by the writing process, it is generated again for this process
+            product = id < 0
+                    ? Product.withGeneratedId(title, price, category)
+                    : new Product(id, title, Money.ofMinorUnits(price), category);
+            products[position] = product;
+        }
+        return product;
+    }
+
+    private synchronized Category categoryAt(int position) {
+        if (position < 0 || position >= categories.length)
+            throw new InvalidCartFileException("Category " + position + " is not in the dictionary");
+        Category category = categories[position];
+        if (category == null && taxonomy != null) {
+            long id = categoryRecords.getLong(position, CATEGORY_ID);
+            int node = taxonomy.nodeOf(id);
+            if (node == Taxonomy.NO_NODE) throw new InvalidCartFileException("Category " + id + " is not in the taxonomy");
+            category = taxonomy.getCategory(node);
+            categories[position] = category;
+        } else if (category == null) {
+            int parent = categoryRecords.getInt(position, CATEGORY_PARENT);
+            if (parent >= position) throw new InvalidCartFileException("Parent of category " + position + " is after it");
+            category = new Category
+                    .Builder()
+                    .title(titleAt(categoryRecords.getInt(position, CATEGORY_TITLE_OFFSET),
+                            categoryRecords.getInt(position, CATEGORY_TITLE_LENGTH)))
+                    .parentCategory(parent < 0 ? null : categoryAt(parent))
+                    .build();
+            categories[position] = category;
+        }
+        return category;
+    }
+
+    private String titleAt(int offset, int length) {
+        if (length == NULL_TITLE) return null;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) bytes[i] = titles.get(offset + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,359 @@
+package store;
+
+import cart.CartItem;
+import cart.CartItemValidator;
+import cart.CartSnapshot;
+import cart.Category;
+import cart.Product;
+import cart.ShoppingCart;
+import cart.Taxonomy;
+import cart.ValidationReport;
+import exception.NullDataException;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Writer of a cart file read by CartFile.
+ * Lines of carts are streamed to the file as they are written, the cart index, the category and product
+ * dictionaries and the header are written on close, so memory grows only with the number of carts and products.
+ * The header is written last, after the rest of the file is forced to the storage, so a file is either
+ * complete or fails to open. Write to a temporary file and move it over the last checkpoint.
+ * <p>
+ * A writer created with a taxonomy writes ids of categories in the taxonomy file instead of ids in this process,
+ * so CartFile opened with the same taxonomy returns the same categories.
+ */
+public final class CartFileWriter implements Closeable {
+
+    static final String ITEMS_IS_NULL = "Items are NULL!";
+    static final String SHOPPING_CART_IS_NULL = "Shopping cart is NULL!";
+    static final String SNAPSHOT_IS_NULL = "Snapshot is NULL!";
+    static final String DISCOUNTS_IS_NULL = "Discounts are NULL!";
+    static final String CATEGORY_IS_NOT_IN_TAXONOMY = "Category is not in the taxonomy!";
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final FileChannel channel;
+    private final DataOutputStream out;
+
+    /**
+     * Taxonomy ids of written categories, null to write ids of categories in the process
+     */
+    private final Taxonomy taxonomy;
+
+    private long numberOfLines;
+    private int numberOfCarts;
+    private long[] cartIds = new long[INITIAL_CAPACITY];
+    private long[] firstLines = new long[INITIAL_CAPACITY];
+    private int[] lineCounts = new int[INITIAL_CAPACITY];
+
+    /**
+     * long[] campaign discount, coupon discount and total amount after discounts of each cart, three per cart
+     */
+    private long[] discounts = new long[INITIAL_CAPACITY * 3];
+
+    /**
+     * List<Category> categories of the dictionary, parents before subcategories
+     */
+    private final List<Category> categories = new ArrayList<>();
+
+    /**
+     * int[] position of each category in the dictionary plus one by category id, 0 if it is not in the dictionary
+     */
+    private int[] positionsOfCategories = new int[64];
+
+    private final Set<Product> productSet = new HashSet<>();
+    private final List<Product> products = new ArrayList<>();
+
+    private boolean closed;
+
+    private CartFileWriter(FileChannel channel, Taxonomy taxonomy) throws IOException {
+        this.channel = channel;
+        this.taxonomy = taxonomy;
+        channel.position(CartFile.HEADER_SIZE);
+        out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+    }
+
+    /**
+     * use to create a cart file, an existing file is replaced
+     *
+     * @param path path of the file
+     * @return CartFileWriter writer of the file
+     */
+    public static CartFileWriter create(Path path) throws IOException {
+        return createFile(path, null);
+    }
+
+    /**
+     * use to create a cart file whose categories are written with their ids in a taxonomy, an existing file is replaced
+     *
+     * @param path     path of the file
+     * @param taxonomy taxonomy of all categories of written carts
+     * @return CartFileWriter writer of the file
+     */
+    public static CartFileWriter create(Path path, Taxonomy taxonomy) throws IOException {
+        return createFile(path, Optional.ofNullable(taxonomy).orElseThrow(() -> new NullDataException(CartFile.TAXONOMY_IS_NULL)));
+    }
+
+    private static CartFileWriter createFile(Path path, Taxonomy taxonomy) throws IOException {
+        Optional.ofNullable(path).orElseThrow(() -> new NullDataException(CartFile.PATH_IS_NULL));
+        return new CartFileWriter(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING), taxonomy);
+    }
+
+    /**
+     * use to write a cart, the cart is written only if all of its items are valid
+     *
+     * @param cartId id of the cart, each cart of a file has a different id
+     * @param items  items of the cart
+     * @return ValidationReport problems of items of the cart
+     * @throws IllegalArgumentException if the writer has a taxonomy and a category is not loaded by it
+     * @throws ArithmeticException      if total price of the cart overflows, nothing is written
+     */
+    public ValidationReport writeCart(long cartId, Collection<CartItem> items) throws IOException {
+        Optional.ofNullable(items).orElseThrow(() -> new NullDataException(ITEMS_IS_NULL));
+        ValidationReport validationReport = CartItemValidator.validate(items);
+        if (!validationReport.isValid()) return validationReport;
+
+        long totalPrice = 0;
+        for (CartItem item : items) {
+            totalPrice = Math.addExact(totalPrice,
+                    Math.multiplyExact(item.getProduct().getPriceInMinorUnits(), (long) item.getQuantity()));
+        }
+        //Products are added before lines are written, so a category which is not in the taxonomy writes no line
+        for (CartItem item : items) addProduct(item.getProduct());
+        long firstLine = numberOfLines;
+        for (CartItem item : items) writeLine(item.getProduct(), item.getQuantity());
+        addCart(cartId, firstLine, 0, 0, totalPrice);
+        return validationReport;
+    }
+
+    /**
+     * use to write items of a shopping cart with its discounts
+     *
+     * @param cartId       id of the cart, each cart of a file has a different id
+     * @param shoppingCart cart to write
+     * @throws IllegalArgumentException if the writer has a taxonomy and a category is not loaded by it
+     */
+    public void writeCart(long cartId, ShoppingCart shoppingCart) throws IOException {
+        Optional.ofNullable(shoppingCart).orElseThrow(() -> new NullDataException(SHOPPING_CART_IS_NULL));
+        writeItems(cartId, shoppingCart.getShoppingCartItems(), shoppingCart.getCampaignDiscountInMinorUnits(),
+                shoppingCart.getCouponDiscountInMinorUnits(), shoppingCart.getTotalAmountAfterDiscountsInMinorUnits());
+    }
+
+    /**
+     * use to write a version of items of a cart with its discounts, e.g. taken while the cart is being changed
+     *
+     * @param cartId                id of the cart, each cart of a file has a different id
+     * @param snapshot              items of the cart
+     * @param discountsInMinorUnits campaign discount, coupon discount and total amount after discounts in minor units
+     * @throws IllegalArgumentException if the writer has a taxonomy and a category is not loaded by it
+     */
+    public void writeCart(long cartId, CartSnapshot snapshot, long[] discountsInMinorUnits) throws IOException {
+        Optional.ofNullable(snapshot).orElseThrow(() -> new NullDataException(SNAPSHOT_IS_NULL));
+        Optional.ofNullable(discountsInMinorUnits).orElseThrow(() -> new NullDataException(DISCOUNTS_IS_NULL));
+        writeItems(cartId, snapshot.getShoppingCartItems(), discountsInMinorUnits[0], discountsInMinorUnits[1],
+                discountsInMinorUnits[2]);
+    }
+
+    private void writeItems(long cartId, Map<Product, Integer> items, long campaignDiscount, long couponDiscount,
+                            long totalAmountAfterDiscounts) throws IOException {
+        for (Product product : items.keySet()) addProduct(product);
+        long firstLine = numberOfLines;
+        for (Map.Entry<Product, Integer> item : items.entrySet()) writeLine(item.getKey(), item.getValue());
+        addCart(cartId, firstLine, campaignDiscount, couponDiscount, totalAmountAfterDiscounts);
+    }
+
+    private void writeLine(Product product, int quantity) throws IOException {
+        out.writeLong(product.getId());
+        out.writeLong(product.getPriceInMinorUnits());
+        out.writeInt(quantity);
+        out.writeInt(positionsOfCategories[product.getCategory().getId()] - 1);
+        numberOfLines++;
+    }
+
+    private void addCart(long cartId, long firstLine, long campaignDiscount, long couponDiscount,
+                         long totalAmountAfterDiscounts) {
+        if (numberOfCarts == cartIds.length) {
+            cartIds = Arrays.copyOf(cartIds, numberOfCarts * 2);
+            firstLines = Arrays.copyOf(firstLines, numberOfCarts * 2);
+            lineCounts = Arrays.copyOf(lineCounts, numberOfCarts * 2);
+            discounts = Arrays.copyOf(discounts, numberOfCarts * 6);
+        }
+        cartIds[numberOfCarts] = cartId;
+        firstLines[numberOfCarts] = firstLine;
+        lineCounts[numberOfCarts] = (int) (numberOfLines - firstLine);
+        discounts[numberOfCarts * 3] = campaignDiscount;
+        discounts[numberOfCarts * 3 + 1] = couponDiscount;
+        discounts[numberOfCarts * 3 + 2] = totalAmountAfterDiscounts;
+        numberOfCarts++;
+    }
+
+    private void addProduct(Product product) {
+        //Lines of a product with another category keep their own category
+        addCategory(product.getCategory());
+        if (productSet.add(product)) products.add(product);
+    }
+
+    /**
+     * @return int position of the category in the dictionary, its parent categories are added before it
+     */
+    private int addCategory(Category category) {
+        int id = category.getId();
+        if (id >= positionsOfCategories.length) {
+            positionsOfCategories = Arrays.copyOf(positionsOfCategories, Math.max(id + 1, positionsOfCategories.length * 2));
+        }
+        if (positionsOfCategories[id] == 0) {
+            if (taxonomy != null && taxonomy.nodeOf(category) == Taxonomy.NO_NODE)
+                throw new IllegalArgumentException(CATEGORY_IS_NOT_IN_TAXONOMY);
+            if (category.getParentCategory() != null) addCategory(category.getParentCategory());
+            categories.add(category);
+            positionsOfCategories[id] = categories.size();
+        }
+        return positionsOfCategories[id] - 1;
+    }
+
+    public int getNumberOfCarts() {
+        return numberOfCarts;
+    }
+
+    /**
+     * use to write the cart index, the dictionaries and the header and close the file
+     *
+     * @throws IllegalStateException if two carts have same id
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            writeCartIndex();
+            ByteArrayOutputStream titles = new ByteArrayOutputStream();
+            writeCategories(titles);
+            writeProducts(titles);
+            titles.writeTo(out);
+            out.flush();
+            channel.force(false);
+            writeHeader();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeCartIndex() throws IOException {
+        int[] order = sortedByCartId();
+        for (int i = 0; i < numberOfCarts; i++) {
+            int cart = order[i];
+            if (i > 0 && cartIds[cart] == cartIds[order[i - 1]])
+                throw new IllegalStateException("Cart " + cartIds[cart] + " is written twice!");
+            out.writeLong(cartIds[cart]);
+            out.writeLong(firstLines[cart]);
+            out.writeInt(lineCounts[cart]);
+            out.writeInt(0);
+            out.writeLong(discounts[cart * 3]);
+            out.writeLong(discounts[cart * 3 + 1]);
+            out.writeLong(discounts[cart * 3 + 2]);
+        }
+    }
+
+    private void writeCategories(ByteArrayOutputStream titles) throws IOException {
+        for (Category category : categories) {
+            Category parentCategory = category.getParentCategory();
+            out.writeLong(taxonomy == null ? category.getId() : taxonomy.getId(taxonomy.nodeOf(category)));
+            out.writeInt(parentCategory == null ? -1 : positionsOfCategories[parentCategory.getId()] - 1);
+            writeTitle(category.getTitle(), titles);
+            out.writeInt(0);
+        }
+    }
+
+    private void writeProducts(ByteArrayOutputStream titles) throws IOException {
+        products.sort((product, otherProduct) -> Long.compare(product.getId(), otherProduct.getId()));
+        for (Product product : products) {
+            out.writeLong(product.getId());
+            out.writeLong(product.getPriceInMinorUnits());
+            out.writeInt(positionsOfCategories[product.getCategory().getId()] - 1);
+            writeTitle(product.getTitle(), titles);
+            out.writeInt(0);
+        }
+    }
+
+    private void writeTitle(String title, ByteArrayOutputStream titles) throws IOException {
+        if (title == null) {
+            out.writeInt(0);
+            out.writeInt(CartFile.NULL_TITLE);
+            return;
+        }
+        byte[] bytes = title.getBytes(StandardCharsets.UTF_8);
+        if (titles.size() > Integer.MAX_VALUE - bytes.length) throw new IllegalStateException("Titles are larger than 2 GB!");
+        out.writeInt(titles.size());
+        out.writeInt(bytes.length);
+        titles.write(bytes);
+    }
+
+    private void writeHeader() throws IOException {
+        long cartIndexOffset = CartFile.HEADER_SIZE + numberOfLines * CartFile.LINE_SIZE;
+        long categoriesOffset = cartIndexOffset + (long) numberOfCarts * CartFile.CART_SIZE;
+        long productsOffset = categoriesOffset + (long) categories.size() * CartFile.CATEGORY_SIZE;
+        long titlesOffset = productsOffset + (long) products.size() * CartFile.PRODUCT_SIZE;
+
+        ByteBuffer header = ByteBuffer.allocate(CartFile.HEADER_SIZE);
+        header.putInt(0, CartFile.MAGIC);
+        header.putInt(4, CartFile.VERSION);
+        header.putLong(CartFile.NUMBER_OF_CARTS, numberOfCarts);
+        header.putLong(CartFile.NUMBER_OF_LINES, numberOfLines);
+        header.putInt(CartFile.NUMBER_OF_CATEGORIES, categories.size());
+        header.putInt(CartFile.NUMBER_OF_PRODUCTS, products.size());
+        header.putLong(CartFile.CART_INDEX_OFFSET, cartIndexOffset);
+        header.putLong(CartFile.CATEGORIES_OFFSET, categoriesOffset);
+        header.putLong(CartFile.PRODUCTS_OFFSET, productsOffset);
+        header.putLong(CartFile.TITLES_OFFSET, titlesOffset);
+        header.putInt(CartFile.CATEGORY_IDS, taxonomy == null ? CartFile.PROCESS_CATEGORY_IDS : CartFile.TAXONOMY_CATEGORY_IDS);
+        for (long position = 0; header.hasRemaining(); ) position += channel.write(header, position);
+    }
+
+    /**
+     * Carts are usually written in order of their ids, then they are not sorted
+     *
+     * @return int[] positions of carts in order of their ids
+     */
+    private int[] sortedByCartId() {
+        int[] order = new int[numberOfCarts];
+        boolean sorted = true;
+        for (int cart = 0; cart < numberOfCarts; cart++) {
+            order[cart] = cart;
+            if (cart > 0 && cartIds[cart - 1] > cartIds[cart]) sorted = false;
+        }
+        if (!sorted) mergeSort(order, new int[numberOfCarts], 0, numberOfCarts);
+        return order;
+    }
+
+    private void mergeSort(int[] order, int[] buffer, int from, int to) {
+        if (to - from < 2) return;
+        int middle = (from + to) >>> 1;
+        mergeSort(order, buffer, from, middle);
+        mergeSort(order, buffer, middle, to);
+        System.arraycopy(order, from, buffer, from, to - from);
+        for (int i = from, left = from, right = middle; i < to; i++) {
+            if (right == to || (left < middle && cartIds[buffer[left]] <= cartIds[buffer[right]])) order[i] = buffer[left++];
+            else order[i] = buffer[right++];
+        }
+    }
+}
@@ -0,0 +1,831 @@
+package store;
+
+import cart.CartItem;
+import cart.CartSnapshot;
+import cart.Product;
+import cart.ShoppingCart;
+import discount.campaign.CampaignIndex;
+import discount.campaign.DiscountSolution;
+import discount.campaign.DiscountSolver;
+import discount.coupon.ICoupon;
+import exception.InvalidCartLogException;
+import exception.NullDataException;
+import money.Money;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+import java.util.zip.CRC32;
+
+/**
+ * Carts kept in memory with a write-ahead log of their changes.
+ * A change is applied to its cart and appended to a log buffer, a background thread writes the buffered
+ * records to the log file and forces them to the storage as one batch, so many changes share one fsync.
+ * Every change gets a log sequence number, awaitDurable returns when the change with that number is on the storage.
+ * When the writer thread is MAX_PENDING_BATCHES batches behind, changes wait until it writes them,
+ * so records waiting for a slow storage do not grow without a limit.
+ * <p>
+ * checkpoint writes snapshots of all carts with their discounts to a CartFile and starts a new log file,
+ * then log files with only changes in the checkpoint are deleted. Changes go on while the checkpoint file is written.
+ * open loads the last checkpoint and replays changes after it, a record torn by a crash ends its log file.
+ * Log records keep product ids and unit prices, products are found by the product resolver, which is required,
+ * so products with generated ids, which are only valid in this process, can not be logged.
+ * Lines of the checkpoint and of the log keep their prices and get categories of the resolved products.
+ */
+public final class CartJournal implements Closeable {
+
+    static final String DIRECTORY_IS_NULL = "Directory is NULL!";
+    static final String PRODUCT_RESOLVER_IS_NULL = "Product resolver is NULL!";
+    static final String JOURNAL_IS_CLOSED = "Journal is closed!";
+    static final String PRODUCT_ID_IS_GENERATED = "Product has a generated id, it can not be logged!";
+
+    static final String CHECKPOINT_PREFIX = "checkpoint-";
+    static final String CHECKPOINT_SUFFIX = ".carts";
+    static final String LOG_PREFIX = "log-";
+    static final String LOG_SUFFIX = ".wal";
+
+    static final byte ADD_ITEM = 1;
+    static final byte REMOVE_ITEM = 2;
+    static final byte UPDATE_QUANTITY = 3;
+    static final byte CLEAR = 4;
+    static final byte CAMPAIGNS_APPLIED = 5;
+    static final byte COUPON_APPLIED = 6;
+    /**
+     * discounts logged again after a checkpoint by older versions, checkpoints now keep discounts
+     */
+    static final byte DISCOUNTS_RESTORED = 7;
+
+    /**
+     * size of log sequence number, type and cart id at the start of each record
+     */
+    private static final int RECORD_HEADER_SIZE = 17;
+    private static final int MAX_RECORD_SIZE = RECORD_HEADER_SIZE + 24;
+
+    /**
+     * size of an item record of older versions, without the unit price
+     */
+    private static final int ITEM_RECORD_SIZE_WITHOUT_PRICE = RECORD_HEADER_SIZE + 12;
+
+    /**
+     * number of batches which can wait for the writer thread before changes wait for it
+     */
+    static final int MAX_PENDING_BATCHES = 16;
+
+    private final Path directory;
+    private final LongFunction<Product> productResolver;
+    private final int maxBatchSize;
+    private final long maxCommitDelayNanos;
+
+    private final Map<Long, ShoppingCart> carts = new HashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * held while a checkpoint file is written, without lock, so one checkpoint is written at a time
+     */
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private final Condition hasPendingRecords = lock.newCondition();
+    private final Condition hasRoomForRecords = lock.newCondition();
+    private final Condition isDurable = lock.newCondition();
+
+    /**
+     * records appended but not written yet, swapped with spare by the writer thread
+     */
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private ByteArrayOutputStream spare = new ByteArrayOutputStream();
+    private int numberOfPendingRecords;
+    private long firstPendingLsn;
+    private long firstPendingNanos;
+
+    private long lastLsn;
+    private long durableLsn;
+    private long checkpointLsn;
+    private boolean rotate;
+    private boolean closing;
+    private IOException failure;
+
+    private final ByteBuffer record = ByteBuffer.allocate(MAX_RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * channel of current log file, only used by the writer thread
+     */
+    private FileChannel channel;
+    private final Thread writer;
+
+    private CartJournal(Builder builder) throws IOException {
+        directory = builder.directory;
+        productResolver = builder.productResolver;
+        maxBatchSize = builder.maxBatchSize;
+        maxCommitDelayNanos = builder.maxCommitDelayNanos;
+
+        Files.createDirectories(directory);
+        recover();
+        durableLsn = lastLsn;
+
+        writer = new Thread(this::writeBatches, "cart-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * use to add item to a cart, the cart is created if it does not exist
+     *
+     * @param cartId   id of the cart
+     * @param product  added product
+     * @param quantity amount of the product
+     * @return long log sequence number of the change
+     * @throws IllegalArgumentException if the product has a generated id
+     */
+    public long addItem(long cartId, Product product, int quantity) {
+        checkIsLoggable(product);
+        lock.lock();
+        try {
+            awaitRoomForRecord();
+            cartOf(cartId).addItem(product, quantity);
+            return append(ADD_ITEM, cartId, product, quantity);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * use to remove product from a cart with all of its quantity
+     *
+     * @return long log sequence number of the change, 0 if nothing is changed
+     */
+    public long removeItem(long cartId, Product product) {
+        lock.lock();
+        try {
+            awaitRoomForRecord();
+            checkIsOpen();
+            ShoppingCart shoppingCart = carts.get(cartId);
+            if (shoppingCart == null || !shoppingCart.removeItem(product)) return 0;
+            return append(REMOVE_ITEM, cartId, product, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * use to set quantity of product in a cart, the cart is created if it does not exist
+     *
+     * @return long log sequence number of the change
+     * @throws IllegalArgumentException if the product has a generated id
+     */
+    public long updateQuantity(long cartId, Product product, int quantity) {
+        checkIsLoggable(product);
+        lock.lock();
+        try {
+            awaitRoomForRecord();
+            cartOf(cartId).updateQuantity(product, quantity);
+            return append(UPDATE_QUANTITY, cartId, product, quantity);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * use to remove a cart with its items and discounts
+     *
+     * @return long log sequence number of the change, 0 if there is no cart with this id
+     */
+    public long clear(long cartId) {
+        lock.lock();
+        try {
+            awaitRoomForRecord();
+            checkIsOpen();
+            if (carts.remove(cartId) == null) return 0;
+            return append(CLEAR, cartId, null, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * use to apply campaigns to a cart, resulting discounts are logged instead of the campaigns
+     *
+     * @return long log sequence number of the change, 0 if there is no cart with this id
+     */
+    public long applyCampaigns(long cartId, CampaignIndex campaignIndex) {
+        lock.lock();
+        try {
+            awaitRoomForRecord();
+            checkIsOpen();
+            ShoppingCart shoppingCart = carts.get(cartId);
+            if (shoppingCart == null) return 0;
+            shoppingCart.applyCampaigns(campaignIndex);
+            return appendDiscounts(CAMPAIGNS_APPLIED, cartId, shoppingCart);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * use to apply campaigns chosen by a stacking policy to a cart
+     *
+     * @return DiscountSolution applied campaigns, null if there is no cart with this id
+     */
+    public DiscountSolution applyCampaigns(long cartId, DiscountSolver discountSolver) {
+        lock.lock();
+        try {
+            awaitRoomForRecord();
+            checkIsOpen();
+            ShoppingCart shoppingCart = carts.get(cartId);
+            if (shoppingCart == null) return null;
+            DiscountSolution discountSolution = shoppingCart.applyCampaigns(discountSolver);
+            appendDiscounts(CAMPAIGNS_APPLIED, cartId, shoppingCart);
+            return discountSolution;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * use to apply coupon to a cart, resulting discounts are logged instead of the coupon
+     *
+     * @return long log sequence number of the change, 0 if there is no cart with this id
+     */
+    public long applyCoupon(long cartId, ICoupon coupon) {
+        lock.lock();
+        try {
+            awaitRoomForRecord();
+            checkIsOpen();
+            ShoppingCart shoppingCart = carts.get(cartId);
+            if (shoppingCart == null) return 0;
+            shoppingCart.applyCoupon(coupon);
+            return appendDiscounts(COUPON_APPLIED, cartId, shoppingCart);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param cartId id of the cart
+     * @return CartSnapshot items of the cart, null if there is no cart with this id
+     */
+    public CartSnapshot getSnapshot(long cartId) {
+        lock.lock();
+        try {
+            ShoppingCart shoppingCart = carts.get(cartId);
+            return shoppingCart == null ? null : shoppingCart.getSnapshot();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param cartId id of the cart
+     * @return long[] campaign discount, coupon discount and total amount after discounts in minor units,
+     * null if there is no cart with this id
+     */
+    public long[] getDiscountsInMinorUnits(long cartId) {
+        lock.lock();
+        try {
+            ShoppingCart shoppingCart = carts.get(cartId);
+            return shoppingCart == null ? null : new long[]{shoppingCart.getCampaignDiscountInMinorUnits(),
+                    shoppingCart.getCouponDiscountInMinorUnits(), shoppingCart.getTotalAmountAfterDiscountsInMinorUnits()};
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getNumberOfCarts() {
+        lock.lock();
+        try {
+            return carts.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return long log sequence number of the last change
+     */
+    public long getLastLsn() {
+        lock.lock();
+        try {
+            return lastLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * use to wait until a change is written and forced to the storage
+     *
+     * @param lsn log sequence number of the change
+     * @throws UncheckedIOException if the log can not be written
+     */
+    public void awaitDurable(long lsn) throws InterruptedException {
+        lock.lock();
+        try {
+            while (durableLsn < lsn) {
+                if (failure != null) throw new UncheckedIOException(failure);
+                isDurable.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * use to write all carts to a new checkpoint file and start a new log file, so older log files are deleted.
+     * Snapshots of carts are taken at once and written while changes go on.
+     *
+     * @return long log sequence number of the last change in the checkpoint
+     */
+    public long checkpoint() throws IOException {
+        checkpointLock.lock();
+        try {
+            long lsn;
+            List<CheckpointCart> checkpointCarts = new ArrayList<>();
+            lock.lock();
+            try {
+                checkIsOpen();
+                lsn = lastLsn;
+                for (Map.Entry<Long, ShoppingCart> cart : carts.entrySet()) {
+                    ShoppingCart shoppingCart = cart.getValue();
+                    checkpointCarts.add(new CheckpointCart(cart.getKey(), shoppingCart.getSnapshot(), new long[]{
+                            shoppingCart.getCampaignDiscountInMinorUnits(), shoppingCart.getCouponDiscountInMinorUnits(),
+                            shoppingCart.getTotalAmountAfterDiscountsInMinorUnits()}));
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            Path temporaryPath = directory.resolve(checkpointName(lsn) + ".tmp");
+            try (CartFileWriter cartFileWriter = CartFileWriter.create(temporaryPath)) {
+                for (CheckpointCart cart : checkpointCarts) {
+                    cartFileWriter.writeCart(cart.cartId, cart.snapshot, cart.discountsInMinorUnits);
+                }
+            }
+            Files.move(temporaryPath, directory.resolve(checkpointName(lsn)), StandardCopyOption.ATOMIC_MOVE);
+
+            lock.lock();
+            try {
+                checkIsOpen();
+                checkpointLsn = lsn;
+                rotate = true;
+                hasPendingRecords.signal();
+            } finally {
+                lock.unlock();
+            }
+            return lsn;
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    /**
+     * use to write remaining changes and stop the writer thread
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closing) return;
+            closing = true;
+            hasPendingRecords.signal();
+            hasRoomForRecords.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing journal");
+        }
+        if (failure != null) throw failure;
+    }
+
+    private ShoppingCart cartOf(long cartId) {
+        checkIsOpen();
+        return carts.computeIfAbsent(cartId, id -> new ShoppingCart());
+    }
+
+    private static void checkIsLoggable(Product product) {
+        if (product != null && product.hasGeneratedId()) throw new IllegalArgumentException(PRODUCT_ID_IS_GENERATED);
+    }
+
+    private void checkIsOpen() {
+        if (closing) throw new IllegalStateException(JOURNAL_IS_CLOSED);
+        if (failure != null) throw new UncheckedIOException(failure);
+    }
+
+    /**
+     * use to wait while the writer thread is far behind, lock is held.
+     * It is called before the change is applied, so records are appended in the order of changes.
+     */
+    private void awaitRoomForRecord() {
+        while (numberOfPendingRecords >= MAX_PENDING_BATCHES * maxBatchSize && !closing && failure == null) {
+            hasRoomForRecords.awaitUninterruptibly();
+        }
+    }
+
+    private long append(byte type, long cartId, Product product, int quantity) {
+        long lsn = startRecord(type, cartId);
+        int size = RECORD_HEADER_SIZE;
+        if (type != CLEAR) {
+            record.putLong(size, product.getId());
+            size += 8;
+        }
+        if (type == ADD_ITEM || type == UPDATE_QUANTITY) {
+            record.putInt(size, quantity);
+            record.putLong(size + 4, product.getPriceInMinorUnits());
+            size += 12;
+        }
+        commitRecord(lsn, size);
+        return lsn;
+    }
+
+    private long appendDiscounts(byte type, long cartId, ShoppingCart shoppingCart) {
+        long lsn = startRecord(type, cartId);
+        record.putLong(RECORD_HEADER_SIZE, shoppingCart.getCampaignDiscountInMinorUnits());
+        record.putLong(RECORD_HEADER_SIZE + 8, shoppingCart.getCouponDiscountInMinorUnits());
+        record.putLong(RECORD_HEADER_SIZE + 16, shoppingCart.getTotalAmountAfterDiscountsInMinorUnits());
+        commitRecord(lsn, RECORD_HEADER_SIZE + 24);
+        return lsn;
+    }
+
+    /**
+     * use to start a record with its log sequence number, type and cart id, lock is held
+     */
+    private long startRecord(byte type, long cartId) {
+        checkIsOpen();
+        long lsn = ++lastLsn;
+        record.putLong(0, lsn);
+        record.put(8, type);
+        record.putLong(9, cartId);
+        return lsn;
+    }
+
+    /**
+     * use to append a record to the log buffer with its size and checksum, lock is held
+     */
+    private void commitRecord(long lsn, int size) {
+        crc.reset();
+        crc.update(record.array(), 0, size);
+        writeInt(pending, size);
+        writeInt(pending, (int) crc.getValue());
+        pending.write(record.array(), 0, size);
+
+        if (numberOfPendingRecords++ == 0) {
+            firstPendingLsn = lsn;
+            firstPendingNanos = System.nanoTime();
+            hasPendingRecords.signal();
+        } else if (numberOfPendingRecords >= maxBatchSize) {
+            hasPendingRecords.signal();
+        }
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    /**
+     * Loop of the writer thread, each batch is written with one write and one force
+     */
+    private void writeBatches() {
+        try {
+            while (true) {
+                ByteArrayOutputStream batch;
+                long batchLsn;
+                long batchFirstLsn;
+                boolean rotateNow;
+                lock.lock();
+                try {
+                    while (numberOfPendingRecords == 0 && !rotate && !closing) hasPendingRecords.await();
+                    long deadline = firstPendingNanos + maxCommitDelayNanos;
+                    while (numberOfPendingRecords > 0 && numberOfPendingRecords < maxBatchSize && !closing) {
+                        long delay = deadline - System.nanoTime();
+                        if (delay <= 0) break;
+                        hasPendingRecords.awaitNanos(delay);
+                    }
+                    if (numberOfPendingRecords == 0 && !rotate && closing) return;
+
+                    batch = pending;
+                    pending = spare;
+                    spare = null;
+                    batchLsn = lastLsn;
+                    batchFirstLsn = numberOfPendingRecords == 0 ? lastLsn + 1 : firstPendingLsn;
+                    numberOfPendingRecords = 0;
+                    hasRoomForRecords.signalAll();
+                    rotateNow = rotate;
+                    rotate = false;
+                } finally {
+                    lock.unlock();
+                }
+
+                if (channel == null || rotateNow) startLogFile(batchFirstLsn, rotateNow);
+                if (batch.size() > 0) {
+                    ByteBuffer bytes = ByteBuffer.wrap(batch.toByteArray());
+                    while (bytes.hasRemaining()) channel.write(bytes);
+                    channel.force(false);
+                }
+
+                lock.lock();
+                try {
+                    batch.reset();
+                    spare = batch;
+                    durableLsn = batchLsn;
+                    isDurable.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new InterruptedIOException("Journal writer is interrupted"));
+        } finally {
+            try {
+                if (channel != null) channel.close();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+    }
+
+    private void fail(IOException e) {
+        lock.lock();
+        try {
+            if (failure == null) failure = e;
+            isDurable.signalAll();
+            hasRoomForRecords.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * use to start a new log file, after a checkpoint older log and checkpoint files are deleted
+     *
+     * @param firstLsn  log sequence number of the first record of the file
+     * @param deleteOld whether a checkpoint is written before
+     */
+    private void startLogFile(long firstLsn, boolean deleteOld) throws IOException {
+        if (channel != null) channel.close();
+        Path path = directory.resolve(logName(firstLsn));
+        //A file with same name can only have a record torn by a crash, it has no record after the last replayed one
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        if (!deleteOld) return;
+
+        long lsn;
+        lock.lock();
+        try {
+            lsn = checkpointLsn;
+        } finally {
+            lock.unlock();
+        }
+        //A log file is deleted if all of its records are in the checkpoint, that is the next log file starts after them.
+        //Records written while the checkpoint file is written are kept in the previous log file.
+        List<Path> logs = list(LOG_PREFIX, LOG_SUFFIX);
+        for (int i = 0; i + 1 < logs.size(); i++) {
+            if (lsnOf(logs.get(i + 1), LOG_PREFIX, LOG_SUFFIX) <= lsn + 1) Files.deleteIfExists(logs.get(i));
+        }
+        for (Path file : list(CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX)) {
+            if (!file.getFileName().toString().equals(checkpointName(lsn))) Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * use to load the last checkpoint and replay log records after it
+     */
+    private void recover() throws IOException {
+        List<Path> checkpoints = list(CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX);
+        CartFile checkpoint = null;
+        try {
+            if (!checkpoints.isEmpty()) {
+                Path path = checkpoints.get(checkpoints.size() - 1);
+                checkpointLsn = lsnOf(path, CHECKPOINT_PREFIX, CHECKPOINT_SUFFIX);
+                checkpoint = CartFile.open(path);
+                for (long position = 0; position < checkpoint.getNumberOfCarts(); position++) {
+                    long cartId = checkpoint.getCartId(position);
+                    ShoppingCart shoppingCart = new ShoppingCart();
+                    for (CartItem item : checkpoint.readCart(cartId).getItems()) {
+                        shoppingCart.addItem(resolve(item.getProduct()), item.getQuantity());
+                    }
+                    long[] discounts = checkpoint.getDiscountsInMinorUnits(cartId);
+                    shoppingCart.restoreDiscounts(discounts[0], discounts[1], discounts[2]);
+                    carts.put(cartId, shoppingCart);
+                }
+            }
+            lastLsn = checkpointLsn;
+            for (Path log : list(LOG_PREFIX, LOG_SUFFIX)) replay(log, checkpoint);
+        } finally {
+            if (checkpoint != null) checkpoint.close();
+        }
+    }
+
+    private void replay(Path log, CartFile checkpoint) throws IOException {
+        byte[] body = new byte[MAX_RECORD_SIZE];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(log), 1 << 16))) {
+            while (true) {
+                int size;
+                try {
+                    size = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                //A record torn by a crash is the last record of its log file
+                try {
+                    int checksum = in.readInt();
+                    if (size < RECORD_HEADER_SIZE || size > MAX_RECORD_SIZE) return;
+                    in.readFully(body, 0, size);
+                    crc.reset();
+                    crc.update(body, 0, size);
+                    if ((int) crc.getValue() != checksum) return;
+                } catch (EOFException e) {
+                    return;
+                }
+
+                ByteBuffer buffer = ByteBuffer.wrap(body);
+                long lsn = buffer.getLong(0);
+                if (lsn <= checkpointLsn) continue;
+                replay(buffer, size, checkpoint);
+                lastLsn = Math.max(lastLsn, lsn);
+            }
+        }
+    }
+
+    private void replay(ByteBuffer buffer, int size, CartFile checkpoint) {
+        byte type = buffer.get(8);
+        long cartId = buffer.getLong(9);
+        switch (type) {
+            case ADD_ITEM:
+                cartOf(cartId).addItem(itemProductOf(buffer, size, checkpoint), buffer.getInt(RECORD_HEADER_SIZE + 8));
+                break;
+            case UPDATE_QUANTITY:
+                cartOf(cartId).updateQuantity(itemProductOf(buffer, size, checkpoint), buffer.getInt(RECORD_HEADER_SIZE + 8));
+                break;
+            case REMOVE_ITEM:
+                cartOf(cartId).removeItem(productOf(buffer.getLong(RECORD_HEADER_SIZE), checkpoint));
+                break;
+            case CLEAR:
+                carts.remove(cartId);
+                break;
+            case CAMPAIGNS_APPLIED:
+            case COUPON_APPLIED:
+            case DISCOUNTS_RESTORED:
+                cartOf(cartId).restoreDiscounts(buffer.getLong(RECORD_HEADER_SIZE), buffer.getLong(RECORD_HEADER_SIZE + 8),
+                        buffer.getLong(RECORD_HEADER_SIZE + 16));
+                break;
+            default:
+                throw new InvalidCartLogException("Unknown type of log record " + type);
+        }
+    }
+
+    /**
+     * use to get the product of an item record with its logged price and the category of the resolved product,
+     * records of older versions have no price and get the price of the resolved product
+     */
+    private Product itemProductOf(ByteBuffer buffer, int size, CartFile checkpoint) {
+        Product product = productOf(buffer.getLong(RECORD_HEADER_SIZE), checkpoint);
+        if (size == ITEM_RECORD_SIZE_WITHOUT_PRICE) return product;
+        return withPrice(product, buffer.getLong(RECORD_HEADER_SIZE + 12));
+    }
+
+    private Product productOf(long id, CartFile checkpoint) {
+        Product product = productResolver.apply(id);
+        if (product == null && checkpoint != null) product = checkpoint.getProduct(id);
+        if (product == null) throw new InvalidCartLogException("Product " + id + " of log is unknown");
+        return product;
+    }
+
+    /**
+     * use to get the product of a checkpoint line with the category of the resolved product and the price of the line,
+     * categories of the checkpoint file are only known to the file
+     *
+     * @param product product of a line of the checkpoint
+     * @return Product resolved product, the product of the line if it is not resolved
+     */
+    private Product resolve(Product product) {
+        Product resolvedProduct = productResolver.apply(product.getId());
+        if (resolvedProduct == null) return product;
+        return withPrice(resolvedProduct, product.getPriceInMinorUnits());
+    }
+
+    private static Product withPrice(Product product, long price) {
+        if (product.getPriceInMinorUnits() == price) return product;
+        return new Product(product.getId(), product.getTitle(), Money.ofMinorUnits(price), product.getCategory());
+    }
+
+    /**
+     * @return List<Path> files of the directory with the prefix and suffix, in order of their log sequence numbers
+     */
+    private List<Path> list(String prefix, String suffix) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (Path file : stream) files.add(file);
+        }
+        files.sort((file, otherFile) -> Long.compare(lsnOf(file, prefix, suffix), lsnOf(otherFile, prefix, suffix)));
+        return files;
+    }
+
+    private static long lsnOf(Path file, String prefix, String suffix) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+
+    static String checkpointName(long lsn) {
+        return String.format("%s%020d%s", CHECKPOINT_PREFIX, lsn, CHECKPOINT_SUFFIX);
+    }
+
+    static String logName(long firstLsn) {
+        return String.format("%s%020d%s", LOG_PREFIX, firstLsn, LOG_SUFFIX);
+    }
+
+    private static final class CheckpointCart {
+        private final long cartId;
+        private final CartSnapshot snapshot;
+        private final long[] discountsInMinorUnits;
+
+        private CheckpointCart(long cartId, CartSnapshot snapshot, long[] discountsInMinorUnits) {
+            this.cartId = cartId;
+            this.snapshot = snapshot;
+            this.discountsInMinorUnits = discountsInMinorUnits;
+        }
+    }
+
+    public static class Builder {
+        private Path directory;
+        private LongFunction<Product> productResolver;
+        private int maxBatchSize = 256;
+        private long maxCommitDelayNanos = TimeUnit.MILLISECONDS.toNanos(2);
+
+        /**
+         * @param directory directory of checkpoint and log files, it is created if it does not exist
+         */
+        public Builder directory(Path directory) {
+            this.directory = directory;
+            return this;
+        }
+
+        /**
+         * @param productResolver finds products of log and checkpoint records by their ids, it is required,
+         *                        it returns null for products which are not known anymore
+         */
+        public Builder productResolver(LongFunction<Product> productResolver) {
+            this.productResolver = productResolver;
+            return this;
+        }
+
+        /**
+         * @param maxBatchSize number of records which are written at once without waiting for maxCommitDelay
+         */
+        public Builder maxBatchSize(int maxBatchSize) {
+            if (maxBatchSize < 1) throw new IllegalArgumentException("Maximum batch size is less than 1!");
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * @param maxCommitDelay longest time a record waits for other records before it is written, 0 to write at once
+         * @param unit           unit of maxCommitDelay
+         */
+        public Builder maxCommitDelay(long maxCommitDelay, TimeUnit unit) {
+            if (maxCommitDelay < 0) throw new IllegalArgumentException("Maximum commit delay is negative!");
+            this.maxCommitDelayNanos = unit.toNanos(maxCommitDelay);
+            return this;
+        }
+
+        /**
+         * use to open the journal, carts are recovered from the last checkpoint and the log
+         *
+         * @return CartJournal opened journal
+         * @throws NullDataException if directory or product resolver is not set
+         */
+        public CartJournal open() throws IOException {
+            Optional.ofNullable(directory).orElseThrow(() -> new NullDataException(DIRECTORY_IS_NULL));
+            Optional.ofNullable(productResolver).orElseThrow(() -> new NullDataException(PRODUCT_RESOLVER_IS_NULL));
+            return new CartJournal(this);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Fixed size records of a file section mapped to memory.
+ * A mapped buffer can not be larger than 2 GB, so large sections are mapped as segments of whole records.
+ */
+final class MappedRecords {
+
+    private static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+    private final ByteBuffer[] segments;
+    private final int recordSize;
+    private final int recordsPerSegment;
+    private final long numberOfRecords;
+
+    private MappedRecords(ByteBuffer[] segments, int recordSize, int recordsPerSegment, long numberOfRecords) {
+        this.segments = segments;
+        this.recordSize = recordSize;
+        this.recordsPerSegment = recordsPerSegment;
+        this.numberOfRecords = numberOfRecords;
+    }
+
+    /**
+     * use to map records of a section, pages are loaded by the operating system only when they are read
+     *
+     * @param channel         channel of the file
+     * @param offset          offset of the first record in the file
+     * @param numberOfRecords number of records of the section
+     * @param recordSize      size of a record in bytes
+     * @return MappedRecords read only records
+     */
+    static MappedRecords map(FileChannel channel, long offset, long numberOfRecords, int recordSize) throws IOException {
+        int recordsPerSegment = (int) (MAX_SEGMENT_SIZE / recordSize);
+        int numberOfSegments = (int) ((numberOfRecords + recordsPerSegment - 1) / recordsPerSegment);
+        ByteBuffer[] segments = new ByteBuffer[numberOfSegments];
+        for (int segment = 0; segment < numberOfSegments; segment++) {
+            long first = (long) segment * recordsPerSegment;
+            long records = Math.min(recordsPerSegment, numberOfRecords - first);
+            segments[segment] = channel.map(FileChannel.MapMode.READ_ONLY, offset + first * recordSize, records * recordSize);
+        }
+        return new MappedRecords(segments, recordSize, recordsPerSegment, numberOfRecords);
+    }
+
+    long size() {
+        return numberOfRecords;
+    }
+
+    long getLong(long record, int field) {
+        return segments[(int) (record / recordsPerSegment)].getLong((int) (record % recordsPerSegment) * recordSize + field);
+    }
+
+    int getInt(long record, int field) {
+        return segments[(int) (record / recordsPerSegment)].getInt((int) (record % recordsPerSegment) * recordSize + field);
+    }
+
+    /**
+     * use to find a record by a long field which records are sorted by
+     *
+     * @param field offset of the field in a record
+     * @param key   value of the field
+     * @return long position of the record, -1 if there is no record with this key
+     */
+    long binarySearch(int field, long key) {
+        long low = 0;
+        long high = numberOfRecords - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            long value = getLong(middle, field);
+            if (value < key) low = middle + 1;
+            else if (value > key) high = middle - 1;
+            else return middle;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,142 @@
+package cart;
+
+import discount.coupon.AmountCoupon;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class CartRendererTest {
+
+    private Category foodCategory;
+    private Category technologyCategory;
+    private ShoppingCart shoppingCart;
+
+    @Before
+    public void init() {
+
+        foodCategory = new Category
+                .Builder()
+                .title("food")
+                .build();
+
+        technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(new Product("macbook", 12_500.0, technologyCategory), 1);
+        shoppingCart.addItem(new Product("tuna", 10.5, foodCategory), 3);
+        shoppingCart.addItem(new Product("iphone", 7_500.0, technologyCategory), 2);
+        shoppingCart.applyCoupon(new AmountCoupon(100, 50.0));
+
+    }
+
+    @Test
+    public void render_successfully_text() throws IOException {
+
+        StringBuilder out = new StringBuilder();
+        shoppingCart.render(new CartRenderer(CartRenderer.Format.TEXT), out);
+
+        Assert.assertEquals("-> Category Name: food \n\n"
+                + "\t -> Product Name: tuna \n\t -> Quantity: 3 \n\t -> Unit Price: 10.50 \n\n"
+                + "-> Category Name: technology \n\n"
+                + "\t -> Product Name: macbook \n\t -> Quantity: 1 \n\t -> Unit Price: 12500.00 \n\n"
+                + "\t -> Product Name: iphone \n\t -> Quantity: 2 \n\t -> Unit Price: 7500.00 \n\n"
+                + "----> Total Price: 27531.50 \n"
+                + "----> Total Discount: 50.00 \n"
+                + "----> Total Amount: 27481.50 \n"
+                + "----> Delivery Amount: 7.99 \n", out.toString());
+
+    }
+
+    @Test
+    public void render_successfully_json() throws IOException {
+
+        StringWriter out = new StringWriter();
+        shoppingCart.render(new CartRenderer(CartRenderer.Format.JSON), out);
+
+        Assert.assertEquals("{\"categories\":["
+                + "{\"id\":" + foodCategory.getId() + ",\"title\":\"food\",\"products\":["
+                + "{\"id\":" + idOf("tuna") + ",\"title\":\"tuna\",\"quantity\":3,\"unitPrice\":10.50}]},"
+                + "{\"id\":" + technologyCategory.getId() + ",\"title\":\"technology\",\"products\":["
+                + "{\"id\":" + idOf("macbook") + ",\"title\":\"macbook\",\"quantity\":1,\"unitPrice\":12500.00},"
+                + "{\"id\":" + idOf("iphone") + ",\"title\":\"iphone\",\"quantity\":2,\"unitPrice\":7500.00}]}],"
+                + "\"totalPrice\":27531.50,\"totalDiscount\":50.00,\"totalAmount\":27481.50,\"deliveryAmount\":7.99}",
+                out.toString());
+
+    }
+
+    @Test
+    public void render_successfully_jsonOfEmptyCartWithEscapedTitles() throws IOException {
+
+        StringBuilder out = new StringBuilder();
+        CartRenderer renderer = new CartRenderer(CartRenderer.Format.JSON);
+        new ShoppingCart().render(renderer, out);
+
+        Assert.assertEquals("{\"categories\":[],\"totalPrice\":0.00,\"totalDiscount\":0.00,"
+                + "\"totalAmount\":0.00,\"deliveryAmount\":0.00}", out.toString());
+
+        ShoppingCart otherCart = new ShoppingCart();
+        otherCart.addItem(new Product(1, "\"quoted\"\\\n", 0.05, foodCategory), 1);
+        out.setLength(0);
+        otherCart.render(renderer, out);
+
+        Assert.assertTrue(out.toString().contains("\"title\":\"\\\"quoted\\\"\\\\\\u000a\",\"quantity\":1,\"unitPrice\":0.05}"));
+
+    }
+
+    @Test
+    public void render_successfully_sameBytesToByteBuffer() throws IOException {
+
+        shoppingCart.addItem(new Product("\u00e7ay \u20ac", 1.0, foodCategory), 1);
+        shoppingCart.addItem(new Product("\ud83c\udf75", 1.0, foodCategory), 1);
+
+        for (CartRenderer.Format format : CartRenderer.Format.values()) {
+            CartRenderer renderer = new CartRenderer(format);
+            StringBuilder out = new StringBuilder();
+            shoppingCart.render(renderer, out);
+            ByteBuffer buffer = ByteBuffer.allocate(4096);
+            shoppingCart.render(renderer, buffer);
+            shoppingCart.render(renderer, buffer);
+
+            byte[] expected = out.toString().getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(expected.length * 2, buffer.position());
+            buffer.flip();
+            byte[] rendered = new byte[expected.length];
+            buffer.get(rendered);
+            Assert.assertArrayEquals(expected, rendered);
+        }
+
+    }
+
+    @Test
+    public void render_successfully_concurrentShoppingCart() throws IOException {
+
+        ConcurrentShoppingCart concurrentShoppingCart = new ConcurrentShoppingCart();
+        for (Product product : shoppingCart.getShoppingCartItems().keySet()) {
+            concurrentShoppingCart.addItem(product, shoppingCart.getShoppingCartItems().get(product));
+        }
+        concurrentShoppingCart.applyCoupon(new AmountCoupon(100, 50.0));
+
+        StringBuilder expected = new StringBuilder();
+        StringBuilder out = new StringBuilder();
+        CartRenderer renderer = new CartRenderer(CartRenderer.Format.JSON);
+        shoppingCart.render(renderer, expected);
+        concurrentShoppingCart.render(renderer, out);
+
+        Assert.assertEquals(expected.toString(), out.toString());
+
+    }
+
+    private long idOf(String title) {
+        return shoppingCart.getShoppingCartItems().keySet().stream().filter(p -> p.getTitle().equals(title))
+                .findFirst().get().getId();
+    }
+
+}
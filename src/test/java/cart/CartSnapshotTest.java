@@ -0,0 +1,129 @@
+package cart;
+
+import discount.campaign.CampaignIndex;
+import discount.campaign.RateCampaign;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class CartSnapshotTest {
+
+    private Category foodCategory;
+    private Category fruitCategory;
+    private Product apple;
+    private Product banana;
+
+    @Before
+    public void init() {
+
+        foodCategory = new Category
+                .Builder()
+                .title("Food")
+                .build();
+
+        fruitCategory = new Category
+                .Builder()
+                .title("Fruit")
+                .parentCategory(foodCategory)
+                .build();
+
+        apple = new Product("Apple", 10.0, fruitCategory);
+        banana = new Product("Banana", 15.0, fruitCategory);
+
+    }
+
+    @Test
+    public void withItem_successfully_keepsOlderVersions() {
+
+        CartSnapshot first = CartSnapshot.EMPTY.withItem(apple, 2);
+        CartSnapshot second = first.withItem(banana, 1).withItem(apple, 3);
+
+        Assert.assertEquals(2, first.getQuantity(apple));
+        Assert.assertEquals(0, first.getQuantity(banana));
+        Assert.assertEquals(2_000, first.getTotalPriceInMinorUnits());
+
+        Assert.assertEquals(5, second.getQuantity(apple));
+        Assert.assertEquals(6_500, second.getTotalPriceInMinorUnits());
+        Assert.assertEquals(2, second.getNumberOfProducts());
+        Assert.assertEquals(1, second.getNumberOfCategories());
+        Assert.assertEquals(6, second.getCategoryTotals().getQuantityOfCategory(foodCategory.getId()));
+        Assert.assertEquals(0, CartSnapshot.EMPTY.getNumberOfProducts());
+
+    }
+
+    @Test
+    public void withQuantity_successfully_removesProduct() {
+
+        CartSnapshot snapshot = CartSnapshot.EMPTY.withItem(apple, 2).withItem(banana, 1).withQuantity(apple, 0);
+
+        Assert.assertEquals(1, snapshot.getNumberOfProducts());
+        Assert.assertNull(snapshot.getShoppingCartItems().get(apple));
+        Assert.assertEquals(1_500, snapshot.getCategoryTotals().getPriceOfCategory(foodCategory.getId()));
+
+    }
+
+    @Test
+    public void getSnapshot_successfully_sameAsShoppingCart() {
+
+        Random random = new Random(42);
+        Product[] products = new Product[1_000];
+        for (int i = 0; i < products.length; i++) products[i] = new Product(i, "product " + i, 1 + random.nextInt(100), fruitCategory);
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        CartSnapshot firstSnapshot = null;
+        for (int i = 0; i < 5_000; i++) {
+            shoppingCart.addItem(products[random.nextInt(products.length)], 1 + random.nextInt(5));
+            if (i == 100) firstSnapshot = shoppingCart.getSnapshot();
+        }
+        CartSnapshot snapshot = shoppingCart.getSnapshot();
+
+        Assert.assertEquals(shoppingCart.getShoppingCartItems(), snapshot.getShoppingCartItems());
+        Assert.assertEquals(shoppingCart.getTotalPriceInMinorUnits(), snapshot.getTotalPriceInMinorUnits());
+        Assert.assertEquals(shoppingCart.getTotalQuantityOfProduct(), snapshot.getTotalQuantityOfProduct());
+        Assert.assertNotEquals(firstSnapshot.getTotalQuantityOfProduct(), snapshot.getTotalQuantityOfProduct());
+
+        CampaignIndex campaignIndex = CampaignIndex.of(new RateCampaign(foodCategory, 10.0, 1));
+        Assert.assertEquals(campaignIndex.getMaximumDiscount(shoppingCart.getCategoryTotals()),
+                campaignIndex.getMaximumDiscount(snapshot.getCategoryTotals()));
+
+    }
+
+    @Test
+    public void getSnapshot_successfully_sameAsShoppingCartWithRemovedItems() {
+
+        Random random = new Random(7);
+        Product[] products = new Product[100];
+        for (int i = 0; i < products.length; i++) products[i] = new Product(i, "product " + i, 1 + random.nextInt(100), fruitCategory);
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        for (int i = 0; i < 5_000; i++) {
+            Product product = products[random.nextInt(products.length)];
+            switch (random.nextInt(3)) {
+                case 0:
+                    shoppingCart.addItem(product, 1 + random.nextInt(5));
+                    break;
+                case 1:
+                    shoppingCart.removeItem(product);
+                    break;
+                default:
+                    shoppingCart.updateQuantity(product, 1 + random.nextInt(5));
+            }
+            if (random.nextInt(50) == 0) shoppingCart.getSnapshot();
+        }
+        CartSnapshot snapshot = shoppingCart.getSnapshot();
+
+        long totalPrice = 0;
+        for (Product product : products) totalPrice += product.getPriceInMinorUnits() * snapshot.getQuantity(product);
+
+        Assert.assertEquals(shoppingCart.getShoppingCartItems(), snapshot.getShoppingCartItems());
+        Assert.assertEquals(totalPrice, shoppingCart.getTotalPriceInMinorUnits());
+        Assert.assertEquals(totalPrice, snapshot.getTotalPriceInMinorUnits());
+        Assert.assertEquals(shoppingCart.getNumberOfProducts(), snapshot.getNumberOfProducts());
+        Assert.assertEquals(shoppingCart.getTotalQuantityOfProduct(),
+                shoppingCart.getCategoryTotals().getQuantityOfCategory(foodCategory.getId()));
+
+    }
+
+}
@@ -0,0 +1,304 @@
+package cart;
+
+import delivery.DeliveryCostCalculator;
+import discount.campaign.AmountCampaign;
+import discount.campaign.CampaignIndex;
+import discount.campaign.RateCampaign;
+import discount.coupon.AmountCoupon;
+import discount.coupon.RateCoupon;
+import exception.InvalidQuantityException;
+import exception.UnknownProductException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+
+public class CartStoreTest {
+
+    private Category technologyCategory;
+    private Category phoneCategory;
+    private Category foodCategory;
+    private List<Product> products;
+    private CampaignIndex campaignIndex;
+    private CartStore cartStore;
+
+    @Before
+    public void init() {
+        technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+        phoneCategory = new Category
+                .Builder()
+                .title("phone")
+                .parentCategory(technologyCategory)
+                .build();
+        foodCategory = new Category
+                .Builder()
+                .title("food")
+                .build();
+
+        products = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Category category = i % 3 == 0 ? technologyCategory : i % 3 == 1 ? phoneCategory : foodCategory;
+            products.add(new Product("product " + i, 10.0 + i, category));
+        }
+        campaignIndex = CampaignIndex.of(new RateCampaign(phoneCategory, 20.0, 3),
+                new AmountCampaign(technologyCategory, 50.0, 5), new AmountCampaign(foodCategory, 5.0, 2));
+        cartStore = new CartStore(1 << 12, DeliveryCostCalculator.DEFAULT);
+    }
+
+    @Test
+    public void view_behavesLikeShoppingCart() throws IOException {
+
+        Random random = new Random(42);
+        CartStoreView view = cartStore.view();
+        ShoppingCart[] shoppingCarts = new ShoppingCart[50];
+        for (int cart = 0; cart < shoppingCarts.length; cart++) shoppingCarts[cart] = new ShoppingCart();
+
+        for (int step = 0; step < 20_000; step++) {
+            int cart = random.nextInt(shoppingCarts.length);
+            Product product = products.get(random.nextInt(products.size()));
+            view.moveTo(cart);
+            int operation = random.nextInt(10);
+            if (operation < 5) {
+                int quantity = 1 + random.nextInt(3);
+                shoppingCarts[cart].addItem(product, quantity);
+                view.addItem(product, quantity);
+            } else if (operation < 7) {
+                Assert.assertEquals(shoppingCarts[cart].removeItem(product), view.removeItem(product));
+            } else if (operation == 7) {
+                int quantity = 1 + random.nextInt(5);
+                shoppingCarts[cart].updateQuantity(product, quantity);
+                view.updateQuantity(product, quantity);
+            } else if (operation == 8) {
+                shoppingCarts[cart].applyCampaigns(campaignIndex);
+                view.applyCampaigns(campaignIndex);
+                shoppingCarts[cart].applyCoupon(new RateCoupon(100, 10.0));
+                view.applyCoupon(new RateCoupon(100, 10.0));
+            } else if (random.nextInt(10) == 0) {
+                shoppingCarts[cart].clear();
+                view.clear();
+            }
+        }
+
+        for (int cart = 0; cart < shoppingCarts.length; cart++) {
+            ShoppingCart shoppingCart = shoppingCarts[cart];
+            view.moveTo(cart);
+            Assert.assertEquals(shoppingCart.getTotalPriceInMinorUnits(), view.getTotalPriceInMinorUnits());
+            Assert.assertEquals(shoppingCart.getTotalQuantityOfProduct(), view.getTotalQuantityOfProduct());
+            Assert.assertEquals(shoppingCart.getNumberOfProducts(), view.getNumberOfProducts());
+            Assert.assertEquals(shoppingCart.getNumberOfCategories(), view.getNumberOfCategories());
+            Assert.assertEquals(shoppingCart.getCampaignDiscountInMinorUnits(), view.getCampaignDiscountInMinorUnits());
+            Assert.assertEquals(shoppingCart.getCouponDiscountInMinorUnits(), view.getCouponDiscountInMinorUnits());
+            Assert.assertEquals(shoppingCart.getTotalAmountAfterDiscountsInMinorUnits(),
+                    view.getTotalAmountAfterDiscountsInMinorUnits());
+            Assert.assertEquals(shoppingCart.getDeliveryCostInMinorUnits(), view.getDeliveryCostInMinorUnits());
+            Assert.assertEquals(shoppingCart.getCategoryTotals().getPriceOfCategory(technologyCategory.getId()),
+                    view.getCategoryTotals().getPriceOfCategory(technologyCategory.getId()));
+            for (Product product : products) {
+                Assert.assertEquals(shoppingCart.getShoppingCartItems().getOrDefault(product, 0).intValue(),
+                        view.getQuantity(product));
+            }
+        }
+
+    }
+
+    @Test
+    public void render_sameAsShoppingCart() throws IOException {
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        CartStoreView view = cartStore.view(7);
+        for (int i = 0; i < 6; i++) {
+            shoppingCart.addItem(products.get(i), i + 1);
+            view.addItem(products.get(i), i + 1);
+        }
+        shoppingCart.applyCampaigns(campaignIndex);
+        view.applyCampaigns(campaignIndex);
+
+        StringBuilder expected = new StringBuilder();
+        StringBuilder actual = new StringBuilder();
+        shoppingCart.render(new CartRenderer(CartRenderer.Format.JSON), expected);
+        view.render(new CartRenderer(CartRenderer.Format.JSON), actual);
+
+        Assert.assertEquals(expected.toString(), actual.toString());
+
+    }
+
+    @Test
+    public void render_successfully_sameIdAtTwoPricesKeepsPriceOfEachCart() throws IOException {
+
+        cartStore.view(1).addItem(new Product(1, "apple", 10.0, foodCategory), 1);
+        Product otherApple = new Product(1, "apple", 12.0, technologyCategory);
+        CartStoreView view = cartStore.view(2);
+        view.addItem(otherApple, 1);
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(otherApple, 1);
+
+        StringBuilder expected = new StringBuilder();
+        StringBuilder actual = new StringBuilder();
+        shoppingCart.render(new CartRenderer(CartRenderer.Format.TEXT), expected);
+        view.render(new CartRenderer(CartRenderer.Format.TEXT), actual);
+
+        Assert.assertEquals(expected.toString(), actual.toString());
+        Assert.assertEquals(1200, view.getCategoryTotals().getPriceOfCategory(technologyCategory.getId()));
+        Assert.assertEquals(0, view.getCategoryTotals().getPriceOfCategory(foodCategory.getId()));
+
+    }
+
+    @Test
+    public void addItem_growsSlotOfCart() {
+
+        CartStoreView view = cartStore.view(1);
+        cartStore.view(2).addItem(products.get(0), 1);
+        for (Product product : products) view.addItem(product, 2);
+
+        Assert.assertEquals(products.size(), view.getNumberOfProducts());
+        Assert.assertEquals(products.size() * 2, view.getTotalQuantityOfProduct());
+        Assert.assertEquals(2, view.getQuantity(products.get(39)));
+        Assert.assertEquals(1, cartStore.view(2).getTotalQuantityOfProduct());
+
+    }
+
+    @Test
+    public void removeItem_movesLastLine() {
+
+        CartStoreView view = cartStore.view(1);
+        view.addItem(products.get(0), 1);
+        view.addItem(products.get(1), 2);
+        view.addItem(products.get(2), 3);
+
+        Assert.assertTrue(view.removeItem(products.get(0)));
+        Assert.assertFalse(view.removeItem(products.get(0)));
+        Assert.assertEquals(2, view.getNumberOfProducts());
+        Assert.assertEquals(3, view.getQuantity(products.get(2)));
+        Assert.assertEquals(2 * 1_100 + 3 * 1_200, view.getTotalPriceInMinorUnits());
+
+    }
+
+    @Test
+    public void removeCart_reusesSlot() {
+
+        for (long cartId = 0; cartId < 1_000; cartId++) cartStore.view(cartId).addItem(products.get(0), 1);
+        long offHeapBytes = cartStore.getOffHeapBytes();
+
+        for (long cartId = 0; cartId < 1_000; cartId++) Assert.assertTrue(cartStore.removeCart(cartId));
+        for (long cartId = 1_000; cartId < 2_000; cartId++) cartStore.view(cartId).addItem(products.get(1), 1);
+
+        Assert.assertEquals(1_000, cartStore.getNumberOfCarts());
+        Assert.assertEquals(offHeapBytes, cartStore.getOffHeapBytes());
+        Assert.assertFalse(cartStore.contains(0));
+        Assert.assertEquals(1_100, cartStore.view(1_999).getTotalPriceInMinorUnits());
+
+    }
+
+    @Test
+    public void getCategoryTotals_successfully_onlyChangeOfSameCartIsSeen() {
+
+        CartStoreView firstView = cartStore.view(1);
+        CartStoreView secondView = cartStore.view(2);
+        firstView.addItem(products.get(2), 1);
+        secondView.addItem(products.get(2), 2);
+        long foodPrice = products.get(2).getPriceInMinorUnits();
+        Assert.assertEquals(foodPrice, firstView.getCategoryTotals().getPriceOfCategory(foodCategory.getId()));
+        long stamp = stampOf(1);
+
+        //Change of another cart keeps the stamp of the cart, so category totals of the view are kept
+        secondView.addItem(products.get(5), 1);
+        Assert.assertEquals(stamp, stampOf(1));
+        Assert.assertEquals(foodPrice, firstView.getCategoryTotals().getPriceOfCategory(foodCategory.getId()));
+
+        //Change of the cart through another view is seen
+        cartStore.view(1).addItem(products.get(2), 3);
+        Assert.assertNotEquals(stamp, stampOf(1));
+        Assert.assertEquals(foodPrice * 4, firstView.getCategoryTotals().getPriceOfCategory(foodCategory.getId()));
+
+        //Cart created again has a new stamp even if it gets the same slot
+        stamp = stampOf(1);
+        cartStore.removeCart(1);
+        Assert.assertEquals(0, firstView.getCategoryTotals().getPriceOfCategory(foodCategory.getId()));
+        cartStore.view(1).addItem(products.get(2), 1);
+        Assert.assertNotEquals(stamp, stampOf(1));
+        Assert.assertEquals(foodPrice, firstView.getCategoryTotals().getPriceOfCategory(foodCategory.getId()));
+
+    }
+
+    private long stampOf(long cartId) {
+        long handle = cartStore.handleOf(cartId);
+        return cartStore.bufferOf(handle).getLong(cartStore.offsetOf(handle) + CartSlabs.MODIFICATION_STAMP);
+    }
+
+    @Test
+    public void view_ofMissingCart_isEmpty() {
+
+        CartStoreView view = cartStore.view(5);
+        view.applyCoupon(new AmountCoupon(100, 10.0));
+
+        Assert.assertFalse(view.exists());
+        Assert.assertEquals(0, view.getTotalPriceInMinorUnits());
+        Assert.assertEquals(0, view.getNumberOfCategories());
+        Assert.assertEquals(0.0, view.getDeliveryCost(), 0.0);
+        Assert.assertFalse(view.removeItem(products.get(0)));
+        Assert.assertEquals(0, cartStore.getNumberOfCarts());
+
+    }
+
+    @Test
+    public void productCatalog_priceUpdate_repricesCartWhenItIsRead() {
+
+        ProductCatalog productCatalog = new ProductCatalog
+                .Builder()
+                .addProduct(new Product(1, "apple", 10.0, foodCategory))
+                .addProduct(new Product(2, "phone", 1_000.0, phoneCategory))
+                .build();
+        CartStore catalogCartStore = new CartStore(productCatalog, DeliveryCostCalculator.DEFAULT);
+        CartStoreView view = catalogCartStore.view(1);
+        view.addItem(1, 3);
+        view.addItem(new Product(2, "phone", 1.0, phoneCategory), 1);
+        view.applyCampaigns(campaignIndex);
+        Assert.assertEquals(103_000, view.getTotalPriceInMinorUnits());
+        Assert.assertEquals(500, view.getCampaignDiscountInMinorUnits());
+
+        productCatalog.updatePrices(new long[]{1}, new long[]{2_000});
+
+        Assert.assertEquals(106_000, view.getTotalPriceInMinorUnits());
+        Assert.assertEquals(106_000, view.getTotalAmountAfterDiscountsInMinorUnits());
+        Assert.assertEquals(6_000, view.getCategoryTotals().getPriceOfCategory(foodCategory.getId()));
+        view.applyCampaigns(campaignIndex);
+        Assert.assertEquals(105_500, view.getTotalAmountAfterDiscountsInMinorUnits());
+
+        view.removeItem(1);
+        Assert.assertEquals(0, view.getQuantity(productCatalog.getProduct(1)));
+
+    }
+
+    @Test(expected = UnknownProductException.class)
+    public void productCatalog_unknownProduct_throwsUnknownProductException() {
+
+        ProductCatalog productCatalog = new ProductCatalog
+                .Builder()
+                .addProduct(new Product(1, "apple", 10.0, foodCategory))
+                .build();
+        CartStoreView view = new CartStore(productCatalog, DeliveryCostCalculator.DEFAULT).view(1);
+
+        view.addItem(products.get(0), 1);
+
+    }
+
+    @Test(expected = InvalidQuantityException.class)
+    public void addItems_invalidItem_throwsNothingAdded() {
+
+        CartStoreView view = cartStore.view(1);
+        Assert.assertFalse(view.addItems(Arrays.asList(new CartItem(products.get(0), 1), new CartItem(products.get(1), 0))).isValid());
+        Assert.assertFalse(view.exists());
+
+        view.addItem(products.get(0), 0);
+
+    }
+}
@@ -0,0 +1,90 @@
+package cart;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CategoryTest {
+
+    private Category technologyCategory;
+    private Category computerCategory;
+    private Category laptopCategory;
+    private Category foodCategory;
+
+    @Before
+    public void init() {
+
+        technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        computerCategory = new Category
+                .Builder()
+                .title("computer")
+                .parentCategory(technologyCategory)
+                .build();
+
+        laptopCategory = new Category
+                .Builder()
+                .title("laptop")
+                .parentCategory(computerCategory)
+                .build();
+
+        foodCategory = new Category
+                .Builder()
+                .title("food")
+                .build();
+
+    }
+
+    @Test
+    public void build_successfully_registeredToCategoryTree() {
+
+        Assert.assertArrayEquals(new int[]{technologyCategory.getId(), computerCategory.getId(), laptopCategory.getId()},
+                laptopCategory.getPath());
+        Assert.assertEquals(2, laptopCategory.getDepth());
+        Assert.assertNotEquals(laptopCategory.getId(), foodCategory.getId());
+
+    }
+
+    @Test
+    public void isSubcategoryOf_successfully() {
+
+        Assert.assertTrue(laptopCategory.isSubcategoryOf(laptopCategory));
+        Assert.assertTrue(laptopCategory.isSubcategoryOf(computerCategory));
+        Assert.assertTrue(laptopCategory.isSubcategoryOf(technologyCategory));
+        Assert.assertFalse(technologyCategory.isSubcategoryOf(laptopCategory));
+        Assert.assertFalse(laptopCategory.isSubcategoryOf(foodCategory));
+
+    }
+
+    @Test
+    public void setParentCategory_successfully_updatesSubcategories() {
+
+        computerCategory.setParentCategory(foodCategory);
+
+        Assert.assertTrue(laptopCategory.isSubcategoryOf(foodCategory));
+        Assert.assertFalse(laptopCategory.isSubcategoryOf(technologyCategory));
+
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void setParentCategory_categoryInUse_expectedIllegalStateException() {
+
+        new Product(1, "macbook", 12_500.0, laptopCategory);
+        Assert.assertTrue(technologyCategory.isInUse());
+        Assert.assertFalse(foodCategory.isInUse());
+
+        computerCategory.setParentCategory(foodCategory);
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setParentCategory_subcategoryAsParent_expectedIllegalArgumentException() {
+
+        technologyCategory.setParentCategory(laptopCategory);
+
+    }
+
+}
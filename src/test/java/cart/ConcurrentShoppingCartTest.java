@@ -0,0 +1,260 @@
+package cart;
+
+import discount.campaign.ICampaign;
+import discount.campaign.RateCampaign;
+import discount.coupon.AmountCoupon;
+import exception.InvalidQuantityException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ConcurrentShoppingCartTest {
+
+    private static final int NUMBER_OF_THREADS = 8;
+    private static final int NUMBER_OF_PRODUCTS = 100;
+    private static final int ADDS_PER_THREAD = 10_000;
+
+    private Category technologyCategory;
+    private Category foodCategory;
+    private Product[] products;
+
+    @Before
+    public void init() {
+
+        technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        foodCategory = new Category
+                .Builder()
+                .title("food")
+                .build();
+
+        products = new Product[NUMBER_OF_PRODUCTS];
+        for (int i = 0; i < NUMBER_OF_PRODUCTS; i++) {
+            products[i] = new Product(i, "product " + i, 1.0, i % 2 == 0 ? technologyCategory : foodCategory);
+        }
+
+    }
+
+    @Test
+    public void addItem_successfully() {
+
+        ConcurrentShoppingCart shoppingCart = new ConcurrentShoppingCart();
+        shoppingCart.addItem(products[0], 2);
+        shoppingCart.addItem(products[1], 3);
+        shoppingCart.addItem(products[0], 1);
+
+        CartTotals cartTotals = shoppingCart.getCartTotals();
+        Assert.assertEquals(6, cartTotals.getTotalQuantityOfProduct());
+        Assert.assertEquals(2, cartTotals.getNumberOfProducts());
+        Assert.assertEquals(3, cartTotals.getShoppingCartItems().get(products[0]).intValue());
+        Assert.assertEquals(0, Double.compare(shoppingCart.getDeliveryCost(), 6.99));
+
+    }
+
+    @Test(expected = InvalidQuantityException.class)
+    public void addItem_quantityOfProductIsInvalid_expectedInvalidQuantityException() {
+
+        new ConcurrentShoppingCart().addItem(products[0], 0);
+
+    }
+
+    @Test
+    public void addItemsAndRemoveItem_successfully() {
+
+        ConcurrentShoppingCart shoppingCart = new ConcurrentShoppingCart();
+        List<CartItem> items = new ArrayList<>();
+        for (Product product : products) items.add(new CartItem(product, 2));
+
+        Assert.assertTrue(shoppingCart.addItems(items).isValid());
+        Assert.assertTrue(shoppingCart.removeItem(products[0]));
+        Assert.assertFalse(shoppingCart.removeItem(products[0]));
+        shoppingCart.updateQuantity(products[1], 5);
+
+        CartTotals cartTotals = shoppingCart.getCartTotals();
+        Assert.assertEquals((NUMBER_OF_PRODUCTS - 2) * 2 + 5, cartTotals.getTotalQuantityOfProduct());
+        Assert.assertEquals(NUMBER_OF_PRODUCTS - 1, cartTotals.getNumberOfProducts());
+
+        items.add(new CartItem(products[0], 0));
+        Assert.assertFalse(shoppingCart.addItems(items).isValid());
+        Assert.assertSame(cartTotals, shoppingCart.getCartTotals());
+
+        shoppingCart.clear();
+        Assert.assertEquals(0, shoppingCart.getCartTotals().getNumberOfProducts());
+
+    }
+
+    @Test
+    public void getCartTotals_successfully_publishedVersionIsNotChangedByWrites() {
+
+        ConcurrentShoppingCart shoppingCart = new ConcurrentShoppingCart();
+        ShoppingCart heapCart = new ShoppingCart();
+        shoppingCart.addItem(products[0], 2);
+        heapCart.addItem(products[0], 2);
+        CartTotals cartTotals = shoppingCart.getCartTotals();
+        Assert.assertSame(cartTotals, shoppingCart.getCartTotals());
+
+        shoppingCart.addItem(products[1], 3);
+        shoppingCart.updateQuantity(products[0], 5);
+        heapCart.addItem(products[1], 3);
+        heapCart.updateQuantity(products[0], 5);
+
+        Assert.assertEquals(2, cartTotals.getTotalQuantityOfProduct());
+        Assert.assertEquals(1, cartTotals.getNumberOfProducts());
+        Assert.assertEquals(8, shoppingCart.getCartTotals().getTotalQuantityOfProduct());
+        Assert.assertEquals(heapCart.getFingerprint(), shoppingCart.getCartTotals().getFingerprint());
+
+    }
+
+    @Test
+    public void applyDiscountsAndCoupon_successfully() {
+
+        ConcurrentShoppingCart shoppingCart = new ConcurrentShoppingCart();
+        shoppingCart.addItem(products[0], 10);
+        shoppingCart.addItem(products[1], 10);
+
+        ICampaign campaign = new RateCampaign(technologyCategory, 50.0, 5);
+        shoppingCart.applyDiscounts(campaign);
+        shoppingCart.applyCoupon(new AmountCoupon(1, 5));
+
+        Assert.assertEquals(500, shoppingCart.getCampaignDiscountInMinorUnits());
+        Assert.assertEquals(500, shoppingCart.getCouponDiscountInMinorUnits());
+        Assert.assertEquals(1_000, shoppingCart.getTotalAmountAfterDiscountsInMinorUnits());
+
+    }
+
+    @Test
+    public void applyDiscounts_successfully_discountsAreResetByChangeOfItems() {
+
+        ConcurrentShoppingCart shoppingCart = new ConcurrentShoppingCart();
+        shoppingCart.addItem(products[0], 10);
+        shoppingCart.addItem(products[1], 10);
+        shoppingCart.applyDiscounts(new RateCampaign(technologyCategory, 50.0, 5));
+        CartTotals discounted = shoppingCart.getCartTotals();
+
+        shoppingCart.removeItem(products[0]);
+
+        Assert.assertEquals(500, discounted.getCampaignDiscountInMinorUnits());
+        Assert.assertEquals(1_500, discounted.getTotalAmountAfterDiscountsInMinorUnits());
+        Assert.assertEquals(0, shoppingCart.getCampaignDiscountInMinorUnits());
+        Assert.assertEquals(1_000, shoppingCart.getTotalAmountAfterDiscountsInMinorUnits());
+    }
+
+    @Test
+    public void getCartTotals_successfully_linesAreInOrderOfAddition() {
+
+        ConcurrentShoppingCart shoppingCart = new ConcurrentShoppingCart();
+        int[] order = {17, 3, 64, 1, 42, 8};
+        for (int id : order) shoppingCart.addItem(products[id], 1);
+
+        ICartLines lines = shoppingCart.getCartTotals().getLines();
+        Assert.assertEquals(order.length, lines.size());
+        for (int line = 0; line < order.length; line++) {
+            Assert.assertSame(products[order[line]], lines.getProduct(line));
+        }
+    }
+
+    @Test
+    public void applyDiscounts_successfully_fromManyThreads() throws Exception {
+
+        ConcurrentShoppingCart shoppingCart = new ConcurrentShoppingCart();
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ICampaign campaign = new RateCampaign(technologyCategory, 50.0, 1);
+
+        Future<?> writer = executorService.submit(() -> {
+            start.await();
+            for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                shoppingCart.addItem(products[i % NUMBER_OF_PRODUCTS], 1);
+                if (i % 3 == 0) shoppingCart.removeItem(products[(i / 3) % NUMBER_OF_PRODUCTS]);
+            }
+            return null;
+        });
+        Future<?> discounter = executorService.submit(() -> {
+            start.await();
+            while (writing.get()) {
+                shoppingCart.applyDiscounts(campaign);
+                shoppingCart.applyCoupon(new AmountCoupon(1, 1));
+            }
+            return null;
+        });
+
+        //Discounts of every snapshot are calculated for its own items, so they never exceed its total price
+        Future<?> reader = executorService.submit(() -> {
+            start.await();
+            while (writing.get()) {
+                CartTotals cartTotals = shoppingCart.getCartTotals();
+                long technologyPrice = cartTotals.getCategoryTotals().getPriceOfCategory(technologyCategory.getId());
+                Assert.assertTrue(cartTotals.getCampaignDiscountInMinorUnits() * 2 <= technologyPrice);
+                Assert.assertTrue(cartTotals.getTotalAmountAfterDiscountsInMinorUnits() >= 0);
+            }
+            return null;
+        });
+
+        start.countDown();
+        writer.get();
+        writing.set(false);
+        discounter.get();
+        reader.get();
+        executorService.shutdown();
+        Assert.assertTrue(executorService.awaitTermination(1, TimeUnit.MINUTES));
+
+    }
+
+    @Test
+    public void addItem_successfully_fromManyThreads() throws Exception {
+
+        ConcurrentShoppingCart shoppingCart = new ConcurrentShoppingCart();
+        ExecutorService executorService = Executors.newFixedThreadPool(NUMBER_OF_THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        List<Future<?>> writers = new ArrayList<>();
+        for (int thread = 0; thread < NUMBER_OF_THREADS; thread++) {
+            int offset = thread;
+            writers.add(executorService.submit(() -> {
+                start.await();
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    shoppingCart.addItem(products[(offset + i) % NUMBER_OF_PRODUCTS], 1);
+                }
+                return null;
+            }));
+        }
+
+        //Every snapshot is consistent: total price is always equal to total quantity, all prices are 1.0
+        Future<?> reader = executorService.submit(() -> {
+            start.await();
+            while (writing.get()) {
+                CartTotals cartTotals = shoppingCart.getCartTotals();
+                Assert.assertEquals(cartTotals.getTotalQuantityOfProduct() * 100L, cartTotals.getTotalPriceInMinorUnits());
+            }
+            return null;
+        });
+
+        start.countDown();
+        for (Future<?> writer : writers) writer.get();
+        writing.set(false);
+        reader.get();
+        executorService.shutdown();
+        Assert.assertTrue(executorService.awaitTermination(1, TimeUnit.MINUTES));
+
+        CartTotals cartTotals = shoppingCart.getCartTotals();
+        Assert.assertEquals(NUMBER_OF_THREADS * ADDS_PER_THREAD, cartTotals.getTotalQuantityOfProduct());
+        Assert.assertEquals(NUMBER_OF_PRODUCTS, cartTotals.getNumberOfProducts());
+        Assert.assertEquals(2, cartTotals.getNumberOfCategories());
+
+    }
+
+}
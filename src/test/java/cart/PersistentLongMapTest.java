@@ -0,0 +1,51 @@
+package cart;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class PersistentLongMapTest {
+
+    @Test
+    public void putAndRemove_successfully_sameAsHashMap() {
+
+        Random random = new Random(42);
+        PersistentLongMap<Integer> persistentMap = PersistentLongMap.empty();
+        Map<Long, Integer> hashMap = new HashMap<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000) - 1_000;
+            if (random.nextInt(4) == 0) {
+                persistentMap = persistentMap.remove(key);
+                hashMap.remove(key);
+            } else {
+                int value = random.nextInt();
+                persistentMap = persistentMap.put(key, value);
+                hashMap.put(key, value);
+            }
+            Assert.assertEquals(hashMap.size(), persistentMap.size());
+        }
+
+        for (long key = -1_000; key < 1_000; key++) Assert.assertEquals(hashMap.get(key), persistentMap.get(key));
+
+    }
+
+    @Test
+    public void put_successfully_keepsOlderVersions() {
+
+        PersistentLongMap<String> first = PersistentLongMap.<String>empty().put(1, "apple");
+        PersistentLongMap<String> second = first.put(1, "banana").put(2, "cherry");
+        PersistentLongMap<String> third = second.remove(1);
+
+        Assert.assertEquals("apple", first.get(1));
+        Assert.assertNull(first.get(2));
+        Assert.assertEquals("banana", second.get(1));
+        Assert.assertNull(third.get(1));
+        Assert.assertEquals(1, third.size());
+
+    }
+
+}
@@ -0,0 +1,140 @@
+package cart;
+
+import exception.InvalidPriceException;
+import exception.UnknownProductException;
+import money.Money;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+
+public class ProductCatalogTest {
+
+    private Category fruitCategory;
+    private Product apple;
+    private Product banana;
+    private ProductCatalog productCatalog;
+
+    @Before
+    public void init() {
+        fruitCategory = new Category
+                .Builder()
+                .title("fruit")
+                .build();
+        apple = new Product(1, "apple", 10.0, fruitCategory);
+        banana = new Product(2, "banana", 15.0, fruitCategory);
+        productCatalog = new ProductCatalog
+                .Builder()
+                .addProduct(apple)
+                .addProduct(banana)
+                .build();
+    }
+
+    @Test
+    public void getProduct_successfully() {
+
+        Assert.assertEquals(2, productCatalog.size());
+        Assert.assertSame(apple, productCatalog.getProduct(1));
+        Assert.assertEquals(1_500, productCatalog.getPriceInMinorUnits(2));
+        Assert.assertEquals(fruitCategory.getId(), productCatalog.getCategoryId(2));
+        Assert.assertTrue(productCatalog.contains(2));
+
+    }
+
+    @Test
+    public void getProduct_unknownId() {
+
+        Assert.assertNull(productCatalog.getProduct(3));
+        Assert.assertEquals(-1, productCatalog.getPriceInMinorUnits(3));
+        Assert.assertEquals(-1, productCatalog.getCategoryId(3));
+        Assert.assertFalse(productCatalog.contains(3));
+
+    }
+
+    @Test
+    public void updatePrices_replacesProducts() {
+
+        long version = productCatalog.updatePrices(new long[]{1, 2}, new long[]{1_200, 1_500});
+
+        Assert.assertEquals(2, version);
+        Assert.assertEquals(version, productCatalog.getVersion());
+        Assert.assertEquals(12.0, productCatalog.getProduct(1).getPrice(), 0.0);
+        Assert.assertEquals("apple", productCatalog.getProduct(1).getTitle());
+        Assert.assertEquals(apple, productCatalog.getProduct(1));
+        Assert.assertSame(banana, productCatalog.getProduct(2));
+        Assert.assertEquals(10.0, apple.getPrice(), 0.0);
+
+    }
+
+    @Test
+    public void updatePrices_concurrentUpdatesAreNotLost() throws InterruptedException {
+
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[2];
+        for (int i = 0; i < threads.length; i++) {
+            long id = i + 1;
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int price = 1; price <= 1_000; price++) productCatalog.updatePrice(id, Money.ofMinorUnits(price));
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) thread.join();
+
+        //Updates waiting for another update are published together with it
+        Assert.assertTrue(productCatalog.getVersion() > 1 && productCatalog.getVersion() <= 2_001);
+        Assert.assertEquals(1_000, productCatalog.getPriceInMinorUnits(1));
+        Assert.assertEquals(1_000, productCatalog.getPriceInMinorUnits(2));
+
+    }
+
+    @Test
+    public void updatePrice_successfully_returnsPublishedVersion() {
+
+        long version = productCatalog.updatePrice(2, Money.ofMinorUnits(1_400));
+
+        Assert.assertEquals(2, version);
+        Assert.assertEquals(1_400, productCatalog.getPriceInMinorUnits(2));
+        Assert.assertEquals(14.0, productCatalog.getProduct(2).getPrice(), 0.0);
+        Assert.assertSame(apple, productCatalog.getProduct(1));
+
+    }
+
+    @Test(expected = UnknownProductException.class)
+    public void updatePrices_unknownProduct_throwsUnknownProductException() {
+
+        productCatalog.updatePrices(new long[]{1, 3}, new long[]{1_200, 1_500});
+
+    }
+
+    @Test
+    public void updatePrices_invalidPrice_changesNothing() {
+
+        try {
+            productCatalog.updatePrices(new long[]{1, 2}, new long[]{1_200, 0});
+            Assert.fail();
+        } catch (InvalidPriceException e) {
+            Assert.assertEquals(1, productCatalog.getVersion());
+            Assert.assertEquals(1_000, productCatalog.getPriceInMinorUnits(1));
+        }
+
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void build_sameIdTwice_throwsIllegalStateException() {
+
+        new ProductCatalog
+                .Builder()
+                .addProduct(apple)
+                .addProduct(new Product(1, "pear", 5.0, fruitCategory))
+                .build();
+
+    }
+}
@@ -1,17 +1,23 @@
 package cart;
 
 import discount.campaign.AmountCampaign;
+import discount.campaign.DiscountSolution;
+import discount.campaign.DiscountSolver;
 import discount.campaign.ICampaign;
 import discount.campaign.RateCampaign;
+import discount.campaign.StackingPolicy;
 import discount.coupon.AmountCoupon;
 import discount.coupon.ICoupon;
 import discount.coupon.RateCoupon;
 import exception.InvalidPriceException;
 import exception.InvalidQuantityException;
 import exception.NullDataException;
+import money.Money;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 
 public class ShoppingCartTest {
 
@@ -67,6 +73,84 @@ public class ShoppingCartTest {
 
     }
 
+    @Test
+    public void addItem_successfully_addEqualProducts() {
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Product laptop = new Product("macbook", 12_500.0, technologyCategory);
+        Product sameLaptop = new Product("macbook", 12_500.0, technologyCategory);
+        Product laptopWithId = new Product(42, "macbook", 12_500.0, technologyCategory);
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(laptop, 1);
+        shoppingCart.addItem(sameLaptop, 2);
+        shoppingCart.addItem(laptopWithId, 4);
+
+        Assert.assertEquals(laptop, sameLaptop);
+        Assert.assertEquals(2, shoppingCart.getNumberOfProducts());
+        Assert.assertEquals(3, shoppingCart.getShoppingCartItems().get(laptop).intValue());
+
+    }
+
+    @Test
+    public void product_successfully_generatedIdsOfEqualProducts() {
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Product laptop = new Product("macbook", 12_500.0, technologyCategory);
+
+        Assert.assertTrue(laptop.hasGeneratedId());
+        Assert.assertEquals(laptop.getId(), Product.withGeneratedId("macbook", 1_250_000, technologyCategory).getId());
+        Assert.assertNotEquals(laptop, new Product("macbook", 12_499.0, technologyCategory));
+        Assert.assertNotEquals(laptop, new Product("macbook pro", 12_500.0, technologyCategory));
+        Assert.assertFalse(new Product(0, "macbook", 12_500.0, technologyCategory).hasGeneratedId());
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void product_negativeId_expectedIllegalArgumentException() {
+
+        new Product(-1, "macbook", 12_500.0, new Category.Builder().title("technology").build());
+
+    }
+
+    @Test
+    public void addItem_successfully_sameIdWithOtherPriceUsesPriceOfLine() {
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Product phone = new Product(1, "iphone", 10.0, technologyCategory);
+        Product repricedPhone = new Product(1, "iphone", 20.0, technologyCategory);
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(phone, 1);
+        shoppingCart.addItem(repricedPhone, 1);
+
+        Assert.assertEquals(2_000, shoppingCart.getTotalPriceInMinorUnits());
+        Assert.assertEquals(2_000, shoppingCart.getCategoryTotals().getPriceOfCategory(technologyCategory.getId()));
+        Assert.assertEquals(2_000, shoppingCart.getSnapshot().getTotalPriceInMinorUnits());
+
+        shoppingCart.updateQuantity(repricedPhone, 3);
+        Assert.assertEquals(3_000, shoppingCart.getTotalPriceInMinorUnits());
+
+        Assert.assertTrue(shoppingCart.removeItem(repricedPhone));
+        Assert.assertEquals(0, shoppingCart.getNumberOfProducts());
+        Assert.assertEquals(0, shoppingCart.getTotalPriceInMinorUnits());
+        Assert.assertEquals(0, shoppingCart.getCategoryTotals().getPriceOfCategory(technologyCategory.getId()));
+        Assert.assertEquals(0, shoppingCart.getSnapshot().getTotalPriceInMinorUnits());
+
+    }
+
     @Test
     public void addItem_successfully_addMultipleProductsWithDifferentCategories() {
 
@@ -182,6 +266,218 @@ public class ShoppingCartTest {
 
     }
 
+    @Test
+    public void addItems_successfully() {
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Product laptop = new Product("macbook", 12_500.0, technologyCategory);
+        Product phone = new Product("iphone", 7_500.0, technologyCategory);
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        ValidationReport validationReport = shoppingCart.addItems(Arrays.asList(
+                new CartItem(laptop, 1), new CartItem(phone, 2), new CartItem(laptop, 1)));
+
+        Assert.assertTrue(validationReport.isValid());
+        Assert.assertEquals(4, shoppingCart.getTotalQuantityOfProduct());
+        Assert.assertEquals(2, shoppingCart.getNumberOfProducts());
+        Assert.assertEquals(0, Double.compare(shoppingCart.getTotalAmountAfterDiscounts(), 40_000.0));
+
+    }
+
+    @Test
+    public void addItems_invalidItems_nothingIsAdded() {
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Product laptop = new Product("macbook", 12_500.0, technologyCategory);
+        Product phone = new Product("iphone", 0.0, technologyCategory);
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        ValidationReport validationReport = shoppingCart.addItems(Arrays.asList(
+                new CartItem(laptop, 1), new CartItem(phone, 2), null, new CartItem(laptop, 0)));
+
+        Assert.assertFalse(validationReport.isValid());
+        Assert.assertEquals(3, validationReport.getErrors().size());
+        Assert.assertEquals(1, validationReport.getErrors().get(0).getPosition());
+        Assert.assertEquals(CartItemValidator.PRODUCT_PRICE_IS_INVALID, validationReport.getErrors().get(0).getMessage());
+        Assert.assertEquals(CartItemValidator.ITEM_IS_NULL, validationReport.getErrors().get(1).getMessage());
+        Assert.assertEquals(CartItemValidator.QUANTITY_IS_LESS_THAN_ONE, validationReport.getErrors().get(2).getMessage());
+        Assert.assertEquals(ValidationReport.Problem.ITEM_IS_NULL, validationReport.getErrors().get(1).getProblem());
+        Assert.assertEquals(0, shoppingCart.getTotalQuantityOfProduct());
+
+    }
+
+    @Test
+    public void addItems_totalOverflows_nothingIsAdded() {
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Product laptop = new Product(1, "macbook", 12_500.0, technologyCategory);
+        Product phone = new Product(2, "iphone", 7_500.0, technologyCategory);
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(laptop, 1);
+        try {
+            shoppingCart.addItems(Arrays.asList(new CartItem(phone, 1), new CartItem(laptop, Integer.MAX_VALUE)));
+            Assert.fail();
+        } catch (ArithmeticException e) {
+            Assert.assertEquals(1, shoppingCart.getNumberOfProducts());
+            Assert.assertEquals(1, shoppingCart.getTotalQuantityOfProduct());
+            Assert.assertEquals(1_250_000, shoppingCart.getTotalPriceInMinorUnits());
+        }
+
+    }
+
+    @Test(expected = NullDataException.class)
+    public void addItems_itemsIsNull_expectedNullDataException() {
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItems(null);
+
+    }
+
+    @Test
+    public void removeItem_successfully() {
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Category foodCategory = new Category
+                .Builder()
+                .title("food")
+                .build();
+
+        Product laptop = new Product("macbook", 12_500.0, technologyCategory);
+        Product phone = new Product("iphone", 7_500.0, technologyCategory);
+        Product fish = new Product("tuna", 10.0, foodCategory);
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(laptop, 1);
+        shoppingCart.addItem(phone, 2);
+        shoppingCart.addItem(fish, 3);
+
+        Assert.assertTrue(shoppingCart.removeItem(laptop));
+        Assert.assertTrue(shoppingCart.removeItem(fish));
+        Assert.assertFalse(shoppingCart.removeItem(fish));
+
+        Assert.assertEquals(2, shoppingCart.getTotalQuantityOfProduct());
+        Assert.assertEquals(1, shoppingCart.getNumberOfProducts());
+        Assert.assertEquals(1, shoppingCart.getNumberOfCategories());
+        Assert.assertEquals(Integer.valueOf(2), shoppingCart.getShoppingCartItems().get(phone));
+        Assert.assertNull(shoppingCart.getShoppingCartItems().get(laptop));
+        Assert.assertEquals(0, Double.compare(shoppingCart.getTotalAmountAfterDiscounts(), 15_000.0));
+
+    }
+
+    @Test
+    public void updateQuantity_successfully() {
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Product laptop = new Product("macbook", 12_500.0, technologyCategory);
+        Product phone = new Product("iphone", 7_500.0, technologyCategory);
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(laptop, 3);
+        shoppingCart.updateQuantity(laptop, 1);
+        shoppingCart.updateQuantity(phone, 2);
+
+        Assert.assertEquals(3, shoppingCart.getTotalQuantityOfProduct());
+        Assert.assertEquals(2, shoppingCart.getNumberOfProducts());
+        Assert.assertEquals(0, Double.compare(shoppingCart.getTotalAmountAfterDiscounts(), 27_500.0));
+
+    }
+
+    @Test(expected = InvalidQuantityException.class)
+    public void updateQuantity_quantityOfProductIsInvalid_expectedInvalidQuantityException() {
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Product laptop = new Product("macbook", 12_500.0, technologyCategory);
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(laptop, 3);
+        shoppingCart.updateQuantity(laptop, 0);
+
+    }
+
+    @Test
+    public void clear_successfully() {
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Product laptop = new Product("macbook", 12_500.0, technologyCategory);
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(laptop, 3);
+        shoppingCart.applyCoupon(new AmountCoupon(100, 10.0));
+        shoppingCart.clear();
+
+        Assert.assertEquals(0, shoppingCart.getTotalQuantityOfProduct());
+        Assert.assertEquals(0, shoppingCart.getNumberOfCategories());
+        Assert.assertTrue(shoppingCart.getShoppingCartItems().isEmpty());
+        Assert.assertEquals(0, Double.compare(shoppingCart.getCouponDiscount(), 0));
+        Assert.assertEquals(0, Double.compare(shoppingCart.getTotalAmountAfterDiscounts(), 0));
+
+        shoppingCart.addItem(laptop, 1);
+        Assert.assertEquals(1, shoppingCart.getTotalQuantityOfProduct());
+
+    }
+
+    @Test
+    public void getFingerprint_successfully_sameForSameItems() {
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Product laptop = new Product("macbook", 12_500.0, technologyCategory);
+        Product phone = new Product("iphone", 7_500.0, technologyCategory);
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(laptop, 2);
+        shoppingCart.addItem(phone, 1);
+        long fingerprint = shoppingCart.getFingerprint();
+
+        ShoppingCart otherCart = new ShoppingCart();
+        otherCart.addItem(phone, 1);
+        otherCart.addItem(laptop, 1);
+        Assert.assertNotEquals(fingerprint, otherCart.getFingerprint());
+
+        otherCart.addItem(laptop, 1);
+        Assert.assertEquals(fingerprint, otherCart.getFingerprint());
+
+        shoppingCart.removeItem(phone);
+        shoppingCart.updateQuantity(phone, 1);
+        Assert.assertEquals(fingerprint, shoppingCart.getFingerprint());
+
+        shoppingCart.clear();
+        Assert.assertEquals(new ShoppingCart().getFingerprint(), shoppingCart.getFingerprint());
+
+    }
+
     @Test
     public void applyDiscounts_successfullyRateCampaign() {
 
@@ -298,6 +594,78 @@ public class ShoppingCartTest {
 
     }
 
+    @Test
+    public void applyDiscounts_successfullyParentCategoryCampaignWithLargeQuantity() {
+
+        Category foodCategory = new Category
+                .Builder()
+                .title("food")
+                .build();
+
+        Category fruitCategory = new Category
+                .Builder()
+                .title("fruit")
+                .parentCategory(foodCategory)
+                .build();
+
+        Product apple = new Product("apple", 1.0, fruitCategory);
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(apple, 1_000_000);
+
+        ICampaign campaign = new AmountCampaign(foodCategory, 100.0, 999_999);
+        shoppingCart.applyDiscounts(campaign);
+        Assert.assertEquals(0, Double.compare(shoppingCart.getCampaignDiscount(), 100));
+
+    }
+
+    @Test
+    public void applyDiscounts_successfullyReplacesPreviousCampaign() {
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Product laptop = new Product("macbook", 5_000.0, technologyCategory);
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(laptop, 2);
+
+        shoppingCart.applyDiscounts(new RateCampaign(technologyCategory, 50.0, 1));
+        shoppingCart.applyDiscounts(new RateCampaign(technologyCategory, 10.0, 1));
+        Assert.assertEquals(0, Double.compare(shoppingCart.getCampaignDiscount(), 1_000));
+        Assert.assertEquals(0, Double.compare(shoppingCart.getTotalAmountAfterDiscounts(), 9_000));
+
+    }
+
+    @Test
+    public void applyCampaigns_successfullyAllStackable() {
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Category phoneCategory = new Category
+                .Builder()
+                .title("phone")
+                .parentCategory(technologyCategory)
+                .build();
+
+        Product phone = new Product("iphone", 5_000.0, phoneCategory);
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(phone, 2);
+
+        DiscountSolution discountSolution = shoppingCart.applyCampaigns(DiscountSolver.of(StackingPolicy.ALL_STACKABLE,
+                new RateCampaign(technologyCategory, 10.0, 1), new AmountCampaign(phoneCategory, 500.0, 1)));
+        Assert.assertEquals(2, discountSolution.getAppliedCampaigns().size());
+        Assert.assertEquals(0, Double.compare(shoppingCart.getCampaignDiscount(), 1_500));
+        Assert.assertEquals(0, Double.compare(shoppingCart.getTotalAmountAfterDiscounts(), 8_500));
+
+    }
+
     @Test(expected = NullDataException.class)
     public void applyDiscounts_campaignIsNull_expectedNullDataException() {
 
@@ -502,4 +870,41 @@ public class ShoppingCartTest {
 
     }
 
+    @Test
+    public void addItem_successfully_withProductCatalogPricesAfterPriceUpdate() {
+
+        Category fruitCategory = new Category
+                .Builder()
+                .title("fruit")
+                .build();
+
+        Product apple = new Product(1, "apple", 10.0, fruitCategory);
+        Product banana = new Product(2, "banana", 15.0, fruitCategory);
+        ProductCatalog productCatalog = new ProductCatalog
+                .Builder()
+                .addProduct(apple)
+                .addProduct(banana)
+                .build();
+
+        ShoppingCart shoppingCart = new ShoppingCart(productCatalog);
+        //Price of the catalog is used, not the price of the added product
+        shoppingCart.addItem(new Product(1, "apple", 99.0, fruitCategory), 2);
+        shoppingCart.addItem(banana, 1);
+        Assert.assertEquals(3_500, shoppingCart.getTotalPriceInMinorUnits());
+        CartSnapshot snapshot = shoppingCart.getSnapshot();
+        long fingerprint = shoppingCart.getFingerprint();
+
+        productCatalog.updatePrice(1, Money.ofMinorUnits(1_200));
+
+        Assert.assertEquals(3_900, shoppingCart.getTotalPriceInMinorUnits());
+        Assert.assertEquals(3_900, shoppingCart.getTotalAmountAfterDiscountsInMinorUnits());
+        Assert.assertEquals(3_900, shoppingCart.getCategoryTotals().getPriceOfCategory(fruitCategory.getId()));
+        Assert.assertNotEquals(fingerprint, shoppingCart.getFingerprint());
+        Assert.assertEquals(3_900, shoppingCart.getSnapshot().getTotalPriceInMinorUnits());
+        Assert.assertEquals(3_500, snapshot.getTotalPriceInMinorUnits());
+        Assert.assertEquals(12.0, shoppingCart.getShoppingCartItems().keySet().stream()
+                .filter(product -> product.getId() == 1).findFirst().get().getPrice(), 0.0);
+
+    }
+
 }
@@ -0,0 +1,175 @@
+package cart;
+
+import exception.InvalidTaxonomyException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class TaxonomyTest {
+
+    private static final String TAXONOMY = String.join("\n",
+            "# id, parent id, title",
+            "3,2,Citrus, lemons and oranges",
+            "1,,Food",
+            "2,1,Fruit",
+            "4,1,Vegetable",
+            "",
+            "5,,Technology");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Taxonomy taxonomy;
+    private int food;
+    private int fruit;
+    private int citrus;
+    private int vegetable;
+    private int technology;
+
+    @Before
+    public void init() throws IOException {
+        taxonomy = Taxonomy.parse(new StringReader(TAXONOMY));
+        food = taxonomy.nodeOf(1);
+        fruit = taxonomy.nodeOf(2);
+        citrus = taxonomy.nodeOf(3);
+        vegetable = taxonomy.nodeOf(4);
+        technology = taxonomy.nodeOf(5);
+    }
+
+    @Test
+    public void parse_successfully() {
+
+        Assert.assertEquals(5, taxonomy.size());
+        Assert.assertEquals(Taxonomy.NO_NODE, taxonomy.nodeOf(6));
+        Assert.assertEquals(Taxonomy.NO_NODE, taxonomy.getParent(food));
+        Assert.assertEquals(fruit, taxonomy.getParent(citrus));
+        Assert.assertEquals(2, taxonomy.getDepth(citrus));
+        Assert.assertEquals(2, taxonomy.getNumberOfChildren(food));
+        Assert.assertEquals(fruit, taxonomy.getChild(food, 0));
+        Assert.assertEquals(vegetable, taxonomy.getChild(food, 1));
+        Assert.assertEquals(0, taxonomy.getNumberOfChildren(technology));
+
+    }
+
+    @Test
+    public void parse_successfully_buildsCategories() {
+
+        Category citrusCategory = taxonomy.getCategory(citrus);
+
+        Assert.assertEquals("Citrus, lemons and oranges", citrusCategory.getTitle());
+        Assert.assertSame(taxonomy.getCategory(fruit), citrusCategory.getParentCategory());
+        Assert.assertTrue(citrusCategory.isSubcategoryOf(taxonomy.getCategory(food)));
+        Assert.assertEquals(citrus, taxonomy.nodeOf(citrusCategory));
+        Assert.assertEquals(Taxonomy.NO_NODE, taxonomy.nodeOf(new Category.Builder().title("Other").build()));
+
+    }
+
+    @Test
+    public void isInSubtree_successfully() {
+
+        Assert.assertTrue(taxonomy.isInSubtree(citrus, food));
+        Assert.assertTrue(taxonomy.isInSubtree(citrus, citrus));
+        Assert.assertFalse(taxonomy.isInSubtree(food, citrus));
+        Assert.assertFalse(taxonomy.isInSubtree(citrus, vegetable));
+        Assert.assertFalse(taxonomy.isInSubtree(citrus, technology));
+
+    }
+
+    @Test
+    public void getLowestCommonAncestor_successfully() {
+
+        Assert.assertEquals(food, taxonomy.getLowestCommonAncestor(citrus, vegetable));
+        Assert.assertEquals(fruit, taxonomy.getLowestCommonAncestor(fruit, citrus));
+        Assert.assertEquals(fruit, taxonomy.getLowestCommonAncestor(citrus, fruit));
+        Assert.assertEquals(Taxonomy.NO_NODE, taxonomy.getLowestCommonAncestor(citrus, technology));
+
+    }
+
+    @Test
+    public void getLowestCommonAncestor_sameAsWalkingParents() throws IOException {
+
+        Random random = new Random(42);
+        StringBuilder lines = new StringBuilder();
+        int size = 5_000;
+        for (int id = 0; id < size; id++) {
+            //Deep chains and wide levels, some roots
+            String parentId = id == 0 || random.nextInt(50) == 0 ? "" : String.valueOf(random.nextInt(4) == 0 ? id - 1 : random.nextInt(id));
+            lines.append(id).append(',').append(parentId).append(",category ").append(id).append('\n');
+        }
+        Taxonomy randomTaxonomy = Taxonomy.parse(new StringReader(lines.toString()));
+
+        for (int i = 0; i < 2_000; i++) {
+            int node = random.nextInt(size);
+            int otherNode = random.nextInt(size);
+            Assert.assertEquals(lowestCommonAncestorByWalkingParents(randomTaxonomy, node, otherNode),
+                    randomTaxonomy.getLowestCommonAncestor(node, otherNode));
+            Assert.assertEquals(isInSubtreeByWalkingParents(randomTaxonomy, node, otherNode),
+                    randomTaxonomy.isInSubtree(node, otherNode));
+        }
+
+    }
+
+    private int lowestCommonAncestorByWalkingParents(Taxonomy taxonomy, int node, int otherNode) {
+        for (int ancestor = node; ancestor != Taxonomy.NO_NODE; ancestor = taxonomy.getParent(ancestor)) {
+            if (isInSubtreeByWalkingParents(taxonomy, otherNode, ancestor)) return ancestor;
+        }
+        return Taxonomy.NO_NODE;
+    }
+
+    private boolean isInSubtreeByWalkingParents(Taxonomy taxonomy, int node, int ancestor) {
+        for (; node != Taxonomy.NO_NODE; node = taxonomy.getParent(node)) {
+            if (node == ancestor) return true;
+        }
+        return false;
+    }
+
+    @Test
+    public void load_successfully() throws IOException {
+
+        Path path = temporaryFolder.newFile("taxonomy.csv").toPath();
+        Files.write(path, TAXONOMY.getBytes(StandardCharsets.UTF_8));
+
+        Taxonomy loadedTaxonomy = Taxonomy.load(path);
+
+        Assert.assertEquals(5, loadedTaxonomy.size());
+        Assert.assertEquals("Vegetable", loadedTaxonomy.getCategory(loadedTaxonomy.nodeOf(4)).getTitle());
+
+    }
+
+    @Test(expected = InvalidTaxonomyException.class)
+    public void parse_cycle_throwsInvalidTaxonomyException() throws IOException {
+
+        Taxonomy.parse(new StringReader("1,,Food\n2,3,Fruit\n3,2,Citrus"));
+
+    }
+
+    @Test(expected = InvalidTaxonomyException.class)
+    public void parse_unknownParent_throwsInvalidTaxonomyException() throws IOException {
+
+        Taxonomy.parse(new StringReader("1,,Food\n2,7,Fruit"));
+
+    }
+
+    @Test(expected = InvalidTaxonomyException.class)
+    public void parse_repeatedId_throwsInvalidTaxonomyException() throws IOException {
+
+        Taxonomy.parse(new StringReader("1,,Food\n1,,Fruit"));
+
+    }
+
+    @Test(expected = InvalidTaxonomyException.class)
+    public void parse_invalidId_throwsInvalidTaxonomyException() throws IOException {
+
+        Taxonomy.parse(new StringReader("food,,Food"));
+
+    }
+}
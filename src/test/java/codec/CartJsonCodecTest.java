@@ -0,0 +1,266 @@
+package codec;
+
+import cart.CartItem;
+import cart.Category;
+import cart.Product;
+import cart.ShoppingCart;
+import cart.Taxonomy;
+import discount.campaign.AmountCampaign;
+import discount.campaign.ICampaign;
+import discount.campaign.RateCampaign;
+import discount.coupon.AmountCoupon;
+import discount.coupon.ICoupon;
+import discount.coupon.RateCoupon;
+import exception.InvalidJsonException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import pricing.BulkPricer;
+import pricing.CartDescription;
+import pricing.PricingResult;
+import pricing.PricingRules;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class CartJsonCodecTest {
+
+    private Category foodCategory;
+    private Category fruitCategory;
+    private Product[] products;
+    private ICampaign[] campaigns;
+    private ICoupon[] coupons;
+
+    @Before
+    public void init() {
+
+        foodCategory = new Category
+                .Builder()
+                .title("food")
+                .build();
+
+        fruitCategory = new Category
+                .Builder()
+                .title("fruit \"fresh\"")
+                .parentCategory(foodCategory)
+                .build();
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Random random = new Random(42);
+        products = new Product[30];
+        for (int i = 0; i < products.length; i++) {
+            Category category = i % 3 == 0 ? foodCategory : i % 3 == 1 ? fruitCategory : technologyCategory;
+            products[i] = new Product(i, "product \u00e7 " + i, 1 + random.nextInt(10_000) / 100.0, category);
+        }
+
+        campaigns = new ICampaign[]{
+                new RateCampaign(foodCategory, 12.5, 5),
+                new AmountCampaign(fruitCategory, 20.0, 3),
+                new RateCampaign(technologyCategory, 15.0, 10)
+        };
+        coupons = new ICoupon[]{new RateCoupon(100, 10.0), new AmountCoupon(50, 5.25)};
+
+    }
+
+    private List<CartDescription> randomCarts(int numberOfCarts) {
+        Random random = new Random(7);
+        List<CartDescription> carts = new ArrayList<>();
+        for (int cartId = 0; cartId < numberOfCarts; cartId++) {
+            List<CartItem> items = new ArrayList<>();
+            for (int line = random.nextInt(10); line >= 0; line--) {
+                items.add(new CartItem(products[random.nextInt(products.length)], 1 + random.nextInt(5)));
+            }
+            carts.add(new CartDescription(cartId, items));
+        }
+        return carts;
+    }
+
+    @Test
+    public void readCart_successfully_sameAsWrittenCarts() throws IOException {
+
+        List<CartDescription> carts = randomCarts(500);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CartJsonWriter writer = new CartJsonWriter(out)) {
+            for (ICampaign campaign : campaigns) writer.writeCampaign(campaign);
+            for (ICoupon coupon : coupons) writer.writeCoupon(coupon);
+            for (CartDescription cart : carts) writer.writeCart(cart);
+        }
+
+        CartJsonReader reader = new CartJsonReader(new ByteArrayInputStream(out.toByteArray()));
+        List<CartDescription> readCarts = new ArrayList<>();
+        for (CartDescription cart = reader.readCart(); cart != null; cart = reader.readCart()) readCarts.add(cart);
+
+        Assert.assertEquals(carts.size(), readCarts.size());
+        BulkPricer bulkPricer = new BulkPricer(PricingRules.of(campaigns, coupons));
+        BulkPricer readBulkPricer = new BulkPricer(PricingRules.of(reader.getCampaigns().toArray(new ICampaign[0]),
+                reader.getCoupons().toArray(new ICoupon[0])));
+        for (int i = 0; i < carts.size(); i++) {
+            CartDescription cart = carts.get(i);
+            CartDescription readCart = readCarts.get(i);
+            Assert.assertEquals(cart.getCartId(), readCart.getCartId());
+            Assert.assertEquals(cart.getItems().toString(), readCart.getItems().toString());
+
+            PricingResult result = bulkPricer.price(cart);
+            PricingResult readResult = readBulkPricer.price(readCart);
+            Assert.assertEquals(result.getTotalAmountAfterDiscountsInMinorUnits(), readResult.getTotalAmountAfterDiscountsInMinorUnits());
+            Assert.assertEquals(result.getDeliveryCostInMinorUnits(), readResult.getDeliveryCostInMinorUnits());
+        }
+
+    }
+
+    @Test
+    public void writeCart_successfully_categoriesAndProductsWrittenOnce() throws IOException {
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(products[1], 2);
+        shoppingCart.addItem(products[4], 1);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CartJsonWriter writer = new CartJsonWriter(out);
+        writer.writeCart(1, shoppingCart);
+        writer.writeCart(2, shoppingCart);
+        writer.writeCart(3, Arrays.asList(new CartItem(products[0], 1), new CartItem(products[1], 1)));
+        writer.flush();
+
+        String[] records = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        Assert.assertEquals(8, records.length);
+        Assert.assertEquals("{\"category\":{\"id\":" + foodCategory.getId() + ",\"title\":\"food\"}}", records[0]);
+        Assert.assertEquals("{\"category\":{\"id\":" + fruitCategory.getId() + ",\"title\":\"fruit \\\"fresh\\\"\",\"parentId\":"
+                + foodCategory.getId() + "}}", records[1]);
+        Assert.assertTrue(records[2].startsWith("{\"product\":{\"id\":"));
+        Assert.assertEquals("{\"product\":{\"id\":0,\"title\":\"product \u00e7 0\",\"price\":"
+                + products[0].getUnitPrice() + ",\"categoryId\":" + foodCategory.getId() + "}}", records[6]);
+        Assert.assertEquals("{\"cart\":{\"id\":3,\"items\":[{\"productId\":0,\"quantity\":1,\"price\":" + products[0].getUnitPrice()
+                + ",\"categoryId\":" + foodCategory.getId() + "},{\"productId\":1,\"quantity\":1,\"price\":"
+                + products[1].getUnitPrice() + ",\"categoryId\":" + fruitCategory.getId() + "}]}}", records[7]);
+
+        CartJsonReader reader = new CartJsonReader(new ByteArrayInputStream(out.toByteArray()));
+        Assert.assertEquals(3, reader.readDefinitions());
+        Assert.assertEquals(3, reader.getNumberOfProducts());
+        Category readFruitCategory = reader.getCategory(fruitCategory.getId());
+        Assert.assertEquals("fruit \"fresh\"", readFruitCategory.getTitle());
+        Assert.assertEquals("food", readFruitCategory.getParentCategory().getTitle());
+        Assert.assertEquals(products[4].getPriceInMinorUnits(), reader.getProduct(4).getPriceInMinorUnits());
+        Assert.assertEquals(readFruitCategory, reader.getProduct(4).getCategory());
+
+    }
+
+    @Test
+    public void readCart_successfully_sameIdAtTwoPricesKeepsPriceOfEachCart() throws IOException {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CartJsonWriter writer = new CartJsonWriter(out)) {
+            writer.writeCart(1, Arrays.asList(new CartItem(new Product(1, "apple", 10.0, foodCategory), 1)));
+            writer.writeCart(2, Arrays.asList(new CartItem(new Product(1, "apple", 12.0, fruitCategory), 1)));
+        }
+
+        CartJsonReader reader = new CartJsonReader(new ByteArrayInputStream(out.toByteArray()));
+        Product first = reader.readCart().getItems().iterator().next().getProduct();
+        Product second = reader.readCart().getItems().iterator().next().getProduct();
+
+        Assert.assertEquals(1_000, first.getPriceInMinorUnits());
+        Assert.assertEquals(1_200, second.getPriceInMinorUnits());
+        Assert.assertEquals(1, second.getId());
+        Assert.assertEquals("food", first.getCategory().getTitle());
+        Assert.assertEquals("fruit \"fresh\"", second.getCategory().getTitle());
+
+    }
+
+    @Test
+    public void readCart_successfully_taxonomyCategoriesMatchCampaigns() throws IOException {
+
+        Taxonomy taxonomy = Taxonomy.parse(new StringReader("10,,food\n11,10,fruit\n"));
+        Category taxonomyFruitCategory = taxonomy.getCategory(taxonomy.nodeOf(11));
+        Product apple = new Product(1, "apple", 10.0, taxonomyFruitCategory);
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(apple, 4);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CartJsonWriter writer = new CartJsonWriter(out, taxonomy)) {
+            writer.writeCoupon(new RateCoupon(0, 12.34));
+            writer.writeCart(1, shoppingCart);
+        }
+        String dump = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        Assert.assertTrue(dump.startsWith("{\"coupon\":{\"type\":\"rate\",\"minPurchaseAmount\":0,\"rate\":12.34}}\n"
+                + "{\"category\":{\"id\":10,\"title\":\"food\"}}\n"));
+
+        CartJsonReader reader = new CartJsonReader(new ByteArrayInputStream(out.toByteArray()), taxonomy);
+        CartDescription cart = reader.readCart();
+        Assert.assertSame(taxonomyFruitCategory, reader.getCategory(11));
+        Assert.assertEquals(0, Double.compare(12.34, ((RateCoupon) reader.getCoupons().get(0)).getRate()));
+
+        //Campaigns which are not read from the dump match read carts
+        ShoppingCart readShoppingCart = new ShoppingCart();
+        readShoppingCart.addItems(cart.getItems());
+        shoppingCart.applyDiscounts(new AmountCampaign(taxonomy.getCategory(taxonomy.nodeOf(10)), 5.0, 3));
+        readShoppingCart.applyDiscounts(new AmountCampaign(taxonomy.getCategory(taxonomy.nodeOf(10)), 5.0, 3));
+        Assert.assertEquals(500, readShoppingCart.getCampaignDiscountInMinorUnits());
+        Assert.assertEquals(shoppingCart.getCampaignDiscountInMinorUnits(), readShoppingCart.getCampaignDiscountInMinorUnits());
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void writeCategory_categoryIsNotInTaxonomy_expectedIllegalArgumentException() throws IOException {
+
+        Taxonomy taxonomy = Taxonomy.parse(new StringReader("10,,food\n"));
+        new CartJsonWriter(new ByteArrayOutputStream(), taxonomy).writeCategory(foodCategory);
+
+    }
+
+    @Test
+    public void readCart_successfully_skipsUnknownRecordsAndFields() throws IOException {
+
+        String dump = "{\"category\":{\"title\":\"food\",\"id\":7,\"parentId\":null,\"tags\":[1,{\"a\":true},null]}}\n"
+                + "{\"warehouse\":{\"id\":1,\"open\":false}}\n"
+                + "  {\"product\":{\"price\":10.5,\"categoryId\":7,\"id\":42,\"title\":\"apple\\n\\u00e7\",\"weight\":1.5e3}}"
+                + "{\"cart\":{\"items\":[{\"quantity\":3,\"productId\":42}],\"id\":-1}}";
+
+        CartJsonReader reader = new CartJsonReader(new ByteArrayInputStream(dump.getBytes(StandardCharsets.UTF_8)));
+        CartDescription cart = reader.readCart();
+
+        Assert.assertEquals(-1, cart.getCartId());
+        Assert.assertEquals(1, cart.getItems().size());
+        CartItem item = cart.getItems().iterator().next();
+        Assert.assertEquals(3, item.getQuantity());
+        Assert.assertEquals("apple\n\u00e7", item.getProduct().getTitle());
+        Assert.assertEquals(1_050, item.getProduct().getPriceInMinorUnits());
+        Assert.assertNull(reader.readCart());
+
+    }
+
+    @Test(expected = InvalidJsonException.class)
+    public void readCart_unknownProduct_expectedInvalidJsonException() throws IOException {
+
+        String dump = "{\"cart\":{\"id\":1,\"items\":[{\"productId\":42,\"quantity\":3}]}}";
+        new CartJsonReader(new ByteArrayInputStream(dump.getBytes(StandardCharsets.UTF_8))).readCart();
+
+    }
+
+    @Test(expected = InvalidJsonException.class)
+    public void readCart_moreFractionDigits_expectedInvalidJsonException() throws IOException {
+
+        String dump = "{\"category\":{\"id\":1,\"title\":\"food\"}}{\"product\":{\"id\":1,\"price\":1.005,\"categoryId\":1}}";
+        new CartJsonReader(new ByteArrayInputStream(dump.getBytes(StandardCharsets.UTF_8))).readCart();
+
+    }
+
+    @Test(expected = InvalidJsonException.class)
+    public void readCart_notClosedObject_expectedInvalidJsonException() throws IOException {
+
+        String dump = "{\"category\":{\"id\":1,\"title\":\"food\"}";
+        new CartJsonReader(new ByteArrayInputStream(dump.getBytes(StandardCharsets.UTF_8))).readCart();
+
+    }
+
+}
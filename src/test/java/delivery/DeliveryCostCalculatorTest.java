@@ -127,4 +127,37 @@ public class DeliveryCostCalculatorTest {
 
     }
 
+    @Test
+    public void calculateFor_successfullyWithSnapshot() {
+
+        shoppingCart.addItem(apple, 10);
+        shoppingCart.addItem(macBook, 1);
+        Assert.assertEquals(0, Double.compare(DeliveryCostCalculator.DEFAULT.calculateFor(shoppingCart.getSnapshot()),
+                DeliveryCostCalculator.DEFAULT.calculateFor(shoppingCart)));
+
+    }
+
+    @Test
+    public void getDeliveryCost_successfullyWithInjectedCalculator() {
+
+        ShoppingCart freeDeliveryCart = new ShoppingCart(cart -> cart.getTotalPriceInMinorUnits() >= 10_000 ? 0 : 999);
+        freeDeliveryCart.addItem(apple, 1);
+        Assert.assertEquals(0, Double.compare(freeDeliveryCart.getDeliveryCost(), 9.99));
+
+        freeDeliveryCart.addItem(apple, 9);
+        Assert.assertEquals(0, Double.compare(freeDeliveryCart.getDeliveryCost(), 0));
+
+    }
+
+    @Test
+    public void calculateFor_successfullyWithDefaultCalculator() {
+
+        shoppingCart.addItem(apple, 10);
+        shoppingCart.addItem(macBook, 1);
+        Assert.assertFalse(DeliveryCostCalculator.DEFAULT instanceof DeliveryCostCalculator);
+        Assert.assertEquals(new DeliveryCostCalculator(1, 1).calculateInMinorUnitsFor(shoppingCart),
+                DeliveryCostCalculator.DEFAULT.calculateInMinorUnitsFor(shoppingCart));
+
+    }
+
 }
@@ -0,0 +1,164 @@
+package delivery;
+
+import cart.Category;
+import cart.Product;
+import cart.ShoppingCart;
+import exception.InvalidRateTableException;
+import exception.NoDeliveryRateException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+public class RateTableTest {
+
+    private static final String RATES = String.join("\n",
+            "# record, category, carrier, zone, minimum quantity, price",
+            "rate,Food,FastCargo,Istanbul,1,5.00",
+            "rate,Food,FastCargo,Istanbul,10,8.00",
+            "rate,Food,SlowCargo,Istanbul,1,4.00",
+            "rate,Food,FastCargo,Ankara,1,7.00",
+            "rate,Laptop,SafeCargo,Istanbul,1,20.00",
+            "rate,*,SlowCargo,Istanbul,1,10.00",
+            "",
+            "fixed,Istanbul,2.99",
+            "fixed,Ankara,1.99");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Map<String, Category> categories;
+    private Product apple;
+    private Product macBook;
+    private Product phone;
+
+    @Before
+    public void init() {
+
+        Category foodCategory = new Category
+                .Builder()
+                .title("Food")
+                .build();
+
+        Category fruitCategory = new Category
+                .Builder()
+                .title("Fruit")
+                .parentCategory(foodCategory)
+                .build();
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("Technology")
+                .build();
+
+        Category laptopCategory = new Category
+                .Builder()
+                .title("Laptop")
+                .parentCategory(technologyCategory)
+                .build();
+
+        categories = new HashMap<>();
+        categories.put("Food", foodCategory);
+        categories.put("Laptop", laptopCategory);
+
+        apple = new Product("Apple", 10.0, fruitCategory);
+        macBook = new Product("MacBook", 12_500.0, laptopCategory);
+        phone = new Product("Phone", 7_500.0, technologyCategory);
+
+    }
+
+    private RateTable parse(String rates) throws IOException {
+        return RateTable.parse(new StringReader(rates), categories::get);
+    }
+
+    @Test
+    public void load_successfully() throws IOException {
+
+        Path path = temporaryFolder.newFile("rates.csv").toPath();
+        Files.write(path, RATES.getBytes(StandardCharsets.UTF_8));
+        RateTable rateTable = RateTable.load(path, categories::get);
+
+        Assert.assertArrayEquals(new String[]{"Istanbul", "Ankara"}, rateTable.getZones());
+
+    }
+
+    @Test
+    public void calculate_successfully_cheapestCarrierOfParentCategory() throws IOException {
+
+        RateTable rateTable = parse(RATES);
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(apple, 2);
+        shoppingCart.addItem(macBook, 1);
+
+        //Fixed 2.99 + fruit with cheapest carrier of food 4.00 + laptop 20.00
+        Assert.assertEquals(2_699, rateTable.calculate(shoppingCart.getCategoryTotals(), rateTable.getZoneIndex("Istanbul")));
+
+    }
+
+    @Test
+    public void quote_successfully_manyZones() throws IOException {
+
+        RateTable rateTable = parse(RATES);
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(apple, 12);
+        shoppingCart.addItem(phone, 1);
+
+        long[] costs = rateTable.quote(shoppingCart.getCategoryTotals(), "Istanbul", "Ankara", "Izmir");
+
+        //Istanbul: 2.99 + min(fast tier 10: 8.00, slow: 4.00) + any category 10.00
+        Assert.assertEquals(1_699, costs[0]);
+        //Ankara: there is no rate of technology
+        Assert.assertEquals(RateTable.NOT_AVAILABLE, costs[1]);
+        Assert.assertEquals(RateTable.NOT_AVAILABLE, costs[2]);
+
+        shoppingCart.removeItem(phone);
+        costs = rateTable.quote(shoppingCart.getCategoryTotals(), "Istanbul", "Ankara");
+        Assert.assertEquals(699, costs[0]);
+        Assert.assertEquals(899, costs[1]);
+
+    }
+
+    @Test
+    public void getDeliveryCost_successfullyWithRateTableCalculator() throws IOException {
+
+        RateTable rateTable = parse(RATES);
+        ShoppingCart shoppingCart = new ShoppingCart(new RateTableDeliveryCostCalculator(rateTable, "Ankara"));
+        shoppingCart.addItem(apple, 1);
+
+        Assert.assertEquals(0, Double.compare(shoppingCart.getDeliveryCost(), 8.99));
+
+    }
+
+    @Test(expected = NoDeliveryRateException.class)
+    public void getDeliveryCost_noRateOfCategory_expectedNoDeliveryRateException() throws IOException {
+
+        ShoppingCart shoppingCart = new ShoppingCart(new RateTableDeliveryCostCalculator(parse(RATES), "Ankara"));
+        shoppingCart.addItem(macBook, 1);
+        shoppingCart.getDeliveryCost();
+
+    }
+
+    @Test(expected = InvalidRateTableException.class)
+    public void parse_unknownCategory_expectedInvalidRateTableException() throws IOException {
+
+        parse("rate,Toys,FastCargo,Istanbul,1,5.00");
+
+    }
+
+    @Test(expected = InvalidRateTableException.class)
+    public void parse_invalidPrice_expectedInvalidRateTableException() throws IOException {
+
+        parse("rate,Food,FastCargo,Istanbul,1,five");
+
+    }
+
+}
@@ -0,0 +1,119 @@
+package discount.campaign;
+
+import cart.Category;
+import cart.Product;
+import cart.ShoppingCart;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CampaignIndexTest {
+
+    private Category foodCategory;
+    private Category fruitCategory;
+    private Category technologyCategory;
+    private ShoppingCart shoppingCart;
+
+    @Before
+    public void init() {
+
+        foodCategory = new Category
+                .Builder()
+                .title("Food")
+                .build();
+
+        fruitCategory = new Category
+                .Builder()
+                .title("Fruit")
+                .parentCategory(foodCategory)
+                .build();
+
+        technologyCategory = new Category
+                .Builder()
+                .title("Technology")
+                .build();
+
+        shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(new Product("Apple", 10.0, fruitCategory), 15);
+        shoppingCart.addItem(new Product("Banana", 15.0, fruitCategory), 10);
+
+    }
+
+    @Test
+    public void getMaximumDiscount_successfully() {
+
+        CampaignIndex campaignIndex = CampaignIndex.of(
+                new RateCampaign(fruitCategory, 20.0, 3),
+                new RateCampaign(foodCategory, 50.0, 30),
+                new AmountCampaign(fruitCategory, 60.0, 5),
+                new AmountCampaign(technologyCategory, 1_000.0, 1));
+
+        Assert.assertEquals(4, campaignIndex.size());
+        Assert.assertEquals(6_000, campaignIndex.getMaximumDiscount(shoppingCart.getCategoryTotals()));
+
+    }
+
+    @Test
+    public void getMaximumDiscount_successfully_withManyCampaigns() {
+
+        ICampaign[] campaigns = new ICampaign[5_000];
+        for (int i = 0; i < campaigns.length; i++) {
+            campaigns[i] = i % 2 == 0
+                    ? new RateCampaign(i % 4 == 0 ? foodCategory : fruitCategory, i % 100, i)
+                    : new AmountCampaign(technologyCategory, i, 0);
+        }
+
+        //Applicable campaigns have minimum quantity less than 25, highest rate is %24 of 300
+        Assert.assertEquals(7_200, CampaignIndex.of(campaigns).getMaximumDiscount(shoppingCart.getCategoryTotals()));
+
+    }
+
+    @Test
+    public void getMaximumDiscount_successfully_withNewKindOfCampaign() {
+
+        //Every third product of the category is free, priced by average unit price
+        ICampaign buyTwoGetOneCampaign = new ICampaign() {
+            @Override
+            public Category getCategory() {
+                return fruitCategory;
+            }
+
+            @Override
+            public int getMinQuantityOfProduct() {
+                return 2;
+            }
+
+            @Override
+            public boolean isApplicable(Long quantityOfProduct, int minQuantityOfProduct) {
+                return quantityOfProduct > minQuantityOfProduct;
+            }
+
+            @Override
+            public double getDiscount(double totalPrice) {
+                return 0;
+            }
+
+            @Override
+            public long getDiscountInMinorUnits(long quantityOfCategory, long priceOfCategory) {
+                return quantityOfCategory / 3 * priceOfCategory / quantityOfCategory;
+            }
+        };
+
+        CampaignIndex campaignIndex = CampaignIndex.of(buyTwoGetOneCampaign, new RateCampaign(fruitCategory, 20.0, 3));
+
+        Assert.assertEquals(9_600, campaignIndex.getMaximumDiscount(shoppingCart.getCategoryTotals()));
+
+    }
+
+    @Test
+    public void getMaximumDiscount_notApplicableCampaigns() {
+
+        CampaignIndex campaignIndex = CampaignIndex.of(
+                new RateCampaign(fruitCategory, 20.0, 25),
+                new AmountCampaign(technologyCategory, 1_000.0, 0));
+
+        Assert.assertEquals(0, campaignIndex.getMaximumDiscount(shoppingCart.getCategoryTotals()));
+
+    }
+
+}
@@ -0,0 +1,230 @@
+package discount.campaign;
+
+import cart.Category;
+import cart.Product;
+import cart.ShoppingCart;
+import cart.Taxonomy;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class DiscountSolverTest {
+
+    private Category foodCategory;
+    private Category fruitCategory;
+    private Category citrusCategory;
+    private Category vegetableCategory;
+    private Category technologyCategory;
+    private ICampaign[] campaigns;
+    private ShoppingCart shoppingCart;
+
+    @Before
+    public void init() {
+
+        foodCategory = new Category
+                .Builder()
+                .title("Food")
+                .build();
+
+        fruitCategory = new Category
+                .Builder()
+                .title("Fruit")
+                .parentCategory(foodCategory)
+                .build();
+
+        citrusCategory = new Category
+                .Builder()
+                .title("Citrus")
+                .parentCategory(fruitCategory)
+                .build();
+
+        vegetableCategory = new Category
+                .Builder()
+                .title("Vegetable")
+                .parentCategory(foodCategory)
+                .build();
+
+        technologyCategory = new Category
+                .Builder()
+                .title("Technology")
+                .build();
+
+        campaigns = new ICampaign[]{
+                new RateCampaign(foodCategory, 10.0, 1),
+                new AmountCampaign(fruitCategory, 50.0, 5),
+                new RateCampaign(citrusCategory, 40.0, 2),
+                new AmountCampaign(vegetableCategory, 30.0, 1),
+                new AmountCampaign(technologyCategory, 100.0, 1)
+        };
+
+        //Food: 1000, fruit: 500 with citrus 200, vegetable: 500
+        shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(new Product("Orange", 20.0, citrusCategory), 10);
+        shoppingCart.addItem(new Product("Apple", 50.0, fruitCategory), 6);
+        shoppingCart.addItem(new Product("Carrot", 25.0, vegetableCategory), 20);
+
+    }
+
+    @Test
+    public void solve_successfully_bestSingle() {
+
+        DiscountSolution discountSolution = DiscountSolver.of(StackingPolicy.BEST_SINGLE, campaigns)
+                .solve(shoppingCart.getCategoryTotals());
+
+        Assert.assertEquals(10_000, discountSolution.getTotalDiscountInMinorUnits());
+        Assert.assertEquals(1, discountSolution.getAppliedCampaigns().size());
+        Assert.assertSame(campaigns[0], discountSolution.getAppliedCampaigns().get(0).getCampaign());
+
+    }
+
+    @Test
+    public void solve_successfully_bestNonOverlapping() {
+
+        DiscountSolution discountSolution = DiscountSolver.of(StackingPolicy.BEST_NON_OVERLAPPING, campaigns)
+                .solve(shoppingCart.getCategoryTotals());
+
+        //Fruit: max(fruit 50, citrus 80), food: max(food 100, 80 + vegetable 30)
+        Assert.assertEquals(11_000, discountSolution.getTotalDiscountInMinorUnits());
+        Assert.assertEquals(2, discountSolution.getAppliedCampaigns().size());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(campaigns[2], campaigns[3])), discountSolution.getAppliedCampaigns()
+                .stream()
+                .map(AppliedCampaign::getCampaign)
+                .collect(Collectors.toSet()));
+
+        shoppingCart.addItem(new Product("Lemon", 10.0, citrusCategory), 30);
+        discountSolution = DiscountSolver.of(StackingPolicy.BEST_NON_OVERLAPPING, campaigns)
+                .solve(shoppingCart.getCategoryTotals());
+
+        //Citrus: 500 -> 200, vegetable: 30, food 10% of 1300 = 130
+        Assert.assertEquals(23_000, discountSolution.getTotalDiscountInMinorUnits());
+        Assert.assertEquals(2, discountSolution.getAppliedCampaigns().size());
+        Assert.assertTrue(discountSolution.explain().contains("Citrus"));
+
+    }
+
+    @Test
+    public void solve_successfully_allStackable() {
+
+        DiscountSolution discountSolution = DiscountSolver.of(StackingPolicy.ALL_STACKABLE, campaigns)
+                .solve(shoppingCart.getCategoryTotals());
+
+        //Food 100 + fruit 50 + citrus 80 + vegetable 30
+        Assert.assertEquals(26_000, discountSolution.getTotalDiscountInMinorUnits());
+        Assert.assertEquals(4, discountSolution.getAppliedCampaigns().size());
+
+    }
+
+    @Test
+    public void solve_successfully_allStackableIsCappedAtPriceOfCategory() {
+
+        ShoppingCart citrusCart = new ShoppingCart();
+        citrusCart.addItem(new Product("Orange", 20.0, citrusCategory), 10);
+        DiscountSolution discountSolution = DiscountSolver.of(StackingPolicy.ALL_STACKABLE,
+                new AmountCampaign(citrusCategory, 150.0, 1),
+                new AmountCampaign(fruitCategory, 100.0, 1),
+                new RateCampaign(foodCategory, 10.0, 1))
+                .solve(citrusCart.getCategoryTotals());
+
+        //Citrus 150, fruit only the remaining 50 of 200, food nothing
+        Assert.assertEquals(20_000, discountSolution.getTotalDiscountInMinorUnits());
+        Assert.assertEquals(2, discountSolution.getAppliedCampaigns().size());
+        Assert.assertEquals(5_000, discountSolution.getAppliedCampaigns().get(1).getDiscountInMinorUnits());
+
+    }
+
+    @Test
+    public void solve_successfully_sameAsBruteForce() {
+
+        Category[] categories = {foodCategory, fruitCategory, citrusCategory, vegetableCategory, technologyCategory};
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            ICampaign[] randomCampaigns = new ICampaign[8];
+            for (int i = 0; i < randomCampaigns.length; i++) {
+                Category category = categories[random.nextInt(categories.length)];
+                randomCampaigns[i] = random.nextBoolean()
+                        ? new RateCampaign(category, 1 + random.nextInt(50), random.nextInt(10))
+                        : new AmountCampaign(category, 1 + random.nextInt(100), random.nextInt(10));
+            }
+            ShoppingCart randomCart = new ShoppingCart();
+            for (int line = 0; line < 5; line++) {
+                randomCart.addItem(new Product(line, "product " + line, 1 + random.nextInt(100),
+                        categories[random.nextInt(categories.length)]), 1 + random.nextInt(5));
+            }
+
+            CampaignIndex campaignIndex = CampaignIndex.of(randomCampaigns);
+            Assert.assertEquals(campaignIndex.getMaximumDiscount(randomCart.getCategoryTotals()),
+                    new DiscountSolver(campaignIndex, StackingPolicy.BEST_SINGLE)
+                            .solve(randomCart.getCategoryTotals()).getTotalDiscountInMinorUnits());
+            Assert.assertEquals(bestNonOverlappingByBruteForce(campaignIndex, randomCart, categories),
+                    new DiscountSolver(campaignIndex, StackingPolicy.BEST_NON_OVERLAPPING)
+                            .solve(randomCart.getCategoryTotals()).getTotalDiscountInMinorUnits());
+        }
+
+    }
+
+    @Test
+    public void solve_successfully_withTaxonomy() throws IOException {
+
+        Taxonomy taxonomy = Taxonomy.parse(new StringReader(String.join("\n",
+                "3,2,Citrus",
+                "1,,Food",
+                "2,1,Fruit",
+                "4,1,Vegetable")));
+        Category citrus = taxonomy.getCategory(taxonomy.nodeOf(3));
+        Category fruit = taxonomy.getCategory(taxonomy.nodeOf(2));
+        Category vegetable = taxonomy.getCategory(taxonomy.nodeOf(4));
+        ICampaign[] taxonomyCampaigns = {
+                new RateCampaign(taxonomy.getCategory(taxonomy.nodeOf(1)), 10.0, 1),
+                new AmountCampaign(fruit, 50.0, 5),
+                new RateCampaign(citrus, 40.0, 2),
+                new AmountCampaign(vegetable, 30.0, 1),
+                new AmountCampaign(technologyCategory, 100.0, 1)
+        };
+        ShoppingCart cart = new ShoppingCart();
+        cart.addItem(new Product("Orange", 20.0, citrus), 10);
+        cart.addItem(new Product("Apple", 50.0, fruit), 6);
+        cart.addItem(new Product("Carrot", 25.0, vegetable), 20);
+
+        CampaignIndex campaignIndex = CampaignIndex.of(taxonomyCampaigns);
+        DiscountSolution discountSolution = new DiscountSolver(campaignIndex, StackingPolicy.BEST_NON_OVERLAPPING, taxonomy)
+                .solve(cart.getCategoryTotals());
+
+        Assert.assertEquals(11_000, discountSolution.getTotalDiscountInMinorUnits());
+        Assert.assertEquals(new DiscountSolver(campaignIndex, StackingPolicy.BEST_NON_OVERLAPPING)
+                .solve(cart.getCategoryTotals()).getTotalDiscountInMinorUnits(), discountSolution.getTotalDiscountInMinorUnits());
+
+    }
+
+    /**
+     * Every set of categories where no category is a subcategory of another one
+     */
+    private long bestNonOverlappingByBruteForce(CampaignIndex campaignIndex, ShoppingCart cart, Category[] categories) {
+        long best = 0;
+        for (int set = 0; set < 1 << categories.length; set++) {
+            long discount = 0;
+            boolean overlapping = false;
+            for (int i = 0; i < categories.length; i++) {
+                if ((set & 1 << i) == 0) continue;
+                for (int j = 0; j < categories.length; j++) {
+                    if (i != j && (set & 1 << j) != 0 && categories[i].isSubcategoryOf(categories[j])) overlapping = true;
+                }
+                int entry = campaignIndex.entryOf(categories[i].getId());
+                if (entry < 0) continue;
+                AppliedCampaign campaign = campaignIndex.getBestCampaign(entry,
+                        cart.getCategoryTotals().getQuantityOfCategory(categories[i].getId()),
+                        cart.getCategoryTotals().getPriceOfCategory(categories[i].getId()));
+                if (campaign != null) discount += campaign.getDiscountInMinorUnits();
+            }
+            if (!overlapping) best = Math.max(best, discount);
+        }
+        return best;
+    }
+
+}
@@ -0,0 +1,53 @@
+package money;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+public class MoneyTest {
+
+    @Test
+    public void of_successfully() {
+
+        Assert.assertEquals(1_250_050, Money.of(12_500.50).getMinorUnits());
+        Assert.assertEquals(299, Money.of(2.99).getMinorUnits());
+        Assert.assertEquals(new BigDecimal("0.30"), Money.of(0.1).plus(Money.of(0.2)).toBigDecimal());
+
+    }
+
+    @Test
+    public void of_successfully_withRoundingMode() {
+
+        Assert.assertEquals(101, Money.of(1.005, RoundingMode.HALF_UP).getMinorUnits());
+        Assert.assertEquals(100, Money.of(1.005, RoundingMode.HALF_EVEN).getMinorUnits());
+        Assert.assertEquals(100, Money.of(1.009, RoundingMode.DOWN).getMinorUnits());
+
+    }
+
+    @Test
+    public void percentOf_successfully() {
+
+        Assert.assertEquals(100_000, Money.percentOf(1_000_000, Money.toBasisPoints(10), RoundingMode.HALF_UP));
+        Assert.assertEquals(13, Money.percentOf(125, Money.toBasisPoints(10), RoundingMode.HALF_UP));
+        Assert.assertEquals(12, Money.percentOf(125, Money.toBasisPoints(10), RoundingMode.HALF_EVEN));
+        Assert.assertEquals(-13, Money.percentOf(-125, Money.toBasisPoints(10), RoundingMode.HALF_UP));
+
+    }
+
+    @Test
+    public void percentOf_successfully_withOverflow() {
+
+        Assert.assertEquals(Long.MAX_VALUE / 2, Money.percentOf(Long.MAX_VALUE - 1, Money.toBasisPoints(50), RoundingMode.DOWN));
+
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void divide_roundingUnnecessary_expectedArithmeticException() {
+
+        Money.divide(10, 3, RoundingMode.UNNECESSARY);
+
+    }
+
+}
@@ -0,0 +1,199 @@
+package pricing;
+
+import cart.CartItem;
+import cart.Category;
+import cart.Product;
+import cart.ProductCatalog;
+import cart.ShoppingCart;
+import delivery.DeliveryCostCalculator;
+import discount.campaign.AmountCampaign;
+import discount.campaign.ICampaign;
+import discount.campaign.RateCampaign;
+import discount.coupon.AmountCoupon;
+import discount.coupon.ICoupon;
+import discount.coupon.RateCoupon;
+import exception.NullDataException;
+import money.Money;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public class BulkPricerTest {
+
+    private static final int NUMBER_OF_CARTS = 2_000;
+
+    private Product[] products;
+    private ICampaign[] campaigns;
+    private ICoupon[] coupons;
+
+    @Before
+    public void init() {
+
+        Category foodCategory = new Category
+                .Builder()
+                .title("food")
+                .build();
+
+        Category fruitCategory = new Category
+                .Builder()
+                .title("fruit")
+                .parentCategory(foodCategory)
+                .build();
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Random random = new Random(42);
+        products = new Product[50];
+        for (int i = 0; i < products.length; i++) {
+            Category category = i % 3 == 0 ? foodCategory : i % 3 == 1 ? fruitCategory : technologyCategory;
+            products[i] = new Product(i, "product " + i, 1 + random.nextInt(10_000) / 100.0, category);
+        }
+
+        campaigns = new ICampaign[]{
+                new RateCampaign(foodCategory, 10.0, 5),
+                new AmountCampaign(fruitCategory, 20.0, 3),
+                new RateCampaign(technologyCategory, 15.0, 10)
+        };
+        coupons = new ICoupon[]{new RateCoupon(100, 10.0), new AmountCoupon(50, 5.0)};
+
+    }
+
+    private List<CartItem> randomItems(Random random) {
+        List<CartItem> items = new ArrayList<>();
+        for (int line = random.nextInt(20); line >= 0; line--) {
+            items.add(new CartItem(products[random.nextInt(products.length)], 1 + random.nextInt(5)));
+        }
+        return items;
+    }
+
+    @Test
+    public void priceAll_successfully_sameAsShoppingCart() {
+
+        Random random = new Random(7);
+        List<CartDescription> carts = new ArrayList<>();
+        for (int cartId = 0; cartId < NUMBER_OF_CARTS; cartId++) carts.add(new CartDescription(cartId, randomItems(random)));
+
+        Map<Long, PricingResult> results = new ConcurrentHashMap<>();
+        BulkPricer bulkPricer = new BulkPricer(PricingRules.of(campaigns, coupons), new ForkJoinPool(4));
+        bulkPricer.priceAll(carts.stream(), result -> results.put(result.getCartId(), result));
+
+        Assert.assertEquals(NUMBER_OF_CARTS, results.size());
+        for (CartDescription cart : carts) {
+            ShoppingCart shoppingCart = new ShoppingCart();
+            shoppingCart.addItems(cart.getItems());
+            shoppingCart.applyDiscounts(campaigns);
+            for (ICoupon coupon : coupons) shoppingCart.applyCoupon(coupon);
+
+            PricingResult result = results.get(cart.getCartId());
+            Assert.assertTrue(result.isValid());
+            Assert.assertEquals(shoppingCart.getTotalPriceInMinorUnits(), result.getTotalPriceInMinorUnits());
+            Assert.assertEquals(shoppingCart.getCampaignDiscountInMinorUnits(), result.getCampaignDiscountInMinorUnits());
+            Assert.assertEquals(shoppingCart.getCouponDiscountInMinorUnits(), result.getCouponDiscountInMinorUnits());
+            Assert.assertEquals(shoppingCart.getTotalAmountAfterDiscountsInMinorUnits(), result.getTotalAmountAfterDiscountsInMinorUnits());
+            Assert.assertEquals(shoppingCart.getDeliveryCostInMinorUnits(), result.getDeliveryCostInMinorUnits());
+        }
+
+    }
+
+    @Test
+    public void price_invalidCart_notPriced() {
+
+        BulkPricer bulkPricer = new BulkPricer(PricingRules.of(campaigns, coupons));
+        PricingResult result = bulkPricer.price(new CartDescription(1, Arrays.asList(
+                new CartItem(products[0], 1), new CartItem(products[1], 0))));
+
+        Assert.assertFalse(result.isValid());
+        Assert.assertEquals(1, result.getValidationReport().getErrors().get(0).getPosition());
+        Assert.assertEquals(0, result.getTotalPriceInMinorUnits());
+
+        //Worker cart is cleared for the next cart
+        PricingResult nextResult = bulkPricer.price(new CartDescription(2, Arrays.asList(new CartItem(products[0], 1))));
+        Assert.assertEquals(products[0].getPriceInMinorUnits(), nextResult.getTotalPriceInMinorUnits());
+
+    }
+
+    @Test
+    public void priceAll_successfully_fromLazyStream() {
+
+        BulkPricer bulkPricer = new BulkPricer(PricingRules.of(campaigns));
+        long[] pricedCarts = new long[1];
+        bulkPricer.priceAll(IntStream.range(0, 100).mapToObj(cartId ->
+                        new CartDescription(cartId, Arrays.asList(new CartItem(products[cartId % products.length], 1)))),
+                result -> {
+                    synchronized (pricedCarts) {
+                        pricedCarts[0] += result.isValid() ? 1 : 0;
+                    }
+                });
+
+        Assert.assertEquals(100, pricedCarts[0]);
+
+    }
+
+    @Test
+    public void priceAll_successfully_withDeliveryCostCalculator() {
+
+        List<CartDescription> carts = new ArrayList<>();
+        for (int cartId = 0; cartId < 10 * BulkPricer.CHUNK_SIZE + 1; cartId++) {
+            carts.add(new CartDescription(cartId, Arrays.asList(new CartItem(products[0], 1))));
+        }
+
+        Map<Long, PricingResult> results = new ConcurrentHashMap<>();
+        BulkPricer bulkPricer = new BulkPricer(PricingRules.of(campaigns), new ForkJoinPool(2), new DeliveryCostCalculator(5, 5));
+        bulkPricer.priceAll(carts.stream(), result -> results.put(result.getCartId(), result));
+
+        Assert.assertEquals(carts.size(), results.size());
+        Assert.assertEquals(1_299, results.get(0L).getDeliveryCostInMinorUnits());
+
+    }
+
+    @Test
+    public void price_successfully_withProductCatalogPrices() {
+
+        ProductCatalog productCatalog = new ProductCatalog
+                .Builder()
+                .addProduct(products[0])
+                .build();
+        productCatalog.updatePrice(products[0].getId(), Money.ofMinorUnits(12_345));
+
+        BulkPricer bulkPricer = new BulkPricer(PricingRules.of(new ICampaign[0]), ForkJoinPool.commonPool(), DeliveryCostCalculator.DEFAULT,
+                productCatalog);
+        PricingResult result = bulkPricer.price(new CartDescription(1,
+                Arrays.asList(new CartItem(products[0], 2), new CartItem(products[1], 1))));
+
+        Assert.assertEquals(2 * 12_345 + products[1].getPriceInMinorUnits(), result.getTotalPriceInMinorUnits());
+
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void priceAll_consumerThrows_expectedIllegalStateException() {
+
+        BulkPricer bulkPricer = new BulkPricer(PricingRules.of(campaigns), new ForkJoinPool(2));
+        bulkPricer.priceAll(IntStream.range(0, 1_000).mapToObj(cartId ->
+                        new CartDescription(cartId, Arrays.asList(new CartItem(products[0], 1)))),
+                result -> {
+                    throw new IllegalStateException();
+                });
+
+    }
+
+    @Test(expected = NullDataException.class)
+    public void priceAll_cartsIsNull_expectedNullDataException() {
+
+        new BulkPricer(PricingRules.of(campaigns)).priceAll(null, result -> {
+        });
+
+    }
+
+}
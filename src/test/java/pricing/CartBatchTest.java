@@ -0,0 +1,129 @@
+package pricing;
+
+import cart.CartItem;
+import cart.Category;
+import cart.Product;
+import cart.ShoppingCart;
+import discount.campaign.AmountCampaign;
+import discount.campaign.ICampaign;
+import discount.campaign.RateCampaign;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class CartBatchTest {
+
+    private static final int NUMBER_OF_CARTS = 1_000;
+
+    private Category foodCategory;
+    private Category fruitCategory;
+    private Category technologyCategory;
+    private Product[] products;
+
+    @Before
+    public void init() {
+
+        foodCategory = new Category
+                .Builder()
+                .title("food")
+                .build();
+
+        fruitCategory = new Category
+                .Builder()
+                .title("fruit")
+                .parentCategory(foodCategory)
+                .build();
+
+        technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Random random = new Random(42);
+        products = new Product[30];
+        for (int i = 0; i < products.length; i++) {
+            Category category = i % 3 == 0 ? foodCategory : i % 3 == 1 ? fruitCategory : technologyCategory;
+            products[i] = new Product(i, "product " + i, 1 + random.nextInt(10_000) / 100.0, category);
+        }
+
+    }
+
+    @Test
+    public void getMaximumDiscounts_successfully_sameAsShoppingCart() {
+
+        //Buy more than 4 fruits, get the cheapest fruit price as discount
+        ICampaign fruitCampaign = new AmountCampaign(fruitCategory, 0, 4) {
+            @Override
+            public long getDiscountInMinorUnits(long quantityOfCategory, long priceOfCategory) {
+                return isApplicable(quantityOfCategory) ? priceOfCategory / quantityOfCategory : 0;
+            }
+        };
+        ICampaign[] campaigns = {
+                new RateCampaign(foodCategory, 10.0, 5),
+                new AmountCampaign(foodCategory, 15.0, 2),
+                new AmountCampaign(fruitCategory, 20.0, 3),
+                new RateCampaign(technologyCategory, 15.0, 10),
+                null,
+                fruitCampaign
+        };
+
+        Random random = new Random(7);
+        CartBatch.Builder builder = new CartBatch.Builder();
+        List<List<CartItem>> carts = new ArrayList<>();
+        for (int cartId = 0; cartId < NUMBER_OF_CARTS; cartId++) {
+            List<CartItem> items = new ArrayList<>();
+            for (int line = random.nextInt(10); line > 0; line--) {
+                items.add(new CartItem(products[random.nextInt(products.length)], 1 + random.nextInt(5)));
+            }
+            carts.add(items);
+            Assert.assertTrue(builder.addCart(cartId, items).isValid());
+        }
+        CartBatch cartBatch = builder.build();
+
+        long[] totalPrices = cartBatch.getTotalPrices();
+        long[] maximumDiscounts = cartBatch.getMaximumDiscounts(campaigns);
+
+        Assert.assertEquals(NUMBER_OF_CARTS, cartBatch.size());
+        for (int cart = 0; cart < NUMBER_OF_CARTS; cart++) {
+            ShoppingCart shoppingCart = new ShoppingCart();
+            shoppingCart.addItems(carts.get(cart));
+            shoppingCart.applyDiscounts(campaigns);
+
+            Assert.assertEquals(cart, cartBatch.getCartId(cart));
+            Assert.assertEquals(shoppingCart.getTotalPriceInMinorUnits(), totalPrices[cart]);
+            Assert.assertEquals(shoppingCart.getCampaignDiscountInMinorUnits(), maximumDiscounts[cart]);
+        }
+
+    }
+
+    @Test
+    public void addCart_invalidItems_cartIsNotAdded() {
+
+        CartBatch.Builder builder = new CartBatch.Builder();
+        builder.addCart(1, Arrays.asList(new CartItem(products[0], 2)));
+
+        Assert.assertFalse(builder.addCart(2, Arrays.asList(new CartItem(products[1], 0))).isValid());
+
+        CartBatch cartBatch = builder.build();
+        Assert.assertEquals(1, cartBatch.size());
+        Assert.assertEquals(1, cartBatch.getNumberOfLines());
+        Assert.assertEquals(products[0].getPriceInMinorUnits() * 2, cartBatch.getTotalPrices()[0]);
+
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void getTotalPrices_priceOverflows_expectedArithmeticException() {
+
+        CartBatch.Builder builder = new CartBatch.Builder();
+        builder.addCart(1, Arrays.asList(new CartItem(new Product(1, "gold", Long.MAX_VALUE / 200.0, fruitCategory), 3)));
+
+        builder.build().getTotalPrices();
+
+    }
+
+}
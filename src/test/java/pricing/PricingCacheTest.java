@@ -0,0 +1,142 @@
+package pricing;
+
+import cart.Category;
+import cart.Product;
+import cart.ShoppingCart;
+import delivery.DeliveryCostCalculator;
+import discount.campaign.ICampaign;
+import discount.campaign.RateCampaign;
+import discount.coupon.AmountCoupon;
+import discount.coupon.ICoupon;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PricingCacheTest {
+
+    private Product laptop;
+    private Product phone;
+    private ICampaign[] campaigns;
+    private ICoupon coupon;
+    private PricingRules pricingRules;
+
+    @Before
+    public void init() {
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        laptop = new Product("macbook", 12_500.0, technologyCategory);
+        phone = new Product("iphone", 7_500.0, technologyCategory);
+        campaigns = new ICampaign[]{new RateCampaign(technologyCategory, 10.0, 1)};
+        coupon = new AmountCoupon(100, 50.0);
+        pricingRules = PricingRules.of(campaigns, coupon);
+
+    }
+
+    @Test
+    public void price_successfully_sameAsShoppingCart() {
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(laptop, 1);
+        shoppingCart.addItem(phone, 2);
+
+        PricingResult result = new PricingCache(10).price(1, shoppingCart, pricingRules);
+
+        shoppingCart.applyDiscounts(campaigns);
+        shoppingCart.applyCoupon(coupon);
+        Assert.assertEquals(1, result.getCartId());
+        Assert.assertEquals(shoppingCart.getCampaignDiscountInMinorUnits(), result.getCampaignDiscountInMinorUnits());
+        Assert.assertEquals(shoppingCart.getCouponDiscountInMinorUnits(), result.getCouponDiscountInMinorUnits());
+        Assert.assertEquals(shoppingCart.getTotalAmountAfterDiscountsInMinorUnits(), result.getTotalAmountAfterDiscountsInMinorUnits());
+        Assert.assertEquals(shoppingCart.getDeliveryCostInMinorUnits(), result.getDeliveryCostInMinorUnits());
+
+    }
+
+    @Test
+    public void price_successfully_unchangedCartIsCached() {
+
+        PricingCache pricingCache = new PricingCache(10);
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(laptop, 1);
+
+        PricingResult first = pricingCache.price(1, shoppingCart, pricingRules);
+        Assert.assertSame(first, pricingCache.price(1, shoppingCart, pricingRules));
+
+        shoppingCart.addItem(phone, 1);
+        PricingResult second = pricingCache.price(1, shoppingCart, pricingRules);
+        Assert.assertNotEquals(first.getTotalPriceInMinorUnits(), second.getTotalPriceInMinorUnits());
+
+        //Same items again, in another cart and order
+        ShoppingCart otherCart = new ShoppingCart();
+        otherCart.addItem(phone, 1);
+        otherCart.addItem(laptop, 1);
+        Assert.assertEquals(second.getTotalPriceInMinorUnits(), pricingCache.price(2, otherCart, pricingRules).getTotalPriceInMinorUnits());
+        Assert.assertEquals(2, pricingCache.price(2, otherCart, pricingRules).getCartId());
+
+        //New rules are not priced with results of old rules
+        pricingCache.price(1, shoppingCart, PricingRules.of(campaigns));
+
+        Assert.assertEquals(3, pricingCache.getHits());
+        Assert.assertEquals(3, pricingCache.getMisses());
+        Assert.assertEquals(0, Double.compare(pricingCache.getHitRate(), 0.5));
+
+    }
+
+    @Test
+    public void price_successfully_evictsLeastRecentlyUsed() {
+
+        PricingCache pricingCache = new PricingCache(2);
+        ShoppingCart[] shoppingCarts = new ShoppingCart[3];
+        for (int i = 0; i < shoppingCarts.length; i++) {
+            shoppingCarts[i] = new ShoppingCart();
+            shoppingCarts[i].addItem(laptop, i + 1);
+        }
+
+        pricingCache.price(0, shoppingCarts[0], pricingRules);
+        pricingCache.price(1, shoppingCarts[1], pricingRules);
+        pricingCache.price(0, shoppingCarts[0], pricingRules);
+        pricingCache.price(2, shoppingCarts[2], pricingRules);
+
+        Assert.assertEquals(2, pricingCache.size());
+        Assert.assertEquals(1, pricingCache.getEvictions());
+
+        //Cart 1 has been evicted, cart 0 has been used after it
+        pricingCache.price(0, shoppingCarts[0], pricingRules);
+        Assert.assertEquals(2, pricingCache.getHits());
+        pricingCache.price(1, shoppingCarts[1], pricingRules);
+        Assert.assertEquals(4, pricingCache.getMisses());
+
+    }
+
+    @Test
+    public void price_successfully_otherPriceOrDeliveryCalculatorIsNotCached() {
+
+        PricingCache pricingCache = new PricingCache(10);
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(new Product(1, "iphone", 10.0, laptop.getCategory()), 1);
+        PricingResult first = pricingCache.price(1, shoppingCart, pricingRules);
+
+        ShoppingCart repricedCart = new ShoppingCart();
+        repricedCart.addItem(new Product(1, "iphone", 20.0, laptop.getCategory()), 1);
+        Assert.assertEquals(2_000, pricingCache.price(2, repricedCart, pricingRules).getTotalPriceInMinorUnits());
+
+        ShoppingCart otherDeliveryCart = new ShoppingCart(new DeliveryCostCalculator(5, 5));
+        otherDeliveryCart.addItem(new Product(1, "iphone", 10.0, laptop.getCategory()), 1);
+        PricingResult otherDelivery = pricingCache.price(3, otherDeliveryCart, pricingRules);
+        Assert.assertEquals(first.getTotalPriceInMinorUnits(), otherDelivery.getTotalPriceInMinorUnits());
+        Assert.assertEquals(1_299, otherDelivery.getDeliveryCostInMinorUnits());
+        Assert.assertEquals(499, first.getDeliveryCostInMinorUnits());
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pricingCache_maximumSizeIsInvalid_expectedIllegalArgumentException() {
+
+        new PricingCache(0);
+
+    }
+
+}
@@ -0,0 +1,254 @@
+package store;
+
+import cart.CartItem;
+import cart.Category;
+import cart.Product;
+import cart.ShoppingCart;
+import cart.Taxonomy;
+import cart.ValidationReport;
+import discount.campaign.AmountCampaign;
+import exception.InvalidCartFileException;
+import money.Money;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pricing.CartDescription;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class CartFileTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Category fruitCategory;
+    private Product[] products;
+
+    @Before
+    public void init() {
+
+        Category foodCategory = new Category
+                .Builder()
+                .title("food")
+                .build();
+
+        fruitCategory = new Category
+                .Builder()
+                .title("fruit")
+                .parentCategory(foodCategory)
+                .build();
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        Random random = new Random(42);
+        products = new Product[40];
+        for (int i = 0; i < products.length; i++) {
+            Category category = i % 3 == 0 ? foodCategory : i % 3 == 1 ? fruitCategory : technologyCategory;
+            products[i] = new Product(1_000 - i, "product " + i, 1 + random.nextInt(10_000) / 100.0, category);
+        }
+
+    }
+
+    @Test
+    public void readCart_successfully_sameAsWrittenCarts() throws IOException {
+
+        Random random = new Random(7);
+        List<CartDescription> carts = new ArrayList<>();
+        for (int cartId = 0; cartId < 1_000; cartId++) {
+            List<CartItem> items = new ArrayList<>();
+            for (int line = random.nextInt(10); line >= 0; line--) {
+                items.add(new CartItem(products[random.nextInt(products.length)], 1 + random.nextInt(5)));
+            }
+            carts.add(new CartDescription(cartId * 3L, items));
+        }
+        Collections.shuffle(carts, random);
+
+        Path path = temporaryFolder.newFile("carts.bin").toPath();
+        try (CartFileWriter writer = CartFileWriter.create(path)) {
+            for (CartDescription cart : carts) writer.writeCart(cart.getCartId(), cart.getItems());
+        }
+
+        try (CartFile cartFile = CartFile.open(path)) {
+            Assert.assertEquals(carts.size(), cartFile.getNumberOfCarts());
+            Assert.assertEquals(0, cartFile.getCartId(0));
+            Assert.assertEquals(3, cartFile.getCartId(1));
+
+            for (CartDescription cart : carts) {
+                CartDescription readCart = cartFile.readCart(cart.getCartId());
+                Assert.assertEquals(cart.getItems().toString(), readCart.getItems().toString());
+                Assert.assertEquals(cart.getItems().size(), cartFile.getNumberOfLines(cart.getCartId()));
+
+                ShoppingCart shoppingCart = new ShoppingCart();
+                shoppingCart.addItems(cart.getItems());
+                ShoppingCart readShoppingCart = new ShoppingCart();
+                readShoppingCart.addItems(readCart.getItems());
+                Assert.assertEquals(shoppingCart.getTotalPriceInMinorUnits(), readShoppingCart.getTotalPriceInMinorUnits());
+                Assert.assertEquals(shoppingCart.getTotalPriceInMinorUnits(), cartFile.getTotalPriceInMinorUnits(cart.getCartId()));
+            }
+
+            Assert.assertFalse(cartFile.contains(1));
+            Assert.assertNull(cartFile.readCart(1));
+            Assert.assertEquals(-1, cartFile.getTotalPriceInMinorUnits(1));
+        }
+
+    }
+
+    @Test
+    public void getProduct_successfully_sharedProductsAndCategories() throws IOException {
+
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(products[1], 2);
+        shoppingCart.addItem(products[4], 1);
+
+        Path path = temporaryFolder.newFile("carts.bin").toPath();
+        try (CartFileWriter writer = CartFileWriter.create(path)) {
+            writer.writeCart(5, shoppingCart);
+            ValidationReport validationReport = writer.writeCart(6, Arrays.asList(new CartItem(products[4], 0)));
+            Assert.assertFalse(validationReport.isValid());
+            Assert.assertEquals(1, writer.getNumberOfCarts());
+        }
+
+        try (CartFile cartFile = CartFile.open(path)) {
+            Product product = cartFile.getProduct(products[4].getId());
+            Assert.assertEquals(products[4].getTitle(), product.getTitle());
+            Assert.assertEquals(products[4].getPriceInMinorUnits(), product.getPriceInMinorUnits());
+            Assert.assertEquals("fruit", product.getCategory().getTitle());
+            Assert.assertEquals("food", product.getCategory().getParentCategory().getTitle());
+            Assert.assertSame(product.getCategory(), cartFile.getProduct(products[1].getId()).getCategory());
+            Assert.assertSame(product, cartFile.readCart(5).getItems().stream()
+                    .filter(item -> item.getProduct().getId() == products[4].getId()).findFirst().get().getProduct());
+            Assert.assertNull(cartFile.getProduct(products[0].getId()));
+            Assert.assertFalse(cartFile.contains(6));
+        }
+
+    }
+
+    @Test
+    public void readCart_successfully_linesKeepTheirPriceAndTaxonomyCategory() throws IOException {
+
+        Taxonomy taxonomy = Taxonomy.parse(new StringReader("10,,food\n11,10,fruit\n12,,technology\n"));
+        Category taxonomyFoodCategory = taxonomy.getCategory(taxonomy.nodeOf(10));
+        Category taxonomyFruitCategory = taxonomy.getCategory(taxonomy.nodeOf(11));
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem(new Product(1, "apple", 10.0, taxonomyFruitCategory), 4);
+        ShoppingCart repricedCart = new ShoppingCart();
+        repricedCart.addItem(new Product(1, "apple", 12.5, taxonomyFoodCategory), 2);
+
+        Path path = temporaryFolder.newFile("carts.bin").toPath();
+        try (CartFileWriter writer = CartFileWriter.create(path, taxonomy)) {
+            writer.writeCart(1, shoppingCart);
+            writer.writeCart(2, repricedCart);
+        }
+
+        try (CartFile cartFile = CartFile.open(path, taxonomy)) {
+            Product product = cartFile.readCart(1).getItems().iterator().next().getProduct();
+            Product repricedProduct = cartFile.readCart(2).getItems().iterator().next().getProduct();
+            Assert.assertSame(taxonomyFruitCategory, product.getCategory());
+            Assert.assertEquals(1_000, product.getPriceInMinorUnits());
+            Assert.assertSame(taxonomyFoodCategory, repricedProduct.getCategory());
+            Assert.assertEquals(1_250, repricedProduct.getPriceInMinorUnits());
+            Assert.assertEquals(2_500, cartFile.getTotalPriceInMinorUnits(2));
+
+            //Campaigns of this process match restored carts
+            ShoppingCart readShoppingCart = new ShoppingCart();
+            readShoppingCart.addItems(cartFile.readCart(1).getItems());
+            shoppingCart.applyDiscounts(new AmountCampaign(taxonomyFoodCategory, 5.0, 3));
+            readShoppingCart.applyDiscounts(new AmountCampaign(taxonomyFoodCategory, 5.0, 3));
+            Assert.assertEquals(500, readShoppingCart.getCampaignDiscountInMinorUnits());
+            Assert.assertEquals(shoppingCart.getCampaignDiscountInMinorUnits(), readShoppingCart.getCampaignDiscountInMinorUnits());
+        }
+
+    }
+
+    @Test(expected = InvalidCartFileException.class)
+    public void open_notWrittenWithTaxonomy_expectedInvalidCartFileException() throws IOException {
+
+        Path path = temporaryFolder.newFile("carts.bin").toPath();
+        try (CartFileWriter writer = CartFileWriter.create(path)) {
+            writer.writeCart(1, Arrays.asList(new CartItem(products[0], 1)));
+        }
+        CartFile.open(path, Taxonomy.parse(new StringReader("10,,food\n")));
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void writeCart_categoryIsNotInTaxonomy_expectedIllegalArgumentException() throws IOException {
+
+        Path path = temporaryFolder.newFile("carts.bin").toPath();
+        try (CartFileWriter writer = CartFileWriter.create(path, Taxonomy.parse(new StringReader("10,,food\n")))) {
+            writer.writeCart(1, Arrays.asList(new CartItem(products[0], 1)));
+        }
+
+    }
+
+    @Test
+    public void writeCart_totalPriceOverflows_expectedArithmeticExceptionNothingWritten() throws IOException {
+
+        Path path = temporaryFolder.newFile("carts.bin").toPath();
+        Product expensiveProduct = new Product(1, "expensive", Money.ofMinorUnits(Long.MAX_VALUE / 2), fruitCategory);
+        try (CartFileWriter writer = CartFileWriter.create(path)) {
+            try {
+                writer.writeCart(1, Arrays.asList(new CartItem(expensiveProduct, 3)));
+                Assert.fail();
+            } catch (ArithmeticException e) {
+                //Nothing of the cart is written
+            }
+            writer.writeCart(2, Arrays.asList(new CartItem(products[0], 2)));
+        }
+
+        try (CartFile cartFile = CartFile.open(path)) {
+            Assert.assertEquals(1, cartFile.getNumberOfCarts());
+            Assert.assertNull(cartFile.readCart(1));
+            Assert.assertEquals(products[0].getPriceInMinorUnits() * 2, cartFile.getTotalPriceInMinorUnits(2));
+        }
+
+    }
+
+    @Test
+    public void open_successfully_emptyFile() throws IOException {
+
+        Path path = temporaryFolder.newFile("carts.bin").toPath();
+        CartFileWriter.create(path).close();
+
+        try (CartFile cartFile = CartFile.open(path)) {
+            Assert.assertEquals(0, cartFile.getNumberOfCarts());
+            Assert.assertNull(cartFile.readCart(0));
+        }
+
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void close_sameCartId_expectedIllegalStateException() throws IOException {
+
+        Path path = temporaryFolder.newFile("carts.bin").toPath();
+        try (CartFileWriter writer = CartFileWriter.create(path)) {
+            writer.writeCart(1, Arrays.asList(new CartItem(products[0], 1)));
+            writer.writeCart(2, Arrays.asList(new CartItem(products[1], 1)));
+            writer.writeCart(1, Arrays.asList(new CartItem(products[2], 1)));
+        }
+
+    }
+
+    @Test(expected = InvalidCartFileException.class)
+    public void open_notCartFile_expectedInvalidCartFileException() throws IOException {
+
+        Path path = temporaryFolder.newFile("carts.bin").toPath();
+        Files.write(path, new byte[128]);
+        CartFile.open(path);
+
+    }
+
+}
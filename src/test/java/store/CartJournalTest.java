@@ -0,0 +1,279 @@
+package store;
+
+import cart.Category;
+import cart.Product;
+import discount.campaign.AmountCampaign;
+import discount.campaign.CampaignIndex;
+import discount.coupon.AmountCoupon;
+import exception.InvalidCartLogException;
+import exception.NullDataException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class CartJournalTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+    private Map<Long, Product> products;
+    private Product apple;
+    private Product macBook;
+    private CampaignIndex campaignIndex;
+
+    @Before
+    public void init() throws IOException {
+
+        Category foodCategory = new Category
+                .Builder()
+                .title("food")
+                .build();
+
+        Category technologyCategory = new Category
+                .Builder()
+                .title("technology")
+                .build();
+
+        apple = new Product(1, "apple", 10.0, foodCategory);
+        macBook = new Product(2, "macbook", 12_500.0, technologyCategory);
+        products = new HashMap<>();
+        products.put(apple.getId(), apple);
+        products.put(macBook.getId(), macBook);
+        campaignIndex = CampaignIndex.of(new AmountCampaign(foodCategory, 5.0, 2));
+
+        directory = temporaryFolder.newFolder().toPath();
+
+    }
+
+    private CartJournal open() throws IOException {
+        return new CartJournal
+                .Builder()
+                .directory(directory)
+                .productResolver(products::get)
+                .maxBatchSize(8)
+                .maxCommitDelay(1, TimeUnit.MILLISECONDS)
+                .open();
+    }
+
+    private List<String> files() throws IOException {
+        List<String> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) files.add(file.getFileName().toString());
+        }
+        files.sort(String::compareTo);
+        return files;
+    }
+
+    @Test
+    public void open_successfully_replaysLog() throws IOException, InterruptedException {
+
+        CartJournal journal = open();
+        journal.addItem(1, apple, 3);
+        journal.addItem(1, macBook, 1);
+        journal.addItem(2, apple, 1);
+        journal.updateQuantity(2, apple, 4);
+        journal.addItem(3, macBook, 1);
+        journal.removeItem(1, macBook);
+        journal.clear(3);
+        journal.applyCampaigns(1, campaignIndex);
+        long lsn = journal.applyCoupon(1, new AmountCoupon(10, 2.0));
+        journal.awaitDurable(lsn);
+        journal.close();
+
+        CartJournal recoveredJournal = open();
+        Assert.assertEquals(lsn, recoveredJournal.getLastLsn());
+        Assert.assertEquals(2, recoveredJournal.getNumberOfCarts());
+        Assert.assertEquals(3, recoveredJournal.getSnapshot(1).getShoppingCartItems().get(apple).intValue());
+        Assert.assertNull(recoveredJournal.getSnapshot(1).getShoppingCartItems().get(macBook));
+        Assert.assertEquals(4, recoveredJournal.getSnapshot(2).getShoppingCartItems().get(apple).intValue());
+        Assert.assertNull(recoveredJournal.getSnapshot(3));
+        Assert.assertArrayEquals(new long[]{500, 200, 2_300}, recoveredJournal.getDiscountsInMinorUnits(1));
+
+        Assert.assertEquals(lsn + 1, recoveredJournal.addItem(2, macBook, 1));
+        recoveredJournal.close();
+
+    }
+
+    @Test
+    public void open_successfully_replaysLoggedPrices() throws IOException, InterruptedException {
+
+        CartJournal journal = open();
+        journal.addItem(1, apple, 3);
+        journal.awaitDurable(journal.updateQuantity(2, apple, 2));
+        journal.close();
+
+        //Price of the product is changed before the journal is opened again
+        Product newApple = new Product(apple.getId(), apple.getTitle(), 12.0, apple.getCategory());
+        products.put(apple.getId(), newApple);
+
+        CartJournal recoveredJournal = open();
+        Assert.assertEquals(3_000, recoveredJournal.getSnapshot(1).getTotalPriceInMinorUnits());
+        Assert.assertEquals(2_000, recoveredJournal.getSnapshot(2).getTotalPriceInMinorUnits());
+        Product recoveredApple = recoveredJournal.getSnapshot(1).getShoppingCartItems().keySet().iterator().next();
+        Assert.assertEquals(1_000, recoveredApple.getPriceInMinorUnits());
+        Assert.assertSame(apple.getCategory(), recoveredApple.getCategory());
+        recoveredJournal.close();
+
+    }
+
+    @Test
+    public void checkpoint_successfully_deletesOldLogs() throws IOException, InterruptedException {
+
+        CartJournal journal = open();
+        for (int cartId = 0; cartId < 100; cartId++) journal.addItem(cartId, apple, 1 + cartId % 5);
+        journal.awaitDurable(journal.applyCampaigns(4, campaignIndex));
+        long checkpointLsn = journal.checkpoint();
+        journal.addItem(7, macBook, 2);
+        journal.awaitDurable(journal.getLastLsn());
+
+        Assert.assertEquals(101, checkpointLsn);
+        Assert.assertEquals(2, files().size());
+        Assert.assertEquals(CartJournal.checkpointName(checkpointLsn), files().get(0));
+        Assert.assertEquals(CartJournal.logName(checkpointLsn + 1), files().get(1));
+
+        journal.addItem(8, macBook, 1);
+        journal.checkpoint();
+        journal.close();
+
+        CartJournal recoveredJournal = open();
+        Assert.assertEquals(100, recoveredJournal.getNumberOfCarts());
+        Assert.assertEquals(5, recoveredJournal.getSnapshot(4).getShoppingCartItems().get(apple).intValue());
+        Assert.assertEquals(2, recoveredJournal.getSnapshot(7).getShoppingCartItems().get(macBook).intValue());
+        Assert.assertEquals(1, recoveredJournal.getSnapshot(8).getShoppingCartItems().get(macBook).intValue());
+        Assert.assertArrayEquals(new long[]{500, 0, 4_500}, recoveredJournal.getDiscountsInMinorUnits(4));
+        recoveredJournal.close();
+
+    }
+
+    @Test
+    public void checkpoint_successfully_keepsDiscountsAndResolvedCategories() throws IOException, InterruptedException {
+
+        CartJournal journal = open();
+        journal.addItem(1, apple, 3);
+        journal.addItem(2, apple, 3);
+        journal.applyCampaigns(1, campaignIndex);
+        journal.awaitDurable(journal.applyCoupon(1, new AmountCoupon(10, 2.0)));
+        journal.checkpoint();
+        journal.close();
+
+        //Only the checkpoint is left
+        for (String file : files()) if (file.startsWith(CartJournal.LOG_PREFIX)) Files.delete(directory.resolve(file));
+
+        CartJournal recoveredJournal = open();
+        Assert.assertArrayEquals(new long[]{500, 200, 2_300}, recoveredJournal.getDiscountsInMinorUnits(1));
+        Assert.assertSame(apple, recoveredJournal.getSnapshot(2).getShoppingCartItems().keySet().iterator().next());
+        recoveredJournal.applyCampaigns(2, campaignIndex);
+        Assert.assertArrayEquals(new long[]{500, 0, 2_500}, recoveredJournal.getDiscountsInMinorUnits(2));
+        recoveredJournal.close();
+
+    }
+
+    @Test
+    public void open_successfully_ignoresTornRecord() throws IOException {
+
+        CartJournal journal = open();
+        journal.addItem(1, apple, 1);
+        long lsn = journal.addItem(1, apple, 2);
+        journal.close();
+
+        Path log = directory.resolve(files().get(0));
+        byte[] bytes = Files.readAllBytes(log);
+        //Half of a record written before a crash
+        Files.write(log, new byte[]{0, 0, 0, 29, 1, 2, 3}, StandardOpenOption.APPEND);
+        Assert.assertEquals(bytes.length + 7, Files.size(log));
+
+        CartJournal recoveredJournal = open();
+        Assert.assertEquals(lsn, recoveredJournal.getLastLsn());
+        Assert.assertEquals(3, recoveredJournal.getSnapshot(1).getShoppingCartItems().get(apple).intValue());
+        recoveredJournal.addItem(1, apple, 1);
+        recoveredJournal.close();
+
+        CartJournal reopenedJournal = open();
+        Assert.assertEquals(4, reopenedJournal.getSnapshot(1).getShoppingCartItems().get(apple).intValue());
+        reopenedJournal.close();
+
+    }
+
+    @Test
+    public void awaitDurable_successfully_manyWriters() throws IOException, InterruptedException {
+
+        CartJournal journal = open();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            long cartId = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    for (int change = 0; change < 200; change++) journal.awaitDurable(journal.addItem(cartId, apple, 1));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) thread.join();
+        journal.close();
+
+        CartJournal recoveredJournal = open();
+        Assert.assertEquals(800, recoveredJournal.getLastLsn());
+        for (long cartId = 0; cartId < threads.length; cartId++) {
+            Assert.assertEquals(200, recoveredJournal.getSnapshot(cartId).getShoppingCartItems().get(apple).intValue());
+        }
+        recoveredJournal.close();
+
+    }
+
+    @Test(expected = InvalidCartLogException.class)
+    public void open_unknownProduct_expectedInvalidCartLogException() throws IOException {
+
+        CartJournal journal = open();
+        journal.addItem(1, apple, 1);
+        journal.close();
+
+        products.clear();
+        open();
+
+    }
+
+    @Test(expected = NullDataException.class)
+    public void open_productResolverIsNull_expectedNullDataException() throws IOException {
+
+        new CartJournal
+                .Builder()
+                .directory(directory)
+                .open();
+
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void addItem_closedJournal_expectedIllegalStateException() throws IOException {
+
+        CartJournal journal = open();
+        journal.close();
+        journal.addItem(1, apple, 1);
+
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addItem_generatedId_expectedIllegalArgumentException() throws IOException {
+
+        try (CartJournal journal = open()) {
+            journal.addItem(1, new Product("pear", 5.0, apple.getCategory()), 1);
+        }
+
+    }
+
+}